@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.data.backlog.BacklogRanker;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.util.RankKeys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves random stories to random places in a 50,000 story backlog, by giving the story a rank key
+ * between its new neighbours' the way backlogs do it, and by renumbering every story between its
+ * old and new places the way a position column would need.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BacklogReorderBenchmark {
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"50000"})
+    public int stories;
+
+    private ConfigurableApplicationContext context;
+    private BacklogRanker ranker;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private Project project;
+    private final Random random = new Random(42);
+    private final List<Long> rankedOrder = new ArrayList<>();
+    private final List<Long> numberedOrder = new ArrayList<>();
+
+    @Configuration
+    @Import({PrefixQueryBenchmark.DataConfiguration.class, BacklogRanker.class})
+    static class BacklogConfiguration {
+        @Bean(destroyMethod = "shutdownNow")
+        public ExecutorService backlogExecutor() {
+            return Executors.newSingleThreadExecutor();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BacklogConfiguration.class)
+                .web(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:backlog;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop")
+                .run();
+        ranker = context.getBean(BacklogRanker.class);
+        jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        project = new Project();
+        project.setId(1L);
+        jdbc.update("insert into project (id, name, name_key, short_name) values (1, 'Backlog', 'backlog', 'BL')");
+        jdbc.execute("create table numbered_story (id bigint primary key, position int not null)");
+        jdbc.execute("create index numbered_story_position on numbered_story (position)");
+
+        List<String> keys = RankKeys.spread(stories);
+        List<Object[]> rankedBatch = new ArrayList<>(SEED_BATCH_SIZE);
+        List<Object[]> numberedBatch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < stories; i++) {
+            long id = i + 1L;
+            rankedBatch.add(new Object[] {id, "Story " + i, keys.get(i)});
+            numberedBatch.add(new Object[] {id, i});
+            rankedOrder.add(id);
+            numberedOrder.add(id);
+            if (rankedBatch.size() == SEED_BATCH_SIZE || i == stories - 1) {
+                jdbc.batchUpdate("insert into story (id, project_id, title, backlog_rank, status) values (?, 1, ?, ?, 'TO_DO')", rankedBatch);
+                jdbc.batchUpdate("insert into numbered_story (id, position) values (?, ?)", numberedBatch);
+                rankedBatch.clear();
+                numberedBatch.clear();
+            }
+        }
+        jdbc.execute("analyze");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Story moveByRankKey() {
+        int to = random.nextInt(stories);
+        Long id = rankedOrder.remove(random.nextInt(stories));
+        Long previousId = to == 0 ? null : rankedOrder.get(to - 1);
+        Long nextId = to == rankedOrder.size() ? null : rankedOrder.get(to);
+        rankedOrder.add(to, id);
+
+        Story story = new Story(project, null, null);
+        story.setId(id);
+        return ranker.move(story, previousId, nextId);
+    }
+
+    @Benchmark
+    public int moveByRenumbering() {
+        int from = random.nextInt(stories);
+        int to = random.nextInt(stories);
+        Long id = numberedOrder.remove(from);
+        numberedOrder.add(to, id);
+
+        return transactionTemplate.execute(status -> {
+            int shifted = from < to
+                    ? jdbc.update("update numbered_story set position = position - 1 where position > ? and position <= ?", from, to)
+                    : jdbc.update("update numbered_story set position = position + 1 where position >= ? and position < ?", to, from);
+            return shifted + jdbc.update("update numbered_story set position = ? where id = ?", to, id);
+        });
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
+import management.limbr.data.model.util.SearchKeys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports a million users from H2 as CSV and as JSON lines, into an output stream that throws the
+ * bytes away.
+ *
+ * Run with -jvmArgs -Xmx256m (or -prof gc) to check that the heap stays flat however many rows
+ * there are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BulkExportBenchmark {
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BulkExporter exporter;
+
+    @Configuration
+    @Import({PrefixQueryBenchmark.DataConfiguration.class, BulkExporter.class})
+    static class ExportConfiguration {
+        // the data layer plus the exporter
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ExportConfiguration.class)
+                .web(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop")
+                .run();
+        exporter = context.getBean(BulkExporter.class);
+
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            String username = "User" + i;
+            batch.add(new Object[] {(long)i + 1, username, SearchKeys.normalize(username), "User Number " + i, "",
+                    username + "@limbr.management"});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows - 1) {
+                jdbc.batchUpdate("insert into user (id, username, username_key, display_name, password_hash, email_address) "
+                        + "values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long exportCsv() throws IOException {
+        return exporter.exportUsers(RecordFormat.CSV, new DiscardingOutputStream());
+    }
+
+    @Benchmark
+    public long exportJsonLines() throws IOException {
+        return exporter.exportUsers(RecordFormat.JSON, new DiscardingOutputStream());
+    }
+
+    private static class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            // thrown away
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            // thrown away
+        }
+    }
+}
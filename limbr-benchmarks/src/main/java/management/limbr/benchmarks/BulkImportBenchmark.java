@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.auth.PasswordHasher;
+import management.limbr.data.bulk.BulkImportProperties;
+import management.limbr.data.bulk.BulkImporter;
+import management.limbr.data.bulk.CsvRecordReader;
+import management.limbr.data.bulk.ImportResult;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a million generated users from CSV into H2, the way the start-up import does it.
+ *
+ * The CSV is generated as it's read, so the only memory the import can use is its own; run with
+ * -jvmArgs -Xmx256m to check that it doesn't grow with the number of rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BulkImportBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BulkImporter importer;
+    private JdbcTemplate jdbc;
+
+    @Configuration
+    @Import({PrefixQueryBenchmark.DataConfiguration.class, BulkImporter.class, PasswordHasher.class})
+    @EnableConfigurationProperties(BulkImportProperties.class)
+    static class ImportConfiguration {
+        // the data layer plus the importer
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ImportConfiguration.class)
+                .web(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.id.new_generator_mappings=true",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "limbr.import.batch-size=1000")
+                .run();
+        importer = context.getBean(BulkImporter.class);
+        jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUsers() {
+        jdbc.execute("delete from user");
+    }
+
+    @Benchmark
+    public ImportResult importUsers() throws IOException {
+        try (CsvRecordReader records = new CsvRecordReader(new GeneratedUsers(rows))) {
+            ImportResult result = importer.importUsers(records);
+            System.out.println();
+            System.out.println(result);
+            return result;
+        }
+    }
+
+    /**
+     * A users CSV that's written one line at a time as it's read.
+     */
+    private static class GeneratedUsers extends Reader {
+        private final int rows;
+        private int row = -1;
+        private String line = "username,displayName,passwordHash,emailAddress\n";
+        private int position;
+
+        GeneratedUsers(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == line.length()) {
+                if (row + 1 == rows) {
+                    return -1;
+                }
+                row++;
+                line = "user" + row + ",User Number " + row + ",e9bb0f231e2f35658dda443345a46f5d,user" + row
+                        + "@limbr.management\n";
+                position = 0;
+            }
+            int count = Math.min(length, line.length() - position);
+            line.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
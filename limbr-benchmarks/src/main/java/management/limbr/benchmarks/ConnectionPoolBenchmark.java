@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.data.UserRepository;
+import management.limbr.data.model.User;
+import management.limbr.data.model.util.SearchKeys;
+import management.limbr.data.pool.ConnectionPoolConfiguration;
+import management.limbr.data.pool.ConnectionPoolMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 500 sessions at once, each loading a page of users as fast as it can, against the production
+ * profile's file-backed H2 and connection pool.
+ *
+ * After each iteration the pool's figures are printed. The pool isn't the bottleneck as long as
+ * the average wait for a connection stays a small part of the time per page; compare poolSize 10
+ * with 40 to see what a starved pool looks like.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(500)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+    private static final int USERS = 10000;
+    private static final int PAGE_SIZE = 50;
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"10", "40"})
+    public int poolSize;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+    private UserRepository repository;
+    private ConnectionPoolMetrics metrics;
+
+    @Configuration
+    @Import({PrefixQueryBenchmark.DataConfiguration.class, ConnectionPoolConfiguration.class})
+    static class PoolConfiguration {
+        // the data layer with its pool metrics
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("limbr-pool");
+        context = new SpringApplicationBuilder(PoolConfiguration.class)
+                .web(false)
+                .profiles("production")
+                // as arguments, so they win over the profile's own settings
+                .run("--limbr.data-dir=" + dataDir,
+                        "--spring.datasource.max-active=" + poolSize,
+                        "--spring.datasource.max-idle=" + poolSize,
+                        "--spring.datasource.min-idle=" + poolSize,
+                        "--spring.datasource.initial-size=" + poolSize);
+        repository = context.getBean(UserRepository.class);
+        metrics = context.getBean(ConnectionPoolMetrics.class);
+
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < USERS; i++) {
+            String username = "User" + i;
+            batch.add(new Object[] {(long)i + 1, username, SearchKeys.normalize(username), "User Number " + i, "",
+                    username + "@limbr.management"});
+            if (batch.size() == SEED_BATCH_SIZE || i == USERS - 1) {
+                jdbc.batchUpdate("insert into user (id, username, username_key, display_name, password_hash, email_address) "
+                        + "values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetMetrics() {
+        metrics.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printMetrics() {
+        System.out.println();
+        System.out.println("pool size " + poolSize + ": " + metrics);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<User> loadPage() {
+        int page = ThreadLocalRandom.current().nextInt(USERS / PAGE_SIZE);
+        return repository.findAllPaged(new PageRequest(page, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.auth.PasswordHasher;
+import management.limbr.auth.PasswordProperties;
+import management.limbr.data.model.User;
+import management.limbr.data.model.util.EntityUtil;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.ui.entity.EntityEditorPresenter;
+import management.limbr.ui.entity.EntityEditorView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a user in the editor and saves it, with an in-memory view and repository in place of
+ * Vaadin and the database. Mockito isn't used because it records every call, which would be
+ * measured too and would eventually run out of memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityEditorPresenterBenchmark {
+    private User user;
+    private EntityEditorPresenter<User> presenter;
+    private StaticApplicationContext applicationContext;
+
+    public static class StubEditorView implements EntityEditorView<User> {
+        private final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public <U> void setFieldValue(String name, U value) {
+            values.put(name, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> U getFieldValue(Class<U> valueClass, String name) {
+            return (U)values.get(name);
+        }
+
+        @Override
+        public void setDeleteVisible(boolean visible) {
+            // nothing to show
+        }
+
+        @Override
+        public void confirmDelete(User entity) {
+            // nothing to show
+        }
+
+        @Override
+        public void show() {
+            // nothing to show
+        }
+
+        @Override
+        public void hide() {
+            // nothing to hide
+        }
+    }
+
+    private static class BenchmarkPresenter extends EntityEditorPresenter<User> {
+        BenchmarkPresenter(JpaRepository<User, Long> repository) {
+            // metrics as they'd be in production, so their cost shows up here
+            super(repository, new EntityUtil(), new PasswordHasher(new PasswordProperties()),
+                    new MetricsRegistry(new MetricsProperties()));
+        }
+
+        @Override
+        protected Class<? extends EntityEditorView<User>> getViewBeanClass() {
+            return StubEditorView.class;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        user = new User("admin", "Administrator", "e9bb0f231e2f35658dda443345a46f5d", "admin@limbr.management");
+        user.setId(1L);
+
+        applicationContext = new StaticApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton("userEditorView", new StubEditorView());
+        applicationContext.refresh();
+
+        presenter = new BenchmarkPresenter(repositoryFor(user));
+        presenter.setApplicationContext(applicationContext);
+        presenter.edit(user);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public EntityEditorPresenter<User> edit() {
+        presenter.edit(user);
+        return presenter;
+    }
+
+    @Benchmark
+    public EntityEditorPresenter<User> save() {
+        presenter.save();
+        return presenter;
+    }
+
+    /**
+     * A repository that only knows the one user.
+     */
+    @SuppressWarnings("unchecked")
+    private static JpaRepository<User, Long> repositoryFor(User user) {
+        return (JpaRepository<User, Long>)Proxy.newProxyInstance(JpaRepository.class.getClassLoader(),
+                new Class<?>[] {JpaRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findOne":
+                            return user.getId().equals(args[0]) ? user : null;
+                        case "save":
+                            return args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "repository for " + user.getUsername();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.benchmarks.baseline.ReflectiveToString;
+import management.limbr.data.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BaseEntity.toString next to the old reflective version. Run with -prof gc to see allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityToStringBenchmark {
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("admin", "Administrator", "e9bb0f231e2f35658dda443345a46f5d", "admin@limbr.management");
+        user.setId(1L);
+    }
+
+    @Benchmark
+    public String entityToString() {
+        return user.toString();
+    }
+
+    @Benchmark
+    public String entityToStringReflective() {
+        return ReflectiveToString.toString(user);
+    }
+}
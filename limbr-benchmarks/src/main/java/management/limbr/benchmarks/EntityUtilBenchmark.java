@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.benchmarks.baseline.ReflectiveEntityUtil;
+import management.limbr.data.model.User;
+import management.limbr.data.model.util.EntityUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getter, setter and display name lookups, each next to the old reflective version.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityUtilBenchmark {
+    private EntityUtil entityUtil;
+    private ReflectiveEntityUtil reflectiveEntityUtil;
+    private User user;
+    private String displayName;
+
+    @Setup
+    public void setUp() {
+        entityUtil = new EntityUtil();
+        reflectiveEntityUtil = new ReflectiveEntityUtil();
+        user = new User("admin", "Administrator", "", "admin@limbr.management");
+        user.setId(1L);
+        displayName = "Someone Else";
+    }
+
+    @Benchmark
+    public Object callGetter() {
+        return entityUtil.callGetter(user, "displayName");
+    }
+
+    @Benchmark
+    public Object callGetterReflective() {
+        return reflectiveEntityUtil.callGetter(user, "displayName");
+    }
+
+    @Benchmark
+    public User callSetter() {
+        entityUtil.callSetter(user, "displayName", displayName);
+        return user;
+    }
+
+    @Benchmark
+    public User callSetterReflective() {
+        reflectiveEntityUtil.callSetter(user, "displayName", displayName);
+        return user;
+    }
+
+    @Benchmark
+    public String getDisplayName() {
+        return entityUtil.getDisplayName(user);
+    }
+
+    @Benchmark
+    public String getDisplayNameReflective() {
+        return reflectiveEntityUtil.getDisplayName(user);
+    }
+}
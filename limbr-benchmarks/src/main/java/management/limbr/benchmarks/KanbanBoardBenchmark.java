@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryStatus;
+import management.limbr.data.model.util.RankKeys;
+import management.limbr.ui.kanban.CardDelta;
+import management.limbr.ui.kanban.KanbanBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates a 500 card board: patching in one moved card, patching in a burst of changes as if a
+ * room full of people were at it at once, and showing every card again the way a board that
+ * rebuilt itself on each change would.
+ *
+ * How many components each would send to the browser is printed during setup; what reaches the
+ * browser is those components' state, so it's what bytes per update grow with. The time from a
+ * change being committed to its board being patched is published in production as
+ * limbr_kanban_update_seconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KanbanBoardBenchmark {
+    private static final StoryStatus[] STATUSES = StoryStatus.values();
+
+    @Param({"500"})
+    public int cards;
+
+    @Param({"30"})
+    public int burst;
+
+    private final Random random = new Random(42);
+    private List<Story> stories;
+    private List<String> ranks;
+    private KanbanBoard board;
+
+    @Setup
+    public void setUp() {
+        ranks = RankKeys.spread(cards * 2);
+        stories = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            Story story = new Story(null, "Story " + i, ranks.get(i * 2));
+            story.setId((long)i);
+            story.setStatus(STATUSES[i % STATUSES.length]);
+            stories.add(story);
+        }
+        board = new KanbanBoard((status, count) -> status + " (" + count + ")");
+        board.show(stories);
+
+        System.out.println();
+        System.out.println("components sent: one move " + patchOneMove().getRepainted()
+                + ", a burst of " + burst + " changes " + patchBurst().getRepainted()
+                + ", a rebuild " + (cards + STATUSES.length * 2));
+    }
+
+    @Benchmark
+    public KanbanBoard.Patch patchOneMove() {
+        return board.apply(Collections.singletonList(randomMove()));
+    }
+
+    @Benchmark
+    public KanbanBoard.Patch patchBurst() {
+        List<CardDelta> deltas = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) {
+            deltas.add(randomMove());
+        }
+        return board.apply(deltas);
+    }
+
+    @Benchmark
+    public KanbanBoard rebuild() {
+        randomMove();
+        board.show(stories);
+        return board;
+    }
+
+    private CardDelta randomMove() {
+        Story story = stories.get(random.nextInt(cards));
+        story.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        story.setRank(ranks.get(random.nextInt(ranks.size())));
+        return CardDelta.changed(story, System.nanoTime());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.auth.LegacyMd5Algorithm;
+import management.limbr.auth.PasswordHasher;
+import management.limbr.auth.PasswordProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes and checks a password with each algorithm, at the default work factor. Slow hashes are
+ * slow on purpose; this shows how slow, which is what the credential executor's size should be
+ * worked out from.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({LegacyMd5Algorithm.ID, PasswordHasher.PBKDF2_SHA256, PasswordHasher.PBKDF2_SHA512})
+    public String algorithm;
+
+    private PasswordHasher hasher;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        PasswordProperties properties = new PasswordProperties();
+        properties.setAlgorithm(algorithm);
+        hasher = new PasswordHasher(properties);
+        storedHash = hasher.hash("admin", PASSWORD);
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash("admin", PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return hasher.matches("admin", PASSWORD, storedHash);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.data.UserRepository;
+import management.limbr.data.model.User;
+import management.limbr.data.model.util.SearchKeys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters a seeded H2 user table by username prefix, through the indexed search key the way the
+ * users list does it now and through upper(username) like upper(?) the way it used to.
+ *
+ * The query plans for both are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefixQueryBenchmark {
+    private static final String FILTER = "User4242";
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository repository;
+    private EntityManagerFactory entityManagerFactory;
+    private Pageable firstPage;
+
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        // only the data layer; no Vaadin, no default users
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataConfiguration.class)
+                .web(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop")
+                .run();
+        repository = context.getBean(UserRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        firstPage = new PageRequest(0, 50);
+
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            String username = "User" + i;
+            batch.add(new Object[] {(long)i + 1, username, SearchKeys.normalize(username), "User Number " + i, "",
+                    username + "@limbr.management"});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows - 1) {
+                jdbc.batchUpdate("insert into user (id, username, username_key, display_name, password_hash, email_address) "
+                        + "values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbc.execute("analyze");
+
+        System.out.println();
+        printPlan(jdbc, "select * from user where username_key like '" + SearchKeys.normalize(FILTER) + "%' limit 50");
+        printPlan(jdbc, "select * from user where upper(username) like upper('" + FILTER + "%') limit 50");
+    }
+
+    private static void printPlan(JdbcTemplate jdbc, String sql) {
+        System.out.println(sql);
+        jdbc.queryForList("explain " + sql, String.class).forEach(plan -> System.out.println("    " + plan.replace("\n", "\n    ")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> searchKeyPrefix() {
+        return repository.findByUsernameKeyStartsWith(SearchKeys.normalize(FILTER), firstPage);
+    }
+
+    @Benchmark
+    public long searchKeyPrefixCount() {
+        return repository.countByUsernameKeyStartsWith(SearchKeys.normalize(FILTER));
+    }
+
+    @Benchmark
+    public List<User> ignoreCasePrefix() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager
+                    .createQuery("select u from User u where upper(u.username) like upper(:prefix)", User.class)
+                    .setParameter("prefix", FILTER + "%")
+                    .setMaxResults(50)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public long ignoreCasePrefixCount() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager
+                    .createQuery("select count(u) from User u where upper(u.username) like upper(:prefix)", Long.class)
+                    .setParameter("prefix", FILTER + "%")
+                    .getSingleResult();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.data.StoryRepository;
+import management.limbr.data.model.BaseEntity;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryStatus;
+import management.limbr.data.progress.SprintDay;
+import management.limbr.data.progress.SprintProgress;
+import management.limbr.data.progress.SprintProgressRecorder;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a ten day sprint's burndown from its snapshots, the way it's done, and by replaying the
+ * history of its stories, the way it'd have to be done without them; and changes a story's status,
+ * which brings the snapshot up to date in the same transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SprintProgressBenchmark {
+    private static final int DAYS = 10;
+    private static final StoryStatus[] STATUSES = StoryStatus.values();
+
+    @Param({"500"})
+    public int stories;
+
+    private ConfigurableApplicationContext context;
+    private SprintProgress progress;
+    private StoryRepository storyRepository;
+    private final Random random = new Random(42);
+
+    @Configuration
+    @Import({PrefixQueryBenchmark.DataConfiguration.class, SprintProgressRecorder.class, SprintProgress.class})
+    static class ProgressConfiguration {
+        @Bean
+        public MetricsRegistry metricsRegistry() {
+            return new MetricsRegistry(new MetricsProperties());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProgressConfiguration.class)
+                .web(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:progress;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop")
+                .run();
+        progress = context.getBean(SprintProgress.class);
+        storyRepository = context.getBean(StoryRepository.class);
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+
+        LocalDate start = LocalDate.now().minusDays(DAYS - 1L);
+        jdbc.update("insert into project (id, name, name_key, short_name) values (1, 'Progress', 'progress', 'PR')");
+        jdbc.update("insert into sprint (id, project_id, name, start_date, end_date) values (1, 1, 'Sprint', ?, ?)",
+                Date.valueOf(start), Date.valueOf(LocalDate.now()));
+
+        // every story is added on the first day and moves along a status a day, about every other day
+        List<Object[]> storyRows = new ArrayList<>(stories);
+        List<Object[]> historyRows = new ArrayList<>();
+        long historyId = 1;
+        for (int i = 0; i < stories; i++) {
+            long id = i + 1L;
+            int points = 1 + random.nextInt(8);
+            int status = 0;
+            historyRows.add(new Object[] {historyId++, id, Timestamp.valueOf(start.atTime(9, 0)), STATUSES[status].name(), points});
+            for (int day = 1; day < DAYS && status < STATUSES.length - 1; day++) {
+                if (random.nextBoolean()) {
+                    status++;
+                    historyRows.add(new Object[] {historyId++, id, Timestamp.valueOf(start.plusDays(day).atTime(9, 0)),
+                            STATUSES[status].name(), points});
+                }
+            }
+            storyRows.add(new Object[] {id, "Story " + i, String.format("%05d", i + 1), STATUSES[status].name(), points});
+        }
+        jdbc.batchUpdate("insert into story (id, project_id, sprint_id, title, backlog_rank, status, points) values (?, 1, 1, ?, ?, ?, ?)", storyRows);
+        jdbc.batchUpdate("insert into story_history (id, story_id, sprint_id, changed_at, status, points, deleted) values (?, ?, 1, ?, ?, ?, false)", historyRows);
+        // past the seeded rows, pooled ids and all, so recorded changes don't reuse their ids
+        jdbc.execute("alter sequence story_history_id_sequence restart with " + (historyId + BaseEntity.ID_ALLOCATION_SIZE));
+        jdbc.execute("analyze");
+        progress.backfill(1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SprintDay> readSnapshots() {
+        return progress.getDays(1L);
+    }
+
+    @Benchmark
+    public SortedMap<LocalDate, SprintDay> replayHistory() {
+        return progress.recompute(1L);
+    }
+
+    @Benchmark
+    public Story changeStatus() {
+        Story story = storyRepository.findOne(1L + random.nextInt(stories));
+        story.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        return storyRepository.save(story);
+    }
+}
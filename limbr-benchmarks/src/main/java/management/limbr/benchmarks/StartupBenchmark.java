@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks;
+
+import management.limbr.LimbrApplication;
+import management.limbr.startup.StartupTimer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from starting Limbr until it has answered its first request, against the production
+ * profile's file-backed H2, both when the database is new ("empty", so the defaults are loaded)
+ * and when it already has them ("seeded", so they're only checked for).
+ *
+ * Each fork starts Limbr once, in a fresh JVM, so class loading is part of what's measured. The
+ * startup report with each phase's time is printed after each run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+    @Param({"empty", "seeded"})
+    public String database;
+
+    private Path dataDir;
+    private StartupTimer timer;
+    private ConfigurableApplicationContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("limbr-startup");
+        if ("seeded".equals(database)) {
+            start().close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.println();
+        System.out.println(timer.getReport());
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int startAndServeFirstRequest() throws IOException {
+        context = start();
+        int port = ((EmbeddedWebApplicationContext)context).getEmbeddedServletContainer().getPort();
+        HttpURLConnection connection = (HttpURLConnection)new URL("http://localhost:" + port + "/").openConnection();
+        try (InputStream body = connection.getInputStream()) {
+            while (body.read() != -1) {
+                // read it all, as a browser would
+            }
+        }
+        return connection.getResponseCode();
+    }
+
+    private ConfigurableApplicationContext start() {
+        SpringApplication application = new SpringApplication(LimbrApplication.class);
+        application.setAdditionalProfiles("production");
+        timer = StartupTimer.attachTo(application);
+        return application.run("--limbr.data-dir=" + dataDir, "--server.port=0");
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks.baseline;
+
+import management.limbr.data.model.BaseEntity;
+import management.limbr.data.model.DisplayName;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * EntityUtil's getters and setters as they were before PropertyAccessors, looking methods up by
+ * name on every call. Kept only so the benchmarks have something to compare against.
+ */
+public class ReflectiveEntityUtil {
+    public String getDisplayName(BaseEntity entity) {
+        if (entity == null) {
+            return "null";
+        }
+
+        for (Field field : entity.getClass().getDeclaredFields()) {
+            if (field.getAnnotation(DisplayName.class) != null) {
+                Object value = callGetter(entity, field.getName());
+                if (value == null) {
+                    return "null";
+                } else {
+                    return value.toString();
+                }
+            }
+        }
+
+        return entity.getClass().getSimpleName();
+    }
+
+    public Object callGetter(BaseEntity entity, String fieldName) {
+        Method getter;
+        try {
+            getter = entity.getClass().getDeclaredMethod("get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
+        } catch (NoSuchMethodException ex1) {
+            try {
+                getter = entity.getClass().getDeclaredMethod("is" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
+            } catch (NoSuchMethodException ex2) {
+                return null;
+            }
+        }
+
+        try {
+            return getter.invoke(entity);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            return entity;
+        }
+    }
+
+    public void callSetter(BaseEntity entity, String fieldName, Object value) {
+        Method setter;
+        try {
+            setter = entity.getClass().getDeclaredMethod("set" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1), value.getClass());
+        } catch (NoSuchMethodException ex) {
+            return;
+        }
+
+        try {
+            setter.invoke(entity, value);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            // ignored, like the original
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.benchmarks.baseline;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * BaseEntity.toString as it was before EntityFormatter, reflecting over every getter on every
+ * call. Kept only so the benchmarks have something to compare against.
+ */
+public class ReflectiveToString {
+    protected ReflectiveToString() {
+        // do not instantiate
+    }
+
+    public static String toString(Object entity) {
+        StringBuilder builder = new StringBuilder();
+
+        Class clazz = entity.getClass();
+
+        builder.append("{class:\"");
+        builder.append(clazz.getTypeName());
+        builder.append("\",");
+
+        Method[] methods = clazz.getMethods();
+        Arrays.sort(methods,
+                (Method a, Method b) -> methodNameToFieldName(a.getName()).compareTo(methodNameToFieldName(b.getName())));
+
+        for (Method method : methods) {
+            String methodName = method.getName();
+            boolean isProbablyGetter = methodName.startsWith("get")
+                    || methodName.startsWith("is")
+                    || methodName.startsWith("has");
+
+            if (isProbablyGetter && !("hashCode".equals(methodName) || "getClass".equals(methodName))) {
+                try {
+                    String value = safeValue(method.invoke(entity));
+                    builder.append(methodNameToFieldName(methodName));
+                    builder.append(':');
+                    builder.append(value);
+                    builder.append(',');
+                } catch (IllegalAccessException | InvocationTargetException ex) {
+                    // skipped, like the original
+                }
+            }
+        }
+
+        if (builder.charAt(builder.length() - 1) == ',') {
+            builder.deleteCharAt(builder.length() - 1);
+        }
+
+        builder.append("}");
+
+        return builder.toString();
+    }
+
+    private static String safeValue(Object object) {
+        if (object == null) {
+            return "null";
+        }
+
+        if (object instanceof String) {
+            return "\"" + object.toString().replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+        }
+
+        return object.toString();
+    }
+
+    private static String methodNameToFieldName(String methodName) {
+        String theRest;
+        if (methodName.startsWith("get") || methodName.startsWith("has")) {
+            theRest = methodName.substring(3);
+        } else if (methodName.startsWith("is")) {
+            theRest = methodName.substring(2);
+        } else {
+            theRest = methodName;
+        }
+
+        StringBuilder response = new StringBuilder();
+        response.append(theRest.substring(0, 1).toLowerCase());
+        if (theRest.length() > 1) {
+            response.append(theRest.substring(1));
+        }
+
+        return response.toString();
+    }
+}
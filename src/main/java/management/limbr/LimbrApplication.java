@@ -19,28 +19,33 @@
 
 package management.limbr;
 
-import management.limbr.data.RoleRepository;
-import management.limbr.data.UserRepository;
-import management.limbr.data.model.Role;
-import management.limbr.data.model.RoleTypes;
-import management.limbr.data.model.User;
-import management.limbr.data.model.util.EntityUtil;
+import management.limbr.auth.PasswordProperties;
+import management.limbr.data.DefaultDataLoader;
+import management.limbr.startup.StartupTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.vaadin.spring.i18n.MessageProvider;
 import org.vaadin.spring.i18n.ResourceBundleMessageProvider;
 import org.vaadin.spring.i18n.annotation.EnableI18N;
 
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @SpringBootApplication
 @EnableI18N
 public class LimbrApplication {
 
     private static final Logger LOG = LoggerFactory.getLogger(LimbrApplication.class);
 
+    private static final int EXPORT_THREADS = 2;
+    private static final int EXPORT_QUEUE_SIZE = 8;
+
     public static String getApplicationName() {
         return "Limbr";
     }
@@ -48,27 +53,132 @@ public class LimbrApplication {
     @SuppressWarnings("squid:S2095") // don't need to close the application context, it'll stick around 'til we die
     public static void main(String[] args) {
         LOG.info("Limbr is starting up.");
-        SpringApplication.run(LimbrApplication.class, args);
+        SpringApplication application = new SpringApplication(LimbrApplication.class);
+        StartupTimer.attachTo(application);
+        application.run(args);
         LOG.info("Limbr is running.");
     }
 
     @Bean
-    public CommandLineRunner loadDefaultUser(UserRepository repository) {
+    public CommandLineRunner loadDefaults(DefaultDataLoader defaultDataLoader) {
         return args -> {
-            EntityUtil entityUtil = new EntityUtil();
-            repository.save(new User("admin", "Admin", entityUtil.generatePasswordHash("admin", "admin"), "admin@limbr.management"));
+            try {
+                if (!defaultDataLoader.loadIfEmpty()) {
+                    // a database that outlives the application (see application-production.properties)
+                    LOG.info("The database already has data in it, so the defaults weren't loaded.");
+                }
+            } catch (DataIntegrityViolationException ex) {
+                LOG.info("Another instance loaded the defaults first ({}).", ex.getMostSpecificCause().getMessage());
+            }
         };
     }
 
-    @Bean
-    public CommandLineRunner loadDefaultRoles(RoleRepository repository) {
-        return args -> {
-            repository.save(new Role("Administrator", RoleTypes.ADMIN));
-            repository.save(new Role("Manager", RoleTypes.MANAGER));
-            repository.save(new Role("Lead", RoleTypes.LEAD));
-            repository.save(new Role("Developer", RoleTypes.DEVELOPER));
-            repository.save(new Role("Viewer", RoleTypes.VIEWER));
-        };
+    /**
+     * Runs the list view filter queries, so they don't hold up the session while the user is typing.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Lazy
+    public ScheduledExecutorService filterExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "limbr-filter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs exports, a few at a time; more than that wait in line, and beyond the line they're refused.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Lazy
+    public ExecutorService exportExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(EXPORT_THREADS, EXPORT_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPORT_QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "limbr-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks log ins, so hashing passwords never holds a session lock. Bounded so a rush of log ins
+     * can't take over the machine; past the queue they're turned away.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Lazy
+    public ExecutorService credentialExecutor(PasswordProperties properties) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(properties.getVerifyThreads(), properties.getVerifyThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getVerifyQueueSize()), runnable -> {
+            Thread thread = new Thread(runnable, "limbr-credentials-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gives backlogs fresh rank keys when theirs get long, one backlog at a time.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Lazy
+    public ExecutorService backlogExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "limbr-backlog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends open boards what's changed on them, a short while after the first change.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Lazy
+    public ScheduledExecutorService kanbanExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "limbr-kanban");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes changes to the search index, one batch after another, and commits it now and then.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService searchExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "limbr-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes the audit log, a batch at a time.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Lazy
+    public ExecutorService auditExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "limbr-audit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Measures the open UIs now and then, and releases what idle ones are holding on to.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService sessionScanExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "limbr-session-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Bean
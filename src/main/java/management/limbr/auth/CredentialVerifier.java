@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import com.vaadin.spring.annotation.SpringComponent;
+import management.limbr.data.UserRepository;
+import management.limbr.data.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Checks log ins on the credential executor, so the slow hashing never holds up a session, and
+ * upgrades each user's hash to the configured algorithm and work factor when they log in.
+ *
+ * The executor is bounded: when too many log ins are already waiting, more are turned away
+ * straight away rather than piling up.
+ */
+@SpringComponent
+@Lazy // made when the first log in view is
+public class CredentialVerifier {
+    private static final Logger LOG = LoggerFactory.getLogger(CredentialVerifier.class);
+
+    private final UserRepository repository;
+    private final PasswordHasher hasher;
+    private final ExecutorService executor;
+    // checked against when there's no such user, so that takes as long as a wrong password does
+    private final String decoyHash;
+
+    @Autowired
+    public CredentialVerifier(UserRepository repository, PasswordHasher hasher,
+                              @Qualifier("credentialExecutor") ExecutorService executor) {
+        this.repository = repository;
+        this.hasher = hasher;
+        this.executor = executor;
+        this.decoyHash = hasher.hash("", "not anyone's password");
+    }
+
+    /**
+     * Checks a username and password.
+     *
+     * @return a future completed with the user if they're right or null if they aren't, or
+     *         completed exceptionally with a RejectedExecutionException if there are too many log
+     *         ins waiting
+     */
+    public CompletableFuture<User> verify(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> check(username, password), executor);
+        } catch (RejectedExecutionException ex) {
+            LOG.warn("Too many log ins waiting; turning away {}.", username);
+            CompletableFuture<User> refused = new CompletableFuture<>();
+            refused.completeExceptionally(ex);
+            return refused;
+        }
+    }
+
+    private User check(String username, String password) {
+        User user = repository.findByUsername(username);
+        if (user == null || user.getPasswordHash() == null) {
+            hasher.matches(username, password, decoyHash);
+            return null;
+        }
+
+        String storedHash = user.getPasswordHash();
+        if (!hasher.matches(username, password, storedHash)) {
+            return null;
+        }
+
+        if (hasher.needsUpgrade(storedHash)) {
+            user.setPasswordHash(hasher.hash(username, password));
+            try {
+                user = repository.save(user);
+                LOG.info("Upgraded the password hash of {}.", username);
+            } catch (DataAccessException ex) {
+                // they still get in; the upgrade will be tried again next time
+                LOG.warn("Couldn't upgrade the password hash of {}.", username, ex);
+            }
+        }
+        return user;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The single salted MD5 pass passwords used to be hashed with: 32 hex digits and nothing else.
+ *
+ * Only kept so old hashes can still be checked, and then upgraded.
+ */
+public class LegacyMd5Algorithm implements PasswordHashAlgorithm {
+    public static final String ID = "md5";
+
+    private static final String SALT = "The ocean is salty.";
+    private static final int HASH_LENGTH = 32;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String username, String password, int workFactor) {
+        return Hex.encodeHexString(digest(username, password));
+    }
+
+    @Override
+    public boolean matches(String username, String password, String storedHash) {
+        return MessageDigest.isEqual(hash(username, password, 0).getBytes(StandardCharsets.US_ASCII),
+                storedHash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public int getWorkFactor(String storedHash) {
+        return 0;
+    }
+
+    @Override
+    public boolean made(String storedHash) {
+        return storedHash.length() == HASH_LENGTH && !storedHash.startsWith("$");
+    }
+
+    private static byte[] digest(String username, String password) {
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+
+            md5.update(username.getBytes());
+            md5.update(SALT.getBytes());
+            md5.update(password.getBytes());
+            return md5.digest();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not load MD5 for hashing passwords", ex);
+        }
+    }
+}
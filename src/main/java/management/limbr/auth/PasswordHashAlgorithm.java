@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+/**
+ * One way of hashing passwords. Each stored hash records which algorithm made it and with what
+ * work factor, so hashes made different ways can live side by side.
+ */
+public interface PasswordHashAlgorithm {
+    String getId();
+
+    /**
+     * Hashes a password. Only algorithms that salt with the username use it.
+     */
+    String hash(String username, String password, int workFactor);
+
+    boolean matches(String username, String password, String storedHash);
+
+    /**
+     * Gets the work factor a stored hash was made with.
+     */
+    int getWorkFactor(String storedHash);
+
+    /**
+     * Tells whether a stored hash was made by this algorithm.
+     */
+    boolean made(String storedHash);
+}
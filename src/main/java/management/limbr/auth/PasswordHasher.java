@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import com.vaadin.spring.annotation.SpringComponent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hashes passwords with the configured algorithm and work factor, and checks passwords against
+ * hashes made with any of the supported algorithms.
+ *
+ * Hashing is slow on purpose, so don't call this while holding a session lock; log ins go through
+ * {@link CredentialVerifier} instead.
+ */
+@SpringComponent
+@EnableConfigurationProperties(PasswordProperties.class)
+public class PasswordHasher {
+    public static final String PBKDF2_SHA256 = "pbkdf2-sha256";
+    public static final String PBKDF2_SHA512 = "pbkdf2-sha512";
+
+    private static final List<PasswordHashAlgorithm> ALGORITHMS = Collections.unmodifiableList(Arrays.asList(
+            new Pbkdf2Algorithm(PBKDF2_SHA256, "PBKDF2WithHmacSHA256"),
+            new Pbkdf2Algorithm(PBKDF2_SHA512, "PBKDF2WithHmacSHA512"),
+            new LegacyMd5Algorithm()));
+
+    private final PasswordHashAlgorithm algorithm;
+    private final int workFactor;
+
+    @Autowired
+    public PasswordHasher(PasswordProperties properties) {
+        this.algorithm = ALGORITHMS.stream()
+                .filter(candidate -> candidate.getId().equals(properties.getAlgorithm()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown password hash algorithm " + properties.getAlgorithm()));
+        this.workFactor = properties.getWorkFactor();
+    }
+
+    /**
+     * Hashes a password for a user with the configured algorithm and work factor.
+     */
+    public String hash(String username, String password) {
+        return algorithm.hash(username, password, workFactor);
+    }
+
+    public boolean matches(String username, String password, String storedHash) {
+        PasswordHashAlgorithm madeWith = algorithmFor(storedHash);
+        return madeWith != null && madeWith.matches(username, password, storedHash);
+    }
+
+    /**
+     * Tells whether a stored hash was made some other way than new hashes are, or with less work.
+     */
+    public boolean needsUpgrade(String storedHash) {
+        PasswordHashAlgorithm madeWith = algorithmFor(storedHash);
+        return madeWith != algorithm || madeWith.getWorkFactor(storedHash) < workFactor;
+    }
+
+    private static PasswordHashAlgorithm algorithmFor(String storedHash) {
+        if (storedHash == null) {
+            return null;
+        }
+        for (PasswordHashAlgorithm candidate : ALGORITHMS) {
+            if (candidate.made(storedHash)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How passwords are hashed and checked, set with limbr.passwords.*.
+ */
+@ConfigurationProperties(prefix = "limbr.passwords")
+public class PasswordProperties {
+    private String algorithm = PasswordHasher.PBKDF2_SHA256;
+    private int workFactor = 100000;
+    private int verifyThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int verifyQueueSize = 200;
+
+    /**
+     * Gets the algorithm new hashes are made with. Hashes made with any other algorithm are
+     * upgraded the next time their user logs in.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Gets how much work hashing takes; for PBKDF2, the number of iterations. Hashes made with less
+     * are upgraded the next time their user logs in.
+     */
+    public int getWorkFactor() {
+        return workFactor;
+    }
+
+    public void setWorkFactor(int workFactor) {
+        this.workFactor = workFactor;
+    }
+
+    /**
+     * Gets how many log ins can be checked at once.
+     */
+    public int getVerifyThreads() {
+        return verifyThreads;
+    }
+
+    public void setVerifyThreads(int verifyThreads) {
+        this.verifyThreads = verifyThreads;
+    }
+
+    /**
+     * Gets how many log ins can wait to be checked before more are turned away.
+     */
+    public int getVerifyQueueSize() {
+        return verifyQueueSize;
+    }
+
+    public void setVerifyQueueSize(int verifyQueueSize) {
+        this.verifyQueueSize = verifyQueueSize;
+    }
+}
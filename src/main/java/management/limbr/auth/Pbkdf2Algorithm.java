@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2 with a random salt. Hashes look like $pbkdf2-sha256$iterations$salt$hash, with the salt
+ * and hash in base 64.
+ */
+public class Pbkdf2Algorithm implements PasswordHashAlgorithm {
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String id;
+    private final String jcaName;
+    private final String prefix;
+
+    public Pbkdf2Algorithm(String id, String jcaName) {
+        this.id = id;
+        this.jcaName = jcaName;
+        this.prefix = "$" + id + "$";
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String hash(String username, String password, int workFactor) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return prefix + workFactor + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(derive(password, salt, workFactor));
+    }
+
+    @Override
+    public boolean matches(String username, String password, String storedHash) {
+        String[] parts = storedHash.substring(prefix.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            // compares every byte, so how long it takes doesn't give away how much matched
+            return MessageDigest.isEqual(derive(password, salt, Integer.parseInt(parts[0])), expected);
+        } catch (IllegalArgumentException ex) {
+            // not a hash this algorithm could have made
+            return false;
+        }
+    }
+
+    @Override
+    public int getWorkFactor(String storedHash) {
+        int end = storedHash.indexOf('$', prefix.length());
+        try {
+            return end < 0 ? 0 : Integer.parseInt(storedHash.substring(prefix.length(), end));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean made(String storedHash) {
+        return storedHash.startsWith(prefix);
+    }
+
+    private byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(jcaName).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Could not hash with " + jcaName, ex);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
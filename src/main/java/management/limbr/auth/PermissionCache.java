@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import com.vaadin.spring.annotation.SpringComponent;
+import management.limbr.data.UserProjectRolesRepository;
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.membership.MembershipChanges;
+import management.limbr.data.model.Role;
+import management.limbr.data.model.RoleTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The role types each user has in each project, as bit masks (see {@link RoleTypes#bit()}), so
+ * checking a role or membership, which boards and search do for every sprint and story they show,
+ * doesn't mean loading memberships and their roles every time.
+ *
+ * The cache is split into stripes by user, each a small LRU map with its own lock, so lookups for
+ * different users rarely wait on each other. Masks are loaded outside the lock. A change to a
+ * user's memberships drops just that user's entries once it's committed, or both users' if a
+ * membership was moved from one to the other; a change to any role drops everything, since roles
+ * are shared and rarely change. Each stripe counts its invalidations, and a mask that was being
+ * loaded while its stripe was invalidated is returned but not cached, as it may have been read
+ * from before the change.
+ */
+@SpringComponent
+@EnableConfigurationProperties(PermissionProperties.class)
+public class PermissionCache {
+    /**
+     * Loads the mask for a user in a project, or for their global memberships if the project is null.
+     */
+    @FunctionalInterface
+    interface Loader {
+        int load(Long userId, Long projectId);
+    }
+
+    private final Loader loader;
+    private final Stripe[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public PermissionCache(UserProjectRolesRepository membershipRepository, PermissionProperties properties) {
+        this(properties, (userId, projectId) -> RoleTypes.maskOf(projectId == null
+                ? membershipRepository.findGlobalRoleTypesByUserId(userId)
+                : membershipRepository.findRoleTypesByUserIdAndProjectId(userId, projectId)));
+    }
+
+    PermissionCache(PermissionProperties properties, Loader loader) {
+        this.loader = loader;
+
+        int stripeCount = 1;
+        while (stripeCount < properties.getCacheStripes()) {
+            stripeCount <<= 1;
+        }
+        int stripeSize = Math.max(1, properties.getCacheSize() / stripeCount);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * Gets the mask of role types a user has in a project, including their global roles.
+     *
+     * @param projectId the project, or null for just the global roles
+     */
+    public int getRoleMask(Long userId, Long projectId) {
+        if (userId == null) {
+            return 0;
+        }
+
+        Key key = new Key(userId, projectId);
+        Stripe stripe = stripeFor(userId);
+        long version;
+        synchronized (stripe) {
+            Integer mask = stripe.get(key);
+            if (mask != null) {
+                hits.increment();
+                return mask;
+            }
+            version = stripe.version;
+        }
+
+        misses.increment();
+        int mask = loader.load(userId, projectId);
+
+        synchronized (stripe) {
+            if (stripe.version == version) {
+                stripe.put(key, mask);
+            }
+        }
+        return mask;
+    }
+
+    public boolean hasRole(Long userId, Long projectId, RoleTypes type) {
+        return type.isIn(getRoleMask(userId, projectId));
+    }
+
+    /**
+     * Tells whether a user has any role in a project, through its own memberships or a global one.
+     */
+    public boolean isMember(Long userId, Long projectId) {
+        return projectId != null && getRoleMask(userId, projectId) != 0;
+    }
+
+    /**
+     * Drops everything cached for a user, in every project.
+     */
+    public void invalidateUser(Long userId) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            stripe.version++;
+            stripe.keySet().removeIf(key -> key.userId == userId.longValue());
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.version++;
+                stripe.clear();
+            }
+        }
+    }
+
+    @EventListener
+    public void entityChanged(EntityChangedEvent event) {
+        if (event.isAbout(Role.class)) {
+            invalidateAll();
+        } else {
+            MembershipChanges.affectedUsers(event).forEach(this::invalidateUser);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the share of lookups answered without going to the database, or 0 before any lookups.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double)hitCount / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(Long userId) {
+        int hash = Long.hashCode(userId);
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Key {
+        private final long userId;
+        private final Long projectId;
+
+        Key(long userId, Long projectId) {
+            this.userId = userId;
+            this.projectId = projectId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key)obj;
+            return userId == key.userId && Objects.equals(projectId, key.projectId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(userId) + Objects.hashCode(projectId);
+        }
+    }
+
+    private final class Stripe extends LinkedHashMap<Key, Integer> {
+        private final int maxEntries;
+        private long version;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How many permissions are kept in memory, set with limbr.permissions.*.
+ */
+@ConfigurationProperties(prefix = "limbr.permissions")
+public class PermissionProperties {
+    private int cacheSize = 10000;
+    private int cacheStripes = 16;
+
+    /**
+     * Gets how many (user, project) pairs are cached in all; the least recently used go first.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Gets how many independently locked parts the cache is split into. Rounded up to a power of two.
+     */
+    public int getCacheStripes() {
+        return cacheStripes;
+    }
+
+    public void setCacheStripes(int cacheStripes) {
+        this.cacheStripes = cacheStripes;
+    }
+}
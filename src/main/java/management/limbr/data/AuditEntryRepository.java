@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.model.AuditEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * Reads the audit log newest first, a page at a time. Pages start after the last entry of the page
+ * before rather than at an offset, so each one costs the same however far back it is, and entries
+ * added meanwhile don't shift what's on it. Pass only the page size in the {@link Pageable}.
+ */
+public interface AuditEntryRepository extends JpaRepository<AuditEntry, Long> {
+    @Query("select a from AuditEntry a order by a.id desc")
+    List<AuditEntry> findLatest(Pageable pageable);
+
+    @Query("select a from AuditEntry a where a.id < ?1 order by a.id desc")
+    List<AuditEntry> findBefore(Long beforeId, Pageable pageable);
+
+    @Query("select a from AuditEntry a where a.entityType = ?1 and a.entityId = ?2 order by a.id desc")
+    List<AuditEntry> findLatestFor(String entityType, Long entityId, Pageable pageable);
+
+    @Query("select a from AuditEntry a where a.entityType = ?1 and a.entityId = ?2 and a.id < ?3 order by a.id desc")
+    List<AuditEntry> findBeforeFor(String entityType, Long entityId, Long beforeId, Pageable pageable);
+}
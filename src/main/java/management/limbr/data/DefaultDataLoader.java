@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.auth.PasswordHasher;
+import management.limbr.data.model.Role;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.data.model.User;
+import management.limbr.data.model.UserProjectRoles;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Puts the roles and the admin user a new database needs into it.
+ *
+ * Everything happens in one transaction, so a database either has all of the defaults or none of
+ * them, and they go in as one batch of inserts when it commits. The admin's username is unique, so
+ * if two instances start against the same empty database at once, only one of them gets to commit.
+ */
+@Component
+public class DefaultDataLoader {
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final UserProjectRolesRepository membershipRepository;
+    private final PasswordHasher passwordHasher;
+
+    @Autowired
+    public DefaultDataLoader(PlatformTransactionManager transactionManager, RoleRepository roleRepository,
+                             UserRepository userRepository, UserProjectRolesRepository membershipRepository,
+                             PasswordHasher passwordHasher) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRepository = roleRepository;
+        this.userRepository = userRepository;
+        this.membershipRepository = membershipRepository;
+        this.passwordHasher = passwordHasher;
+    }
+
+    /**
+     * Loads the defaults unless there are roles in the database already, which takes one query.
+     *
+     * @return true if they were loaded
+     */
+    public boolean loadIfEmpty() {
+        return transactionTemplate.execute(status -> {
+            if (roleRepository.count() > 0) {
+                return false;
+            }
+
+            List<Role> roles = roleRepository.save(Arrays.asList(
+                    new Role("Administrator", RoleTypes.ADMIN),
+                    new Role("Manager", RoleTypes.MANAGER),
+                    new Role("Lead", RoleTypes.LEAD),
+                    new Role("Developer", RoleTypes.DEVELOPER),
+                    new Role("Viewer", RoleTypes.VIEWER)));
+
+            User admin = userRepository.save(new User("admin", "Admin", passwordHasher.hash("admin", "admin"), "admin@limbr.management"));
+
+            // a membership without a project applies everywhere
+            UserProjectRoles adminMembership = new UserProjectRoles();
+            adminMembership.setUser(admin);
+            adminMembership.setRoles(Collections.singleton(roles.get(0)));
+            membershipRepository.save(adminMembership);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.model.BaseEntity;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out where an entity falls in a sorted list by counting the rows that sort before it, so a
+ * list that loads a page at a time can find an item it hasn't loaded.
+ */
+@Component
+public class EntityPositions {
+    private static final char ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Counts the entities of the same class that come before the given one in the given order,
+     * using its values as they are in the database. With a key property, only those whose key starts
+     * with the prefix are in the list, as in the repositories' findBy...KeyStartsWith queries.
+     *
+     * Rows with null in a sorted column aren't counted, as databases don't agree on where nulls go,
+     * so the count can come up short when there are some.
+     *
+     * @return the count, or -1 if the entity is gone or its key doesn't start with the prefix
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings({"unchecked", "rawtypes"}) // sorted columns are compared as whatever type they are
+    public <T extends BaseEntity> long countBefore(T entity, Sort sort, String keyProperty, String keyPrefix) {
+        Class<T> entityClass = (Class<T>)ClassUtils.getUserClass(entity);
+        T current = entityManager.find(entityClass, entity.getId());
+        if (current == null) {
+            return -1;
+        }
+        BeanWrapper values = new BeanWrapperImpl(current);
+        if (keyProperty != null) {
+            Object key = values.getPropertyValue(keyProperty);
+            if (key == null || !key.toString().startsWith(keyPrefix)) {
+                return -1;
+            }
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(entityClass);
+
+        // a row comes first if it's the same on every column up to one, and before on that one
+        List<Predicate> before = new ArrayList<>();
+        List<Predicate> same = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Path<Comparable> column = root.get(order.getProperty());
+            Comparable value = (Comparable)values.getPropertyValue(order.getProperty());
+            if (value == null) {
+                same.add(builder.isNull(column));
+                continue;
+            }
+            List<Predicate> first = new ArrayList<>(same);
+            first.add(order.isAscending() ? builder.lessThan(column, value) : builder.greaterThan(column, value));
+            before.add(builder.and(first.toArray(new Predicate[first.size()])));
+            same.add(builder.equal(column, value));
+        }
+
+        Predicate where = builder.or(before.toArray(new Predicate[before.size()]));
+        if (keyProperty != null) {
+            where = builder.and(where, builder.like(root.get(keyProperty), escape(keyPrefix) + "%", ESCAPE));
+        }
+        query.select(builder.count(root)).where(where);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static String escape(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
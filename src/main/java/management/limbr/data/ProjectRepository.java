@@ -19,11 +19,38 @@
 
 package management.limbr.data;
 
+import management.limbr.data.bulk.BulkExporter;
 import management.limbr.data.model.Project;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
-    List<Project> findByNameStartsWithIgnoreCase(String name);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = Project.QUERY_CACHE_REGION)})
+    @Query("select p from Project p")
+    List<Project> findAllPaged(Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = Project.QUERY_CACHE_REGION)})
+    List<Project> findByNameKeyStartsWith(String nameKey, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = Project.QUERY_CACHE_REGION)})
+    long countByNameKeyStartsWith(String nameKey);
+
+    /**
+     * Streams every project through a forward-only cursor, for exports. Bypasses the second-level
+     * cache so an export doesn't evict what the lists use.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = BulkExporter.FETCH_SIZE), @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select p from Project p order by p.id")
+    Stream<Project> streamAll();
 }
@@ -19,11 +19,38 @@
 
 package management.limbr.data;
 
+import management.limbr.data.bulk.BulkExporter;
 import management.limbr.data.model.Role;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
-    List<Role> findByNameStartsWithIgnoreCase(String name);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = Role.QUERY_CACHE_REGION)})
+    @Query("select r from Role r")
+    List<Role> findAllPaged(Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = Role.QUERY_CACHE_REGION)})
+    List<Role> findByNameKeyStartsWith(String nameKey, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = Role.QUERY_CACHE_REGION)})
+    long countByNameKeyStartsWith(String nameKey);
+
+    /**
+     * Streams every role through a forward-only cursor, for exports. Bypasses the second-level
+     * cache so an export doesn't evict what the lists use.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = BulkExporter.FETCH_SIZE), @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select r from Role r order by r.id")
+    Stream<Role> streamAll();
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.model.SprintDaySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface SprintDaySnapshotRepository extends JpaRepository<SprintDaySnapshot, Long> {
+    /**
+     * Lists a sprint's snapshots, earliest day first.
+     */
+    @Query("select s from SprintDaySnapshot s where s.sprint.id = ?1 order by s.day")
+    List<SprintDaySnapshot> findBySprint(Long sprintId);
+
+    @Modifying
+    @Query("delete from SprintDaySnapshot s where s.sprint.id = ?1")
+    int deleteBySprint(Long sprintId);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.model.StoryHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface StoryHistoryRepository extends JpaRepository<StoryHistory, Long> {
+    /**
+     * Lists the whole history of every story that's ever been in a sprint, oldest first.
+     */
+    @Query("select h from StoryHistory h where h.storyId in (select i.storyId from StoryHistory i where i.sprintId = ?1) order by h.changedAt, h.id")
+    List<StoryHistory> findForSprint(Long sprintId);
+}
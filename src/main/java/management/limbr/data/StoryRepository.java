@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.model.Story;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StoryRepository extends JpaRepository<Story, Long> {
+    /**
+     * Lists a page of a project's backlog, in order.
+     */
+    @Query("select s from Story s where s.project.id = ?1 order by s.rank")
+    List<Story> findBacklog(Long projectId, Pageable pageable);
+
+    /**
+     * Lists a sprint's stories, in backlog order.
+     */
+    @Query("select s from Story s where s.sprint.id = ?1 order by s.rank")
+    List<Story> findBySprint(Long sprintId);
+
+    @Query("select count(s) from Story s where s.project.id = ?1")
+    long countBacklog(Long projectId);
+
+    /**
+     * Gets the ids of a project's whole backlog, in order.
+     */
+    @Query("select s.id from Story s where s.project.id = ?1 order by s.rank")
+    List<Long> findBacklogIds(Long projectId);
+
+    /**
+     * Gets the last rank key in a project's backlog, or null if it's empty.
+     */
+    @Query("select max(s.rank) from Story s where s.project.id = ?1")
+    String findLastRank(Long projectId);
+
+    /**
+     * Gets the project and rank key of each of the stories, as {id, project id, rank}, without
+     * loading them.
+     */
+    @Query("select s.id, s.project.id, s.rank from Story s where s.id in ?1")
+    List<Object[]> findRanks(Collection<Long> ids);
+
+    /**
+     * Lists a sprint's stories that haven't changed since their history started being kept.
+     */
+    @Query("select s from Story s where s.sprint.id = ?1 and not exists (select h.id from StoryHistory h where h.storyId = s.id)")
+    List<Story> findBySprintWithoutHistory(Long sprintId);
+}
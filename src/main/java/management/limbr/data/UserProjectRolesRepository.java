@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.membership.MembershipRow;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.data.model.UserProjectRoles;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface UserProjectRolesRepository extends JpaRepository<UserProjectRoles, Long> {
+    /**
+     * Streams every membership through a forward-only cursor, for exports, as a row per role (or
+     * one with no role), in membership order and then by role name. Global memberships have no
+     * project. Rows rather than entities, as Hibernate can't scroll forward-only through a fetch
+     * join of the roles, and loading them one membership at a time is a query per membership.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = BulkExporter.FETCH_SIZE))
+    @Query("select new management.limbr.data.membership.MembershipRow(m.id, u.id, u.username, u.displayName, "
+            + "p.id, p.name, r.name, r.type) from UserProjectRoles m join m.user u left join m.project p left join m.roles r "
+            + "order by m.id, r.name")
+    Stream<MembershipRow> streamAllRows();
+
+    /**
+     * Gets the members of a project by username, each with their user, project and roles, in one
+     * query.
+     */
+    @Query("select distinct m from UserProjectRoles m join fetch m.user u join fetch m.project p "
+            + "left join fetch m.roles where p.id = :projectId order by u.usernameKey, m.id")
+    List<UserProjectRoles> findMembersOfProject(@Param("projectId") Long projectId);
+
+    /**
+     * Gets a user's memberships, global ones included, each with its user, project and roles, in
+     * one query.
+     */
+    @EntityGraph(UserProjectRoles.WITH_USER_PROJECT_AND_ROLES)
+    List<UserProjectRoles> findDistinctByUserId(Long userId);
+
+    /**
+     * Gets the members of a project as rows for {@link management.limbr.data.membership.MembershipQueries}.
+     */
+    @Query("select new management.limbr.data.membership.MembershipRow(m.id, u.id, u.username, u.displayName, "
+            + "p.id, p.name, r.name, r.type) from UserProjectRoles m join m.user u join m.project p left join m.roles r "
+            + "where p.id = :projectId order by u.usernameKey, m.id, r.name")
+    List<MembershipRow> findMemberRows(@Param("projectId") Long projectId);
+
+    /**
+     * Gets a user's memberships as rows for {@link management.limbr.data.membership.MembershipQueries}.
+     */
+    @Query("select new management.limbr.data.membership.MembershipRow(m.id, u.id, u.username, u.displayName, "
+            + "p.id, p.name, r.name, r.type) from UserProjectRoles m join m.user u left join m.project p left join m.roles r "
+            + "where u.id = :userId order by p.name, m.id, r.name")
+    List<MembershipRow> findMembershipRows(@Param("userId") Long userId);
+
+    /**
+     * Gets the type of every role a user has in any of their memberships, in one query.
+     */
+    @Query("select distinct r.type from UserProjectRoles m join m.roles r where m.user.id = :userId")
+    List<RoleTypes> findRoleTypesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Gets the type of every role a user has in a project, counting their global memberships.
+     */
+    @Query("select distinct r.type from UserProjectRoles m join m.roles r left join m.project p "
+            + "where m.user.id = :userId and (p.id = :projectId or p is null)")
+    List<RoleTypes> findRoleTypesByUserIdAndProjectId(@Param("userId") Long userId, @Param("projectId") Long projectId);
+
+    /**
+     * Gets the type of every role a user has in their global memberships.
+     */
+    @Query("select distinct r.type from UserProjectRoles m join m.roles r where m.user.id = :userId and m.project is null")
+    List<RoleTypes> findGlobalRoleTypesByUserId(@Param("userId") Long userId);
+}
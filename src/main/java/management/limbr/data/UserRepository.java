@@ -19,11 +19,33 @@
 
 package management.limbr.data;
 
+import management.limbr.data.bulk.BulkExporter;
 import management.limbr.data.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    List<User> findByUsernameStartsWithIgnoreCase(String username);
+    @Query("select u from User u")
+    List<User> findAllPaged(Pageable pageable);
+
+    List<User> findByUsernameKeyStartsWith(String usernameKey, Pageable pageable);
+
+    long countByUsernameKeyStartsWith(String usernameKey);
+
+    User findByUsername(String username);
+
+    /**
+     * Streams every user through a forward-only cursor, for exports.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = BulkExporter.FETCH_SIZE))
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
 }
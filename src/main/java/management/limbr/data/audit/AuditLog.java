@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.audit;
+
+import management.limbr.data.AuditEntryRepository;
+import management.limbr.data.model.AuditEntry;
+import management.limbr.metrics.Counter;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The audit log: writes the entries {@link AuditRecorder} makes, and reads them back a page at a
+ * time.
+ *
+ * Unless limbr.audit.durability is TRANSACTIONAL, entries are queued once their change commits
+ * and a single writer thread writes them in batches of up to limbr.audit.batch-size. When the
+ * queue is full, each change waits for room for up to limbr.audit.queue-wait-millis in all, however
+ * many entries it has, so a writer that's falling behind slows changes down rather than letting the
+ * queue grow without end; entries that still don't fit are dropped and counted. Entries still queued at shutdown are written first.
+ */
+@Component
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditLog {
+    private static final Logger LOG = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final long POLL_MILLIS = 500;
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final long DRAIN_SECONDS = 10;
+
+    private final AuditEntryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final boolean queued;
+    private final BlockingQueue<AuditEntry> queue;
+    private final int batchSize;
+    private final long queueWaitMillis;
+    private final Timer writeTimer;
+    private final Timer waitTimer;
+    private final Counter written;
+    private final Counter dropped;
+    private volatile boolean running;
+
+    @Autowired
+    public AuditLog(AuditProperties properties, AuditEntryRepository repository, PlatformTransactionManager transactionManager,
+                    @Lazy @Qualifier("auditExecutor") ExecutorService executor, MetricsRegistry metrics) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.queued = properties.getDurability() == AuditProperties.Durability.QUEUED;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.batchSize = properties.getBatchSize();
+        this.queueWaitMillis = properties.getQueueWaitMillis();
+        this.writeTimer = metrics.timer("limbr_audit_write_seconds", "Time spent writing batches of audit entries.");
+        this.waitTimer = metrics.timer("limbr_audit_queue_wait_seconds", "Time changes spent waiting for room in a full audit queue.");
+        this.written = metrics.counter("limbr_audit_written_total", "Audit entries written.");
+        this.dropped = metrics.counter("limbr_audit_dropped_total", "Audit entries lost, as the queue was full or they couldn't be written.");
+        metrics.gauge("limbr_audit_queue_entries", "Audit entries waiting to be written.", queue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (queued) {
+            running = true;
+            executor.execute(this::writeQueued);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!queued) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+            LOG.warn("{} audit entries were still waiting to be written at shutdown.", queue.size());
+        }
+    }
+
+    public boolean isQueued() {
+        return queued;
+    }
+
+    /**
+     * Queues entries for a change that's been committed, waiting for room if the queue is full,
+     * for no longer than limbr.audit.queue-wait-millis between them all.
+     */
+    public void append(List<AuditEntry> entries) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueWaitMillis);
+        for (int i = 0; i < entries.size(); i++) {
+            if (!offer(entries.get(i), deadline)) {
+                int lost = entries.size() - i;
+                dropped.add(lost);
+                LOG.warn("The audit queue is full, so {} entries were dropped.", lost);
+                return;
+            }
+        }
+    }
+
+    private boolean offer(AuditEntry entry, long deadline) {
+        if (queue.offer(entry)) {
+            return true;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        long start = waitTimer.start();
+        try {
+            return queue.offer(entry, remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitTimer.stop(start);
+        }
+    }
+
+    private void writeQueued() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEntry first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                LOG.warn("The audit writer was stopped with {} entries still to write.", batch.size() + queue.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void write(List<AuditEntry> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            long start = writeTimer.start();
+            try {
+                transactionTemplate.execute(status -> repository.save(batch));
+                written.add(batch.size());
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt == WRITE_ATTEMPTS) {
+                    dropped.add(batch.size());
+                    LOG.error("Couldn't write {} audit entries, so they're lost.", batch.size(), ex);
+                    return;
+                }
+                LOG.warn("Couldn't write {} audit entries; trying again.", batch.size(), ex);
+            } finally {
+                writeTimer.stop(start);
+            }
+            Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+        }
+    }
+
+    /**
+     * Gets a page of the whole log, newest first.
+     *
+     * @param beforeId the id of the last entry of the page before, or null for the first page
+     */
+    public List<AuditEntry> getActivity(Long beforeId, int pageSize) {
+        PageRequest page = new PageRequest(0, pageSize);
+        return beforeId == null ? repository.findLatest(page) : repository.findBefore(beforeId, page);
+    }
+
+    /**
+     * Gets a page of one entity's history, newest first.
+     *
+     * @param beforeId the id of the last entry of the page before, or null for the first page
+     */
+    public List<AuditEntry> getHistory(Class<?> entityClass, Long entityId, Long beforeId, int pageSize) {
+        PageRequest page = new PageRequest(0, pageSize);
+        String entityType = entityClass.getSimpleName();
+        return beforeId == null ? repository.findLatestFor(entityType, entityId, page)
+                : repository.findBeforeFor(entityType, entityId, beforeId, page);
+    }
+
+    int getQueueSize() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How the audit log is written, set with limbr.audit.*.
+ */
+@ConfigurationProperties(prefix = "limbr.audit")
+public class AuditProperties {
+    /**
+     * When audit entries are written.
+     */
+    public enum Durability {
+        /**
+         * Queued once the change commits and written in batches in the background, adding next to
+         * nothing to the change. Entries still queued are lost if the application dies.
+         */
+        QUEUED,
+        /**
+         * Written in the same transaction as the change, so there's never one without the other.
+         */
+        TRANSACTIONAL
+    }
+
+    private Durability durability = Durability.QUEUED;
+    private int queueCapacity = 10000;
+    private int batchSize = 500;
+    private long queueWaitMillis = 1000;
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    /**
+     * Gets how many entries can wait to be written before changes are held up.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Gets the most entries written per transaction.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets how long a change waits for room in a full queue before its entries are dropped.
+     */
+    public long getQueueWaitMillis() {
+        return queueWaitMillis;
+    }
+
+    public void setQueueWaitMillis(long queueWaitMillis) {
+        this.queueWaitMillis = queueWaitMillis;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.audit;
+
+import management.limbr.data.model.AuditAction;
+import management.limbr.data.model.AuditEntry;
+import management.limbr.data.model.BaseEntity;
+import management.limbr.data.model.NotAudited;
+import management.limbr.data.model.Password;
+import management.limbr.data.model.SearchKey;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hears from Hibernate about every entity written and makes an {@link AuditEntry} for each,
+ * listing the properties that changed with their old and new values, and who changed them.
+ *
+ * Entries are made as the changes are flushed, while the user making them is still known, and
+ * handed to the {@link AuditLog} once the transaction commits; nothing is kept for one that rolls
+ * back. With limbr.audit.durability set to TRANSACTIONAL they're written in the transaction
+ * instead, just before it commits. Passwords are recorded as changed without their values, and
+ * search keys, which only repeat other properties, are left out, as are entities and properties
+ * marked {@link NotAudited} and changes to collections.
+ */
+@Component
+public class AuditRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    static final String HIDDEN_VALUE = "(hidden)";
+    private static final String ARROW = " -> ";
+
+    private final transient EntityManagerFactory entityManagerFactory;
+    private final transient AuditLog auditLog;
+    private final transient AuditActorResolver actorResolver;
+    private final ConcurrentMap<SessionImplementor, List<AuditEntry>> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, AuditedProperties> propertiesByClass = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AuditRecorder(EntityManagerFactory entityManagerFactory, AuditLog auditLog, AuditActorResolver actorResolver) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditLog = auditLog;
+        this.actorResolver = actorResolver;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        AuditedProperties properties = propertiesOf(event.getEntity());
+        if (properties != null) {
+            record(event.getSession(), event.getEntity(), event.getId(), AuditAction.CREATED,
+                    describe(properties, event.getPersister(), null, event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        AuditedProperties properties = propertiesOf(event.getEntity());
+        if (properties == null) {
+            return;
+        }
+        String changes = describe(properties, event.getPersister(), event.getOldState(), event.getState());
+        if (!changes.isEmpty()) {
+            record(event.getSession(), event.getEntity(), event.getId(), AuditAction.UPDATED, changes);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        AuditedProperties properties = propertiesOf(event.getEntity());
+        if (properties != null) {
+            record(event.getSession(), event.getEntity(), event.getId(), AuditAction.DELETED,
+                    describe(properties, event.getPersister(), event.getDeletedState(), null));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Lists each property that differs between the two states, a line each; either state may be
+     * null, for an entity that's new or gone.
+     */
+    private static String describe(AuditedProperties properties, EntityPersister persister, Object[] oldState, Object[] newState) {
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        StringBuilder changes = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType() || properties.skipped.contains(names[i])) {
+                continue;
+            }
+            String oldValue = oldState == null ? null : format(oldState[i], types[i]);
+            String newValue = newState == null ? null : format(newState[i], types[i]);
+            if (Objects.equals(oldValue, newValue)) {
+                continue;
+            }
+            if (properties.hidden.contains(names[i])) {
+                oldValue = oldValue == null ? null : HIDDEN_VALUE;
+                newValue = newValue == null ? null : HIDDEN_VALUE;
+            }
+            if (changes.length() > 0) {
+                changes.append('\n');
+            }
+            changes.append(names[i]).append(": ");
+            if (oldState == null) {
+                changes.append(newValue);
+            } else if (newState == null) {
+                changes.append(oldValue);
+            } else {
+                changes.append(oldValue).append(ARROW).append(newValue);
+            }
+        }
+        return changes.toString();
+    }
+
+    private static String format(Object value, Type type) {
+        if (value == null) {
+            return null;
+        }
+        if (type.isEntityType()) {
+            // the id, without loading it
+            if (value instanceof HibernateProxy) {
+                return "#" + ((HibernateProxy)value).getHibernateLazyInitializer().getIdentifier();
+            }
+            return "#" + ((BaseEntity)value).getId();
+        }
+        return value.toString();
+    }
+
+    private void record(EventSource session, Object entity, Serializable id, AuditAction action, String changes) {
+        AuditActor actor = actorResolver.currentActor();
+        if (changes.length() > AuditEntry.MAX_CHANGES_LENGTH) {
+            changes = changes.substring(0, AuditEntry.MAX_CHANGES_LENGTH - 3) + "...";
+        }
+        AuditEntry entry = new AuditEntry(new Date(), ClassUtils.getUserClass(entity).getSimpleName(), (Long)id, action,
+                actor.getUserId(), actor.getUsername(), changes);
+
+        List<AuditEntry> entries = pending.get(session);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            pending.put(session, entries);
+            if (!auditLog.isQueued()) {
+                session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess)this::writeEntries);
+            }
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess)this::queueEntries);
+        }
+        entries.add(entry);
+    }
+
+    private void writeEntries(SessionImplementor sessionImplementor) {
+        List<AuditEntry> entries = pending.remove(sessionImplementor);
+        if (entries != null) {
+            Session session = (Session)sessionImplementor;
+            entries.forEach(session::persist);
+            session.flush();
+        }
+    }
+
+    private void queueEntries(boolean success, SessionImplementor session) {
+        List<AuditEntry> entries = pending.remove(session);
+        if (success && entries != null) {
+            auditLog.append(entries);
+        }
+    }
+
+    private AuditedProperties propertiesOf(Object entity) {
+        AuditedProperties properties = propertiesByClass.computeIfAbsent(ClassUtils.getUserClass(entity), AuditedProperties::new);
+        return properties.audited ? properties : null;
+    }
+
+    /**
+     * What's recorded about an entity class, worked out once from its annotations.
+     */
+    private static class AuditedProperties {
+        private final boolean audited;
+        private final Set<String> hidden = new HashSet<>();
+        private final Set<String> skipped = new HashSet<>();
+
+        private AuditedProperties(Class<?> entityClass) {
+            audited = AnnotationUtils.findAnnotation(entityClass, NotAudited.class) == null;
+            for (Class<?> type = entityClass; type != null; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(Password.class)) {
+                        hidden.add(field.getName());
+                    } else if (field.isAnnotationPresent(SearchKey.class) || field.isAnnotationPresent(NotAudited.class)) {
+                        skipped.add(field.getName());
+                    }
+                }
+            }
+        }
+    }
+}
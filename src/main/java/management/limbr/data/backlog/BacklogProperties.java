@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.backlog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How backlogs keep their rank keys short, set with limbr.backlog.*.
+ */
+@ConfigurationProperties(prefix = "limbr.backlog")
+public class BacklogProperties {
+    private int maxRankLength = 12;
+    private int rebalanceBatchSize = 1000;
+
+    /**
+     * Gets how long a rank key can get before its backlog is given fresh ones.
+     */
+    public int getMaxRankLength() {
+        return maxRankLength;
+    }
+
+    public void setMaxRankLength(int maxRankLength) {
+        this.maxRankLength = maxRankLength;
+    }
+
+    /**
+     * Gets how many stories are given new keys per flush while rebalancing.
+     */
+    public int getRebalanceBatchSize() {
+        return rebalanceBatchSize;
+    }
+
+    public void setRebalanceBatchSize(int rebalanceBatchSize) {
+        this.rebalanceBatchSize = rebalanceBatchSize;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.backlog;
+
+import management.limbr.data.StoryRepository;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.util.RankKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Adds stories to backlogs and moves them around in them. Each story has a rank key that sorts
+ * between its neighbours', so a move writes the one story that moved, however long the backlog is.
+ *
+ * Keys that keep being squeezed into the same gap get longer; once one is longer than
+ * limbr.backlog.max-rank-length, its backlog is given fresh, evenly spread keys in the background,
+ * in a single transaction so the order never looks wrong part way through.
+ *
+ * Changes to a project's backlog are made one at a time, under one of a few locks shared out by
+ * project, so two stories added at once don't get the same key and nothing gets a key from between
+ * two that a rebalance is replacing. A rebalance holds up moves in its project until it's done.
+ */
+@Component
+@Lazy // made when a backlog is first changed
+@EnableConfigurationProperties(BacklogProperties.class)
+public class BacklogRanker {
+    private static final Logger LOG = LoggerFactory.getLogger(BacklogRanker.class);
+
+    private static final int LOCK_STRIPES = 16;
+
+    private final TransactionTemplate transactionTemplate;
+    private final StoryRepository storyRepository;
+    private final ExecutorService executor;
+    private final int maxRankLength;
+    private final int rebalanceBatchSize;
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+    private final Set<Long> rebalancing = ConcurrentHashMap.newKeySet();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BacklogRanker(PlatformTransactionManager transactionManager, StoryRepository storyRepository,
+                         BacklogProperties properties, @Qualifier("backlogExecutor") ExecutorService executor) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.storyRepository = storyRepository;
+        this.executor = executor;
+        this.maxRankLength = properties.getMaxRankLength();
+        this.rebalanceBatchSize = properties.getRebalanceBatchSize();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Adds a story to the end of a project's backlog.
+     */
+    public Story add(Project project, String title) {
+        Story story = withLock(project.getId(), () -> transactionTemplate.execute(status ->
+                storyRepository.save(new Story(project, title, RankKeys.between(storyRepository.findLastRank(project.getId()), null)))));
+        checkLength(story);
+        return story;
+    }
+
+    /**
+     * Moves a story to between two others in its backlog. Either may be null, to move it to the
+     * start or the end.
+     *
+     * @param previousId the story that's to come just before it, or null
+     * @param nextId the story that's to come just after it, or null
+     * @throws IllegalArgumentException if the neighbours aren't in the same backlog, or aren't in that order
+     */
+    public Story move(Story story, Long previousId, Long nextId) {
+        Long projectId = story.getProject().getId();
+        Story moved = withLock(projectId, () -> transactionTemplate.execute(status -> {
+            Map<Long, String> ranks = findRanks(projectId, previousId, nextId);
+            Story managed = storyRepository.findOne(story.getId());
+            if (managed == null) {
+                throw new IllegalArgumentException("Story " + story.getId() + " doesn't exist");
+            }
+            managed.setRank(RankKeys.between(ranks.get(previousId), ranks.get(nextId)));
+            return managed;
+        }));
+        checkLength(moved);
+        return moved;
+    }
+
+    private Map<Long, String> findRanks(Long projectId, Long previousId, Long nextId) {
+        List<Long> ids = new ArrayList<>(2);
+        if (previousId != null) {
+            ids.add(previousId);
+        }
+        if (nextId != null) {
+            ids.add(nextId);
+        }
+        Map<Long, String> ranks = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] row : storyRepository.findRanks(ids)) {
+                if (projectId.equals(row[1])) {
+                    ranks.put((Long)row[0], (String)row[2]);
+                }
+            }
+        }
+        if (!ranks.keySet().containsAll(ids)) {
+            throw new IllegalArgumentException("Stories " + ids + " aren't all in project " + projectId + "'s backlog");
+        }
+        return ranks;
+    }
+
+    private void checkLength(Story story) {
+        Long projectId = story.getProject().getId();
+        if (story.getRank().length() > maxRankLength && rebalancing.add(projectId)) {
+            executor.execute(() -> {
+                try {
+                    rebalance(projectId);
+                } finally {
+                    rebalancing.remove(projectId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gives every story in a project's backlog a fresh key, keeping their order.
+     *
+     * @return how many stories there were
+     */
+    public int rebalance(Long projectId) {
+        long start = System.nanoTime();
+        int count = withLock(projectId, () -> transactionTemplate.execute(status -> {
+            List<Long> ids = storyRepository.findBacklogIds(projectId);
+            List<String> keys = RankKeys.spread(ids.size());
+            for (int from = 0; from < ids.size(); from += rebalanceBatchSize) {
+                int to = Math.min(from + rebalanceBatchSize, ids.size());
+                Map<Long, String> batch = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    batch.put(ids.get(i), keys.get(i));
+                }
+                for (Story story : storyRepository.findAll(batch.keySet())) {
+                    story.setRank(batch.get(story.getId()));
+                }
+                // written as JDBC batches (see hibernate.jdbc.batch_size), then let go of
+                entityManager.flush();
+                entityManager.clear();
+            }
+            return ids.size();
+        }));
+        LOG.info("Rebalanced the backlog of project {}, {} stories, in {} ms.", projectId, count,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return count;
+    }
+
+    private <T> T withLock(Long projectId, Supplier<T> action) {
+        Lock lock = locks[(projectId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import management.limbr.data.ProjectRepository;
+import management.limbr.data.RoleRepository;
+import management.limbr.data.UserProjectRolesRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.membership.MembershipRow;
+import management.limbr.data.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exports users, projects, roles and memberships as CSV or JSON lines.
+ *
+ * Entities are read through a forward-only cursor, a fetch at a time, written out as soon as
+ * they're read and then cleared from the persistence context, so memory use doesn't grow with the
+ * number of rows. Memberships are read as a row per role and put back together as they're
+ * written. Exports use the same columns as {@link BulkImporter}, plus the ID.
+ */
+@Component
+@Lazy // made when the first list view is
+public class BulkExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkExporter.class);
+
+    /**
+     * How many rows the export queries fetch at a time, which is also how often the persistence
+     * context is cleared.
+     */
+    public static final String FETCH_SIZE = "500";
+    private static final int CLEAR_INTERVAL = Integer.parseInt(FETCH_SIZE);
+
+    public static final String ID = "id";
+    public static final String TYPE = "type";
+
+    private static final String[] USER_COLUMNS = {ID, BulkImporter.USERNAME, BulkImporter.DISPLAY_NAME, BulkImporter.EMAIL_ADDRESS};
+    private static final String[] PROJECT_COLUMNS = {ID, BulkImporter.NAME, BulkImporter.SHORT_NAME};
+    private static final String[] ROLE_COLUMNS = {ID, BulkImporter.NAME, TYPE};
+    private static final String[] MEMBERSHIP_COLUMNS = {ID, BulkImporter.USERNAME, BulkImporter.PROJECT, BulkImporter.ROLES};
+
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final ProjectRepository projectRepository;
+    private final RoleRepository roleRepository;
+    private final UserProjectRolesRepository membershipRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BulkExporter(PlatformTransactionManager transactionManager, UserRepository userRepository,
+                        ProjectRepository projectRepository, RoleRepository roleRepository,
+                        UserProjectRolesRepository membershipRepository) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.userRepository = userRepository;
+        this.projectRepository = projectRepository;
+        this.roleRepository = roleRepository;
+        this.membershipRepository = membershipRepository;
+    }
+
+    public long exportUsers(RecordFormat format, OutputStream out) throws IOException {
+        return export("users", format, out, USER_COLUMNS, userRepository::streamAll,
+                user -> new String[] {id(user), user.getUsername(), user.getDisplayName(), user.getEmailAddress()});
+    }
+
+    public long exportProjects(RecordFormat format, OutputStream out) throws IOException {
+        return export("projects", format, out, PROJECT_COLUMNS, projectRepository::streamAll,
+                project -> new String[] {id(project), project.getName(), project.getShortName()});
+    }
+
+    public long exportRoles(RecordFormat format, OutputStream out) throws IOException {
+        return export("roles", format, out, ROLE_COLUMNS, roleRepository::streamAll,
+                role -> new String[] {id(role), role.getName(), Objects.toString(role.getType(), null)});
+    }
+
+    public long exportMemberships(RecordFormat format, OutputStream out) throws IOException {
+        return export("memberships", format, out, MEMBERSHIP_COLUMNS,
+                () -> byMembership(membershipRepository.streamAllRows()), Function.identity());
+    }
+
+    /**
+     * Writes every entity the query streams to out, which is flushed but left open.
+     *
+     * @return the number of entities written
+     */
+    private <T> long export(String what, RecordFormat format, OutputStream out, String[] columns,
+                            Supplier<Stream<T>> query, Function<T, String[]> toRecord) throws IOException {
+        long start = System.nanoTime();
+        RecordWriter records = RecordWriter.open(format,
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), columns);
+
+        long written;
+        try {
+            written = transactionTemplate.execute(status -> {
+                long count = 0;
+                try (Stream<T> entities = query.get()) {
+                    Iterator<T> iterator = entities.iterator();
+                    while (iterator.hasNext()) {
+                        records.write(toRecord.apply(iterator.next()));
+                        count++;
+                        if (count % CLEAR_INTERVAL == 0) {
+                            // already written, and the cursor doesn't need them
+                            entityManager.clear();
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return count;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        records.flush();
+
+        LOG.info("Exported {} {} in {} ms.", written, what, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return written;
+    }
+
+    private static String id(BaseEntity entity) {
+        return Objects.toString(entity.getId(), null);
+    }
+
+    /**
+     * Makes a record of each membership's rows, which come one per role and one membership after
+     * another. Closing the records closes the rows.
+     */
+    private static Stream<String[]> byMembership(Stream<MembershipRow> rows) {
+        Iterator<MembershipRow> rowIterator = rows.iterator();
+        Iterator<String[]> records = new Iterator<String[]>() {
+            private MembershipRow nextRow = rowIterator.hasNext() ? rowIterator.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextRow != null;
+            }
+
+            @Override
+            public String[] next() {
+                if (nextRow == null) {
+                    throw new NoSuchElementException();
+                }
+                MembershipRow first = nextRow;
+                StringJoiner roleNames = new StringJoiner(JsonRecordReader.LIST_SEPARATOR);
+                do {
+                    if (nextRow.getRoleName() != null) {
+                        roleNames.add(nextRow.getRoleName());
+                    }
+                    nextRow = rowIterator.hasNext() ? rowIterator.next() : null;
+                } while (nextRow != null && nextRow.getMembershipId().equals(first.getMembershipId()));
+                return new String[] {Objects.toString(first.getMembershipId(), null), first.getUsername(),
+                        first.getProjectName(), roleNames.toString()};
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED), false)
+                .onClose(rows::close);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Files to import at start-up and how to import them, set with limbr.import.*.
+ */
+@ConfigurationProperties(prefix = "limbr.import")
+public class BulkImportProperties {
+    private int batchSize = 1000;
+    private String users;
+    private String projects;
+    private String memberships;
+
+    /**
+     * Gets how many rows are written and flushed per transaction.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getUsers() {
+        return users;
+    }
+
+    public void setUsers(String users) {
+        this.users = users;
+    }
+
+    public String getProjects() {
+        return projects;
+    }
+
+    public void setProjects(String projects) {
+        this.projects = projects;
+    }
+
+    public String getMemberships() {
+        return memberships;
+    }
+
+    public void setMemberships(String memberships) {
+        this.memberships = memberships;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Function;
+
+/**
+ * Imports the files named by limbr.import.users, .projects and .memberships, in that order, once
+ * the application has started (and so after the default roles exist).
+ *
+ * Each file is imported once: a marker file named after it with {@value #IMPORTED_SUFFIX} on the
+ * end records the import, and the file is left alone at later start-ups until it's changed or the
+ * marker is deleted.
+ */
+@Component
+@EnableConfigurationProperties(BulkImportProperties.class)
+public class BulkImportRunner implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkImportRunner.class);
+    static final String IMPORTED_SUFFIX = ".imported";
+
+    private final BulkImporter importer;
+    private final BulkImportProperties properties;
+
+    @Autowired
+    public BulkImportRunner(@Lazy BulkImporter importer, BulkImportProperties properties) {
+        this.importer = importer;
+        this.properties = properties;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        importFile(properties.getUsers(), importer::importUsers);
+        importFile(properties.getProjects(), importer::importProjects);
+        importFile(properties.getMemberships(), importer::importMemberships);
+    }
+
+    private void importFile(String fileName, Function<RecordReader, ImportResult> importFunction) {
+        if (fileName == null || fileName.isEmpty()) {
+            return;
+        }
+
+        Path file = Paths.get(fileName);
+        Path marker = Paths.get(fileName + IMPORTED_SUFFIX);
+        try {
+            if (Files.exists(marker) && Files.getLastModifiedTime(marker).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                LOG.info("Skipping {}: it's been imported already (delete {} to import it again).", fileName, marker);
+                return;
+            }
+        } catch (IOException ex) {
+            LOG.error("Couldn't tell whether {} has been imported already.", fileName, ex);
+            return;
+        }
+
+        LOG.info("Importing {}.", fileName);
+        ImportResult result;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             RecordReader records = RecordReader.open(RecordFormat.forFileName(fileName), reader)) {
+            result = importFunction.apply(records);
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Importing {} failed.", fileName, ex);
+            return;
+        }
+
+        try {
+            Files.write(marker, (result + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            // it'll be imported again next time, skipping what's there already
+            LOG.warn("Couldn't record that {} has been imported in {}.", fileName, marker, ex);
+        }
+    }
+}
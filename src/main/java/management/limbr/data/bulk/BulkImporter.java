@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import management.limbr.auth.PasswordHasher;
+import management.limbr.data.model.*;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports users, projects and their memberships from CSV or JSON records.
+ *
+ * Records are read one at a time and written a batch at a time, each batch in its own
+ * transaction, flushed as JDBC batches (see hibernate.jdbc.batch_size) and then cleared from the
+ * persistence context, so memory use doesn't grow with the size of the file. A record that can't
+ * be imported is logged and skipped rather than failing its batch: one missing a value, naming a
+ * user, project or role that doesn't exist, with a username, project name or short name that's
+ * taken already, or for a user who's a member of the project already, in the database or earlier
+ * in the file. Importing a file again therefore skips what it imported the first time. Should a row written by someone else
+ * during the import still clash with one, the whole batch is logged and counted as skipped.
+ *
+ * Columns: users have username, displayName, emailAddress and either password or passwordHash
+ * (a password is hashed the slow way, so prefer hashes for big imports);
+ * projects have name and shortName; memberships have username, project (its name, or blank for a
+ * membership that applies to every project) and roles (role names separated by semicolons).
+ */
+@Component
+@Lazy // only needed when there are files to import
+public class BulkImporter {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkImporter.class);
+
+    public static final String USERNAME = "username";
+    public static final String DISPLAY_NAME = "displayName";
+    public static final String EMAIL_ADDRESS = "emailAddress";
+    public static final String PASSWORD = "password";
+    public static final String PASSWORD_HASH = "passwordHash";
+    public static final String NAME = "name";
+    public static final String SHORT_NAME = "shortName";
+    public static final String PROJECT = "project";
+    public static final String ROLES = "roles";
+
+    @FunctionalInterface
+    private interface BatchConverter {
+        List<BaseEntity> convert(List<Map<String, String>> records, long firstRecordNumber);
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHasher passwordHasher;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BulkImporter(PlatformTransactionManager transactionManager, PasswordHasher passwordHasher, BulkImportProperties properties) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordHasher = passwordHasher;
+        this.batchSize = properties.getBatchSize();
+    }
+
+    public ImportResult importUsers(RecordReader records) {
+        return importRecords("users", records, this::toUsers);
+    }
+
+    public ImportResult importProjects(RecordReader records) {
+        return importRecords("projects", records, this::toProjects);
+    }
+
+    /**
+     * Imports memberships. Their users, projects and roles have to exist already.
+     */
+    public ImportResult importMemberships(RecordReader records) {
+        return importRecords("memberships", records, new MembershipConverter());
+    }
+
+    private ImportResult importRecords(String what, RecordReader records, BatchConverter converter) {
+        long start = System.nanoTime();
+        long imported = 0;
+        long skipped = 0;
+        int batches = 0;
+
+        List<Map<String, String>> batch = new ArrayList<>(batchSize);
+        while (records.hasNext()) {
+            batch.add(records.next());
+            if (batch.size() < batchSize && records.hasNext()) {
+                continue;
+            }
+
+            long batchStart = System.nanoTime();
+            long firstRecordNumber = records.getRecordNumber() - batch.size() + 1;
+            int written = writeBatch(batch, firstRecordNumber, converter);
+            long batchNanos = System.nanoTime() - batchStart;
+
+            batches++;
+            imported += written;
+            skipped += batch.size() - written;
+            LOG.info("Imported {} {} (records {}-{}) in {} ms, {} rows/s.", written, what, firstRecordNumber,
+                    records.getRecordNumber(), TimeUnit.NANOSECONDS.toMillis(batchNanos),
+                    batchNanos == 0 ? written : written * TimeUnit.SECONDS.toNanos(1) / batchNanos);
+            batch.clear();
+        }
+
+        ImportResult result = new ImportResult(imported, skipped, batches, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOG.info("Finished importing {}: {}", what, result);
+        return result;
+    }
+
+    private int writeBatch(List<Map<String, String>> batch, long firstRecordNumber, BatchConverter converter) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BaseEntity> entities = converter.convert(batch, firstRecordNumber);
+                entities.forEach(entityManager::persist);
+                entityManager.flush();
+                entityManager.clear();
+                return entities.size();
+            });
+        } catch (PersistenceException | DataAccessException ex) {
+            // the records were checked against the database, so something else wrote a clashing row since
+            LOG.warn("Skipping records {}-{}: they couldn't be written.", firstRecordNumber,
+                    firstRecordNumber + batch.size() - 1, ex);
+            return 0;
+        }
+    }
+
+    private List<BaseEntity> toUsers(List<Map<String, String>> records, long firstRecordNumber) {
+        Set<String> usernames = new HashSet<>(existing("select u.username from User u where u.username in :values",
+                values(records, USERNAME)));
+
+        List<BaseEntity> users = new ArrayList<>(records.size());
+        long recordNumber = firstRecordNumber;
+        for (Map<String, String> record : records) {
+            String username = value(record, USERNAME);
+            if (username == null) {
+                LOG.warn("Skipping user record {}: it has no {}.", recordNumber, USERNAME);
+            } else if (!usernames.add(username)) {
+                LOG.warn("Skipping user record {}: username \"{}\" is taken.", recordNumber, username);
+            } else {
+                String passwordHash = value(record, PASSWORD_HASH);
+                String password = value(record, PASSWORD);
+                if (passwordHash == null && password != null) {
+                    passwordHash = passwordHasher.hash(username, password);
+                }
+                users.add(new User(username, value(record, DISPLAY_NAME), passwordHash, value(record, EMAIL_ADDRESS)));
+            }
+            recordNumber++;
+        }
+        return users;
+    }
+
+    private List<BaseEntity> toProjects(List<Map<String, String>> records, long firstRecordNumber) {
+        Set<String> names = new HashSet<>(existing("select p.name from Project p where p.name in :values",
+                values(records, NAME)));
+        Set<String> shortNames = new HashSet<>(existing("select p.shortName from Project p where p.shortName in :values",
+                values(records, SHORT_NAME)));
+
+        List<BaseEntity> projects = new ArrayList<>(records.size());
+        long recordNumber = firstRecordNumber;
+        for (Map<String, String> record : records) {
+            String name = value(record, NAME);
+            String shortName = value(record, SHORT_NAME);
+            if (name == null) {
+                LOG.warn("Skipping project record {}: it has no {}.", recordNumber, NAME);
+            } else if (names.contains(name) || (shortName != null && shortNames.contains(shortName))) {
+                LOG.warn("Skipping project record {}: name \"{}\" or short name \"{}\" is taken.", recordNumber, name, shortName);
+            } else {
+                names.add(name);
+                addIfPresent(shortNames, shortName);
+                Project project = new Project();
+                project.setName(name);
+                project.setShortName(shortName);
+                projects.add(project);
+            }
+            recordNumber++;
+        }
+        return projects;
+    }
+
+    /**
+     * Resolves the users and projects of a whole batch with one query each, their existing
+     * memberships with another, and the roles once.
+     */
+    private class MembershipConverter implements BatchConverter {
+        private Map<String, Role> rolesByName;
+
+        @Override
+        public List<BaseEntity> convert(List<Map<String, String>> records, long firstRecordNumber) {
+            if (rolesByName == null) {
+                // few enough to keep for the whole import; detached is fine, only their IDs are written
+                rolesByName = new HashMap<>();
+                entityManager.createQuery("select r from Role r", Role.class).getResultList()
+                        .forEach(role -> rolesByName.put(role.getName(), role));
+            }
+
+            Set<String> usernames = values(records, USERNAME);
+            Set<String> projectNames = values(records, PROJECT);
+
+            Map<String, User> users = new HashMap<>();
+            if (!usernames.isEmpty()) {
+                entityManager.createQuery("select u from User u where u.username in :usernames", User.class)
+                        .setParameter("usernames", usernames)
+                        .getResultList()
+                        .forEach(user -> users.put(user.getUsername(), user));
+            }
+            Map<String, Project> projects = new HashMap<>();
+            if (!projectNames.isEmpty()) {
+                entityManager.createQuery("select p from Project p where p.name in :names", Project.class)
+                        .setParameter("names", projectNames)
+                        .getResultList()
+                        .forEach(project -> projects.put(project.getName(), project));
+            }
+
+            Set<String> taken = new HashSet<>();
+            if (!users.isEmpty()) {
+                Set<Long> userIds = new HashSet<>();
+                users.values().forEach(user -> userIds.add(user.getId()));
+                entityManager.createQuery("select m.user.id, p.id from UserProjectRoles m left join m.project p "
+                        + "where m.user.id in :userIds", Object[].class)
+                        .setParameter("userIds", userIds)
+                        .getResultList()
+                        .forEach(row -> taken.add(membershipKey((Long)row[0], (Long)row[1])));
+            }
+
+            List<BaseEntity> memberships = new ArrayList<>(records.size());
+            long recordNumber = firstRecordNumber;
+            for (Map<String, String> record : records) {
+                UserProjectRoles membership = toMembership(record, recordNumber, users, projects, taken);
+                if (membership != null) {
+                    memberships.add(membership);
+                }
+                recordNumber++;
+            }
+            return memberships;
+        }
+
+        private UserProjectRoles toMembership(Map<String, String> record, long recordNumber, Map<String, User> users,
+                                              Map<String, Project> projects, Set<String> taken) {
+            User user = users.get(value(record, USERNAME));
+            String projectName = value(record, PROJECT);
+            Project project = projectName == null ? null : projects.get(projectName);
+            if (user == null || (projectName != null && project == null)) {
+                LOG.warn("Skipping membership record {}: no such user \"{}\" or project \"{}\".", recordNumber,
+                        value(record, USERNAME), value(record, PROJECT));
+                return null;
+            }
+
+            Set<Role> roles = new HashSet<>();
+            String roleNames = value(record, ROLES);
+            for (String roleName : StringUtils.split(roleNames == null ? "" : roleNames, JsonRecordReader.LIST_SEPARATOR)) {
+                Role role = rolesByName.get(roleName.trim());
+                if (role == null) {
+                    LOG.warn("Skipping membership record {}: no such role \"{}\".", recordNumber, roleName);
+                    return null;
+                }
+                roles.add(role);
+            }
+            if (!taken.add(membershipKey(user.getId(), project == null ? null : project.getId()))) {
+                LOG.warn("Skipping membership record {}: \"{}\" is a member of \"{}\" already.", recordNumber,
+                        user.getUsername(), projectName == null ? "every project" : projectName);
+                return null;
+            }
+
+            UserProjectRoles membership = new UserProjectRoles();
+            membership.setUser(user);
+            membership.setProject(project);
+            membership.setRoles(roles);
+            return membership;
+        }
+    }
+
+    private static String membershipKey(Long userId, Long projectId) {
+        // a null project is a global membership
+        return userId + ":" + projectId;
+    }
+
+    /**
+     * Finds which of the values are in the database already, with a query taking them as :values.
+     */
+    private List<String> existing(String query, Set<String> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.createQuery(query, String.class).setParameter("values", values).getResultList();
+    }
+
+    private static Set<String> values(List<Map<String, String>> records, String name) {
+        Set<String> values = new HashSet<>();
+        for (Map<String, String> record : records) {
+            addIfPresent(values, value(record, name));
+        }
+        return values;
+    }
+
+    private static void addIfPresent(Set<String> set, String value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+
+    /**
+     * Gets a value from a record, with blanks (which is what CSV has for missing values) as null.
+     */
+    private static String value(Map<String, String> record, String name) {
+        return StringUtils.trimToNull(record.get(name));
+    }
+}
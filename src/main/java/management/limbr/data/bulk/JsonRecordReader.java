@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads JSON objects, either in an array or one after another, with the streaming parser.
+ *
+ * Values are read as text; an array value (like a membership's roles) is joined with
+ * {@link #LIST_SEPARATOR}, the same way it's written in CSV.
+ */
+public class JsonRecordReader implements RecordReader {
+    public static final String LIST_SEPARATOR = ";";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private boolean inArray;
+    private JsonToken nextToken;
+    private long recordNumber;
+
+    public JsonRecordReader(Reader reader) throws IOException {
+        parser = JSON_FACTORY.createParser(reader);
+        nextToken = parser.nextToken();
+        if (nextToken == JsonToken.START_ARRAY) {
+            inArray = true;
+            nextToken = parser.nextToken();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextToken == JsonToken.START_OBJECT;
+    }
+
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            Map<String, String> record = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                record.put(name, readValue());
+            }
+            recordNumber++;
+
+            nextToken = parser.nextToken();
+            if (inArray && nextToken == JsonToken.END_ARRAY) {
+                nextToken = null;
+            }
+            return record;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Couldn't read JSON record " + (recordNumber + 1), ex);
+        }
+    }
+
+    private String readValue() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (token == JsonToken.START_ARRAY) {
+            StringBuilder joined = new StringBuilder();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (joined.length() > 0) {
+                    joined.append(LIST_SEPARATOR);
+                }
+                joined.append(parser.getText());
+            }
+            return joined.toString();
+        } else if (token == JsonToken.START_OBJECT) {
+            throw new IOException("Nested objects aren't supported, at record " + (recordNumber + 1));
+        }
+        return parser.getText();
+    }
+
+    @Override
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import java.util.Locale;
+
+/**
+ * The formats records are imported from and exported to.
+ */
+public enum RecordFormat {
+    CSV("csv", "text/csv"),
+    /**
+     * Either an array of objects, or objects one after another (JSON lines). Exports are always
+     * JSON lines.
+     */
+    JSON("jsonl", "application/x-ndjson");
+
+    private final String extension;
+    private final String mimeType;
+
+    RecordFormat(String extension, String mimeType) {
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Gets the extension of an exported file, without the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public static RecordFormat forFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        if (lowerCase.endsWith(".csv")) {
+            return CSV;
+        } else if (lowerCase.endsWith(".json") || lowerCase.endsWith(".jsonl")) {
+            return JSON;
+        }
+        throw new IllegalArgumentException("Can't tell the format of " + fileName + " from its extension.");
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads import records one at a time, so a file of any size can be imported in constant memory.
+ *
+ * Each record maps column (or property) names to values.
+ */
+public interface RecordReader extends Iterator<Map<String, String>>, Closeable {
+    /**
+     * Gets the number of the record most recently returned by next(), starting at 1, for messages.
+     */
+    long getRecordNumber();
+
+    static RecordReader open(RecordFormat format, Reader reader) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvRecordReader(reader);
+            case JSON:
+                return new JsonRecordReader(reader);
+            default:
+                throw new IllegalArgumentException("Unsupported import format " + format);
+        }
+    }
+}
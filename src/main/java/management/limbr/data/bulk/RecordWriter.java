@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes export records one at a time, straight through to the underlying writer.
+ *
+ * The columns are given when the writer is opened, and each record has a value for each of them,
+ * in the same order. Records written this way can be read back with a {@link RecordReader}.
+ */
+public interface RecordWriter extends Closeable, Flushable {
+    void write(String... values) throws IOException;
+
+    static RecordWriter open(RecordFormat format, Writer writer, String... columns) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvRecordWriter(writer, columns);
+            case JSON:
+                return new JsonRecordWriter(writer, columns);
+            default:
+                throw new IllegalArgumentException("Unsupported export format " + format);
+        }
+    }
+}
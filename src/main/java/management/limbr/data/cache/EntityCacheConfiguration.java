@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.cache;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.management.ManagementService;
+import org.hibernate.cache.spi.UpdateTimestampsCache;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.management.MBeanServer;
+
+/**
+ * Sets up the Ehcache regions behind Hibernate's second-level and query caches.
+ *
+ * Hibernate's SingletonEhCacheRegionFactory picks up the CacheManager singleton, so it has to be
+ * created here, from limbr.cache.*, before the entity manager factory starts. Hit, miss and
+ * eviction counts for every region are published over JMX under net.sf.ehcache.
+ */
+@Configuration
+@EnableConfigurationProperties(EntityCacheProperties.class)
+public class EntityCacheConfiguration {
+    public static final String CACHE_MANAGER_BEAN_NAME = "entityCacheManager";
+
+    @Bean(name = CACHE_MANAGER_BEAN_NAME, destroyMethod = "shutdown")
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        net.sf.ehcache.config.Configuration configuration = new net.sf.ehcache.config.Configuration()
+                .name("limbr-entities")
+                .updateCheck(false)
+                .defaultCache(properties.getDefaults().toCacheConfiguration(null));
+
+        // query results are only thrown out by these timestamps, so they must never expire
+        configuration.addCache(new CacheConfiguration(UpdateTimestampsCache.REGION_NAME, 0).eternal(true).statistics(true));
+
+        properties.getRegions().forEach((name, region) -> configuration.addCache(region.toCacheConfiguration(name)));
+
+        CacheManager cacheManager = CacheManager.create(configuration);
+
+        properties.getRegions().forEach((name, region) -> cacheManager.getCache(name).setDisabled(!region.isEnabled()));
+
+        return cacheManager;
+    }
+
+    @Bean(initMethod = "init", destroyMethod = "dispose")
+    public ManagementService entityCacheManagement(CacheManager entityCacheManager, MBeanServer mbeanServer) {
+        return new ManagementService(entityCacheManager, mbeanServer, false, false, true, true);
+    }
+
+    @Configuration
+    static class EntityManagerFactoryDependsOnCacheManager extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependsOnCacheManager() {
+            super(CACHE_MANAGER_BEAN_NAME);
+        }
+    }
+}
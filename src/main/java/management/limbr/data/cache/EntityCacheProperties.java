@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.cache;
+
+import net.sf.ehcache.config.CacheConfiguration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounds for the second-level cache regions, set with limbr.cache.* in application.properties.
+ *
+ * Regions that aren't listed get the defaults.
+ */
+@ConfigurationProperties(prefix = "limbr.cache")
+public class EntityCacheProperties {
+    private Region defaults = new Region();
+    private Map<String, Region> regions = new HashMap<>();
+
+    public Region getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Region defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    public static class Region {
+        private boolean enabled = true;
+        private long maxEntries = 1000;
+        private long timeToLiveSeconds = 3600;
+        private long timeToIdleSeconds;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        /**
+         * Gets how long an entry can go unread before it's evicted, or 0 to only go by time to live.
+         */
+        public long getTimeToIdleSeconds() {
+            return timeToIdleSeconds;
+        }
+
+        public void setTimeToIdleSeconds(long timeToIdleSeconds) {
+            this.timeToIdleSeconds = timeToIdleSeconds;
+        }
+
+        CacheConfiguration toCacheConfiguration(String name) {
+            CacheConfiguration configuration = new CacheConfiguration()
+                    .maxEntriesLocalHeap(maxEntries)
+                    .timeToLiveSeconds(timeToLiveSeconds)
+                    .timeToIdleSeconds(timeToIdleSeconds)
+                    .statistics(true);
+            // the default cache is the only one without a name
+            return name == null ? configuration : configuration.name(name);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.event;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hears from Hibernate about every entity written, including changes to an entity's collections,
+ * and publishes an {@link EntityChangedEvent} per entity class once the transaction commits.
+ *
+ * Changes are gathered up per transaction, so a batch of a thousand inserts is one event rather
+ * than a thousand, and nothing is published for a transaction that rolls back. Updates also keep
+ * what their changed properties were the first time they changed in the transaction, so listeners
+ * can tell what an entity was moved away from.
+ */
+@Component
+public class EntityChangePublisher implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+    private final transient EntityManagerFactory entityManagerFactory;
+    private final transient ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public EntityChangePublisher(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        updated(event.getEntity(), event.getId(), previousValues(event));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        deleted(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        changed(event.getAffectedOwnerOrNull(), event.getAffectedOwnerIdOrNull());
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        changed(event.getAffectedOwnerOrNull(), event.getAffectedOwnerIdOrNull());
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        if (event.getAffectedOwnerOrNull() != null) {
+            changed(event.getAffectedOwnerOrNull(), event.getAffectedOwnerIdOrNull());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        // the transaction synchronization takes care of waiting for the commit
+        return false;
+    }
+
+    private static Map<String, Object> previousValues(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // updated without being loaded first, so there's nothing to compare with
+            return Collections.emptyMap();
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        Map<String, Object> previous = new HashMap<>();
+        if (event.getDirtyProperties() == null) {
+            for (int i = 0; i < names.length; i++) {
+                previous.put(names[i], oldState[i]);
+            }
+        } else {
+            for (int i : event.getDirtyProperties()) {
+                previous.put(names[i], oldState[i]);
+            }
+        }
+        return previous;
+    }
+
+    void changed(Object entity, Serializable id) {
+        record(entity, id, false, Collections.emptyMap());
+    }
+
+    void updated(Object entity, Serializable id, Map<String, Object> previous) {
+        record(entity, id, false, previous);
+    }
+
+    void deleted(Object entity, Serializable id) {
+        record(entity, id, true, Collections.emptyMap());
+    }
+
+    private void record(Object entity, Serializable id, boolean deleted, Map<String, Object> previous) {
+        Class<?> entityClass = entity.getClass();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new EntityChangedEvent(entityClass, Collections.singleton(id),
+                    Collections.singletonList(entity), deleted ? Collections.singleton(id) : Collections.emptySet(),
+                    previous.isEmpty() ? Collections.emptyMap() : Collections.singletonMap(id, previous)));
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges)TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        Changes changes = pending.changes.computeIfAbsent(entityClass, type -> new Changes());
+        if (changes.ids.add(id)) {
+            changes.entities.add(entity);
+        }
+        if (!previous.isEmpty()) {
+            // the first value seen is the one from before the transaction
+            Map<String, Object> values = changes.previousValues.computeIfAbsent(id, key -> new HashMap<>());
+            previous.forEach(values::putIfAbsent);
+        }
+        if (deleted) {
+            changes.deletedIds.add(id);
+        } else {
+            changes.deletedIds.remove(id);
+        }
+    }
+
+    private static class Changes {
+        private final Set<Serializable> ids = new HashSet<>();
+        private final List<Object> entities = new ArrayList<>();
+        private final Set<Serializable> deletedIds = new HashSet<>();
+        private final Map<Serializable, Map<String, Object>> previousValues = new HashMap<>();
+    }
+
+    private class PendingChanges extends TransactionSynchronizationAdapter {
+        private final Map<Class<?>, Changes> changes = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            changes.forEach((entityClass, changed) ->
+                    eventPublisher.publishEvent(new EntityChangedEvent(entityClass, changed.ids,
+                            changed.entities, changed.deletedIds, changed.previousValues)));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EntityChangePublisher.this);
+        }
+    }
+}
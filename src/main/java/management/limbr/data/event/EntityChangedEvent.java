@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.event;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published once a transaction that inserted, updated or deleted entities of one class has
+ * committed, with the IDs of all of them and the entities themselves as they were written, which
+ * of them were deleted, and what the updated properties were before the transaction.
+ */
+public class EntityChangedEvent {
+    private final Class<?> entityClass;
+    private final Set<Serializable> ids;
+    private final Collection<Object> entities;
+    private final Set<Serializable> deletedIds;
+    private final Map<Serializable, Map<String, Object>> previousValues;
+
+    public EntityChangedEvent(Class<?> entityClass, Set<Serializable> ids) {
+        this(entityClass, ids, Collections.emptyList());
+    }
+
+    public EntityChangedEvent(Class<?> entityClass, Set<Serializable> ids, Collection<Object> entities) {
+        this(entityClass, ids, entities, Collections.emptySet());
+    }
+
+    public EntityChangedEvent(Class<?> entityClass, Set<Serializable> ids, Collection<Object> entities,
+                              Set<Serializable> deletedIds) {
+        this(entityClass, ids, entities, deletedIds, Collections.emptyMap());
+    }
+
+    public EntityChangedEvent(Class<?> entityClass, Set<Serializable> ids, Collection<Object> entities,
+                              Set<Serializable> deletedIds, Map<Serializable, Map<String, Object>> previousValues) {
+        this.entityClass = entityClass;
+        this.ids = Collections.unmodifiableSet(ids);
+        this.entities = Collections.unmodifiableCollection(entities);
+        this.deletedIds = Collections.unmodifiableSet(deletedIds);
+        this.previousValues = Collections.unmodifiableMap(previousValues);
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public Set<Serializable> getIds() {
+        return ids;
+    }
+
+    /**
+     * Gets the changed entities, which are detached by now. A deleted entity is as it was just
+     * before it was deleted.
+     */
+    public Collection<Object> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Gets the IDs of the entities that were deleted, out of all of those that changed.
+     */
+    public Set<Serializable> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public boolean isDeleted(Serializable id) {
+        return deletedIds.contains(id);
+    }
+
+    /**
+     * Gets the values an entity's updated properties had before the transaction, by property name.
+     * Empty for entities that were only inserted, deleted or had their collections changed.
+     */
+    public Map<String, Object> getPreviousValues(Serializable id) {
+        return Collections.unmodifiableMap(previousValues.getOrDefault(id, Collections.emptyMap()));
+    }
+
+    public boolean isAbout(Class<?> type) {
+        return type.isAssignableFrom(entityClass);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangedEvent{" + entityClass.getSimpleName() + ", " + ids.size() + " changed}";
+    }
+}
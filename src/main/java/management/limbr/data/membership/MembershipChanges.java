@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.membership;
+
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.model.User;
+import management.limbr.data.model.UserProjectRoles;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Works out whose roles a committed change could have changed, so anything kept per user only
+ * has to drop what belongs to those users.
+ */
+public final class MembershipChanges {
+    private MembershipChanges() {
+        // do not instantiate
+    }
+
+    /**
+     * Gets the IDs of the users an event is about, or of the users whose memberships it's about,
+     * including anyone a membership was moved away from. Empty for any other event, including
+     * changes to roles, which could affect anyone.
+     */
+    public static Set<Long> affectedUsers(EntityChangedEvent event) {
+        Set<Long> userIds = new HashSet<>();
+        if (event.isAbout(UserProjectRoles.class)) {
+            for (Object entity : event.getEntities()) {
+                UserProjectRoles membership = (UserProjectRoles)entity;
+                addUser(userIds, membership.getUser());
+                addUser(userIds, (User)event.getPreviousValues(membership.getId()).get("user"));
+            }
+        } else if (event.isAbout(User.class)) {
+            for (Serializable id : event.getIds()) {
+                userIds.add((Long)id);
+            }
+        }
+        return userIds;
+    }
+
+    private static void addUser(Set<Long> userIds, User user) {
+        if (user != null && user.getId() != null) {
+            userIds.add(user.getId());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.membership;
+
+import management.limbr.data.model.RoleTypes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A membership as a listing shows it: who, in which project, with which roles.
+ */
+public final class MembershipListing {
+    private final Long membershipId;
+    private final Long userId;
+    private final String username;
+    private final String displayName;
+    private final Long projectId;
+    private final String projectName;
+    private final List<String> roleNames;
+    private final int roleMask;
+
+    private MembershipListing(MembershipRow first, List<String> roleNames, int roleMask) {
+        membershipId = first.getMembershipId();
+        userId = first.getUserId();
+        username = first.getUsername();
+        displayName = first.getDisplayName();
+        projectId = first.getProjectId();
+        projectName = first.getProjectName();
+        this.roleNames = Collections.unmodifiableList(roleNames);
+        this.roleMask = roleMask;
+    }
+
+    /**
+     * Folds rows into listings, one per membership, keeping their order. The rows of each
+     * membership have to be next to each other.
+     */
+    static List<MembershipListing> of(List<MembershipRow> rows) {
+        List<MembershipListing> listings = new ArrayList<>();
+        int start = 0;
+        while (start < rows.size()) {
+            MembershipRow first = rows.get(start);
+            List<String> roleNames = new ArrayList<>();
+            int roleMask = 0;
+            int end = start;
+            for (; end < rows.size() && rows.get(end).getMembershipId().equals(first.getMembershipId()); end++) {
+                MembershipRow row = rows.get(end);
+                if (row.getRoleName() != null) {
+                    roleNames.add(row.getRoleName());
+                }
+                if (row.getRoleType() != null) {
+                    roleMask |= row.getRoleType().bit();
+                }
+            }
+            listings.add(new MembershipListing(first, roleNames, roleMask));
+            start = end;
+        }
+        return listings;
+    }
+
+    public Long getMembershipId() {
+        return membershipId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the project's ID, or null for a global membership.
+     */
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public List<String> getRoleNames() {
+        return roleNames;
+    }
+
+    public boolean hasRole(RoleTypes type) {
+        return type.isIn(roleMask);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.membership;
+
+import management.limbr.data.UserProjectRolesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Lists memberships for screens that only show them, with one query no matter how many there
+ * are and without loading any entities.
+ */
+@Component
+@Lazy // made when something first lists memberships
+public class MembershipQueries {
+    private final UserProjectRolesRepository membershipRepository;
+
+    @Autowired
+    public MembershipQueries(UserProjectRolesRepository membershipRepository) {
+        this.membershipRepository = membershipRepository;
+    }
+
+    /**
+     * Lists the members of a project by username. Members through a global membership aren't included.
+     */
+    public List<MembershipListing> listMembers(Long projectId) {
+        return MembershipListing.of(membershipRepository.findMemberRows(projectId));
+    }
+
+    /**
+     * Lists a user's memberships by project name, global ones included.
+     */
+    public List<MembershipListing> listMemberships(Long userId) {
+        return MembershipListing.of(membershipRepository.findMembershipRows(userId));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.membership;
+
+import management.limbr.data.model.RoleTypes;
+
+/**
+ * One role of one membership, flattened into the columns a membership listing shows. Built by
+ * the query itself, so listing memberships doesn't load any entities.
+ */
+public final class MembershipRow {
+    private final Long membershipId;
+    private final Long userId;
+    private final String username;
+    private final String displayName;
+    private final Long projectId;
+    private final String projectName;
+    private final String roleName;
+    private final RoleTypes roleType;
+
+    @SuppressWarnings("squid:S00107") // one argument per column of the query
+    public MembershipRow(Long membershipId, Long userId, String username, String displayName, Long projectId,
+                         String projectName, String roleName, RoleTypes roleType) {
+        this.membershipId = membershipId;
+        this.userId = userId;
+        this.username = username;
+        this.displayName = displayName;
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.roleName = roleName;
+        this.roleType = roleType;
+    }
+
+    public Long getMembershipId() {
+        return membershipId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the project's ID, or null for a global membership.
+     */
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    /**
+     * Gets the role's name, or null if the membership has no roles.
+     */
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public RoleTypes getRoleType() {
+        return roleType;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * A change to an entity: which one, what was done to it, what changed, who did it and when.
+ * Entries are only ever added, never changed.
+ */
+@Entity
+@Immutable
+@NotAudited
+@Table(indexes = @Index(name = "audit_entry_entity", columnList = "entity_type, entity_id, id"))
+public class AuditEntry extends BaseEntity {
+    public static final int MAX_CHANGES_LENGTH = 4000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_entry_id")
+    @SequenceGenerator(name = "audit_entry_id", sequenceName = "audit_entry_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "recorded_at", nullable = false)
+    private Date recordedAt;
+
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AuditAction action;
+
+    /**
+     * The user who made the change, or null if it wasn't made by a user (imports, rebalancing).
+     */
+    @Column(name = "user_id")
+    private Long userId;
+
+    private String username;
+
+    /**
+     * What changed, a line per property: "name: old -> new".
+     */
+    @Column(length = MAX_CHANGES_LENGTH)
+    private String changes;
+
+    public AuditEntry() {
+        // for Hibernate
+    }
+
+    public AuditEntry(Date recordedAt, String entityType, Long entityId, AuditAction action, Long userId, String username,
+                      String changes) {
+        this.recordedAt = recordedAt;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.action = action;
+        this.userId = userId;
+        this.username = username;
+        this.changes = changes;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getRecordedAt() {
+        return recordedAt;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getChanges() {
+        return changes;
+    }
+}
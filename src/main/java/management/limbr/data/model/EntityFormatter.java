@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the JSON-like representation returned by {@link BaseEntity#toString()}.
+ *
+ * The getters to call and the order to call them in are worked out once per class. Each thread
+ * formats into its own builder, which is reused from one call to the next.
+ */
+final class EntityFormatter {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityFormatter.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final int INITIAL_CAPACITY = 256;
+    // don't let one huge entity pin a huge builder to the thread forever
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private static final ClassValue<EntityFormatter> FORMATTERS = new ClassValue<EntityFormatter>() {
+        @Override
+        protected EntityFormatter computeValue(Class<?> type) {
+            return new EntityFormatter(type);
+        }
+    };
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private final String typeName;
+    private final String prefix;
+    private final String[] labels;
+    private final MethodHandle[] getters;
+
+    private EntityFormatter(Class<?> type) {
+        typeName = type.getTypeName();
+        prefix = "{class:\"" + typeName + "\",";
+
+        // sort the methods so they come out in a predictable order
+        Method[] methods = type.getMethods();
+        Arrays.sort(methods, (Method a, Method b) -> methodNameToFieldName(a.getName()).compareTo(methodNameToFieldName(b.getName())));
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<String> labelList = new ArrayList<>();
+        List<MethodHandle> getterList = new ArrayList<>();
+        for (Method method : methods) {
+            if (isProbablyGetter(method)) {
+                try {
+                    MethodHandle getter = lookup.unreflect(method);
+                    if (Modifier.isStatic(method.getModifiers())) {
+                        getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                    }
+                    getterList.add(getter.asType(GETTER_TYPE));
+                    labelList.add(methodNameToFieldName(method.getName()) + ':');
+                } catch (IllegalAccessException ex) {
+                    LOG.debug("Can't call method {} on entity of type {}.", method.getName(), typeName, ex);
+                }
+            }
+        }
+
+        labels = labelList.toArray(new String[labelList.size()]);
+        getters = getterList.toArray(new MethodHandle[getterList.size()]);
+    }
+
+    static EntityFormatter of(Class<?> type) {
+        return FORMATTERS.get(type);
+    }
+
+    String format(Object entity) {
+        StringBuilder builder = BUILDER.get();
+        if (builder.length() > 0) {
+            // one of the values is an entity too, and this thread's builder is busy with its parent
+            return formatInto(new StringBuilder(INITIAL_CAPACITY), entity);
+        }
+
+        try {
+            return formatInto(builder, entity);
+        } finally {
+            if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+                BUILDER.set(new StringBuilder(INITIAL_CAPACITY));
+            } else {
+                builder.setLength(0);
+            }
+        }
+    }
+
+    @SuppressWarnings("squid:S1181") // a getter can throw anything; the entity is still printed without it
+    private String formatInto(StringBuilder builder, Object entity) {
+        builder.append(prefix);
+
+        for (int i = 0; i < getters.length; i++) {
+            Object value;
+            try {
+                // get the value FIRST so we don't append other things if we can't get it
+                value = (Object)getters[i].invokeExact(entity);
+            } catch (Throwable ex) {
+                LOG.debug("Trying to call a getter for {} on entity of type {} threw an exception.", labels[i], typeName, ex);
+                continue;
+            }
+            builder.append(labels[i]);
+            appendValue(builder, value);
+            builder.append(',');
+        }
+
+        builder.setLength(builder.length() - 1);
+        builder.append('}');
+
+        return builder.toString();
+    }
+
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof String) {
+            String string = (String)value;
+            builder.append('"');
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                switch (c) {
+                    case '"':
+                        builder.append("\\\"");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            }
+            builder.append('"');
+        } else {
+            builder.append(value);
+        }
+    }
+
+    private static boolean isProbablyGetter(Method method) {
+        String methodName = method.getName();
+        return method.getParameterCount() == 0
+                && (methodName.startsWith("get") || methodName.startsWith("is") || methodName.startsWith("has"))
+                && !("hashCode".equals(methodName) || "getClass".equals(methodName));
+    }
+
+    private static String methodNameToFieldName(String methodName) {
+        String theRest;
+        if (methodName.startsWith("get") || methodName.startsWith("has")) {
+            theRest = methodName.substring(3);
+        } else if (methodName.startsWith("is")) {
+            theRest = methodName.substring(2);
+        } else {
+            theRest = methodName;
+        }
+
+        StringBuilder response = new StringBuilder();
+        response.append(theRest.substring(0, 1).toLowerCase());
+        if (theRest.length() > 1) {
+            response.append(theRest.substring(1));
+        }
+
+        return response.toString();
+    }
+}
@@ -19,17 +19,26 @@
 
 package management.limbr.data.model;
 
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import management.limbr.data.model.util.SearchKeys;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Project.CACHE_REGION)
+@Table(indexes = @Index(name = "project_name_key", columnList = "name_key"))
 @SuppressWarnings({"common-java:DuplicatedBlocks"})
 public class Project extends BaseEntity {
+    public static final String CACHE_REGION = "project";
+    public static final String QUERY_CACHE_REGION = "project-queries";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_id")
+    @SequenceGenerator(name = "project_id", sequenceName = "project_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true)
@@ -37,6 +46,10 @@ public class Project extends BaseEntity {
     @DisplayName
     private String name;
 
+    @SearchKey
+    @Column(name = "name_key")
+    private String nameKey;
+
     @Column(unique = true)
     private String shortName;
 
@@ -65,4 +78,10 @@ public class Project extends BaseEntity {
     public void setShortName(String shortName) {
         this.shortName = shortName;
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        nameKey = SearchKeys.normalize(name);
+    }
 }
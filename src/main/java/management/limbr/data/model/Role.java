@@ -19,20 +19,36 @@
 
 package management.limbr.data.model;
 
+import management.limbr.data.model.util.SearchKeys;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
+@Table(indexes = @Index(name = "role_name_key", columnList = "name_key"))
 @SuppressWarnings({"common-java:DuplicatedBlocks"})
 public class Role extends BaseEntity {
+    public static final String CACHE_REGION = "role";
+    public static final String QUERY_CACHE_REGION = "role-queries";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_id")
+    @SequenceGenerator(name = "role_id", sequenceName = "role_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @DisplayName
     @ListColumn
     private String name;
 
+    @SearchKey
+    @Column(name = "name_key")
+    private String nameKey;
+
     @ListColumn
     @Enumerated(EnumType.STRING)
     private RoleTypes type;
@@ -71,4 +87,10 @@ public class Role extends BaseEntity {
     public void setType(RoleTypes type) {
         this.type = type;
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        nameKey = SearchKeys.normalize(name);
+    }
 }
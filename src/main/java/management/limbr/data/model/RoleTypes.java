@@ -24,5 +24,24 @@ public enum RoleTypes {
     MANAGER,
     LEAD,
     DEVELOPER,
-    VIEWER
+    VIEWER;
+
+    /**
+     * Gets the bit that stands for this type in a mask of role types.
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    public static int maskOf(Iterable<RoleTypes> types) {
+        int mask = 0;
+        for (RoleTypes type : types) {
+            mask |= type.bit();
+        }
+        return mask;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * A sprint's points at the end of a day on which they changed: all of them, for burnup, and those
+ * done, which leaves what's remaining, for burndown. Days without a snapshot are as the day before.
+ */
+@Entity
+@NotAudited
+@Table(uniqueConstraints = @UniqueConstraint(name = "sprint_day_snapshot_day", columnNames = {"sprint_id", "day"}))
+public class SprintDaySnapshot extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sprint_day_snapshot_id")
+    @SequenceGenerator(name = "sprint_day_snapshot_id", sequenceName = "sprint_day_snapshot_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private Sprint sprint;
+
+    @Temporal(TemporalType.DATE)
+    @Column(nullable = false)
+    private Date day;
+
+    private long totalPoints;
+
+    private long completedPoints;
+
+    public SprintDaySnapshot() {
+        // defaults
+    }
+
+    public SprintDaySnapshot(Sprint sprint, Date day, long totalPoints, long completedPoints) {
+        this.sprint = sprint;
+        this.day = day;
+        this.totalPoints = totalPoints;
+        this.completedPoints = completedPoints;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Sprint getSprint() {
+        return sprint;
+    }
+
+    public void setSprint(Sprint sprint) {
+        this.sprint = sprint;
+    }
+
+    public Date getDay() {
+        return day;
+    }
+
+    public void setDay(Date day) {
+        this.day = day;
+    }
+
+    public long getTotalPoints() {
+        return totalPoints;
+    }
+
+    public void setTotalPoints(long totalPoints) {
+        this.totalPoints = totalPoints;
+    }
+
+    public long getCompletedPoints() {
+        return completedPoints;
+    }
+
+    public void setCompletedPoints(long completedPoints) {
+        this.completedPoints = completedPoints;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model;
+
+import org.hibernate.annotations.DynamicUpdate;
+
+import javax.persistence.*;
+
+/**
+ * Something to be done in a project. A project's stories make up its backlog, in the order of
+ * their rank keys (see {@link management.limbr.data.model.util.RankKeys}).
+ */
+@Entity
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "story_project_rank", columnList = "project_id, backlog_rank"),
+        @Index(name = "story_sprint_rank", columnList = "sprint_id, backlog_rank")})
+public class Story extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "story_id")
+    @SequenceGenerator(name = "story_id", sequenceName = "story_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    private Project project;
+
+    @ListColumn
+    @DisplayName
+    private String title;
+
+    @Column(length = 4000)
+    private String description;
+
+    @NotAudited // rebalancing rewrites every rank in a project at once
+    @Column(name = "backlog_rank", nullable = false)
+    private String rank;
+
+    /**
+     * The sprint the story is being worked on in, or null while it's waiting in the backlog.
+     */
+    @ManyToOne
+    private Sprint sprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StoryStatus status = StoryStatus.TO_DO;
+
+    /**
+     * The estimate, in story points, or null if it hasn't been estimated.
+     */
+    @ListColumn
+    private Integer points;
+
+    public Story() {
+        // defaults
+    }
+
+    public Story(Project project, String title, String rank) {
+        this.project = project;
+        this.title = title;
+        this.rank = rank;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public void setProject(Project project) {
+        this.project = project;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getRank() {
+        return rank;
+    }
+
+    public void setRank(String rank) {
+        this.rank = rank;
+    }
+
+    public Sprint getSprint() {
+        return sprint;
+    }
+
+    public void setSprint(Sprint sprint) {
+        this.sprint = sprint;
+    }
+
+    public StoryStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(StoryStatus status) {
+        this.status = status;
+    }
+
+    public Integer getPoints() {
+        return points;
+    }
+
+    public void setPoints(Integer points) {
+        this.points = points;
+    }
+}
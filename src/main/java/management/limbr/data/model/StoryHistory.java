@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * A story's sprint, status and estimate as they were just after a change to any of them. Rows
+ * are only ever added; they're what sprint snapshots are recomputed from.
+ */
+@Entity
+@NotAudited
+@Table(indexes = {
+        @Index(name = "story_history_story", columnList = "story_id, changed_at"),
+        @Index(name = "story_history_sprint", columnList = "sprint_id")})
+public class StoryHistory extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "story_history_id")
+    @SequenceGenerator(name = "story_history_id", sequenceName = "story_history_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    // ids rather than relations, so history outlives what it's about
+    @Column(name = "story_id", nullable = false)
+    private Long storyId;
+
+    @Column(name = "sprint_id")
+    private Long sprintId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "changed_at", nullable = false)
+    private Date changedAt;
+
+    @Enumerated(EnumType.STRING)
+    private StoryStatus status;
+
+    private Integer points;
+
+    private boolean deleted;
+
+    public StoryHistory() {
+        // defaults
+    }
+
+    public StoryHistory(Long storyId, Long sprintId, Date changedAt, StoryStatus status, Integer points, boolean deleted) {
+        this.storyId = storyId;
+        this.sprintId = sprintId;
+        this.changedAt = changedAt;
+        this.status = status;
+        this.points = points;
+        this.deleted = deleted;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStoryId() {
+        return storyId;
+    }
+
+    public void setStoryId(Long storyId) {
+        this.storyId = storyId;
+    }
+
+    public Long getSprintId() {
+        return sprintId;
+    }
+
+    public void setSprintId(Long sprintId) {
+        this.sprintId = sprintId;
+    }
+
+    public Date getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Date changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public StoryStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(StoryStatus status) {
+        this.status = status;
+    }
+
+    public Integer getPoints() {
+        return points;
+    }
+
+    public void setPoints(Integer points) {
+        this.points = points;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+}
@@ -19,16 +19,19 @@
 
 package management.limbr.data.model;
 
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import management.limbr.data.model.util.SearchKeys;
+import org.hibernate.annotations.DynamicUpdate;
+
+import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
+@Table(indexes = @Index(name = "user_username_key", columnList = "username_key"))
 public class User extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id")
+    @SequenceGenerator(name = "user_id", sequenceName = "user_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true)
@@ -36,6 +39,10 @@ public class User extends BaseEntity {
     @DisplayName
     private String username;
 
+    @SearchKey
+    @Column(name = "username_key")
+    private String usernameKey;
+
     @ListColumn
     private String displayName;
 
@@ -98,4 +105,9 @@ public class User extends BaseEntity {
         this.emailAddress = emailAddress;
     }
 
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        usernameKey = SearchKeys.normalize(username);
+    }
 }
@@ -23,11 +23,17 @@ import javax.persistence.*;
 import java.util.Set;
 
 @Entity
-
+@NamedEntityGraph(name = UserProjectRoles.WITH_USER_PROJECT_AND_ROLES, attributeNodes = {
+        @NamedAttributeNode("user"), @NamedAttributeNode("project"), @NamedAttributeNode("roles")})
 public class UserProjectRoles extends BaseEntity {
+    /**
+     * Loads a membership with everything it refers to in the same query.
+     */
+    public static final String WITH_USER_PROJECT_AND_ROLES = "UserProjectRoles.withUserProjectAndRoles";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_project_roles_id")
+    @SequenceGenerator(name = "user_project_roles_id", sequenceName = "user_project_roles_id_sequence", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The getters and setters declared by one entity class, looked up once and kept as method handles.
+ *
+ * Lookup works the way EntityUtil always has: only methods declared by the class itself count,
+ * a "get" getter wins over an "is" getter, and a setter has to take exactly the runtime type of
+ * the value being set.
+ */
+public final class PropertyAccessors {
+    private static final Logger LOG = LoggerFactory.getLogger(PropertyAccessors.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // Stand-ins for methods that exist but can't be called: the getter hands back the entity itself,
+    // the setter does nothing.
+    private static final MethodHandle INACCESSIBLE_GETTER = MethodHandles.identity(Object.class);
+    private static final MethodHandle INACCESSIBLE_SETTER =
+            MethodHandles.dropArguments(INACCESSIBLE_GETTER, 1, Object.class).asType(SETTER_TYPE);
+
+    // ConcurrentHashMap can't hold nulls, so a field without a getter maps to this instead
+    private static final MethodHandle MISSING = MethodHandles.constant(Object.class, null);
+
+    private static final ClassValue<PropertyAccessors> ACCESSORS = new ClassValue<PropertyAccessors>() {
+        @Override
+        protected PropertyAccessors computeValue(Class<?> type) {
+            return new PropertyAccessors(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, MethodHandle> noArgMethods = new HashMap<>();
+    private final Map<String, Map<Class<?>, MethodHandle>> oneArgMethods = new HashMap<>();
+
+    private final ConcurrentMap<String, MethodHandle> getters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<Class<?>, MethodHandle>> setters = new ConcurrentHashMap<>();
+
+    private PropertyAccessors(Class<?> type) {
+        this.type = type;
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isBridge()) {
+                // getDeclaredMethod would pick the method the bridge forwards to anyway
+                continue;
+            }
+            if (method.getParameterCount() == 0) {
+                noArgMethods.put(method.getName(), unreflect(lookup, method, INACCESSIBLE_GETTER, GETTER_TYPE));
+            } else if (method.getParameterCount() == 1) {
+                oneArgMethods.computeIfAbsent(method.getName(), name -> new HashMap<>())
+                        .put(method.getParameterTypes()[0], unreflect(lookup, method, INACCESSIBLE_SETTER, SETTER_TYPE));
+            }
+        }
+    }
+
+    public static PropertyAccessors of(Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+
+    /**
+     * Calls the getter for a field.
+     *
+     * @return the value, null if there's no getter, or the entity itself if the getter couldn't be called
+     */
+    @SuppressWarnings("squid:S1181") // the getter can throw anything, just like a reflective call could
+    public Object get(Object entity, String fieldName) {
+        MethodHandle getter = getters.computeIfAbsent(fieldName, this::findGetter);
+        if (getter == MISSING) {
+            return null;
+        }
+
+        try {
+            return (Object)getter.invokeExact(entity);
+        } catch (Throwable ex) {
+            LOG.debug("Couldn't execute getter for {} in {}", fieldName, type.getName(), ex);
+            return entity;
+        }
+    }
+
+    /**
+     * Calls the setter for a field that takes exactly the value's type, if there is one.
+     */
+    @SuppressWarnings("squid:S1181")
+    public void set(Object entity, String fieldName, Object value) {
+        MethodHandle setter = setters.computeIfAbsent(fieldName, this::findSetters).get(value.getClass());
+        if (setter == null) {
+            LOG.debug("Didn't find setter for {} taking {} in {}", fieldName, value.getClass().getName(), type.getName());
+            return;
+        }
+
+        try {
+            setter.invokeExact(entity, value);
+        } catch (Throwable ex) {
+            LOG.debug("Couldn't execute setter for {} in {}", fieldName, type.getName(), ex);
+        }
+    }
+
+    private MethodHandle findGetter(String fieldName) {
+        String suffix = capitalize(fieldName);
+        MethodHandle getter = noArgMethods.get("get" + suffix);
+        if (getter == null) {
+            getter = noArgMethods.get("is" + suffix);
+        }
+        if (getter == null) {
+            LOG.debug("Didn't find getter for {} in {}", fieldName, type.getName());
+            return MISSING;
+        }
+        return getter;
+    }
+
+    private Map<Class<?>, MethodHandle> findSetters(String fieldName) {
+        Map<Class<?>, MethodHandle> found = oneArgMethods.get("set" + capitalize(fieldName));
+        return found == null ? Collections.emptyMap() : found;
+    }
+
+    private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method method, MethodHandle fallback, MethodType type) {
+        try {
+            MethodHandle handle = lookup.unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                // called on an entity all the same, which a static method ignores
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asType(type);
+        } catch (IllegalAccessException ex) {
+            LOG.debug("Can't call {}", method, ex);
+            return fallback;
+        }
+    }
+
+    private static String capitalize(String fieldName) {
+        return fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes the keys that order stories in a backlog. A key is a fraction in base 36, written as its
+ * digits after the point ("0"-"9" then "a"-"z"), so plain string order is numeric order and there's
+ * always another key between any two. Moving an item takes a new key between its new neighbours'
+ * instead of renumbering everything after it.
+ *
+ * Keys never end in "0", or there'd be no room before them ("a" and "a0" are the same number).
+ * Every move into the same gap adds about a fifth of a digit, so a key that keeps being squeezed
+ * in grows; {@link #spread} makes fresh, short keys for a whole list when that happens.
+ */
+public class RankKeys {
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    protected RankKeys() {
+        // do not instantiate
+    }
+
+    /**
+     * Makes a key that sorts after {@code before} and before {@code after}. Either may be null,
+     * for the start or the end of the list.
+     *
+     * @throws IllegalArgumentException if {@code before} doesn't sort before {@code after}, or either isn't a key
+     */
+    public static String between(String before, String after) {
+        String low = before == null ? "" : before;
+        validate(low);
+        if (after != null) {
+            validate(after);
+            if (after.isEmpty() || low.compareTo(after) >= 0) {
+                throw new IllegalArgumentException("\"" + before + "\" doesn't sort before \"" + after + "\"");
+            }
+            if (before == null) {
+                return first(after);
+            }
+        } else if (before != null) {
+            return last(before);
+        }
+        return midpoint(low, after);
+    }
+
+    /**
+     * Counts up from the end of the list, rather than halving what's left after it, so adding
+     * stories to the end one after another keeps their keys short.
+     */
+    private static String last(String before) {
+        for (int i = 0; i < before.length(); i++) {
+            int digit = DIGITS.indexOf(before.charAt(i));
+            if (digit < BASE - 1) {
+                return before.substring(0, i) + DIGITS.charAt(digit + 1);
+            }
+        }
+        return midpoint(before, null);
+    }
+
+    private static String first(String after) {
+        for (int i = 0; i < after.length(); i++) {
+            int digit = DIGITS.indexOf(after.charAt(i));
+            if (digit > 1) {
+                return after.substring(0, i) + DIGITS.charAt(digit - 1);
+            }
+        }
+        return midpoint("", after);
+    }
+
+    private static String midpoint(String low, String high) {
+        if (high != null) {
+            // digits both have in common stay as they are; a is padded with zeros, as fractions are
+            int common = 0;
+            while (common < high.length() && digit(low, common) == high.charAt(common)) {
+                common++;
+            }
+            if (common > 0) {
+                return high.substring(0, common) + midpoint(low.substring(Math.min(common, low.length())), high.substring(common));
+            }
+        }
+
+        int lowDigit = low.isEmpty() ? 0 : DIGITS.indexOf(low.charAt(0));
+        int highDigit = high == null ? BASE : DIGITS.indexOf(high.charAt(0));
+        if (highDigit - lowDigit > 1) {
+            return String.valueOf(DIGITS.charAt((lowDigit + highDigit) / 2));
+        }
+        if (high != null && high.length() > 1) {
+            // high's first digit on its own is already less than high
+            return high.substring(0, 1);
+        }
+        return DIGITS.charAt(lowDigit) + midpoint(low.isEmpty() ? "" : low.substring(1), null);
+    }
+
+    private static char digit(String key, int index) {
+        return index < key.length() ? key.charAt(index) : '0';
+    }
+
+    private static void validate(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (DIGITS.indexOf(key.charAt(i)) < 0) {
+                throw new IllegalArgumentException("\"" + key + "\" isn't a rank key");
+            }
+        }
+        if (key.endsWith("0")) {
+            throw new IllegalArgumentException("\"" + key + "\" isn't a rank key, as it ends in 0");
+        }
+    }
+
+    /**
+     * Makes {@code count} keys, in order and evenly spaced, about as short as they can be while
+     * leaving room for a few dozen moves into each gap before any key gets longer.
+     */
+    public static List<String> spread(int count) {
+        // one more digit than it takes to count them all
+        int length = 1;
+        for (long capacity = BASE; capacity <= count; capacity *= BASE) {
+            length++;
+        }
+        length++;
+
+        long space = 1;
+        for (int i = 0; i < length; i++) {
+            space *= BASE;
+        }
+        long gap = space / (count + 1L);
+
+        List<String> keys = new ArrayList<>(count);
+        char[] digits = new char[length];
+        for (int i = 1; i <= count; i++) {
+            long value = gap * i;
+            for (int d = length - 1; d >= 0; d--) {
+                digits[d] = DIGITS.charAt((int)(value % BASE));
+                value /= BASE;
+            }
+            int end = length;
+            while (digits[end - 1] == '0') {
+                end--;
+            }
+            keys.add(new String(digits, 0, end));
+        }
+        return keys;
+    }
+}
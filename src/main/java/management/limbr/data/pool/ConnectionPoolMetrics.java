@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.pool;
+
+import org.apache.tomcat.jdbc.pool.DataSourceProxy;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How busy the connection pool is, published over JMX as management.limbr:type=ConnectionPool.
+ *
+ * Pool sizes come from the Tomcat JDBC pool Spring Boot sets up, and are -1 if some other kind of
+ * data source is configured. Wait times are measured by {@link TimedDataSource} either way.
+ */
+@ManagedResource(objectName = "management.limbr:type=ConnectionPool", description = "Connection pool")
+public class ConnectionPoolMetrics {
+    private final TimedDataSource dataSource;
+
+    public ConnectionPoolMetrics(TimedDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    private DataSourceProxy pool() {
+        return dataSource.getTargetDataSource() instanceof DataSourceProxy
+                ? (DataSourceProxy)dataSource.getTargetDataSource() : null;
+    }
+
+    @ManagedAttribute(description = "Connections in use")
+    public int getActive() {
+        DataSourceProxy pool = pool();
+        return pool == null ? -1 : pool.getActive();
+    }
+
+    @ManagedAttribute(description = "Connections open but not in use")
+    public int getIdle() {
+        DataSourceProxy pool = pool();
+        return pool == null ? -1 : pool.getIdle();
+    }
+
+    @ManagedAttribute(description = "Threads waiting for a connection")
+    public int getWaiting() {
+        DataSourceProxy pool = pool();
+        return pool == null ? -1 : pool.getWaitCount();
+    }
+
+    @ManagedAttribute(description = "Most connections the pool will open")
+    public int getMaxActive() {
+        DataSourceProxy pool = pool();
+        return pool == null ? -1 : pool.getMaxActive();
+    }
+
+    @ManagedAttribute(description = "Connections asked for since start or reset")
+    public long getRequests() {
+        return dataSource.getRequests();
+    }
+
+    @ManagedAttribute(description = "Average time to get a connection, in milliseconds")
+    public double getAverageWaitMillis() {
+        long requests = dataSource.getRequests();
+        return requests == 0 ? 0.0 : (double)dataSource.getTotalWaitNanos() / requests / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedAttribute(description = "Longest time to get a connection, in milliseconds")
+    public double getMaxWaitMillis() {
+        return (double)dataSource.getMaxWaitNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedOperation(description = "Starts counting requests and wait times again")
+    public void reset() {
+        dataSource.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active %d, idle %d, waiting %d of max %d; %d requests, average wait %.3fms, max wait %.3fms",
+                getActive(), getIdle(), getWaiting(), getMaxActive(), getRequests(), getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * A sprint's points as they were at the end of a day.
+ */
+public final class SprintDay {
+    private final LocalDate day;
+    private final long totalPoints;
+    private final long completedPoints;
+
+    public SprintDay(LocalDate day, long totalPoints, long completedPoints) {
+        this.day = day;
+        this.totalPoints = totalPoints;
+        this.completedPoints = completedPoints;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    /**
+     * Gets the points of every story in the sprint, done or not, for burnup charts.
+     */
+    public long getTotalPoints() {
+        return totalPoints;
+    }
+
+    public long getCompletedPoints() {
+        return completedPoints;
+    }
+
+    /**
+     * Gets the points of the stories not done yet, for burndown charts.
+     */
+    public long getRemainingPoints() {
+        return totalPoints - completedPoints;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SprintDay that = (SprintDay)o;
+        return totalPoints == that.totalPoints && completedPoints == that.completedPoints && day.equals(that.day);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(day, totalPoints, completedPoints);
+    }
+
+    @Override
+    public String toString() {
+        return day + ": " + completedPoints + " of " + totalPoints + " points done";
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import management.limbr.data.SprintDaySnapshotRepository;
+import management.limbr.data.SprintRepository;
+import management.limbr.data.StoryHistoryRepository;
+import management.limbr.data.StoryRepository;
+import management.limbr.data.model.Sprint;
+import management.limbr.data.model.SprintDaySnapshot;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryHistory;
+import management.limbr.metrics.Counter;
+import management.limbr.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Reads sprints' burndown and burnup from their snapshots, and checks and rebuilds the snapshots
+ * from story history.
+ *
+ * Snapshots are kept up to date by {@link SprintProgressRecorder} as stories change, so reading a
+ * sprint's progress is one small query. Replaying the history of every story that's been in a
+ * sprint gives the same numbers the long way round: {@link #verify} compares the two, and
+ * {@link #backfill} replaces a sprint's snapshots with the replayed ones, first giving stories
+ * that were in it before history was kept a starting point on its first day.
+ */
+@Component
+@Lazy // made when progress is first asked for
+public class SprintProgress {
+    private static final Logger LOG = LoggerFactory.getLogger(SprintProgress.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final SprintRepository sprintRepository;
+    private final StoryRepository storyRepository;
+    private final StoryHistoryRepository historyRepository;
+    private final SprintDaySnapshotRepository snapshotRepository;
+    private final Counter mismatches;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public SprintProgress(PlatformTransactionManager transactionManager, SprintRepository sprintRepository,
+                          StoryRepository storyRepository, StoryHistoryRepository historyRepository,
+                          SprintDaySnapshotRepository snapshotRepository, MetricsRegistry metricsRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.sprintRepository = sprintRepository;
+        this.storyRepository = storyRepository;
+        this.historyRepository = historyRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.mismatches = metricsRegistry.counter("limbr_sprint_snapshot_mismatches_total",
+                "Sprint days whose snapshots didn't match their stories' history when checked.");
+    }
+
+    /**
+     * Gets a sprint's points for each of its days so far, from its first day to its last or today,
+     * whichever is sooner.
+     *
+     * @throws IllegalArgumentException if there's no such sprint
+     */
+    public List<SprintDay> getDays(Long sprintId) {
+        return readOnlyTemplate.execute(status -> {
+            Sprint sprint = sprintRepository.findOne(sprintId);
+            if (sprint == null) {
+                throw new IllegalArgumentException("Sprint " + sprintId + " doesn't exist");
+            }
+            if (sprint.getStartDate() == null || sprint.getEndDate() == null) {
+                return Collections.<SprintDay>emptyList();
+            }
+            LocalDate last = SprintProgressRecorder.toLocalDate(sprint.getEndDate(), zone);
+            LocalDate today = LocalDate.now(zone);
+            return fill(SprintProgressRecorder.toLocalDate(sprint.getStartDate(), zone), last.isAfter(today) ? today : last,
+                    snapshots(sprintId));
+        });
+    }
+
+    /**
+     * Works out a sprint's points on each day they changed by replaying its stories' history.
+     */
+    public SortedMap<LocalDate, SprintDay> recompute(Long sprintId) {
+        return readOnlyTemplate.execute(status -> replay(sprintId, historyRepository.findForSprint(sprintId), zone));
+    }
+
+    /**
+     * Checks a sprint's snapshots against its stories' history.
+     *
+     * @return the days the snapshots have wrong, with the points they should have, or an empty list if they're right
+     */
+    public List<SprintDay> verify(Long sprintId) {
+        List<SprintDay> wrong = readOnlyTemplate.execute(status -> {
+            SortedMap<LocalDate, SprintDay> stored = snapshots(sprintId);
+            SortedMap<LocalDate, SprintDay> expected = replay(sprintId, historyRepository.findForSprint(sprintId), zone);
+            if (stored.isEmpty() && expected.isEmpty()) {
+                return Collections.<SprintDay>emptyList();
+            }
+
+            LocalDate first = earliest(stored.isEmpty() ? null : stored.firstKey(), expected.isEmpty() ? null : expected.firstKey());
+            LocalDate last = latest(stored.isEmpty() ? null : stored.lastKey(), expected.isEmpty() ? null : expected.lastKey());
+            List<SprintDay> storedDays = fill(first, last, stored);
+            List<SprintDay> expectedDays = fill(first, last, expected);
+            List<SprintDay> differences = new ArrayList<>();
+            for (int i = 0; i < storedDays.size(); i++) {
+                if (!storedDays.get(i).equals(expectedDays.get(i))) {
+                    LOG.warn("Sprint {} snapshot for {} should be {}.", sprintId, storedDays.get(i), expectedDays.get(i));
+                    differences.add(expectedDays.get(i));
+                }
+            }
+            return differences;
+        });
+        mismatches.add(wrong.size());
+        return wrong;
+    }
+
+    /**
+     * Replaces a sprint's snapshots with ones replayed from its stories' history, first recording
+     * where the sprint's stories without any history stood as of its first day.
+     *
+     * @return how many snapshots it now has
+     * @throws IllegalArgumentException if there's no such sprint
+     */
+    public int backfill(Long sprintId) {
+        return transactionTemplate.execute(status -> {
+            // locked like the recorder locks it, so no changes are recorded part way through
+            Sprint sprint = entityManager.find(Sprint.class, sprintId, LockModeType.PESSIMISTIC_WRITE);
+            if (sprint == null) {
+                throw new IllegalArgumentException("Sprint " + sprintId + " doesn't exist");
+            }
+
+            Date baseline = sprint.getStartDate() == null ? new Date() : sprint.getStartDate();
+            List<Story> unrecorded = storyRepository.findBySprintWithoutHistory(sprintId);
+            for (Story story : unrecorded) {
+                historyRepository.save(new StoryHistory(story.getId(), sprintId, baseline, story.getStatus(), story.getPoints(), false));
+            }
+            historyRepository.flush();
+
+            snapshotRepository.deleteBySprint(sprintId);
+            Collection<SprintDay> days = replay(sprintId, historyRepository.findForSprint(sprintId), zone).values();
+            for (SprintDay day : days) {
+                snapshotRepository.save(new SprintDaySnapshot(sprint, SprintProgressRecorder.toDate(day.getDay(), zone),
+                        day.getTotalPoints(), day.getCompletedPoints()));
+            }
+            LOG.info("Backfilled sprint {}: {} stories given a starting point, {} snapshots.", sprintId, unrecorded.size(), days.size());
+            return days.size();
+        });
+    }
+
+    private SortedMap<LocalDate, SprintDay> snapshots(Long sprintId) {
+        SortedMap<LocalDate, SprintDay> days = new TreeMap<>();
+        for (SprintDaySnapshot snapshot : snapshotRepository.findBySprint(sprintId)) {
+            LocalDate day = SprintProgressRecorder.toLocalDate(snapshot.getDay(), zone);
+            days.put(day, new SprintDay(day, snapshot.getTotalPoints(), snapshot.getCompletedPoints()));
+        }
+        return days;
+    }
+
+    /**
+     * Adds up what each change in the history did to a sprint's points, keeping the points as they
+     * were at the end of each day any changed.
+     *
+     * @param history every change to every story that's been in the sprint, oldest first
+     */
+    static SortedMap<LocalDate, SprintDay> replay(Long sprintId, List<StoryHistory> history, ZoneId zone) {
+        SortedMap<LocalDate, SprintDay> days = new TreeMap<>();
+        Map<Long, StoryPoints> stories = new HashMap<>();
+        Map<Long, long[]> deltas = new HashMap<>();
+        long total = 0;
+        long completed = 0;
+        for (StoryHistory change : history) {
+            StoryPoints after = change.isDeleted() ? StoryPoints.NONE
+                    : new StoryPoints(change.getSprintId(), change.getStatus(), change.getPoints());
+            StoryPoints before = stories.put(change.getStoryId(), after);
+
+            deltas.clear();
+            StoryPoints.addChange(deltas, before == null ? StoryPoints.NONE : before, after);
+            long[] delta = deltas.get(sprintId);
+            if (delta != null && (delta[0] != 0 || delta[1] != 0)) {
+                total += delta[0];
+                completed += delta[1];
+                LocalDate day = SprintProgressRecorder.toLocalDate(change.getChangedAt(), zone);
+                days.put(day, new SprintDay(day, total, completed));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Lists every day from {@code first} to {@code last}, each with the points of the latest
+     * change on or before it.
+     */
+    private static List<SprintDay> fill(LocalDate first, LocalDate last, SortedMap<LocalDate, SprintDay> changes) {
+        List<SprintDay> days = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            SortedMap<LocalDate, SprintDay> upToDay = changes.headMap(day.plusDays(1));
+            SprintDay latest = upToDay.isEmpty() ? null : upToDay.get(upToDay.lastKey());
+            days.add(new SprintDay(day, latest == null ? 0 : latest.getTotalPoints(), latest == null ? 0 : latest.getCompletedPoints()));
+        }
+        return days;
+    }
+
+    private static LocalDate earliest(LocalDate a, LocalDate b) {
+        return a == null || b != null && b.isBefore(a) ? b : a;
+    }
+
+    private static LocalDate latest(LocalDate a, LocalDate b) {
+        return a == null || b != null && b.isAfter(a) ? b : a;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * What to do with sprint snapshots at start-up, set with limbr.progress.*.
+ */
+@ConfigurationProperties(prefix = "limbr.progress")
+public class SprintProgressProperties {
+    private boolean backfill;
+    private boolean verify;
+
+    /**
+     * Gets whether every sprint's snapshots are rebuilt from story history at start-up. Needed once
+     * after upgrading from a version that didn't keep history, before stories start changing.
+     */
+    public boolean isBackfill() {
+        return backfill;
+    }
+
+    public void setBackfill(boolean backfill) {
+        this.backfill = backfill;
+    }
+
+    /**
+     * Gets whether running sprints' snapshots are checked against story history at start-up.
+     */
+    public boolean isVerify() {
+        return verify;
+    }
+
+    public void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import management.limbr.data.model.Sprint;
+import management.limbr.data.model.SprintDaySnapshot;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryHistory;
+import management.limbr.data.model.StoryStatus;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps sprint snapshots up to date as stories change, in the same transaction as the change.
+ *
+ * Hibernate tells it about every story written; when its sprint, status or estimate changed, a
+ * {@link StoryHistory} row is kept and the difference is added to what the transaction has changed
+ * per sprint. Just before the transaction commits, each sprint touched is locked, and its snapshot
+ * for today is made from the latest one before it, or brought up to date if there is one, so
+ * writing a snapshot costs the same however many stories the sprint has. Snapshots are only ever
+ * as right as the changes Hibernate sees, so bulk updates and deletes go around them;
+ * {@link SprintProgress#verify} checks them against the history.
+ */
+@Component
+public class SprintProgressRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final Logger LOG = LoggerFactory.getLogger(SprintProgressRecorder.class);
+
+    private final transient EntityManagerFactory entityManagerFactory;
+    private final transient Clock clock;
+    private final ConcurrentMap<SessionImplementor, Changes> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SprintProgressRecorder(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, Clock.systemDefaultZone());
+    }
+
+    SprintProgressRecorder(EntityManagerFactory entityManagerFactory, Clock clock) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Story) {
+            changed(event.getSession(), event.getId(), StoryPoints.NONE, pointsOf(event.getPersister(), event.getState()), false);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Story)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            // a detached story reattached without being read first; there's nothing to compare with
+            LOG.warn("Story {} was updated without its earlier state, so its sprint snapshots may be off until they're backfilled.",
+                    event.getId());
+            return;
+        }
+        changed(event.getSession(), event.getId(), pointsOf(event.getPersister(), event.getOldState()),
+                pointsOf(event.getPersister(), event.getState()), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Story) {
+            changed(event.getSession(), event.getId(), pointsOf(event.getPersister(), event.getDeletedState()), StoryPoints.NONE, true);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static StoryPoints pointsOf(EntityPersister persister, Object[] state) {
+        EntityMetamodel metamodel = persister.getEntityMetamodel();
+        return new StoryPoints(sprintIdOf(state[metamodel.getPropertyIndex("sprint")]),
+                (StoryStatus)state[metamodel.getPropertyIndex("status")], (Integer)state[metamodel.getPropertyIndex("points")]);
+    }
+
+    private static Long sprintIdOf(Object sprint) {
+        if (sprint instanceof HibernateProxy) {
+            // without loading it
+            return (Long)((HibernateProxy)sprint).getHibernateLazyInitializer().getIdentifier();
+        }
+        return sprint == null ? null : ((Sprint)sprint).getId();
+    }
+
+    private void changed(EventSource session, Serializable storyId, StoryPoints before, StoryPoints after, boolean deleted) {
+        if (before.equals(after) && !deleted) {
+            return;
+        }
+
+        Changes changes = pending.get(session);
+        if (changes == null) {
+            changes = new Changes(clock.millis());
+            pending.put(session, changes);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess)this::writeSnapshots);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess)(success, completed) -> pending.remove(completed));
+        }
+        changes.history.add(new StoryHistory((Long)storyId, after.getSprintId(), new Date(changes.changedAt),
+                after.getStatus(), after.getPoints(), deleted));
+        StoryPoints.addChange(changes.deltas, before, after);
+    }
+
+    private void writeSnapshots(SessionImplementor sessionImplementor) {
+        Changes changes = pending.remove(sessionImplementor);
+        if (changes == null) {
+            return;
+        }
+        Session session = (Session)sessionImplementor;
+        changes.history.forEach(session::persist);
+
+        ZoneId zone = clock.getZone();
+        Date day = toDate(toLocalDate(new Date(changes.changedAt), zone), zone);
+        // sprints are locked in id order, so two transactions touching the same two can't deadlock
+        for (Map.Entry<Long, long[]> entry : changes.deltas.entrySet()) {
+            long[] delta = entry.getValue();
+            if (delta[0] == 0 && delta[1] == 0) {
+                continue;
+            }
+            Sprint sprint = (Sprint)session.get(Sprint.class, entry.getKey(), LockOptions.UPGRADE);
+            if (sprint != null) {
+                addToSnapshot(session, sprint, day, delta);
+            }
+        }
+        session.flush();
+    }
+
+    private static void addToSnapshot(Session session, Sprint sprint, Date day, long[] delta) {
+        SprintDaySnapshot latest = (SprintDaySnapshot)session.createQuery(
+                "from SprintDaySnapshot s where s.sprint.id = :sprint and s.day <= :day order by s.day desc")
+                .setParameter("sprint", sprint.getId()).setDate("day", day).setMaxResults(1).uniqueResult();
+        if (latest != null && latest.getDay().getTime() == day.getTime()) {
+            latest.setTotalPoints(latest.getTotalPoints() + delta[0]);
+            latest.setCompletedPoints(latest.getCompletedPoints() + delta[1]);
+        } else {
+            long total = latest == null ? 0 : latest.getTotalPoints();
+            long completed = latest == null ? 0 : latest.getCompletedPoints();
+            session.persist(new SprintDaySnapshot(sprint, day, total + delta[0], completed + delta[1]));
+        }
+    }
+
+    static Date toDate(LocalDate day, ZoneId zone) {
+        return Date.from(day.atStartOfDay(zone).toInstant());
+    }
+
+    static LocalDate toLocalDate(Date date, ZoneId zone) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(zone).toLocalDate();
+    }
+
+    private static class Changes {
+        private final long changedAt;
+        private final List<StoryHistory> history = new ArrayList<>();
+        private final SortedMap<Long, long[]> deltas = new TreeMap<>();
+
+        private Changes(long changedAt) {
+            this.changedAt = changedAt;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import management.limbr.data.SprintRepository;
+import management.limbr.data.model.Sprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Backfills every sprint's snapshots, when limbr.progress.backfill is set, and checks running
+ * sprints' snapshots, when limbr.progress.verify is, once the application has started.
+ */
+@Component
+@EnableConfigurationProperties(SprintProgressProperties.class)
+public class SprintProgressRunner implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger LOG = LoggerFactory.getLogger(SprintProgressRunner.class);
+
+    private final SprintProgress progress;
+    private final SprintRepository sprintRepository;
+    private final SprintProgressProperties properties;
+
+    @Autowired
+    public SprintProgressRunner(@Lazy SprintProgress progress, SprintRepository sprintRepository,
+                                SprintProgressProperties properties) {
+        this.progress = progress;
+        this.sprintRepository = sprintRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (properties.isBackfill()) {
+            for (Sprint sprint : sprintRepository.findAll()) {
+                try {
+                    progress.backfill(sprint.getId());
+                } catch (RuntimeException ex) {
+                    LOG.error("Backfilling sprint {} failed.", sprint.getId(), ex);
+                }
+            }
+        }
+
+        if (properties.isVerify()) {
+            List<Sprint> running = sprintRepository.findRunningOn(new Date());
+            int wrong = 0;
+            for (Sprint sprint : running) {
+                wrong += progress.verify(sprint.getId()).isEmpty() ? 0 : 1;
+            }
+            LOG.info("Checked the snapshots of {} running sprints; {} had days that didn't match their history.", running.size(), wrong);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import management.limbr.data.model.StoryStatus;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What a story adds to a sprint's points: its estimate to the sprint's total, and to what's been
+ * completed as well once it's done. Recording changes and replaying history both work out how a
+ * sprint's points moved by taking a story's old points away and adding its new ones.
+ */
+final class StoryPoints {
+    static final StoryPoints NONE = new StoryPoints(null, null, null);
+
+    private final Long sprintId;
+    private final StoryStatus status;
+    private final Integer points;
+
+    StoryPoints(Long sprintId, StoryStatus status, Integer points) {
+        this.sprintId = sprintId;
+        this.status = status;
+        this.points = points;
+    }
+
+    /**
+     * Adds the difference between {@code before} and {@code after} to the running {total, completed}
+     * deltas of each sprint it touches.
+     */
+    static void addChange(Map<Long, long[]> deltas, StoryPoints before, StoryPoints after) {
+        if (before.equals(after)) {
+            return;
+        }
+        before.addTo(deltas, -1);
+        after.addTo(deltas, 1);
+    }
+
+    private void addTo(Map<Long, long[]> deltas, int sign) {
+        if (sprintId == null || points == null || points == 0) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(sprintId, id -> new long[2]);
+        delta[0] += sign * (long)points;
+        if (status == StoryStatus.DONE) {
+            delta[1] += sign * (long)points;
+        }
+    }
+
+    Long getSprintId() {
+        return sprintId;
+    }
+
+    StoryStatus getStatus() {
+        return status;
+    }
+
+    Integer getPoints() {
+        return points;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        StoryPoints that = (StoryPoints)o;
+        return Objects.equals(sprintId, that.sprintId) && status == that.status && Objects.equals(points, that.points);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sprintId, status, points);
+    }
+}
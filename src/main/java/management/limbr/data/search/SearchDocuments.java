@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.search;
+
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.User;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+
+/**
+ * Turns entities into index documents and hits back. Each document has the entity's kind and id,
+ * its name as the title, which counts for more when matching, and anything else worth finding it
+ * by as the text. Stories also have their project, so searches can be kept to a user's projects.
+ */
+final class SearchDocuments {
+    static final String KEY = "key";
+    static final String KIND = "kind";
+    static final String ID = "id";
+    static final String TITLE = "title";
+    static final String TEXT = "text";
+    static final String SPRINT = "sprint";
+    static final String PROJECT = "project";
+
+    private SearchDocuments() {
+        // do not instantiate
+    }
+
+    /**
+     * Gets the kind of document an entity class is indexed as, or null if it isn't indexed.
+     */
+    static SearchHit.Kind kindOf(Class<?> entityClass) {
+        if (Project.class.isAssignableFrom(entityClass)) {
+            return SearchHit.Kind.PROJECT;
+        } else if (User.class.isAssignableFrom(entityClass)) {
+            return SearchHit.Kind.USER;
+        } else if (Story.class.isAssignableFrom(entityClass)) {
+            return SearchHit.Kind.STORY;
+        }
+        return null;
+    }
+
+    static Term keyOf(SearchHit.Kind kind, Object id) {
+        return new Term(KEY, kind.name() + ':' + id);
+    }
+
+    /**
+     * Makes the document for an indexed entity.
+     */
+    static Document toDocument(Object entity) {
+        if (entity instanceof Project) {
+            Project project = (Project)entity;
+            return document(SearchHit.Kind.PROJECT, project.getId(), project.getName(), project.getShortName(), null, null);
+        } else if (entity instanceof User) {
+            User user = (User)entity;
+            return document(SearchHit.Kind.USER, user.getId(), user.getDisplayName(),
+                    join(user.getUsername(), user.getEmailAddress()), null, null);
+        }
+        Story story = (Story)entity;
+        return document(SearchHit.Kind.STORY, story.getId(), story.getTitle(), story.getDescription(),
+                story.getSprint() == null ? null : story.getSprint().getId(),
+                story.getProject() == null ? null : story.getProject().getId());
+    }
+
+    private static Document document(SearchHit.Kind kind, Long id, String title, String text, Long sprintId,
+                                     Long projectId) {
+        Document document = new Document();
+        document.add(new StringField(KEY, keyOf(kind, id).text(), Field.Store.NO));
+        document.add(new StoredField(KIND, kind.name()));
+        document.add(new StoredField(ID, id));
+        document.add(new TextField(TITLE, title == null ? "" : title, Field.Store.YES));
+        if (text != null) {
+            document.add(new TextField(TEXT, text, Field.Store.NO));
+        }
+        if (sprintId != null) {
+            document.add(new StoredField(SPRINT, sprintId));
+        }
+        if (projectId != null) {
+            document.add(new StoredField(PROJECT, projectId));
+        }
+        return document;
+    }
+
+    private static String join(String first, String second) {
+        return first == null ? second : second == null ? first : first + ' ' + second;
+    }
+
+    static SearchHit toHit(Document document, float score) {
+        IndexableField sprint = document.getField(SPRINT);
+        IndexableField project = document.getField(PROJECT);
+        return new SearchHit(SearchHit.Kind.valueOf(document.get(KIND)), document.getField(ID).numericValue().longValue(),
+                document.get(TITLE), sprint == null ? null : sprint.numericValue().longValue(),
+                project == null ? null : project.numericValue().longValue(), score);
+    }
+}
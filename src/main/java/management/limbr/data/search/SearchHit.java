@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.search;
+
+/**
+ * Something that was found: what it is, which one it is, what it's called and how well it matched.
+ */
+public final class SearchHit {
+    /**
+     * The kinds of things that are indexed.
+     */
+    public enum Kind {
+        PROJECT, USER, STORY
+    }
+
+    private final Kind kind;
+    private final Long id;
+    private final String title;
+    private final Long sprintId;
+    private final Long projectId;
+    private final float score;
+
+    SearchHit(Kind kind, Long id, String title, Long sprintId, Long projectId, float score) {
+        this.kind = kind;
+        this.id = id;
+        this.title = title;
+        this.sprintId = sprintId;
+        this.projectId = projectId;
+        this.score = score;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the sprint a story is in, or null if it isn't in one or the hit isn't a story.
+     */
+    public Long getSprintId() {
+        return sprintId;
+    }
+
+    /**
+     * Gets the project a story is in, or null if the hit isn't a story.
+     */
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + id + " \"" + title + "\" (" + score + ")";
+    }
+}
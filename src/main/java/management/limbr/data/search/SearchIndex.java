@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.search;
+
+import management.limbr.data.ProjectRepository;
+import management.limbr.data.StoryRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.model.BaseEntity;
+import management.limbr.metrics.Counter;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A full-text index of projects, users and stories, kept on local disk in limbr.search.directory.
+ *
+ * Entities are indexed as their changes are committed (see {@link EntityChangedEvent}), on the
+ * search executor, and can be found as soon as they're indexed; what's indexed is written through
+ * to disk every limbr.search.commit-interval-seconds. Changes that don't go through Hibernate, like
+ * bulk updates, aren't seen, and neither are changes made while the application was down, so the
+ * index can be rebuilt from the database; it's built at start-up if there isn't one.
+ *
+ * Every word searched for has to match, in the title or the text, exactly, as the start of a word,
+ * or, for longer words, with a letter or two wrong. Exact matches count for more than prefixes,
+ * prefixes for more than near misses, and titles for more than text.
+ */
+@Component
+@EnableConfigurationProperties(SearchProperties.class)
+public class SearchIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndex.class);
+
+    static final String SEARCH_TIMER_NAME = "limbr_search_seconds";
+    private static final int MAX_WORDS = 8;
+    static final int MAX_FILTERED_HITS = 1000;
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final int TWO_EDITS_MIN_LENGTH = 8;
+    private static final float TITLE_BOOST = 3f;
+    private static final float EXACT_BOOST = 4f;
+    private static final float PREFIX_BOOST = 2f;
+
+    private final SearchProperties properties;
+    private final ScheduledExecutorService executor;
+    private final TransactionTemplate readOnlyTemplate;
+    private final ProjectRepository projectRepository;
+    private final UserRepository userRepository;
+    private final StoryRepository storyRepository;
+    private final MetricsRegistry metrics;
+    private final Timer searchTimer;
+    private final Timer rebuildTimer;
+    private final Counter indexed;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public SearchIndex(SearchProperties properties, @Qualifier("searchExecutor") ScheduledExecutorService executor,
+                       PlatformTransactionManager transactionManager, ProjectRepository projectRepository,
+                       UserRepository userRepository, StoryRepository storyRepository, MetricsRegistry metrics) {
+        this.properties = properties;
+        this.executor = executor;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.projectRepository = projectRepository;
+        this.userRepository = userRepository;
+        this.storyRepository = storyRepository;
+        this.metrics = metrics;
+        this.searchTimer = metrics.timer(SEARCH_TIMER_NAME, "Time spent searching the index.");
+        this.rebuildTimer = metrics.timer("limbr_search_rebuild_seconds", "Time spent rebuilding the search index from the database.");
+        this.indexed = metrics.counter("limbr_search_indexed_total", "Entity changes written to the search index.");
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path path = Paths.get(properties.getDirectory());
+        Files.createDirectories(path);
+        // memory mapped, as an interrupted read from a file channel (a search thread stopped at
+        // shutdown, say) closes it for every other search too
+        directory = new MMapDirectory(path);
+        boolean found = DirectoryReader.indexExists(directory);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, true, null);
+
+        metrics.gauge("limbr_search_index_documents", "Documents in the search index.", this::getDocumentCount);
+        metrics.gauge("limbr_search_index_bytes", "Size of the search index's files.", this::getSizeInBytes);
+
+        long interval = properties.getCommitIntervalSeconds();
+        executor.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.SECONDS);
+        if (!found) {
+            LOG.info("There's no search index in {} yet, so it's being built.", path.toAbsolutePath());
+            rebuild();
+        } else if (properties.isRebuildAtStart()) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        // commits whatever's been indexed since the last commit
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Finds the projects, users and stories that best match the words given, best first.
+     */
+    public List<SearchHit> search(String text, int maxHits) {
+        return search(text, maxHits, hit -> true);
+    }
+
+    /**
+     * Finds the projects, users and stories that best match the words given and that the filter
+     * accepts, best first. No more than {@value #MAX_FILTERED_HITS} matches are looked at, so a
+     * filter that turns nearly everything down can't make a search go through the whole index.
+     */
+    public List<SearchHit> search(String text, int maxHits, Predicate<SearchHit> filter) {
+        Query query = toQuery(text);
+        if (query == null) {
+            return Collections.emptyList();
+        }
+
+        long start = searchTimer.start();
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                List<SearchHit> hits = new ArrayList<>(maxHits);
+                int looked = 0;
+                TopDocs top = searcher.search(query, maxHits);
+                while (top.scoreDocs.length > 0 && looked < MAX_FILTERED_HITS) {
+                    for (ScoreDoc scoreDoc : top.scoreDocs) {
+                        SearchHit hit = SearchDocuments.toHit(searcher.doc(scoreDoc.doc), scoreDoc.score);
+                        if (filter.test(hit) && hits.add(hit) && hits.size() == maxHits) {
+                            return hits;
+                        }
+                    }
+                    looked += top.scoreDocs.length;
+                    top = searcher.searchAfter(top.scoreDocs[top.scoreDocs.length - 1], query, maxHits);
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Couldn't search for \"" + text + "\"", ex);
+        } finally {
+            searchTimer.stop(start);
+        }
+    }
+
+    Query toQuery(String text) {
+        List<String> words = analyze(text);
+        if (words.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder everyWord = new BooleanQuery.Builder();
+        for (String word : words) {
+            BooleanQuery.Builder anyMatch = new BooleanQuery.Builder();
+            for (String field : new String[] {SearchDocuments.TITLE, SearchDocuments.TEXT}) {
+                Term term = new Term(field, word);
+                float boost = SearchDocuments.TITLE.equals(field) ? TITLE_BOOST : 1f;
+                anyMatch.add(new BoostQuery(new TermQuery(term), boost * EXACT_BOOST), BooleanClause.Occur.SHOULD);
+                anyMatch.add(new BoostQuery(new PrefixQuery(term), boost * PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+                if (word.length() >= FUZZY_MIN_LENGTH) {
+                    int edits = word.length() >= TWO_EDITS_MIN_LENGTH ? 2 : 1;
+                    anyMatch.add(new BoostQuery(new FuzzyQuery(term, edits), boost), BooleanClause.Occur.SHOULD);
+                }
+            }
+            everyWord.add(anyMatch.build(), BooleanClause.Occur.MUST);
+        }
+        return everyWord.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        try (TokenStream tokens = analyzer.tokenStream(SearchDocuments.TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (words.size() < MAX_WORDS && tokens.incrementToken()) {
+                words.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException ex) {
+            // it's reading from a string
+            throw new UncheckedIOException(ex);
+        }
+        return words;
+    }
+
+    /**
+     * Indexes the changed entities as they were committed.
+     */
+    @EventListener
+    public void entityChanged(EntityChangedEvent event) {
+        SearchHit.Kind kind = SearchDocuments.kindOf(event.getEntityClass());
+        if (kind == null) {
+            return;
+        }
+
+        // made here, from the entities as they were written, rather than on the search executor
+        List<Term> deleted = new ArrayList<>();
+        Map<Term, Document> documents = new LinkedHashMap<>();
+        for (Object entity : event.getEntities()) {
+            Long id = ((BaseEntity)entity).getId();
+            Term key = SearchDocuments.keyOf(kind, id);
+            if (event.isDeleted(id)) {
+                deleted.add(key);
+            } else {
+                documents.put(key, SearchDocuments.toDocument(entity));
+            }
+        }
+        executor.execute(() -> apply(deleted, documents));
+    }
+
+    private void apply(List<Term> deleted, Map<Term, Document> documents) {
+        try {
+            if (!deleted.isEmpty()) {
+                writer.deleteDocuments(deleted.toArray(new Term[deleted.size()]));
+            }
+            for (Map.Entry<Term, Document> document : documents.entrySet()) {
+                writer.updateDocument(document.getKey(), document.getValue());
+            }
+            searcherManager.maybeRefresh();
+            indexed.add(deleted.size() + (long)documents.size());
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Couldn't index {} changes; they won't be found until the index is rebuilt.",
+                    deleted.size() + documents.size(), ex);
+        }
+    }
+
+    /**
+     * Throws the index away and indexes everything in the database again, on the search executor.
+     * Changes committed meanwhile are indexed once it's done.
+     *
+     * @return how many entities were indexed
+     */
+    public Future<Integer> rebuild() {
+        return executor.submit(() -> {
+            long start = rebuildTimer.start();
+            try {
+                writer.deleteAll();
+                int count = readOnlyTemplate.execute(status ->
+                        addAll(projectRepository) + addAll(userRepository) + addAll(storyRepository));
+                writer.commit();
+                searcherManager.maybeRefresh();
+                LOG.info("Rebuilt the search index: {} documents.", count);
+                return count;
+            } catch (IOException | RuntimeException ex) {
+                LOG.error("Rebuilding the search index failed; it'll be missing things until it's rebuilt again.", ex);
+                throw ex;
+            } finally {
+                rebuildTimer.stop(start);
+            }
+        });
+    }
+
+    private int addAll(JpaRepository<? extends BaseEntity, Long> repository) {
+        int count = 0;
+        PageRequest pageRequest = new PageRequest(0, properties.getRebuildBatchSize(), new Sort("id"));
+        Page<? extends BaseEntity> page;
+        do {
+            page = repository.findAll(pageRequest);
+            for (BaseEntity entity : page) {
+                try {
+                    writer.addDocument(SearchDocuments.toDocument(entity));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            count += page.getNumberOfElements();
+            // nothing here is written back, so there's no need to keep hold of it
+            entityManager.clear();
+            pageRequest = pageRequest.next();
+        } while (page.hasNext());
+        return count;
+    }
+
+    private void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // the next commit will pick them up
+            LOG.warn("Couldn't commit the search index.", ex);
+        }
+    }
+
+    public int getDocumentCount() {
+        return writer.numDocs();
+    }
+
+    /**
+     * Gets the size of the index's files, or null if they can't be listed.
+     */
+    public Long getSizeInBytes() {
+        try {
+            long size = 0;
+            for (String file : directory.listAll()) {
+                try {
+                    size += directory.fileLength(file);
+                } catch (NoSuchFileException | FileNotFoundException ex) {
+                    // merged away since it was listed
+                }
+            }
+            return size;
+        } catch (IOException ex) {
+            LOG.debug("Couldn't list the search index's files.", ex);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Where the search index lives and how it's kept, set with limbr.search.*.
+ */
+@ConfigurationProperties(prefix = "limbr.search")
+public class SearchProperties {
+    private String directory = "search-index";
+    private boolean rebuildAtStart;
+    private int commitIntervalSeconds = 30;
+    private int rebuildBatchSize = 1000;
+
+    /**
+     * Gets the directory the index is kept in, made if it isn't there. Each instance needs its own.
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets whether the index is rebuilt at start-up even if it's there, for databases that don't
+     * outlive the application.
+     */
+    public boolean isRebuildAtStart() {
+        return rebuildAtStart;
+    }
+
+    public void setRebuildAtStart(boolean rebuildAtStart) {
+        this.rebuildAtStart = rebuildAtStart;
+    }
+
+    /**
+     * Gets how often changes are written through to disk. Changes can be found as soon as they're
+     * indexed; these are the ones that'd have to be indexed again after a crash.
+     */
+    public int getCommitIntervalSeconds() {
+        return commitIntervalSeconds;
+    }
+
+    public void setCommitIntervalSeconds(int commitIntervalSeconds) {
+        this.commitIntervalSeconds = commitIntervalSeconds;
+    }
+
+    /**
+     * Gets how many entities are read from the database per query while rebuilding the index.
+     */
+    public int getRebuildBatchSize() {
+        return rebuildBatchSize;
+    }
+
+    public void setRebuildBatchSize(int rebuildBatchSize) {
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+}
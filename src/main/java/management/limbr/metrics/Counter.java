@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts something that only ever goes up.
+ */
+public class Counter {
+    /**
+     * Does nothing at all, for when metrics are off.
+     */
+    static final Counter NONE = new Counter() {
+        @Override
+        public void increment() {
+            // not counting
+        }
+
+        @Override
+        public void add(long amount) {
+            // not counting
+        }
+    };
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+        // made by MetricsRegistry
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
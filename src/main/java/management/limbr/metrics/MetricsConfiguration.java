@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import management.limbr.auth.PermissionCache;
+import management.limbr.data.pool.ConnectionPoolMetrics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.embedded.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times every repository call, publishes the connection pool, permission cache and entity cache
+ * figures, and serves it all at limbr.metrics.path when limbr.metrics.expose is set.
+ */
+@Configuration
+public class MetricsConfiguration {
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectFactory<MetricsRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof Repository)) {
+                    return bean;
+                }
+
+                List<Class<?>> repositoryInterfaces = new ArrayList<>();
+                String entity = null;
+                for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(bean.getClass())) {
+                    if (Repository.class.isAssignableFrom(type)) {
+                        repositoryInterfaces.add(type);
+                        Class<?>[] arguments = GenericTypeResolver.resolveTypeArguments(type, Repository.class);
+                        if (entity == null && arguments != null && arguments[0] != null && arguments[0] != Object.class) {
+                            entity = arguments[0].getSimpleName();
+                        }
+                    }
+                }
+
+                ProxyFactory proxyFactory = new ProxyFactory(repositoryInterfaces.toArray(new Class<?>[repositoryInterfaces.size()]));
+                proxyFactory.setTarget(bean);
+                proxyFactory.addAdvice(new RepositoryMetricsInterceptor(registry, entity == null ? beanName : entity));
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+
+    @Bean
+    public ServletRegistrationBean prometheusServlet(MetricsRegistry registry, MetricsProperties properties) {
+        ServletRegistrationBean registration = new ServletRegistrationBean(
+                new PrometheusServlet(registry, properties.getAllowedAddresses()), properties.getPath());
+        registration.setName("prometheusServlet");
+        registration.setEnabled(properties.isExpose());
+        return registration;
+    }
+
+    @Autowired
+    public void registerGauges(MetricsRegistry registry, ConnectionPoolMetrics pool, PermissionCache permissions) {
+        registry.gauge("limbr_connections_active", "Connections in use.", pool::getActive);
+        registry.gauge("limbr_connections_idle", "Connections open but not in use.", pool::getIdle);
+        registry.gauge("limbr_connections_waiting", "Threads waiting for a connection.", pool::getWaiting);
+        registry.counter("limbr_connection_requests_total", "Connections handed out.", pool::getRequests);
+        registry.gauge("limbr_connection_wait_max_seconds", "Longest wait for a connection since the last reset.",
+                () -> pool.getMaxWaitMillis() / 1000.0);
+
+        registry.counter("limbr_permission_cache_hits_total", "Role masks found in the permission cache.", permissions::getHits);
+        registry.counter("limbr_permission_cache_misses_total", "Role masks loaded from the database.", permissions::getMisses);
+        registry.counter("limbr_permission_cache_evictions_total", "Role masks dropped to make room.", permissions::getEvictions);
+        registry.gauge("limbr_permission_cache_size", "Role masks in the permission cache.", permissions::size);
+    }
+
+    /**
+     * Publishes the second-level and query cache figures from Hibernate's statistics. Keeping them
+     * adds synchronization to every session operation, so they're only kept while metrics are on.
+     */
+    @Autowired
+    public void registerCacheStatistics(MetricsRegistry registry, EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(registry.isEnabled());
+        if (!registry.isEnabled()) {
+            return;
+        }
+
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+            registry.counter("limbr_entity_cache_hits_total", "Entities found in the second-level cache.",
+                    regionStatistics::getHitCount, "region", region);
+            registry.counter("limbr_entity_cache_misses_total", "Entities looked for in the second-level cache and not found.",
+                    regionStatistics::getMissCount, "region", region);
+            registry.counter("limbr_entity_cache_puts_total", "Entities put in the second-level cache.",
+                    regionStatistics::getPutCount, "region", region);
+        }
+        registry.counter("limbr_query_cache_hits_total", "Query results found in the query cache.", statistics::getQueryCacheHitCount);
+        registry.counter("limbr_query_cache_misses_total", "Query results looked for in the query cache and not found.",
+                statistics::getQueryCacheMissCount);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What's measured and where it's published, set with limbr.metrics.*.
+ */
+@ConfigurationProperties(prefix = "limbr.metrics")
+public class MetricsProperties {
+    public enum Mode {
+        /**
+         * Nothing is measured; timers don't even read the clock.
+         */
+        OFF,
+        /**
+         * Counts and total times only, each a couple of uncontended additions. Meant to be left on.
+         */
+        BASIC,
+        /**
+         * Latency histograms as well, for finding out where the slow calls are.
+         */
+        DETAILED
+    }
+
+    private Mode mode = Mode.BASIC;
+    private String path = "/metrics";
+    private boolean expose;
+    private List<String> allowedAddresses = new ArrayList<>(Arrays.asList("127.0.0.1", "::1"));
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Gets the path metrics are served from, in Prometheus' text format.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Whether metrics are served at all. They give away pool, session, cache and user activity
+     * figures, so they aren't unless this is set.
+     */
+    public boolean isExpose() {
+        return expose;
+    }
+
+    public void setExpose(boolean expose) {
+        this.expose = expose;
+    }
+
+    /**
+     * Gets the addresses metrics are served to; anyone else is refused. Behind a reverse proxy
+     * every request comes from the proxy, so keep the path off the proxy.
+     */
+    public List<String> getAllowedAddresses() {
+        return allowedAddresses;
+    }
+
+    public void setAllowedAddresses(List<String> allowedAddresses) {
+        this.allowedAddresses = allowedAddresses;
+    }
+}
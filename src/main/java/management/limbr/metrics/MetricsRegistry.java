@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds every timer, counter and gauge, and writes them out in Prometheus' text format.
+ *
+ * Metrics are named once and told apart by labels, given as name/value pairs:
+ *
+ * <pre>
+ * registry.timer("limbr_editor_seconds", "Time spent in entity editors.", "entity", "User", "action", "save")
+ * </pre>
+ *
+ * Looking a metric up costs a map lookup, so code that runs often should hold on to what it gets
+ * back. Label values should come from a small, fixed set (entity classes, view names, method
+ * names) and never from user input, or there's no end to the metrics kept.
+ */
+@Component
+@EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsRegistry {
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), SUMMARY("summary"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentMap<List<String>, Object> metrics = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final MetricsProperties.Mode mode;
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricsRegistry(MetricsProperties properties) {
+        this.mode = properties.getMode();
+    }
+
+    public MetricsProperties.Mode getMode() {
+        return mode;
+    }
+
+    public boolean isEnabled() {
+        return mode != MetricsProperties.Mode.OFF;
+    }
+
+    /**
+     * Gets the timer with the given name and labels, making it if need be.
+     */
+    public Timer timer(String name, String help, String... labels) {
+        if (!isEnabled()) {
+            return Timer.NONE;
+        }
+        boolean histogram = mode == MetricsProperties.Mode.DETAILED;
+        return (Timer)family(name, help, histogram ? Type.HISTOGRAM : Type.SUMMARY)
+                .metrics.computeIfAbsent(labelList(labels), key -> new Timer(histogram));
+    }
+
+    /**
+     * Gets the counter with the given name and labels, making it if need be.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        if (!isEnabled()) {
+            return Counter.NONE;
+        }
+        return (Counter)family(name, help, Type.COUNTER).metrics.computeIfAbsent(labelList(labels), key -> new Counter());
+    }
+
+    /**
+     * Publishes a value that's kept somewhere else and read each time metrics are written out.
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> value, String... labels) {
+        if (isEnabled()) {
+            family(name, help, Type.GAUGE).metrics.put(labelList(labels), value);
+        }
+    }
+
+    /**
+     * Publishes a count that's kept somewhere else, like {@link #gauge}, for values that only go up.
+     */
+    public void counter(String name, String help, Supplier<? extends Number> value, String... labels) {
+        if (isEnabled()) {
+            family(name, help, Type.COUNTER).metrics.put(labelList(labels), value);
+        }
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type.text + ", not a " + type.text);
+        }
+        return family;
+    }
+
+    private static List<String> labelList(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must come in name/value pairs");
+        }
+        return Arrays.asList(labels);
+    }
+
+    /**
+     * Writes every metric in Prometheus' text exposition format, version 0.0.4.
+     */
+    public void writeTo(Writer out) throws IOException {
+        List<Family> sorted = new ArrayList<>(families.values());
+        sorted.sort(Comparator.comparing(family -> family.name));
+
+        for (Family family : sorted) {
+            out.write("# HELP " + family.name + ' ' + escapeHelp(family.help) + '\n');
+            out.write("# TYPE " + family.name + ' ' + family.type.text + '\n');
+            for (Map.Entry<List<String>, Object> entry : family.metrics.entrySet()) {
+                writeMetric(out, family, entry.getKey(), entry.getValue());
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeMetric(Writer out, Family family, List<String> labels, Object metric) throws IOException {
+        if (metric instanceof Timer) {
+            Timer timer = (Timer)metric;
+            // the parts are read one after another while calls keep coming in, so keep +Inf from
+            // falling behind the last bucket
+            long count = timer.getCount();
+            if (timer.hasBuckets()) {
+                long[] buckets = timer.getCumulativeBuckets();
+                for (int i = 0; i < buckets.length; i++) {
+                    writeSample(out, family.name + "_bucket", labels, "le", Double.toString(Timer.BUCKETS[i]), buckets[i]);
+                }
+                writeSample(out, family.name + "_bucket", labels, "le", "+Inf", Math.max(count, buckets[buckets.length - 1]));
+            }
+            writeSample(out, family.name + "_count", labels, null, null, count);
+            writeSample(out, family.name + "_sum", labels, null, null, timer.getTotalSeconds());
+        } else if (metric instanceof Counter) {
+            writeSample(out, family.name, labels, null, null, ((Counter)metric).getCount());
+        } else {
+            Number value = (Number)((Supplier<?>)metric).get();
+            writeSample(out, family.name, labels, null, null, value == null ? Double.NaN : value);
+        }
+    }
+
+    private static void writeSample(Writer out, String name, List<String> labels, String extraLabel, String extraValue,
+                                    Number value) throws IOException {
+        out.write(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            out.write('{');
+            String separator = "";
+            for (int i = 0; i < labels.size(); i += 2) {
+                out.write(separator + labels.get(i) + "=\"" + escapeLabel(labels.get(i + 1)) + '"');
+                separator = ",";
+            }
+            if (extraLabel != null) {
+                out.write(separator + extraLabel + "=\"" + extraValue + '"');
+            }
+            out.write('}');
+        }
+        out.write(' ');
+        out.write(formatValue(value));
+        out.write('\n');
+    }
+
+    private static String formatValue(Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d)) {
+                return "NaN";
+            } else if (Double.isInfinite(d)) {
+                return d > 0 ? "+Inf" : "-Inf";
+            }
+            return Double.toString(d);
+        }
+        return Long.toString(value.longValue());
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
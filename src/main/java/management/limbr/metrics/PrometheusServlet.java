@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Serves every metric in the registry, in the text format Prometheus scrapes, to the allowed
+ * addresses only.
+ */
+public class PrometheusServlet extends HttpServlet {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final transient MetricsRegistry registry;
+    private final Set<InetAddress> allowedAddresses = new HashSet<>();
+
+    public PrometheusServlet(MetricsRegistry registry, Collection<String> allowedAddresses) {
+        this.registry = registry;
+        for (String address : allowedAddresses) {
+            try {
+                this.allowedAddresses.add(InetAddress.getByName(address.trim()));
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Not an address metrics can be served to: " + address, e);
+            }
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!isAllowed(request.getRemoteAddr())) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-cache");
+        registry.writeTo(response.getWriter());
+    }
+
+    private boolean isAllowed(String remoteAddress) {
+        try {
+            // the remote address is always a literal, so this doesn't look anything up
+            return remoteAddress != null && allowedAddresses.contains(InetAddress.getByName(remoteAddress));
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
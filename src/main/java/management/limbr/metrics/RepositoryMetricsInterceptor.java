@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every call to one repository, by method.
+ *
+ * The registry is looked up on the first call rather than when the repository is made, since
+ * repositories are wrapped while the context is still starting.
+ */
+class RepositoryMetricsInterceptor implements MethodInterceptor {
+    static final String NAME = "limbr_repository_seconds";
+    static final String HELP = "Time spent in repository calls, by entity and method.";
+
+    private final ObjectFactory<MetricsRegistry> registryFactory;
+    private final String entity;
+    private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+    private volatile MetricsRegistry registry;
+
+    RepositoryMetricsInterceptor(ObjectFactory<MetricsRegistry> registryFactory, String entity) {
+        this.registryFactory = registryFactory;
+        this.entity = entity;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> getRegistry().timer(NAME, HELP, "entity", entity, "method", key.getName()));
+        }
+
+        long start = timer.start();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    private MetricsRegistry getRegistry() {
+        if (registry == null) {
+            registry = registryFactory.getObject();
+        }
+        return registry;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts calls and adds up how long they took, and with {@link MetricsProperties.Mode#DETAILED}
+ * sorts them into latency buckets too.
+ *
+ * <pre>
+ * long start = timer.start();
+ * try {
+ *     ...
+ * } finally {
+ *     timer.stop(start);
+ * }
+ * </pre>
+ */
+public class Timer {
+    /**
+     * Bucket bounds, in seconds.
+     */
+    static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = (long)(BUCKETS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Does nothing at all, for when metrics are off.
+     */
+    static final Timer NONE = new Timer(false) {
+        @Override
+        public long start() {
+            return 0;
+        }
+
+        @Override
+        public void stop(long start) {
+            // not measuring
+        }
+
+        @Override
+        public void record(long nanos) {
+            // not measuring
+        }
+    };
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] buckets;
+
+    Timer(boolean histogram) {
+        if (histogram) {
+            buckets = new LongAdder[BUCKETS.length];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        } else {
+            buckets = null;
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        if (buckets != null) {
+            for (int i = 0; i < BUCKET_NANOS.length; i++) {
+                if (nanos <= BUCKET_NANOS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalSeconds() {
+        return (double)totalNanos.sum() / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    boolean hasBuckets() {
+        return buckets != null;
+    }
+
+    /**
+     * Gets how many calls took no longer than each of {@link #BUCKETS}, cumulatively.
+     */
+    long[] getCumulativeBuckets() {
+        long[] cumulative = new long[BUCKETS.length];
+        long sum = 0;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            sum += buckets[i].sum();
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.boot.context.event.*;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each phase of starting up, and the beans that took longest to create, and logs it all once
+ * the application is ready to take requests.
+ *
+ * <pre>
+ * SpringApplication application = new SpringApplication(LimbrApplication.class);
+ * StartupTimer.attachTo(application);
+ * application.run(args);
+ * </pre>
+ *
+ * A bean's time includes creating the beans it needed, so the slowest beans overlap.
+ */
+public class StartupTimer implements ApplicationListener<ApplicationEvent> {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTimer.class);
+
+    static final String JVM = "jvm";
+    static final String ENVIRONMENT = "environment";
+    static final String CONTEXT = "context";
+    static final String BEANS = "beans";
+    static final String WEB_SERVER = "web server";
+    static final String RUNNERS = "runners";
+
+    static final int SLOWEST_BEANS = 10;
+
+    private final Map<String, Long> phaseMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final ConcurrentMap<String, Long> beanStarts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> beanMillis = new ConcurrentHashMap<>();
+    private long startNanos;
+    private long lastMarkNanos;
+    private volatile boolean finished;
+
+    /**
+     * Makes a timer that times the application's next run.
+     */
+    public static StartupTimer attachTo(SpringApplication application) {
+        StartupTimer timer = new StartupTimer();
+        application.addListeners(timer);
+        application.addInitializers(context -> context.getBeanFactory().addBeanPostProcessor(timer.new BeanTimer()));
+        return timer;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationStartedEvent) {
+            startNanos = System.nanoTime();
+            lastMarkNanos = startNanos;
+            // class loading and everything else that happened before run() was called
+            phaseMillis.put(JVM, ManagementFactory.getRuntimeMXBean().getUptime());
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            mark(ENVIRONMENT);
+        } else if (event instanceof ApplicationPreparedEvent) {
+            mark(CONTEXT);
+        } else if (event instanceof ContextRefreshedEvent && ((ContextRefreshedEvent)event).getApplicationContext().getParent() == null) {
+            mark(BEANS);
+        } else if (event instanceof EmbeddedServletContainerInitializedEvent) {
+            mark(WEB_SERVER);
+        } else if (event instanceof ApplicationReadyEvent) {
+            mark(RUNNERS);
+            finish();
+            LOG.info(getReport());
+        } else if (event instanceof ApplicationFailedEvent) {
+            finish();
+            LOG.warn("Startup failed. " + getReport());
+        }
+    }
+
+    private synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        phaseMillis.put(phase, TimeUnit.NANOSECONDS.toMillis(now - lastMarkNanos));
+        lastMarkNanos = now;
+    }
+
+    private void finish() {
+        finished = true;
+        // beans that were started but never finished, because something failed
+        beanStarts.clear();
+    }
+
+    /**
+     * Gets how long each phase took, in the order they happened.
+     */
+    public Map<String, Long> getPhaseMillis() {
+        synchronized (phaseMillis) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(phaseMillis));
+        }
+    }
+
+    /**
+     * Gets how long it took from run() being called until the application was ready.
+     */
+    public synchronized long getStartupMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastMarkNanos - startNanos);
+    }
+
+    /**
+     * Gets the beans that took longest to create, slowest first.
+     */
+    public List<Map.Entry<String, Long>> getSlowestBeans(int limit) {
+        List<Map.Entry<String, Long>> beans = new ArrayList<>(beanMillis.entrySet());
+        beans.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return beans.subList(0, Math.min(limit, beans.size()));
+    }
+
+    public String getReport() {
+        StringBuilder report = new StringBuilder("Started in ").append(getStartupMillis()).append(" ms.");
+        getPhaseMillis().forEach((phase, millis) ->
+                report.append(String.format("%n  %-12s %6d ms", phase, millis)));
+        report.append(String.format("%nSlowest beans:"));
+        for (Map.Entry<String, Long> bean : getSlowestBeans(SLOWEST_BEANS)) {
+            report.append(String.format("%n  %6d ms  %s", bean.getValue(), bean.getKey()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Times every bean made while starting up, from before it's instantiated until it's
+     * initialized.
+     */
+    private class BeanTimer extends InstantiationAwareBeanPostProcessorAdapter {
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+            if (!finished && beanName != null) {
+                beanStarts.putIfAbsent(beanName, System.nanoTime());
+            }
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            Long start = beanName == null ? null : beanStarts.remove(beanName);
+            if (start != null) {
+                beanMillis.put(beanName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return bean;
+        }
+    }
+}
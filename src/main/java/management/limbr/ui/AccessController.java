@@ -20,34 +20,57 @@
 package management.limbr.ui;
 
 import com.vaadin.spring.access.ViewAccessControl;
+import com.vaadin.spring.annotation.SpringView;
 import com.vaadin.ui.UI;
-import management.limbr.ui.view.DefaultView;
+import management.limbr.metrics.Counter;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Provides security to views.
  *
  * If a view is restricted to admins by @RequiresPrivilege(level = PrivilegeLevels.ADMIN),
  * for example, then the view will not be available to anyone who doesn't have at least
  * ADMIN level.
+ *
+ * The privilege each @SpringView requires is read from its class once, when the context is
+ * refreshed, so checking access never has to create the view.
  */
 @Component
-public class AccessController implements ViewAccessControl, ApplicationContextAware {
+public class AccessController implements ViewAccessControl, ApplicationContextAware,
+        ApplicationListener<ContextRefreshedEvent> {
+    static final String CHECKS_NAME = "limbr_access_checks_total";
+    private static final String CHECKS_HELP = "View access checks, by view and whether access was granted.";
+
     private ApplicationContext applicationContext;
 
     private ClientState clientState;
+    private MetricsRegistry metrics;
+    private Timer checkTimer;
+
+    private volatile Map<String, PrivilegeLevels> viewPrivileges = Collections.emptyMap();
 
     @Autowired
-    public AccessController(ClientState clientState) {
+    public AccessController(ClientState clientState, MetricsRegistry metrics) {
         this.clientState = clientState;
+        this.metrics = metrics;
+        this.checkTimer = metrics.timer("limbr_access_check_seconds", "Time spent checking access to views.");
     }
 
     /**
      * Determines if access can be granted to a particular user to a particular view.
-     * Gets the current user from the UI.
+     * Gets the current user from the UI's session, without going to the database.
      *
      * @param ui The UI the user is using.
      * @param beanName The name of the bean of the view the user is trying to access.
@@ -55,21 +78,45 @@ public class AccessController implements ViewAccessControl, ApplicationContextAw
      */
     @Override
     public boolean isAccessGranted(UI ui, String beanName) {
-        RequiresPrivilege annotation;
-
-        if ("defaultView".equals(beanName)) {
-            // When the app is first loading, no view is selected yet and we'll crash if we call
-            // getBean, so we have a special case for this one.
-            annotation = DefaultView.class.getAnnotation(RequiresPrivilege.class);
-        } else {
-            annotation = applicationContext.getBean(beanName).getClass().getAnnotation(RequiresPrivilege.class);
+        long start = checkTimer.start();
+        boolean granted;
+        try {
+            PrivilegeLevels required = viewPrivileges.get(beanName);
+            granted = required != null && clientState.getPrincipal(ui == null ? null : ui.getSession()).hasPrivilege(required);
+        } finally {
+            checkTimer.stop(start);
         }
+        // bean names come from the context, not from the URL, so there's only ever a handful of these
+        checkCounter(beanName, granted).increment();
+        return granted;
+    }
 
-        return annotation != null && clientState.getUserLevel().hasLevel(annotation.level());
+    private Counter checkCounter(String beanName, boolean granted) {
+        return metrics.counter(CHECKS_NAME, CHECKS_HELP, "view", beanName, "result", granted ? "granted" : "denied");
     }
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
     }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() == applicationContext) {
+            viewPrivileges = collectViewPrivileges(applicationContext);
+        }
+    }
+
+    private static Map<String, PrivilegeLevels> collectViewPrivileges(ApplicationContext applicationContext) {
+        Map<String, PrivilegeLevels> privileges = new HashMap<>();
+        for (String beanName : applicationContext.getBeanNamesForAnnotation(SpringView.class)) {
+            // getType works from the bean definition, so no view gets created here
+            Class<?> type = applicationContext.getType(beanName);
+            RequiresPrivilege annotation = type == null ? null : AnnotationUtils.findAnnotation(type, RequiresPrivilege.class);
+            if (annotation != null) {
+                privileges.put(beanName, annotation.level());
+            }
+        }
+        return Collections.unmodifiableMap(privileges);
+    }
 }
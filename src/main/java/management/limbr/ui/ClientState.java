@@ -19,28 +19,58 @@
 
 package management.limbr.ui;
 
+import com.vaadin.server.VaadinSession;
 import com.vaadin.spring.annotation.SpringComponent;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.Serializable;
 
+/**
+ * Gets and sets the {@link Principal} of a session.
+ *
+ * The principal is kept in the VaadinSession rather than a session scoped bean so it can be
+ * read from push and background threads too, which have no request to find a session scope from.
+ */
 @SpringComponent
 public class ClientState implements Serializable {
-    private boolean loggedIn;
+    private final transient PrincipalResolver principalResolver;
 
-    public PrivilegeLevels getUserLevel() {
-        if (isLoggedIn()) {
-            return PrivilegeLevels.ADMIN;
-        } else {
-            return PrivilegeLevels.NONE;
-        }
+    @Autowired
+    public ClientState(PrincipalResolver principalResolver) {
+        this.principalResolver = principalResolver;
     }
 
-    public boolean isLoggedIn() {
-        return loggedIn;
+    /**
+     * Gets the principal of the current session.
+     */
+    public Principal getPrincipal() {
+        return getPrincipal(VaadinSession.getCurrent());
     }
 
-    public void setLoggedIn(boolean loggedIn) {
-        this.loggedIn = loggedIn;
+    /**
+     * Gets the principal of a session, resolving it again first if roles have changed since it
+     * was.
+     */
+    public Principal getPrincipal(VaadinSession session) {
+        if (session == null) {
+            return Principal.ANONYMOUS;
+        }
+        Principal principal = session.getAttribute(Principal.class);
+        if (principal == null) {
+            return Principal.ANONYMOUS;
+        }
+        if (principalResolver.isStale(principal)) {
+            principal = principalResolver.refresh(principal);
+            session.setAttribute(Principal.class, principal);
+        }
+        return principal;
+    }
+
+    public void logIn(Principal principal) {
+        VaadinSession.getCurrent().setAttribute(Principal.class, principal);
     }
 
+    public boolean isLoggedIn() {
+        return !getPrincipal().isAnonymous();
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui;
+
+import management.limbr.data.model.RoleTypes;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Who a session belongs to and everything they're allowed to do, worked out once at log in.
+ *
+ * A principal never changes; when the user's roles do, {@link PrincipalResolver} makes a new one.
+ * Checking a privilege is a lookup in a precomputed set and never touches the database. Privileges
+ * come from the user's global memberships only; a role in one project gives nothing app-wide.
+ */
+public final class Principal implements Serializable {
+    public static final Principal ANONYMOUS = new Principal(null, null, null, Collections.emptySet(), Long.MAX_VALUE);
+
+    private final Long userId;
+    private final String username;
+    private final String displayName;
+    private final Set<RoleTypes> roleTypes;
+    private final Set<PrivilegeLevels> privileges;
+    private final long generation;
+
+    public Principal(Long userId, String username, String displayName, Collection<RoleTypes> roleTypes, long generation) {
+        this.userId = userId;
+        this.username = username;
+        this.displayName = displayName;
+        this.roleTypes = Collections.unmodifiableSet(roleTypes.isEmpty()
+                ? EnumSet.noneOf(RoleTypes.class) : EnumSet.copyOf(roleTypes));
+        this.privileges = Collections.unmodifiableSet(privilegesFor(userId == null, this.roleTypes));
+        this.generation = generation;
+    }
+
+    private static Set<PrivilegeLevels> privilegesFor(boolean anonymous, Set<RoleTypes> roleTypes) {
+        PrivilegeLevels highest = anonymous ? PrivilegeLevels.NONE : PrivilegeLevels.USER;
+        if (roleTypes.contains(RoleTypes.ADMIN)) {
+            highest = PrivilegeLevels.ADMIN;
+        }
+        Set<PrivilegeLevels> privileges = EnumSet.noneOf(PrivilegeLevels.class);
+        for (PrivilegeLevels level : PrivilegeLevels.values()) {
+            if (highest.hasLevel(level)) {
+                privileges.add(level);
+            }
+        }
+        return privileges;
+    }
+
+    public boolean isAnonymous() {
+        return userId == null;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public Set<RoleTypes> getRoleTypes() {
+        return roleTypes;
+    }
+
+    public boolean hasPrivilege(PrivilegeLevels level) {
+        return privileges.contains(level);
+    }
+
+    /**
+     * Gets the {@link PrincipalResolver#getGeneration() generation} of roles this was resolved from.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public String toString() {
+        return isAnonymous() ? "Principal{anonymous}" : "Principal{" + username + ", " + roleTypes + "}";
+    }
+}
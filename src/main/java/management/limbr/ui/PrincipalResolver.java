@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui;
+
+import com.vaadin.spring.annotation.SpringComponent;
+import management.limbr.data.UserProjectRolesRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.membership.MembershipChanges;
+import management.limbr.data.model.Role;
+import management.limbr.data.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns a user into a {@link Principal}, and keeps track of whether principals made earlier are
+ * still up to date.
+ *
+ * Every principal remembers the generation it was resolved at. A committed change to a user or
+ * their memberships marks just that user as changed at a new generation, so only their sessions
+ * resolve their principals again; users change all the time (a login can rehash a password, an
+ * import writes thousands), so it's worth not making everyone else do it too. A change to a role
+ * could affect anyone, so it marks every principal resolved before it as stale.
+ *
+ * At most {@value #MAX_TRACKED_USERS} users are tracked. Past that, they're all forgotten and
+ * every principal resolved so far is marked stale instead, so a big import doesn't leave an entry
+ * per user behind for good.
+ */
+@SpringComponent
+public class PrincipalResolver {
+    static final int MAX_TRACKED_USERS = 10000;
+
+    private final transient UserRepository userRepository;
+    private final transient UserProjectRolesRepository membershipRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong allChangedAt = new AtomicLong();
+    private final ConcurrentMap<Long, Long> usersChangedAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrincipalResolver(UserRepository userRepository, UserProjectRolesRepository membershipRepository) {
+        this.userRepository = userRepository;
+        this.membershipRepository = membershipRepository;
+    }
+
+    public Principal resolve(User user) {
+        // read the generation first, so a change made while querying makes this principal stale
+        long resolvedAt = generation.get();
+        return new Principal(user.getId(), user.getUsername(), user.getDisplayName(),
+                membershipRepository.findGlobalRoleTypesByUserId(user.getId()), resolvedAt);
+    }
+
+    /**
+     * Gets an up to date principal for the same user, or the anonymous one if they've been deleted.
+     */
+    public Principal refresh(Principal principal) {
+        if (!isStale(principal)) {
+            return principal;
+        }
+        User user = userRepository.findOne(principal.getUserId());
+        return user == null ? Principal.ANONYMOUS : resolve(user);
+    }
+
+    public boolean isStale(Principal principal) {
+        if (principal.isAnonymous()) {
+            return false;
+        }
+        // the user's entry first, as it's only forgotten once allChangedAt covers it
+        long userChangedAt = usersChangedAt.getOrDefault(principal.getUserId(), 0L);
+        return principal.getGeneration() < Math.max(userChangedAt, allChangedAt.get());
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @EventListener
+    public void entityChanged(EntityChangedEvent event) {
+        if (event.isAbout(Role.class)) {
+            markAllChanged();
+            return;
+        }
+        Set<Long> userIds = MembershipChanges.affectedUsers(event);
+        if (!userIds.isEmpty()) {
+            long changedAt = generation.incrementAndGet();
+            userIds.forEach(userId -> usersChangedAt.put(userId, changedAt));
+            if (usersChangedAt.size() > MAX_TRACKED_USERS) {
+                usersChangedAt.clear();
+                markAllChanged();
+            }
+        }
+    }
+
+    private void markAllChanged() {
+        // every entry cleared before this was made at or before the new generation
+        long changedAt = generation.incrementAndGet();
+        allChangedAt.accumulateAndGet(changedAt, Math::max);
+    }
+
+    int getTrackedUserCount() {
+        return usersChangedAt.size();
+    }
+}
@@ -21,18 +21,11 @@ package management.limbr.ui;
 
 public enum PrivilegeLevels {
     NONE,
+    USER, // anyone logged in
     ADMIN;
 
     public boolean hasLevel(PrivilegeLevels level) {
-        if (this == NONE) {
-            if (level == NONE) {
-                return true;
-            }
-        } else if (this == ADMIN) {
-            if (level == ADMIN || level == NONE) {
-                return true;
-            }
-        }
-        return false;
+        // each level includes the ones before it
+        return level.ordinal() <= ordinal();
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui;
+
+import com.vaadin.server.VaadinSession;
+import management.limbr.data.audit.AuditActor;
+import management.limbr.data.audit.AuditActorResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes whoever's logged in to the current Vaadin session as the one making changes. Changes made
+ * outside a request, or before logging in, are the application's own.
+ */
+@Component
+public class SessionAuditActorResolver implements AuditActorResolver {
+    @Override
+    public AuditActor currentActor() {
+        // straight from the session rather than through ClientState, which may go to the database
+        // to refresh roles, and this is called while Hibernate is flushing
+        VaadinSession session = VaadinSession.getCurrent();
+        Principal principal = session == null ? null : session.getAttribute(Principal.class);
+        return principal == null || principal.isAnonymous() ? AuditActor.SYSTEM
+                : new AuditActor(principal.getUserId(), principal.getUsername());
+    }
+}
@@ -19,8 +19,10 @@
 
 package management.limbr.ui;
 
+import com.vaadin.annotations.Push;
 import com.vaadin.annotations.Theme;
 import com.vaadin.navigator.Navigator;
+import com.vaadin.navigator.View;
 import com.vaadin.server.ExternalResource;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.shared.ui.MarginInfo;
@@ -28,29 +30,62 @@ import com.vaadin.spring.annotation.SpringUI;
 import com.vaadin.spring.navigator.SpringViewProvider;
 import com.vaadin.ui.*;
 import com.vaadin.ui.themes.ValoTheme;
+import management.limbr.auth.PermissionCache;
+import management.limbr.data.search.SearchIndex;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
+import management.limbr.ui.activity.ActivityViewImpl;
 import management.limbr.ui.error.ErrorView;
+import management.limbr.ui.kanban.KanbanViewImpl;
 import management.limbr.ui.projects.ProjectsViewImpl;
 import management.limbr.ui.roles.RolesViewImpl;
+import management.limbr.ui.search.SearchBox;
+import management.limbr.ui.sessions.SessionMemoryManager;
+import management.limbr.ui.sessions.SessionsViewImpl;
 import management.limbr.ui.users.UsersViewImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.util.ClassUtils;
 import org.vaadin.spring.i18n.I18N;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 @Theme("limbr")
+@Push
 @SpringUI(path = "")
 @SuppressWarnings({"squid:S2160"}) // don't need to override equals here
 public class VaadinUI extends UI {
+    static final String VIEW_CHANGE_TIMER_NAME = "limbr_view_change_seconds";
+
     SpringViewProvider viewProvider;
 
     private transient I18N messages;
+    private transient MetricsRegistry metrics;
+    private transient SessionMemoryManager sessionMemoryManager;
+    private transient SearchIndex searchIndex;
+    private transient ScheduledExecutorService filterExecutor;
+    private transient ClientState clientState;
+    private transient PermissionCache permissions;
+    private SearchBox searchBox;
 
     @Autowired
-    public VaadinUI(SpringViewProvider viewProvider, I18N messages) {
+    public VaadinUI(SpringViewProvider viewProvider, I18N messages, MetricsRegistry metrics,
+                    SessionMemoryManager sessionMemoryManager, SearchIndex searchIndex,
+                    @Qualifier("filterExecutor") ScheduledExecutorService filterExecutor, ClientState clientState,
+                    PermissionCache permissions) {
         this.viewProvider = viewProvider;
         this.messages = messages;
+        this.metrics = metrics;
+        this.sessionMemoryManager = sessionMemoryManager;
+        this.searchIndex = searchIndex;
+        this.filterExecutor = filterExecutor;
+        this.clientState = clientState;
+        this.permissions = permissions;
     }
 
     @Override
     protected void init(VaadinRequest request) {
+        sessionMemoryManager.track(this);
 
         final VerticalLayout root = new VerticalLayout();
         root.setSizeFull();
@@ -68,10 +103,16 @@ public class VaadinUI extends UI {
 
         CssLayout navBar = new CssLayout();
         navBar.addStyleName(ValoTheme.LAYOUT_COMPONENT_GROUP);
+        navBar.addComponent(createNavButton(messages.get("kanbanNavigationLabel"), KanbanViewImpl.VIEW_NAME));
         navBar.addComponent(createNavButton(messages.get("usersNavigationLabel"), UsersViewImpl.VIEW_NAME));
         navBar.addComponent(createNavButton(messages.get("projectsNavigationLabel"), ProjectsViewImpl.VIEW_NAME));
         navBar.addComponent(createNavButton(messages.get("rolesNavigationLabel"), RolesViewImpl.VIEW_NAME));
+        navBar.addComponent(createNavButton(messages.get("sessionsNavigationLabel"), SessionsViewImpl.VIEW_NAME));
+        navBar.addComponent(createNavButton(messages.get("activityNavigationLabel"), ActivityViewImpl.VIEW_NAME));
         topBar.addComponent(navBar);
+        searchBox = new SearchBox(searchIndex, filterExecutor, messages, viewProvider, clientState, permissions);
+        searchBox.refresh();
+        topBar.addComponent(searchBox);
 
         root.addComponent(topBar);
 
@@ -80,12 +121,34 @@ public class VaadinUI extends UI {
         root.addComponent(viewContainer);
         root.setExpandRatio(viewContainer, 1.0f);
 
-        Navigator navigator = new Navigator(this, viewContainer);
+        Navigator navigator = new Navigator(this, viewContainer) {
+            @Override
+            public void navigateTo(String navigationState) {
+                long start = System.nanoTime();
+                super.navigateTo(navigationState);
+                // logging in and out both end up here
+                searchBox.refresh();
+                viewChanged(getCurrentView(), System.nanoTime() - start);
+            }
+        };
         navigator.addProvider(viewProvider);
         navigator.setErrorProvider(viewProvider);
         navigator.setErrorView(ErrorView.class);
     }
 
+    /**
+     * Records how long it took to get to a view, labelled with the view's class rather than the
+     * navigation state, which comes from the URL and could be anything.
+     */
+    private void viewChanged(View view, long nanos) {
+        if (view != null) {
+            String viewName = ClassUtils.getUserClass(view).getSimpleName();
+            Timer timer = metrics.timer(VIEW_CHANGE_TIMER_NAME, "Time spent changing views, by the view changed to.",
+                    "view", viewName);
+            timer.record(nanos);
+        }
+    }
+
     private Button createNavButton(String caption, String view) {
         Button button = new Button(caption);
         button.addStyleName(ValoTheme.BUTTON_SMALL);
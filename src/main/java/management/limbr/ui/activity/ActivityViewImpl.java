@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.activity;
+
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewChangeListener;
+import com.vaadin.spring.annotation.SpringView;
+import com.vaadin.spring.annotation.UIScope;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Grid;
+import com.vaadin.ui.VerticalLayout;
+import management.limbr.data.audit.AuditLog;
+import management.limbr.data.model.AuditEntry;
+import management.limbr.ui.PrivilegeLevels;
+import management.limbr.ui.RequiresPrivilege;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.vaadin.spring.i18n.I18N;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * The audit log, newest first, for admins. Older entries are loaded a page at a time, carrying on
+ * from the last one shown.
+ */
+@RequiresPrivilege(level = PrivilegeLevels.ADMIN)
+@UIScope
+@SpringView(name = ActivityViewImpl.VIEW_NAME)
+@SuppressWarnings({"squid:S2160"}) // don't need to override equals here
+public class ActivityViewImpl extends VerticalLayout implements View {
+    public static final String VIEW_NAME = "activity";
+    static final int PAGE_SIZE = 50;
+
+    private static final String[] COLUMNS = {"recordedAt", "username", "action", "entityType", "entityId", "changes"};
+
+    private transient AuditLog auditLog;
+    private transient I18N messages;
+    private final BeanItemContainer<AuditEntry> entries = new BeanItemContainer<>(AuditEntry.class);
+    private Button olderButton;
+    private Long lastId;
+
+    @Autowired
+    public ActivityViewImpl(AuditLog auditLog, I18N messages) {
+        this.auditLog = auditLog;
+        this.messages = messages;
+    }
+
+    @PostConstruct
+    void init() {
+        setSpacing(true);
+
+        Grid grid = new Grid(entries);
+        grid.setSizeFull();
+        grid.removeAllColumns();
+        for (String column : COLUMNS) {
+            grid.addColumn(column).setHeaderCaption(messages.get(column + "ColumnLabel"));
+        }
+
+        olderButton = new Button(messages.get("olderActivityButtonLabel"));
+        olderButton.addClickListener(event -> showMore());
+
+        addComponent(grid);
+        addComponent(olderButton);
+    }
+
+    @Override
+    public void enter(ViewChangeListener.ViewChangeEvent event) {
+        entries.removeAllItems();
+        lastId = null;
+        showMore();
+    }
+
+    private void showMore() {
+        List<AuditEntry> page = auditLog.getActivity(lastId, PAGE_SIZE);
+        entries.addAll(page);
+        if (!page.isEmpty()) {
+            lastId = page.get(page.size() - 1).getId();
+        }
+        olderButton.setEnabled(page.size() == PAGE_SIZE);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a filter query off the request thread once the user has stopped typing for a moment.
+ *
+ * Every new filter supersedes the one before it: a filter that is still waiting is cancelled and
+ * only the result of the latest filter is ever handed to the result handler. A query that is
+ * already running is left to finish, as interrupting it can close the database's file channel
+ * under every other query; its result is dropped.
+ */
+public class DebouncedFilter<R> {
+    private static final Logger LOG = LoggerFactory.getLogger(DebouncedFilter.class);
+
+    private final ScheduledExecutorService executor;
+    private final long delayMillis;
+    private final Function<String, R> query;
+    private final Consumer<R> resultHandler;
+
+    private String filter;
+    private long generation;
+    private Future<?> pending;
+
+    public DebouncedFilter(ScheduledExecutorService executor, long delayMillis, Function<String, R> query, Consumer<R> resultHandler) {
+        this.executor = executor;
+        this.delayMillis = delayMillis;
+        this.query = query;
+        this.resultHandler = resultHandler;
+    }
+
+    public synchronized void filterChanged(String filter) {
+        this.filter = filter;
+        schedule(delayMillis);
+    }
+
+    /**
+     * Runs the latest filter again right away, for when what it matches has changed. Supersedes
+     * anything still waiting or running, like a new filter.
+     */
+    public synchronized void refilter() {
+        schedule(0);
+    }
+
+    private void schedule(long delay) {
+        cancelPending();
+        final String scheduledFilter = filter;
+        final long scheduledGeneration = ++generation;
+        pending = executor.schedule(() -> run(scheduledFilter, scheduledGeneration), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Forgets any filter that hasn't been delivered yet.
+     */
+    public synchronized void cancel() {
+        cancelPending();
+        generation++;
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private synchronized boolean isCurrent(long scheduledGeneration) {
+        return scheduledGeneration == generation;
+    }
+
+    private void run(String filter, long scheduledGeneration) {
+        if (!isCurrent(scheduledGeneration)) {
+            return;
+        }
+
+        R result;
+        try {
+            result = query.apply(filter);
+        } catch (RuntimeException ex) {
+            if (isCurrent(scheduledGeneration)) {
+                LOG.warn("Filtering on \"{}\" failed.", filter, ex);
+            } else {
+                LOG.debug("Superseded filter on \"{}\" failed after it was cancelled.", filter, ex);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (scheduledGeneration == generation) {
+                pending = null;
+                resultHandler.accept(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.BeanItem;
+import management.limbr.data.model.BaseEntity;
+import org.apache.commons.lang3.ClassUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A read-only container that loads entities from a repository one page at a time, as the grid
+ * showing them scrolls, instead of holding every row of the table in the session.
+ *
+ * The total number of rows is counted once and cached until the container is refreshed or
+ * re-sorted. Sorting is done by the database and is only offered on @ListColumn fields; rows that
+ * sort the same are kept in ID order, so every row has one place in the list.
+ *
+ * Items are told apart by ID, as the entities don't implement equals. An item that isn't in a
+ * cached page is looked for with the {@link Locator}, if there is one.
+ */
+@SuppressWarnings({"squid:S1948"}) // fetcher, counter and locator are transient like the repositories in the presenters
+public class EntityContainer<T extends BaseEntity> implements Container.Indexed, Container.Sortable,
+        Container.ItemSetChangeNotifier {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_CACHED_PAGES = 10;
+    private static final Sort ID_ORDER = new Sort("id");
+
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        List<T> fetch(Pageable pageable);
+    }
+
+    @FunctionalInterface
+    public interface Counter {
+        long count();
+    }
+
+    @FunctionalInterface
+    public interface Locator<T> {
+        /**
+         * Counts the rows that come before the entity in the given order, or returns -1 if it isn't
+         * in the list.
+         */
+        long countBefore(T entity, Sort sort);
+    }
+
+    private final Class<T> entityClass;
+    private final int pageSize;
+    private transient PageFetcher<T> fetcher;
+    private transient Counter counter;
+    private transient Locator<T> locator;
+
+    private final List<String> propertyIds = new ArrayList<>();
+    private final Map<String, Class<?>> propertyTypes = new HashMap<>();
+    private final List<String> sortablePropertyIds = new ArrayList<>();
+
+    private final PageCache<T> pages = new PageCache<>();
+    private Integer size;
+    private Sort sort;
+
+    private final List<ItemSetChangeListener> itemSetChangeListeners = new ArrayList<>();
+
+    public EntityContainer(Class<T> entityClass, PageFetcher<T> fetcher, Counter counter) {
+        this(entityClass, fetcher, counter, null, DEFAULT_PAGE_SIZE);
+    }
+
+    public EntityContainer(Class<T> entityClass, PageFetcher<T> fetcher, Counter counter, Locator<T> locator) {
+        this(entityClass, fetcher, counter, locator, DEFAULT_PAGE_SIZE);
+    }
+
+    public EntityContainer(Class<T> entityClass, PageFetcher<T> fetcher, Counter counter, int pageSize) {
+        this(entityClass, fetcher, counter, null, pageSize);
+    }
+
+    public EntityContainer(Class<T> entityClass, PageFetcher<T> fetcher, Counter counter, Locator<T> locator, int pageSize) {
+        this.entityClass = entityClass;
+        this.fetcher = fetcher;
+        this.counter = counter;
+        this.locator = locator;
+        this.pageSize = pageSize;
+
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(entityClass).getPropertyDescriptors()) {
+                if (descriptor.getReadMethod() != null && !"class".equals(descriptor.getName())) {
+                    propertyIds.add(descriptor.getName());
+                    propertyTypes.put(descriptor.getName(), ClassUtils.primitiveToWrapper(descriptor.getPropertyType()));
+                }
+            }
+        } catch (IntrospectionException ex) {
+            throw new IllegalArgumentException("Couldn't introspect " + entityClass.getName(), ex);
+        }
+
+        sortablePropertyIds.addAll(FormSchema.of(entityClass).getListColumns());
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Forgets the cached row count and pages so they are read from the database again the next time
+     * they are needed.
+     */
+    public void refresh() {
+        size = null;
+        pages.clear();
+        fireItemSetChange();
+    }
+
+    /**
+     * Drops every cached page but the one used last, which is most likely the one on screen. The
+     * others are read again if the grid scrolls back to them; the row count is kept, so the grid
+     * doesn't notice.
+     */
+    public void releasePages() {
+        pages.retainMostRecent(1);
+    }
+
+    /**
+     * Gets how many entities are cached at the moment.
+     */
+    public int getCachedItemCount() {
+        int count = 0;
+        for (List<T> page : pages.values()) {
+            count += page.size();
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        if (size == null) {
+            size = (int)Math.min(counter.count(), Integer.MAX_VALUE);
+        }
+        return size;
+    }
+
+    @Override
+    public Object getIdByIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is outside of 0.." + size());
+        }
+
+        List<T> page = getPage(index / pageSize);
+        int offset = index % pageSize;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+        if (startIndex < 0 || numberOfItems < 0) {
+            throw new IndexOutOfBoundsException("Can't get " + numberOfItems + " items starting at " + startIndex);
+        }
+
+        int end = Math.min(startIndex + numberOfItems, size());
+        List<T> result = new ArrayList<>(Math.max(end - startIndex, 0));
+        for (int i = startIndex; i < end; i++) {
+            Object id = getIdByIndex(i);
+            if (id == null) {
+                // the table shrank since it was counted
+                break;
+            }
+            result.add(entityClass.cast(id));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets every item ID in the container. This loads the whole table, so it should be avoided;
+     * grids only ever ask for ranges through {@link #getItemIds(int, int)}.
+     */
+    @Override
+    public Collection<?> getItemIds() {
+        return getItemIds(0, size());
+    }
+
+    /**
+     * Gets the index of an item, asking the {@link Locator} where it is if it isn't in a cached page
+     * and loading the page it should be on.
+     */
+    @Override
+    public int indexOfId(Object itemId) {
+        if (!entityClass.isInstance(itemId) || entityClass.cast(itemId).getId() == null) {
+            return -1;
+        }
+        T entity = entityClass.cast(itemId);
+        int index = indexOfCached(entity.getId());
+        if (index >= 0 || locator == null) {
+            return index;
+        }
+
+        long before = locator.countBefore(entity, getOrder());
+        if (before < 0 || before >= size()) {
+            return -1;
+        }
+        // the page confirms it; it won't be there if the table changed since it was counted
+        getPage((int)(before / pageSize));
+        return indexOfCached(entity.getId());
+    }
+
+    private int indexOfCached(Long id) {
+        for (Map.Entry<Integer, List<T>> page : pages.entrySet()) {
+            List<T> entities = page.getValue();
+            for (int offset = 0; offset < entities.size(); offset++) {
+                if (id.equals(entities.get(offset).getId())) {
+                    return page.getKey() * pageSize + offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean containsId(Object itemId) {
+        return indexOfId(itemId) >= 0;
+    }
+
+    @Override
+    public Item getItem(Object itemId) {
+        if (!entityClass.isInstance(itemId)) {
+            return null;
+        }
+        return new BeanItem<>(entityClass.cast(itemId), propertyIds);
+    }
+
+    @Override
+    public Collection<?> getContainerPropertyIds() {
+        return Collections.unmodifiableList(propertyIds);
+    }
+
+    @Override
+    public Property getContainerProperty(Object itemId, Object propertyId) {
+        Item item = getItem(itemId);
+        return item == null ? null : item.getItemProperty(propertyId);
+    }
+
+    @Override
+    public Class<?> getType(Object propertyId) {
+        return propertyTypes.get(propertyId);
+    }
+
+    @Override
+    public Object nextItemId(Object itemId) {
+        int index = indexOfId(itemId);
+        return index >= 0 && index + 1 < size() ? getIdByIndex(index + 1) : null;
+    }
+
+    @Override
+    public Object prevItemId(Object itemId) {
+        int index = indexOfId(itemId);
+        return index > 0 ? getIdByIndex(index - 1) : null;
+    }
+
+    @Override
+    public Object firstItemId() {
+        return size() > 0 ? getIdByIndex(0) : null;
+    }
+
+    @Override
+    public Object lastItemId() {
+        return size() > 0 ? getIdByIndex(size() - 1) : null;
+    }
+
+    @Override
+    public boolean isFirstId(Object itemId) {
+        return size() > 0 && sameEntity(itemId, entityClass.cast(getIdByIndex(0)));
+    }
+
+    @Override
+    public boolean isLastId(Object itemId) {
+        return size() > 0 && sameEntity(itemId, entityClass.cast(getIdByIndex(size() - 1)));
+    }
+
+    /**
+     * Tells whether an item is the entity given, by id, as a reloaded page has new instances.
+     */
+    private boolean sameEntity(Object itemId, T entity) {
+        return entityClass.isInstance(itemId) && entityClass.cast(itemId).getId() != null
+                && entityClass.cast(itemId).getId().equals(entity.getId());
+    }
+
+    @Override
+    public void sort(Object[] propertyId, boolean[] ascending) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (int i = 0; i < propertyId.length; i++) {
+            if (sortablePropertyIds.contains(propertyId[i])) {
+                boolean asc = i >= ascending.length || ascending[i];
+                orders.add(new Sort.Order(asc ? Sort.Direction.ASC : Sort.Direction.DESC, propertyId[i].toString()));
+            }
+        }
+        sort = orders.isEmpty() ? null : new Sort(orders);
+
+        // the count doesn't change with the order, only the pages do
+        pages.clear();
+        fireItemSetChange();
+    }
+
+    @Override
+    public Collection<?> getSortableContainerPropertyIds() {
+        return Collections.unmodifiableList(sortablePropertyIds);
+    }
+
+    @Override
+    public void addItemSetChangeListener(ItemSetChangeListener listener) {
+        itemSetChangeListeners.add(listener);
+    }
+
+    @Override
+    @Deprecated
+    public void addListener(ItemSetChangeListener listener) {
+        addItemSetChangeListener(listener);
+    }
+
+    @Override
+    public void removeItemSetChangeListener(ItemSetChangeListener listener) {
+        itemSetChangeListeners.remove(listener);
+    }
+
+    @Override
+    @Deprecated
+    public void removeListener(ItemSetChangeListener listener) {
+        removeItemSetChangeListener(listener);
+    }
+
+    private void fireItemSetChange() {
+        ItemSetChangeEvent event = new EntityItemSetChangeEvent(this);
+        new ArrayList<>(itemSetChangeListeners).forEach(listener -> listener.containerItemSetChange(event));
+    }
+
+    private Sort getOrder() {
+        return sort == null ? ID_ORDER : sort.and(ID_ORDER);
+    }
+
+    private List<T> getPage(int pageIndex) {
+        List<T> page = pages.get(pageIndex);
+        if (page == null) {
+            page = new ArrayList<>(fetcher.fetch(new PageRequest(pageIndex, pageSize, getOrder())));
+            pages.put(pageIndex, page);
+        }
+        return page;
+    }
+
+    // This container is read-only; the editor presenters save through the repositories instead.
+
+    @Override
+    public Item addItem(Object itemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItem() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAfter(Object previousItemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAfter(Object previousItemId, Object newItemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAt(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAt(int index, Object newItemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeItem(Object itemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAllItems() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addContainerProperty(Object propertyId, Class<?> type, Object defaultValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeContainerProperty(Object propertyId) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Keeps the most recently used pages, so scrolling back and forth doesn't hit the database
+     * but a long scroll doesn't end up holding the whole table either.
+     */
+    private static final class PageCache<E> extends LinkedHashMap<Integer, List<E>> {
+        PageCache() {
+            super(MAX_CACHED_PAGES + 1, 1.0f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<E>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+
+        void retainMostRecent(int count) {
+            Iterator<Integer> eldestFirst = keySet().iterator();
+            for (int i = size() - count; i > 0; i--) {
+                eldestFirst.next();
+                eldestFirst.remove();
+            }
+        }
+    }
+
+    private static class EntityItemSetChangeEvent implements ItemSetChangeEvent, Serializable {
+        private final Container container;
+
+        EntityItemSetChangeEvent(Container container) {
+            this.container = container;
+        }
+
+        @Override
+        public Container getContainer() {
+            return container;
+        }
+    }
+}
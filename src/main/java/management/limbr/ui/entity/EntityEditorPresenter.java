@@ -19,34 +19,52 @@
 
 package management.limbr.ui.entity;
 
+import management.limbr.auth.PasswordHasher;
 import management.limbr.data.model.BaseEntity;
-import management.limbr.data.model.Password;
 import management.limbr.data.model.util.EntityUtil;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.Serializable;
-import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 public abstract class EntityEditorPresenter<T extends BaseEntity> implements EntityEditorView.Listener, Serializable, ApplicationContextAware {
     public static final String DEFAULT_VALUE = " | | | | | ";
+    static final String TIMER_NAME = "limbr_editor_seconds";
+    private static final String TIMER_HELP = "Time spent loading, saving and deleting entities in editors.";
     private transient JpaRepository<T, Long> repository;
+    private transient TransactionTemplate transactionTemplate;
     private T entity;
+    // what edit() put in each field, so save() can tell what the user actually changed
+    private final Map<String, Object> shownValues = new HashMap<>();
     private transient EntityEditorView<T> view;
     private transient EntityChangeHandler entityChangeHandler;
     private transient ApplicationContext applicationContext;
     private transient EntityUtil entityUtil;
+    private transient PasswordHasher passwordHasher;
+    private transient MetricsRegistry metrics;
 
     private static final Logger LOG = LoggerFactory.getLogger(EntityEditorPresenter.class);
 
     @Autowired
-    public EntityEditorPresenter(JpaRepository<T, Long> repository, EntityUtil entityUtil) {
+    public EntityEditorPresenter(JpaRepository<T, Long> repository, PlatformTransactionManager transactionManager,
+                                 EntityUtil entityUtil, PasswordHasher passwordHasher, MetricsRegistry metrics) {
         this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.entityUtil = entityUtil;
+        this.passwordHasher = passwordHasher;
+        this.metrics = metrics;
     }
 
     @Override
@@ -61,31 +79,48 @@ public abstract class EntityEditorPresenter<T extends BaseEntity> implements Ent
     }
 
     public void edit(T entity) {
+        Timer timer = timer(entity, "edit");
+        long start = timer.start();
+        try {
+            load(entity);
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    /**
+     * Shows the entity as it is now, rather than as it was when the list it was picked from was
+     * loaded.
+     */
+    private void load(T entity) {
         final boolean persisted = entity.getId() != null;
 
-        if (persisted) {
-            this.entity = repository.findOne(entity.getId());
-        } else {
-            this.entity = entity;
+        T current = persisted ? repository.findOne(entity.getId()) : entity;
+        if (current == null) {
+            LOG.info("{} {} was deleted before it could be edited.", entity.getClass().getSimpleName(), entity.getId());
+            if (entityChangeHandler != null) {
+                entityChangeHandler.onEntityChanged();
+            }
+            getView().hide();
+            return;
         }
+        this.entity = current;
 
         getView().setDeleteVisible(persisted);
 
-        for (java.lang.reflect.Field field : entity.getClass().getDeclaredFields()) {
-            if ("id".equals(field.getName()) || field.getName().contains("$")) {
-                continue;
-            }
+        shownValues.clear();
+        for (FormSchema.FormField field : FormSchema.of(current.getClass()).getFields()) {
             Object value;
 
-            Password passwordAnnotation = field.getAnnotation(Password.class);
-            if (passwordAnnotation != null) {
+            if (field.isPassword()) {
                 value = DEFAULT_VALUE;
             } else {
-                value = entityUtil.callGetter(entity, field.getName());
+                value = entityUtil.callGetter(current, field.getName());
             }
             if (value == null && field.getType().equals(String.class)) {
                 value = "";
             }
+            shownValues.put(field.getName(), value);
             getView().setFieldValue(field.getName(), value);
         }
 
@@ -94,41 +129,78 @@ public abstract class EntityEditorPresenter<T extends BaseEntity> implements Ent
 
     @Override
     public void save() {
-        for (java.lang.reflect.Field field : entity.getClass().getDeclaredFields()) {
-            if ("id".equals(field.getName()) || field.getName().contains("$")) {
-                continue;
-            }
-            commitFieldValue(field);
+        Timer timer = timer(entity, "save");
+        long start = timer.start();
+        try {
+            commit();
+        } finally {
+            timer.stop(start);
         }
+    }
 
-        repository.save(entity);
+    private void commit() {
+        FormSchema schema = FormSchema.of(entity.getClass());
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (FormSchema.FormField field : schema.getFields()) {
+            collectChange(schema, field, changes);
+        }
 
-        if (entityChangeHandler != null) {
-            entityChangeHandler.onEntityChanged();
+        if (!changes.isEmpty() || entity.getId() == null) {
+            if (!transactionTemplate.execute(status -> apply(changes))) {
+                LOG.info("{} {} was deleted while it was being edited.", entity.getClass().getSimpleName(), entity.getId());
+            }
+
+            if (entityChangeHandler != null) {
+                entityChangeHandler.onEntityChanged();
+            }
         }
 
         getView().hide();
     }
 
-    private void commitFieldValue(Field field) {
-        Password passwordAnnotation = field.getAnnotation(Password.class);
-        if (passwordAnnotation != null) {
+    /**
+     * Sets what the user changed on the entity as it is now, so changes made by someone else since
+     * it was shown, to fields this user didn't touch, are kept. Entities are @DynamicUpdate, so only
+     * the changed columns are written.
+     *
+     * @return false if it's been deleted
+     */
+    private boolean apply(Map<String, Object> changes) {
+        T current = entity.getId() == null ? entity : repository.findOne(entity.getId());
+        if (current == null) {
+            return false;
+        }
+        changes.forEach((name, value) -> entityUtil.callSetter(current, name, value));
+        entity = repository.save(current);
+        return true;
+    }
+
+    /**
+     * Adds a field's value from the view to the changes if the user changed it.
+     */
+    private void collectChange(FormSchema schema, FormSchema.FormField field, Map<String, Object> changes) {
+        if (field.isPassword()) {
             String value = getView().getFieldValue(String.class, field.getName());
-            if (!DEFAULT_VALUE.equals(value)) {
-                try {
-                    Field saltField = entity.getClass().getDeclaredField(passwordAnnotation.saltWith());
+            if (DEFAULT_VALUE.equals(value)) {
+                return;
+            }
+
+            FormSchema.FormField saltField = schema.getField(field.getSaltWith());
+            if (saltField == null) {
+                LOG.warn("Cannot find field " + field.getSaltWith() + " to hash with password field "
+                        + field.getName() + " of " + entity.getClass().getName());
+                return;
+            }
 
-                    Object saltValue = getView().getFieldValue(saltField.getType(), saltField.getName());
+            Object saltValue = getView().getFieldValue(saltField.getType(), saltField.getName());
 
-                    entityUtil.callSetter(entity, field.getName(), entityUtil.generatePasswordHash(saltValue.toString(), value));
+            changes.put(field.getName(), passwordHasher.hash(saltValue.toString(), value));
+            return;
+        }
 
-                } catch (NoSuchFieldException ex) {
-                    LOG.warn("Cannot find field " + passwordAnnotation.saltWith() + " to hash with password field "
-                            + field.getName() + " of " + entity.getClass().getName(), ex);
-                }
-            }
-        } else {
-            entityUtil.callSetter(entity, field.getName(), getView().getFieldValue(field.getType(), field.getName()));
+        Object value = getView().getFieldValue(field.getType(), field.getName());
+        if (!shownValues.containsKey(field.getName()) || !Objects.equals(shownValues.get(field.getName()), value)) {
+            changes.put(field.getName(), value);
         }
     }
 
@@ -139,7 +211,13 @@ public abstract class EntityEditorPresenter<T extends BaseEntity> implements Ent
 
     @Override
     public void deleteConfirmed() {
-        repository.delete(entity);
+        Timer timer = timer(entity, "delete");
+        long start = timer.start();
+        try {
+            repository.delete(entity);
+        } finally {
+            timer.stop(start);
+        }
 
         if (entityChangeHandler != null) {
             entityChangeHandler.onEntityChanged();
@@ -162,6 +240,10 @@ public abstract class EntityEditorPresenter<T extends BaseEntity> implements Ent
         this.entityChangeHandler = entityChangeHandler;
     }
 
+    private Timer timer(T entity, String action) {
+        return metrics.timer(TIMER_NAME, TIMER_HELP, "entity", entity.getClass().getSimpleName(), "action", action);
+    }
+
     private EntityEditorView<T> getView() {
         if (view == null) {
             view = applicationContext.getBean(getViewBeanClass());
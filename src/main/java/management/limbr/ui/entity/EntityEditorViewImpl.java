@@ -22,7 +22,6 @@ package management.limbr.ui.entity;
 import com.vaadin.server.FontAwesome;
 import com.vaadin.ui.*;
 import management.limbr.data.model.BaseEntity;
-import management.limbr.data.model.Password;
 import management.limbr.data.model.util.EntityUtil;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,10 +58,7 @@ public abstract class EntityEditorViewImpl<T extends BaseEntity> extends Window
         FormLayout content = new FormLayout();
         content.setWidthUndefined();
 
-        for (java.lang.reflect.Field field : entityClass.getDeclaredFields()) {
-            if ("id".equals(field.getName())) {
-                continue;
-            }
+        for (FormSchema.FormField field : FormSchema.of(entityClass).getFields()) {
             Field uiField = getUIField(field);
             fieldMap.put(field.getName(), uiField);
             content.addComponent(uiField);
@@ -86,18 +82,19 @@ public abstract class EntityEditorViewImpl<T extends BaseEntity> extends Window
         cancel.addClickListener(event -> listeners.forEach(EntityEditorView.Listener::cancel));
     }
 
-    private Field<?> getUIField(java.lang.reflect.Field field) {
-        String label = messages.get(field.getName() + "FieldLabel");
-        Password passwordAnnotation = field.getAnnotation(Password.class);
-        if (passwordAnnotation != null) {
-            return new PasswordField(label);
-        } else if (field.getType().isEnum()) {
-            ComboBox comboBox = new ComboBox(label);
-            comboBox.setTextInputAllowed(false);
-            comboBox.addItems(field.getType().getEnumConstants());
-            return comboBox;
+    private Field<?> getUIField(FormSchema.FormField field) {
+        String label = messages.get(field.getLabelKey());
+        switch (field.getWidget()) {
+            case PASSWORD:
+                return new PasswordField(label);
+            case COMBO_BOX:
+                ComboBox comboBox = new ComboBox(label);
+                comboBox.setTextInputAllowed(false);
+                comboBox.addItems(field.getOptions());
+                return comboBox;
+            default:
+                return new TextField(label);
         }
-        return new TextField(label);
     }
 
     @Override
@@ -19,16 +19,24 @@
 
 package management.limbr.ui.entity;
 
-import com.vaadin.data.util.BeanItemContainer;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.BaseEntity;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface EntityListView {
     void refresh();
 
     interface Listener<T extends BaseEntity> {
-        BeanItemContainer<T> listEntities(String filter);
+        EntityContainer<T> listEntities(String filter);
         void viewInitialized(EntityListView view);
         void editItemClicked(T item);
         void addNewClicked();
+
+        /**
+         * Writes every entity, whatever the filter, to out. Called on the export executor.
+         */
+        void exportEntities(RecordFormat format, OutputStream out) throws IOException;
     }
 }
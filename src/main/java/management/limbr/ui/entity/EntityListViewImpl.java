@@ -20,36 +20,61 @@
 package management.limbr.ui.entity;
 
 import com.vaadin.data.Item;
-import com.vaadin.data.util.BeanItemContainer;
 import com.vaadin.data.util.GeneratedPropertyContainer;
 import com.vaadin.data.util.PropertyValueGenerator;
 import com.vaadin.navigator.View;
 import com.vaadin.navigator.ViewChangeListener;
+import com.vaadin.server.FileDownloader;
 import com.vaadin.server.FontAwesome;
+import com.vaadin.server.StreamResource;
 import com.vaadin.ui.*;
 import com.vaadin.ui.renderers.ButtonRenderer;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.BaseEntity;
-import management.limbr.data.model.ListColumn;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
+import management.limbr.ui.sessions.CachingComponent;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.vaadin.spring.i18n.I18N;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
-public abstract class EntityListViewImpl<T extends BaseEntity> extends VerticalLayout implements View, EntityListView {
+public abstract class EntityListViewImpl<T extends BaseEntity> extends VerticalLayout implements View, EntityListView,
+        CachingComponent {
     public static final String EDIT_PROPERTY_ID = "_edit_";
+    public static final long FILTER_DELAY_MILLIS = 300;
+    static final String LIST_TIMER_NAME = "limbr_list_entities_seconds";
 
     private transient Collection<EntityListView.Listener<T>> listeners;
     private transient I18N messages;
+    private transient ScheduledExecutorService filterExecutor;
+    private transient ExecutorService exportExecutor;
+    private transient DebouncedFilter<List<EntityContainer<T>>> debouncedFilter;
+    private transient Timer listTimer;
     private Grid grid;
+    private EntityContainer<T> shownItems;
+    private HorizontalLayout actions;
     private Class<T> entityClass;
 
     @Autowired
-    public EntityListViewImpl(Class<T> entityClass, Collection<EntityListView.Listener<T>> listeners, I18N messages) {
+    public EntityListViewImpl(Class<T> entityClass, Collection<EntityListView.Listener<T>> listeners, I18N messages,
+                              @Qualifier("filterExecutor") ScheduledExecutorService filterExecutor,
+                              @Qualifier("exportExecutor") ExecutorService exportExecutor, MetricsRegistry metrics) {
         this.entityClass = entityClass;
         this.listeners = listeners;
         this.messages = messages;
+        this.filterExecutor = filterExecutor;
+        this.exportExecutor = exportExecutor;
+        this.listTimer = metrics.timer(LIST_TIMER_NAME, "Time spent listing entities for list views.",
+                "entity", entityClass.getSimpleName());
     }
 
     @PostConstruct
@@ -60,19 +85,26 @@ public abstract class EntityListViewImpl<T extends BaseEntity> extends VerticalL
         grid.setSizeFull();
         TextField filter = new TextField();
         filter.setInputPrompt(messages.get("filterLabel"));
-        filter.addTextChangeListener(event -> listEntities(event.getText()));
+        // every keystroke goes to the server right away; DebouncedFilter decides when to actually query
+        filter.setTextChangeEventMode(AbstractTextField.TextChangeEventMode.EAGER);
+        filter.addTextChangeListener(event -> filterChanged(event.getText()));
 
         Button addNewButton = new Button(messages.get("newButtonLabel"), FontAwesome.PLUS);
-        HorizontalLayout actions = new HorizontalLayout(filter, addNewButton);
+        actions = new HorizontalLayout(filter, addNewButton);
         actions.setSpacing(true);
-        grid.removeAllColumns();
 
-        java.lang.reflect.Field[] fields = entityClass.getDeclaredFields();
-        for (java.lang.reflect.Field field : fields) {
-            if (null != field.getAnnotation(ListColumn.class)) {
-                grid.addColumn(field.getName());
-            }
+        String fileName = entityClass.getSimpleName().toLowerCase(Locale.ROOT) + "s.";
+        for (RecordFormat format : RecordFormat.values()) {
+            addDownload("export" + format + "ButtonLabel", fileName + format.getExtension(), format,
+                    out -> {
+                        for (EntityListView.Listener<T> listener : listeners) {
+                            listener.exportEntities(format, out);
+                        }
+                    });
         }
+        grid.removeAllColumns();
+
+        FormSchema.of(entityClass).getListColumns().forEach(grid::addColumn);
 
         Grid.Column editColumn = grid.addColumn(EDIT_PROPERTY_ID);
         editColumn.setMaximumWidth(50.0);
@@ -91,6 +123,36 @@ public abstract class EntityListViewImpl<T extends BaseEntity> extends VerticalL
         refresh();
     }
 
+    /**
+     * Adds a button that downloads whatever the producer writes, as it's written.
+     */
+    protected void addDownload(String captionKey, String fileName, RecordFormat format, StreamingDownload.Producer producer) {
+        Button button = new Button(messages.get(captionKey), FontAwesome.DOWNLOAD);
+        StreamResource resource = new StreamResource(new StreamingDownload(exportExecutor, producer), fileName);
+        resource.setMIMEType(format.getMimeType());
+        // every download is a fresh export
+        resource.setCacheTime(0);
+        new FileDownloader(resource).extend(button);
+        actions.addComponent(button);
+    }
+
+    @Override
+    public void detach() {
+        if (debouncedFilter != null) {
+            debouncedFilter.cancel();
+        }
+        // the view stays in the UI scope after navigating away, but nobody's looking at its rows
+        releaseCaches();
+        super.detach();
+    }
+
+    @Override
+    public void releaseCaches() {
+        if (shownItems != null) {
+            shownItems.releasePages();
+        }
+    }
+
     @Override
     public void enter(ViewChangeListener.ViewChangeEvent event) {
         // nothing needs to be done here (See init())
@@ -98,27 +160,62 @@ public abstract class EntityListViewImpl<T extends BaseEntity> extends VerticalL
 
     @Override
     public void refresh() {
-        listEntities(null);
+        if (debouncedFilter == null) {
+            // nothing's been typed, so there's no filter and nothing in flight
+            listeners.forEach(listener -> showEntities(timedListEntities(listener, null)));
+        } else {
+            debouncedFilter.refilter();
+        }
+    }
+
+    private EntityContainer<T> timedListEntities(EntityListView.Listener<T> listener, String filter) {
+        long start = listTimer.start();
+        try {
+            return listener.listEntities(filter);
+        } finally {
+            listTimer.stop(start);
+        }
+    }
+
+    private void filterChanged(String filter) {
+        UI ui = getUI();
+        if (debouncedFilter == null) {
+            debouncedFilter = new DebouncedFilter<>(filterExecutor, FILTER_DELAY_MILLIS, this::loadEntities,
+                    containers -> ui.access(() -> containers.forEach(this::showEntities)));
+        }
+        debouncedFilter.filterChanged(filter);
     }
 
-    private void listEntities(String filter) {
+    /**
+     * Runs on the filter executor, without the session lock, so it mustn't touch any components.
+     */
+    private List<EntityContainer<T>> loadEntities(String filter) {
+        List<EntityContainer<T>> containers = new ArrayList<>();
         listeners.forEach(listener -> {
-            BeanItemContainer<T> items = listener.listEntities(filter);
-            GeneratedPropertyContainer gpc = new GeneratedPropertyContainer(items);
-            gpc.addGeneratedProperty(EDIT_PROPERTY_ID, new PropertyValueGenerator<String>() {
-                @Override
-                public String getValue(Item item, Object itemId, Object propertyId) {
-                    return messages.get("editButtonLabel");
-                }
-
-                @Override
-                public Class<String> getType() {
-                    return String.class;
-                }
-            });
-
-            grid.setContainerDataSource(gpc);
+            EntityContainer<T> items = timedListEntities(listener, filter);
+            // run the count and the first page query here rather than when the grid asks for them
+            items.firstItemId();
+            containers.add(items);
         });
+        return containers;
+    }
+
+    private void showEntities(EntityContainer<T> items) {
+        shownItems = items;
+        GeneratedPropertyContainer gpc = new GeneratedPropertyContainer(items);
+        gpc.addGeneratedProperty(EDIT_PROPERTY_ID, new PropertyValueGenerator<String>() {
+            @Override
+            public String getValue(Item item, Object itemId, Object propertyId) {
+                return messages.get("editButtonLabel");
+            }
+
+            @Override
+            public Class<String> getType() {
+                return String.class;
+            }
+        });
+
+        grid.setContainerDataSource(gpc);
     }
 
     @Override
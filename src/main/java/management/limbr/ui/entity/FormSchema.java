@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import management.limbr.data.model.ListColumn;
+import management.limbr.data.model.Password;
+import management.limbr.data.model.SearchKey;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Everything the entity editors and lists need to know about an entity class's fields: which ones
+ * are edited and in what order, what kind of widget edits each, which are shown as list columns,
+ * and the message keys for their labels.
+ *
+ * A schema is immutable and built only once per class, then shared by every session.
+ */
+public final class FormSchema {
+    public enum Widget {
+        TEXT, PASSWORD, COMBO_BOX
+    }
+
+    /**
+     * One editable field of an entity.
+     */
+    public static final class FormField {
+        private final String name;
+        private final Class<?> type;
+        private final Widget widget;
+        private final List<Object> options;
+        private final String labelKey;
+        private final String saltWith;
+
+        private FormField(java.lang.reflect.Field field) {
+            name = field.getName();
+            type = field.getType();
+            labelKey = name + "FieldLabel";
+
+            Password passwordAnnotation = field.getAnnotation(Password.class);
+            if (passwordAnnotation != null) {
+                widget = Widget.PASSWORD;
+                saltWith = passwordAnnotation.saltWith();
+                options = Collections.emptyList();
+            } else if (type.isEnum()) {
+                widget = Widget.COMBO_BOX;
+                saltWith = null;
+                options = Collections.unmodifiableList(Arrays.asList(type.getEnumConstants()));
+            } else {
+                widget = Widget.TEXT;
+                saltWith = null;
+                options = Collections.emptyList();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public Widget getWidget() {
+            return widget;
+        }
+
+        /**
+         * Gets the values a combo box offers, in declaration order.
+         */
+        public List<Object> getOptions() {
+            return options;
+        }
+
+        public String getLabelKey() {
+            return labelKey;
+        }
+
+        public boolean isPassword() {
+            return widget == Widget.PASSWORD;
+        }
+
+        /**
+         * Gets the name of the field a password is salted with, or null if this isn't a password.
+         */
+        public String getSaltWith() {
+            return saltWith;
+        }
+    }
+
+    private static final ClassValue<FormSchema> SCHEMAS = new ClassValue<FormSchema>() {
+        @Override
+        protected FormSchema computeValue(Class<?> type) {
+            return new FormSchema(type);
+        }
+    };
+
+    private final List<FormField> fields;
+    private final Map<String, FormField> fieldsByName;
+    private final List<String> listColumns;
+
+    private FormSchema(Class<?> entityClass) {
+        List<FormField> editable = new ArrayList<>();
+        Map<String, FormField> byName = new HashMap<>();
+        List<String> columns = new ArrayList<>();
+
+        for (java.lang.reflect.Field field : entityClass.getDeclaredFields()) {
+            if (field.isSynthetic() || Modifier.isStatic(field.getModifiers()) || field.getName().contains("$")) {
+                continue;
+            }
+            if (field.getAnnotation(ListColumn.class) != null) {
+                columns.add(field.getName());
+            }
+            if ("id".equals(field.getName()) || field.getAnnotation(SearchKey.class) != null) {
+                continue;
+            }
+            FormField formField = new FormField(field);
+            editable.add(formField);
+            byName.put(formField.getName(), formField);
+        }
+
+        fields = Collections.unmodifiableList(editable);
+        fieldsByName = Collections.unmodifiableMap(byName);
+        listColumns = Collections.unmodifiableList(columns);
+    }
+
+    public static FormSchema of(Class<?> entityClass) {
+        return SCHEMAS.get(entityClass);
+    }
+
+    /**
+     * Gets the fields the editor shows, in declaration order.
+     */
+    public List<FormField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Gets an editable field by name, or null if there's no such field.
+     */
+    public FormField getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * Gets the names of the @ListColumn fields, in declaration order.
+     */
+    public List<String> getListColumns() {
+        return listColumns;
+    }
+}
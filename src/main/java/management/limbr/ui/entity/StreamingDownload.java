@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import com.vaadin.server.StreamResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Streams a download that's written as it's sent, rather than built up in memory first.
+ *
+ * When the download is requested, a producer starts writing on the export executor into a pipe,
+ * and Vaadin copies from the other end of the pipe to the response. If the producer fails, the
+ * download fails too instead of ending early as though it were complete.
+ */
+public class StreamingDownload implements StreamResource.StreamSource {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingDownload.class);
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    public interface Producer extends Serializable {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final transient Executor executor;
+    private final Producer producer;
+
+    public StreamingDownload(Executor executor, Producer producer) {
+        this.executor = executor;
+        this.producer = producer;
+    }
+
+    @Override
+    public InputStream getStream() {
+        Pipe in = new Pipe();
+        PipedOutputStream out;
+        try {
+            out = new PipedOutputStream(in);
+        } catch (IOException ex) {
+            LOG.error("Couldn't connect the download pipe.", ex);
+            return null;
+        }
+
+        try {
+            executor.execute(() -> produce(in, out));
+        } catch (RejectedExecutionException ex) {
+            LOG.warn("Too many downloads at once; refusing this one.", ex);
+            in.fail(ex);
+            closeQuietly(out);
+        }
+        return in;
+    }
+
+    @SuppressWarnings("squid:S1181") // whatever goes wrong, the reading side has to hear about it
+    private void produce(Pipe in, PipedOutputStream out) {
+        try {
+            producer.writeTo(out);
+        } catch (Throwable ex) {
+            LOG.warn("Download failed part way through.", ex);
+            in.fail(ex);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ex) {
+            LOG.debug("Couldn't close download pipe.", ex);
+        }
+    }
+
+    /**
+     * The reading end of the pipe, which turns the end of a failed download into an exception.
+     */
+    private static class Pipe extends PipedInputStream {
+        private volatile Throwable failure;
+
+        Pipe() {
+            super(PIPE_SIZE);
+        }
+
+        void fail(Throwable cause) {
+            failure = cause;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            return checkFailure(super.read());
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) throws IOException {
+            return checkFailure(super.read(buffer, offset, length));
+        }
+
+        private int checkFailure(int result) throws IOException {
+            if (result == -1 && failure != null) {
+                throw new IOException("Download failed", failure);
+            }
+            return result;
+        }
+    }
+}
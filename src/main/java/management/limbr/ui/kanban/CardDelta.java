@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryStatus;
+
+import java.io.Serializable;
+
+/**
+ * What's become of one story on a board: either where it is and what it says now, or that it's
+ * gone. Whether it moved or only changed is up to the board, which knows where it was.
+ */
+public final class CardDelta implements Serializable {
+    private final Long storyId;
+    private final boolean removed;
+    private final StoryStatus status;
+    private final String rank;
+    private final String title;
+    private final long heardNanos;
+
+    private CardDelta(Long storyId, boolean removed, StoryStatus status, String rank, String title, long heardNanos) {
+        this.storyId = storyId;
+        this.removed = removed;
+        this.status = status;
+        this.rank = rank;
+        this.title = title;
+        this.heardNanos = heardNanos;
+    }
+
+    public static CardDelta changed(Story story, long heardNanos) {
+        return new CardDelta(story.getId(), false, story.getStatus(), story.getRank(), story.getTitle(), heardNanos);
+    }
+
+    public static CardDelta removed(Long storyId, long heardNanos) {
+        return new CardDelta(storyId, true, null, null, null, heardNanos);
+    }
+
+    /**
+     * Makes the delta that has the same effect as this one followed by a later one: the later
+     * one's content, heard of when this one was, so the wait is measured from the first change.
+     */
+    CardDelta then(CardDelta later) {
+        return new CardDelta(storyId, later.removed, later.status, later.rank, later.title, heardNanos);
+    }
+
+    public Long getStoryId() {
+        return storyId;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    public StoryStatus getStatus() {
+        return status;
+    }
+
+    public String getRank() {
+        return rank;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the System.nanoTime() at which the change was heard of, once its transaction had committed.
+     */
+    public long getHeardNanos() {
+        return heardNanos;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.Panel;
+import com.vaadin.ui.VerticalLayout;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryStatus;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * A column of cards for each status, each column in backlog order.
+ *
+ * Changes are patched in: a card that moved is taken out of one column and put into another, a
+ * card whose title changed only has its text set, and no other card is touched, so Vaadin only
+ * sends those cards and the columns they left or joined.
+ */
+@SuppressWarnings({"squid:S2160"}) // don't need to override equals here
+public class KanbanBoard extends HorizontalLayout {
+    /**
+     * What applying a batch of deltas did.
+     */
+    public static final class Patch implements Serializable {
+        private int moved;
+        private int updated;
+        private int removed;
+        private int repainted;
+
+        /**
+         * Gets how many cards were added, or moved to another column or place.
+         */
+        public int getMoved() {
+            return moved;
+        }
+
+        /**
+         * Gets how many cards stayed where they were but had their text changed.
+         */
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Gets how many components have changed and will be sent to the browser: the cards that
+         * were added or changed, and each column that gained or lost a card, with its caption.
+         */
+        public int getRepainted() {
+            return repainted;
+        }
+
+        @Override
+        public String toString() {
+            return "Patch{moved=" + moved + ", updated=" + updated + ", removed=" + removed + ", repainted=" + repainted + "}";
+        }
+    }
+
+    static final class StoryCard extends Label {
+        private final Long storyId;
+        private StoryStatus status;
+        private String rank;
+
+        private StoryCard(Long storyId) {
+            this.storyId = storyId;
+            setStyleName("kanban-card");
+        }
+    }
+
+    private final Map<StoryStatus, Panel> panels = new EnumMap<>(StoryStatus.class);
+    private final Map<StoryStatus, VerticalLayout> columns = new EnumMap<>(StoryStatus.class);
+    private final Map<Long, StoryCard> cards = new HashMap<>();
+    private final BiFunction<StoryStatus, Integer, String> columnCaption;
+
+    /**
+     * @param columnCaption makes a column's caption from its status and how many cards are in it
+     */
+    public KanbanBoard(BiFunction<StoryStatus, Integer, String> columnCaption) {
+        this.columnCaption = columnCaption;
+        setSpacing(true);
+        setWidth(100, Unit.PERCENTAGE);
+        for (StoryStatus status : StoryStatus.values()) {
+            VerticalLayout column = new VerticalLayout();
+            column.setSpacing(true);
+            column.setMargin(true);
+            Panel panel = new Panel(column);
+            columns.put(status, column);
+            panels.put(status, panel);
+            addComponent(panel);
+        }
+        captionColumns(EnumSet.allOf(StoryStatus.class));
+    }
+
+    /**
+     * Shows just these stories, replacing every card.
+     */
+    public void show(Collection<Story> stories) {
+        columns.values().forEach(VerticalLayout::removeAllComponents);
+        cards.clear();
+        List<Story> ordered = new ArrayList<>(stories);
+        ordered.sort(Comparator.comparing(Story::getRank));
+        for (Story story : ordered) {
+            StoryCard card = new StoryCard(story.getId());
+            card.status = story.getStatus();
+            card.rank = story.getRank();
+            card.setValue(story.getTitle());
+            cards.put(card.storyId, card);
+            columns.get(card.status).addComponent(card);
+        }
+        captionColumns(EnumSet.allOf(StoryStatus.class));
+    }
+
+    /**
+     * Patches the deltas into the board, touching only the cards they're about.
+     */
+    public Patch apply(Collection<CardDelta> deltas) {
+        Patch patch = new Patch();
+        Set<StoryStatus> touched = EnumSet.noneOf(StoryStatus.class);
+        for (CardDelta delta : deltas) {
+            StoryCard card = cards.get(delta.getStoryId());
+            if (delta.isRemoved()) {
+                if (card != null) {
+                    cards.remove(card.storyId);
+                    columns.get(card.status).removeComponent(card);
+                    touched.add(card.status);
+                    patch.removed++;
+                }
+            } else if (card == null || card.status != delta.getStatus() || !card.rank.equals(delta.getRank())) {
+                if (card == null) {
+                    card = new StoryCard(delta.getStoryId());
+                    cards.put(card.storyId, card);
+                } else {
+                    columns.get(card.status).removeComponent(card);
+                    touched.add(card.status);
+                }
+                card.status = delta.getStatus();
+                card.rank = delta.getRank();
+                card.setValue(delta.getTitle());
+                insert(card);
+                touched.add(card.status);
+                patch.moved++;
+                patch.repainted++;
+            } else if (!Objects.equals(card.getValue(), delta.getTitle())) {
+                card.setValue(delta.getTitle());
+                patch.updated++;
+                patch.repainted++;
+            }
+        }
+        captionColumns(touched);
+        // each touched column sends its new list of cards, and its panel its new caption
+        patch.repainted += touched.size() * 2;
+        return patch;
+    }
+
+    private void insert(StoryCard card) {
+        VerticalLayout column = columns.get(card.status);
+        int index = 0;
+        for (Iterator<Component> components = column.iterator(); components.hasNext(); index++) {
+            if (((StoryCard)components.next()).rank.compareTo(card.rank) > 0) {
+                break;
+            }
+        }
+        column.addComponent(card, index);
+    }
+
+    private void captionColumns(Set<StoryStatus> statuses) {
+        for (StoryStatus status : statuses) {
+            panels.get(status).setCaption(columnCaption.apply(status, columns.get(status).getComponentCount()));
+        }
+    }
+
+    public int getCardCount() {
+        return cards.size();
+    }
+
+    /**
+     * Lists the titles in a column, top to bottom.
+     */
+    List<String> getTitles(StoryStatus status) {
+        List<String> titles = new ArrayList<>();
+        columns.get(status).forEach(component -> titles.add(((StoryCard)component).getValue()));
+        return titles;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import management.limbr.auth.PermissionCache;
+import management.limbr.data.SprintRepository;
+import management.limbr.data.StoryRepository;
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.model.Sprint;
+import management.limbr.data.model.Story;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tells open boards what's changed on them, as it changes.
+ *
+ * A board subscribes to its sprint and is sent a {@link CardDelta} for each of its stories that's
+ * changed, and for each story that's left it. Deltas are gathered up for limbr.kanban.coalesce-millis
+ * and sent together, with only the latest for each story, so a burst of edits is one push rather
+ * than one per edit.
+ */
+@Component
+@EnableConfigurationProperties(KanbanProperties.class)
+public class KanbanFeed {
+    private static final Logger LOG = LoggerFactory.getLogger(KanbanFeed.class);
+
+    private final SprintRepository sprintRepository;
+    private final StoryRepository storyRepository;
+    private final PermissionCache permissions;
+    private final ScheduledExecutorService executor;
+    private final long coalesceMillis;
+    private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    @Autowired
+    public KanbanFeed(SprintRepository sprintRepository, StoryRepository storyRepository, PermissionCache permissions,
+                      KanbanProperties properties, @Lazy @Qualifier("kanbanExecutor") ScheduledExecutorService executor) {
+        this.sprintRepository = sprintRepository;
+        this.storyRepository = storyRepository;
+        this.permissions = permissions;
+        this.executor = executor;
+        this.coalesceMillis = properties.getCoalesceMillis();
+    }
+
+    /**
+     * Lists the sprints running today in the projects a user is a member of, latest started first.
+     */
+    public List<Sprint> listRunningSprints(Long userId) {
+        List<Sprint> sprints = new ArrayList<>();
+        for (Sprint sprint : sprintRepository.findRunningOn(new Date())) {
+            if (permissions.isMember(userId, sprint.getProject().getId())) {
+                sprints.add(sprint);
+            }
+        }
+        return sprints;
+    }
+
+    /**
+     * Starts sending a sprint's changes to the consumer, on the executor. Its stories as they are
+     * now come from {@link Subscription#loadCards()}.
+     *
+     * @throws IllegalArgumentException if the user isn't a member of the sprint's project
+     */
+    public Subscription subscribe(Long userId, Long sprintId, Consumer<List<CardDelta>> consumer) {
+        Sprint sprint = sprintRepository.findOne(sprintId);
+        if (sprint == null || !permissions.isMember(userId, sprint.getProject().getId())) {
+            throw new IllegalArgumentException("User " + userId + " isn't a member of sprint " + sprintId + "'s project");
+        }
+        Subscription subscription = new Subscription(sprintId, consumer);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    @EventListener
+    public void entityChanged(EntityChangedEvent event) {
+        if (!event.isAbout(Story.class) || subscriptions.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Object entity : event.getEntities()) {
+            Story story = (Story)entity;
+            Long sprintId = story.getSprint() == null || event.isDeleted(story.getId()) ? null : story.getSprint().getId();
+            for (Subscription subscription : subscriptions) {
+                if (subscription.sprintId.equals(sprintId)) {
+                    subscription.offer(CardDelta.changed(story, now));
+                } else if (subscription.mayShow(story.getId())) {
+                    subscription.offer(CardDelta.removed(story.getId(), now));
+                }
+            }
+        }
+    }
+
+    int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * A board's interest in a sprint. Keeps track of which stories the board has, so stories
+     * leaving other sprints don't bother it.
+     */
+    public final class Subscription {
+        private final Long sprintId;
+        private final Consumer<List<CardDelta>> consumer;
+        private final Set<Long> shown = ConcurrentHashMap.newKeySet();
+        private volatile boolean loading = true;
+        private final Map<Long, CardDelta> pending = new LinkedHashMap<>();
+        private boolean flushScheduled;
+
+        private Subscription(Long sprintId, Consumer<List<CardDelta>> consumer) {
+            this.sprintId = sprintId;
+            this.consumer = consumer;
+        }
+
+        /**
+         * Loads the sprint's stories, in order. Changes committed since subscribing are sent as
+         * well, even if they're in what's loaded, so nothing falls between the two.
+         */
+        public List<Story> loadCards() {
+            loading = true;
+            List<Story> stories = storyRepository.findBySprint(sprintId);
+            stories.forEach(story -> shown.add(story.getId()));
+            loading = false;
+            return stories;
+        }
+
+        private boolean mayShow(Long storyId) {
+            // while loading, the story might be in what the load is about to return
+            return loading || shown.contains(storyId);
+        }
+
+        private void offer(CardDelta delta) {
+            if (delta.isRemoved()) {
+                shown.remove(delta.getStoryId());
+            } else {
+                shown.add(delta.getStoryId());
+            }
+            synchronized (this) {
+                pending.merge(delta.getStoryId(), delta, CardDelta::then);
+                if (flushScheduled) {
+                    return;
+                }
+                flushScheduled = true;
+            }
+            executor.schedule(this::flush, coalesceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void flush() {
+            List<CardDelta> deltas;
+            synchronized (this) {
+                deltas = new ArrayList<>(pending.values());
+                pending.clear();
+                flushScheduled = false;
+            }
+            try {
+                consumer.accept(deltas);
+            } catch (RuntimeException ex) {
+                // most likely the board's UI has gone away without saying so
+                LOG.warn("Couldn't update a board for sprint {}, so it won't be sent any more changes.", sprintId, ex);
+                cancel();
+            }
+        }
+
+        /**
+         * Stops sending changes. Any already on their way might still arrive.
+         */
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How boards are kept up to date, set with limbr.kanban.*.
+ */
+@ConfigurationProperties(prefix = "limbr.kanban")
+public class KanbanProperties {
+    private long coalesceMillis = 100;
+
+    /**
+     * Gets how long changes are gathered up for before they're pushed to a board together.
+     */
+    public long getCoalesceMillis() {
+        return coalesceMillis;
+    }
+
+    public void setCoalesceMillis(long coalesceMillis) {
+        this.coalesceMillis = coalesceMillis;
+    }
+}
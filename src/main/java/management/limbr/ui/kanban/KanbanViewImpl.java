@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewChangeListener;
+import com.vaadin.spring.annotation.SpringView;
+import com.vaadin.spring.annotation.UIScope;
+import com.vaadin.ui.ComboBox;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+import management.limbr.data.model.Sprint;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.metrics.Timer;
+import management.limbr.ui.ClientState;
+import management.limbr.ui.PrivilegeLevels;
+import management.limbr.ui.RequiresPrivilege;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.vaadin.spring.i18n.I18N;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The board for a running sprint, kept up to date as its stories change by pushing just what
+ * changed (see {@link KanbanFeed} and {@link KanbanBoard}). Only sprints in the user's projects
+ * can be shown.
+ */
+@RequiresPrivilege(level = PrivilegeLevels.USER)
+@UIScope
+@SpringView(name = KanbanViewImpl.VIEW_NAME)
+@SuppressWarnings({"squid:S2160"}) // don't need to override equals here
+public class KanbanViewImpl extends VerticalLayout implements View {
+    public static final String VIEW_NAME = "kanban";
+    static final String UPDATE_TIMER_NAME = "limbr_kanban_update_seconds";
+    static final String CHANGES_NAME = "limbr_kanban_card_changes_total";
+    private static final String CHANGES_HELP = "Cards changed on open boards, by what happened to them.";
+
+    private transient KanbanFeed feed;
+    private transient ClientState clientState;
+    private transient I18N messages;
+    private transient MetricsRegistry metrics;
+    private transient Timer updateTimer;
+    private transient KanbanFeed.Subscription subscription;
+    private ComboBox sprintSelect;
+    private Label noSprints;
+    private KanbanBoard board;
+    private Long sprintId;
+    private Long userId;
+
+    @Autowired
+    public KanbanViewImpl(KanbanFeed feed, ClientState clientState, I18N messages, MetricsRegistry metrics) {
+        this.feed = feed;
+        this.clientState = clientState;
+        this.messages = messages;
+        this.metrics = metrics;
+        this.updateTimer = metrics.timer(UPDATE_TIMER_NAME,
+                "Time from a change to a story being committed to its board being patched.");
+    }
+
+    @PostConstruct
+    void init() {
+        setSpacing(true);
+
+        sprintSelect = new ComboBox(messages.get("sprintFieldLabel"));
+        sprintSelect.setNullSelectionAllowed(false);
+        sprintSelect.setTextInputAllowed(false);
+        sprintSelect.addValueChangeListener(event -> showSprint((Sprint)event.getProperty().getValue()));
+
+        noSprints = new Label(messages.get("noRunningSprintsCaption"));
+        board = new KanbanBoard((status, cards) -> messages.get("statusColumnCaption",
+                messages.get("status" + status + "Label"), cards));
+
+        addComponent(sprintSelect);
+        addComponent(noSprints);
+        addComponent(board);
+    }
+
+    @Override
+    public void enter(ViewChangeListener.ViewChangeEvent event) {
+        userId = clientState.getPrincipal().getUserId();
+        List<Sprint> sprints = feed.listRunningSprints(userId);
+        // kanban/<sprint id> shows that sprint, if it's running
+        Long asked = parseSprintId(event.getParameters());
+        Long showing = asked == null ? sprintId : asked;
+        sprintId = null;
+        sprintSelect.removeAllItems();
+        Sprint selected = null;
+        for (Sprint sprint : sprints) {
+            sprintSelect.addItem(sprint);
+            sprintSelect.setItemCaption(sprint, messages.get("sprintCaption", sprint.getProject().getName(), sprint.getName()));
+            if (selected == null || sprint.getId().equals(showing)) {
+                selected = sprint;
+            }
+        }
+        noSprints.setVisible(sprints.isEmpty());
+        board.setVisible(!sprints.isEmpty());
+        if (selected == null) {
+            showSprint(null);
+        } else {
+            sprintSelect.setValue(selected);
+        }
+    }
+
+    private static Long parseSprintId(String parameters) {
+        try {
+            return parameters == null || parameters.isEmpty() ? null : Long.valueOf(parameters);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void showSprint(Sprint sprint) {
+        Long id = sprint == null ? null : sprint.getId();
+        if (id != null && id.equals(sprintId) && subscription != null) {
+            return;
+        }
+        unsubscribe();
+        sprintId = id;
+        if (id == null) {
+            board.show(Collections.emptyList());
+            return;
+        }
+        // enter() is called before the view is attached, so getUI() could still be null
+        UI ui = UI.getCurrent();
+        subscription = feed.subscribe(userId, id, deltas -> ui.access(() -> patch(deltas)));
+        board.show(subscription.loadCards());
+    }
+
+    private void patch(List<CardDelta> deltas) {
+        KanbanBoard.Patch patch = board.apply(deltas);
+        long now = System.nanoTime();
+        deltas.forEach(delta -> updateTimer.record(now - delta.getHeardNanos()));
+        metrics.counter(CHANGES_NAME, CHANGES_HELP, "change", "moved").add(patch.getMoved());
+        metrics.counter(CHANGES_NAME, CHANGES_HELP, "change", "updated").add(patch.getUpdated());
+        metrics.counter(CHANGES_NAME, CHANGES_HELP, "change", "removed").add(patch.getRemoved());
+    }
+
+    private void unsubscribe() {
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+        }
+    }
+
+    @Override
+    public void detach() {
+        // the view stays in the UI scope after navigating away; enter() picks the sprint up again
+        unsubscribe();
+        super.detach();
+    }
+}
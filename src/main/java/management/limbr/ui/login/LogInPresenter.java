@@ -19,22 +19,38 @@
 
 package management.limbr.ui.login;
 
+import com.vaadin.ui.UI;
+import management.limbr.auth.CredentialVerifier;
 import management.limbr.ui.ClientState;
+import management.limbr.ui.Principal;
+import management.limbr.ui.PrincipalResolver;
 import management.limbr.ui.Presenter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Presenter
 public class LogInPresenter implements LogInView.LogInViewListener, Serializable {
+    private static final Logger LOG = LoggerFactory.getLogger(LogInPresenter.class);
 
     private transient LogInView view;
 
-    private ClientState clientState;
+    private transient ClientState clientState;
+
+    private transient CredentialVerifier credentialVerifier;
+
+    private transient PrincipalResolver principalResolver;
 
     @Autowired
-    public LogInPresenter(ClientState clientState) {
+    public LogInPresenter(ClientState clientState, CredentialVerifier credentialVerifier,
+                          PrincipalResolver principalResolver) {
         this.clientState = clientState;
+        this.credentialVerifier = credentialVerifier;
+        this.principalResolver = principalResolver;
     }
 
     @Override
@@ -42,10 +58,33 @@ public class LogInPresenter implements LogInView.LogInViewListener, Serializable
         this.view = view;
     }
 
+    /**
+     * Hands the username and password off to be checked, and lets go of the session lock until
+     * they have been and the user's roles are loaded.
+     */
     @Override
     public void logInClicked() {
-        // TODO: implement
-        clientState.setLoggedIn(true);
-        view.loggedIn();
+        UI ui = UI.getCurrent();
+        view.setVerifying(true);
+        credentialVerifier.verify(view.getUsername(), view.getPassword())
+                .thenApply(user -> user == null ? null : principalResolver.resolve(user))
+                .whenComplete((principal, failure) -> ui.access(() -> verified(principal, failure)));
+    }
+
+    private void verified(Principal principal, Throwable failure) {
+        view.setVerifying(false);
+
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof RejectedExecutionException) {
+            view.tryAgainLater();
+        } else if (cause != null) {
+            LOG.error("Couldn't check log in.", cause);
+            view.logInFailed();
+        } else if (principal == null) {
+            view.logInFailed();
+        } else {
+            clientState.logIn(principal);
+            view.loggedIn();
+        }
     }
 }
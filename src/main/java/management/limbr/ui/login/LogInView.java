@@ -28,6 +28,15 @@ public interface LogInView {
 
     void reportError(String message);
 
+    /**
+     * Shows that the username and password are being checked, or that they're done being checked.
+     */
+    void setVerifying(boolean verifying);
+
+    void logInFailed();
+
+    void tryAgainLater();
+
     void loggedIn();
 
     interface LogInViewListener {
@@ -55,6 +55,7 @@ public class LogInViewImpl extends CustomComponent implements View, LogInView {
 
     private TextField usernameField;
     private PasswordField passwordField;
+    private Button logInButton;
 
     @Autowired
     public LogInViewImpl(Collection<LogInViewListener> listeners, I18N messages) {
@@ -82,7 +83,7 @@ public class LogInViewImpl extends CustomComponent implements View, LogInView {
         passwordField.setRequired(true);
         passwordField.setNullRepresentation("");
 
-        Button logInButton = new Button(messages.get("logInButtonLabel"));
+        logInButton = new Button(messages.get("logInButtonLabel"));
         logInButton.addClickListener(event -> {
             usernameField.setValidationVisible(false);
             passwordField.setValidationVisible(false);
@@ -94,6 +95,7 @@ public class LogInViewImpl extends CustomComponent implements View, LogInView {
                 usernameField.setValidationVisible(true);
                 passwordField.setValidationVisible(true);
                 LOG.debug("Validation of log in fields failed.", e);
+                return;
             }
             listeners.forEach(LogInViewListener::logInClicked);
         });
@@ -134,6 +136,24 @@ public class LogInViewImpl extends CustomComponent implements View, LogInView {
         Notification.show(message);
     }
 
+    @Override
+    public void setVerifying(boolean verifying) {
+        logInButton.setEnabled(!verifying);
+        logInButton.setCaption(messages.get(verifying ? "pleaseWait" : "logInButtonLabel"));
+    }
+
+    @Override
+    public void logInFailed() {
+        Notification.show(messages.get("logInFailed"));
+        passwordField.setValue("");
+        passwordField.focus();
+    }
+
+    @Override
+    public void tryAgainLater() {
+        Notification.show(messages.get("logInBusy"));
+    }
+
     @Override
     public void loggedIn() {
         getUI().getNavigator().navigateTo(DefaultView.VIEW_NAME);
@@ -19,19 +19,23 @@
 
 package management.limbr.ui.projecteditor;
 
+import management.limbr.auth.PasswordHasher;
 import management.limbr.data.model.Project;
 import management.limbr.data.model.util.EntityUtil;
+import management.limbr.metrics.MetricsRegistry;
 import management.limbr.ui.Presenter;
 import management.limbr.ui.entity.EntityEditorPresenter;
 import management.limbr.ui.entity.EntityEditorView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Presenter
 public class ProjectEditorPresenter extends EntityEditorPresenter<Project> {
     @Autowired
-    public ProjectEditorPresenter(JpaRepository<Project, Long> repository, EntityUtil entityUtil) {
-        super(repository, entityUtil);
+    public ProjectEditorPresenter(JpaRepository<Project, Long> repository, PlatformTransactionManager transactionManager,
+                                  EntityUtil entityUtil, PasswordHasher passwordHasher, MetricsRegistry metrics) {
+        super(repository, transactionManager, entityUtil, passwordHasher, metrics);
     }
 
     @Override
@@ -19,10 +19,14 @@
 
 package management.limbr.ui.projects;
 
-import com.vaadin.data.util.BeanItemContainer;
+import management.limbr.data.EntityPositions;
 import management.limbr.data.ProjectRepository;
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.Project;
+import management.limbr.data.model.util.SearchKeys;
 import management.limbr.ui.Presenter;
+import management.limbr.ui.entity.EntityContainer;
 import management.limbr.ui.entity.EntityEditorPresenter;
 import management.limbr.ui.entity.EntityListView;
 import management.limbr.ui.projecteditor.ProjectEditorPresenter;
@@ -30,18 +34,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 @Presenter
-public class ProjectsPresenter implements ProjectsView.Listener<Project>, Serializable, EntityEditorPresenter.EntityChangeHandler {
+public class ProjectsPresenter implements ProjectsView.Listener, Serializable, EntityEditorPresenter.EntityChangeHandler {
     private transient ProjectRepository repository;
     private transient EntityListView view;
     private transient ProjectEditorPresenter editor;
+    private transient BulkExporter exporter;
+    private transient EntityPositions positions;
 
     @Autowired
-    public ProjectsPresenter(ProjectRepository repository, ProjectEditorPresenter editor) {
+    public ProjectsPresenter(ProjectRepository repository, ProjectEditorPresenter editor, BulkExporter exporter,
+                             EntityPositions positions) {
         this.repository = repository;
         this.editor = editor;
+        this.exporter = exporter;
+        this.positions = positions;
     }
 
     @PostConstruct
@@ -50,14 +61,29 @@ public class ProjectsPresenter implements ProjectsView.Listener<Project>, Serial
     }
 
     @Override
-    public BeanItemContainer<Project> listEntities(String filter) {
+    public EntityContainer<Project> listEntities(String filter) {
         if (StringUtils.isEmpty(filter)) {
-            return new BeanItemContainer<>(Project.class, repository.findAll());
+            return new EntityContainer<>(Project.class, repository::findAllPaged, repository::count,
+                    (project, sort) -> positions.countBefore(project, sort, null, null));
         } else {
-            return new BeanItemContainer<>(Project.class, repository.findByNameStartsWithIgnoreCase(filter));
+            String key = SearchKeys.normalize(filter);
+            return new EntityContainer<>(Project.class,
+                    pageable -> repository.findByNameKeyStartsWith(key, pageable),
+                    () -> repository.countByNameKeyStartsWith(key),
+                    (project, sort) -> positions.countBefore(project, sort, "nameKey", key));
         }
     }
 
+    @Override
+    public void exportEntities(RecordFormat format, OutputStream out) throws IOException {
+        exporter.exportProjects(format, out);
+    }
+
+    @Override
+    public void exportMemberships(RecordFormat format, OutputStream out) throws IOException {
+        exporter.exportMemberships(format, out);
+    }
+
     @Override
     public void viewInitialized(EntityListView view) {
         this.view = view;
@@ -19,7 +19,18 @@
 
 package management.limbr.ui.projects;
 
+import management.limbr.data.bulk.RecordFormat;
+import management.limbr.data.model.Project;
 import management.limbr.ui.entity.EntityListView;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface ProjectsView extends EntityListView {
+    interface Listener extends EntityListView.Listener<Project> {
+        /**
+         * Writes every membership of every project to out. Called on the export executor.
+         */
+        void exportMemberships(RecordFormat format, OutputStream out) throws IOException;
+    }
 }
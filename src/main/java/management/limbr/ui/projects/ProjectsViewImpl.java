@@ -21,15 +21,20 @@ package management.limbr.ui.projects;
 
 import com.vaadin.spring.annotation.SpringView;
 import com.vaadin.spring.annotation.UIScope;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.Project;
+import management.limbr.metrics.MetricsRegistry;
 import management.limbr.ui.PrivilegeLevels;
 import management.limbr.ui.RequiresPrivilege;
 import management.limbr.ui.entity.EntityListView;
 import management.limbr.ui.entity.EntityListViewImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.vaadin.spring.i18n.I18N;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 @RequiresPrivilege(level = PrivilegeLevels.ADMIN)
 @UIScope
@@ -37,8 +42,30 @@ import java.util.Collection;
 public class ProjectsViewImpl extends EntityListViewImpl<Project> {
     public static final String VIEW_NAME = "projects";
 
+    private transient Collection<EntityListView.Listener<Project>> listeners;
+
     @Autowired
-    public ProjectsViewImpl(Collection<EntityListView.Listener<Project>> listeners, I18N messages) {
-        super(Project.class, listeners, messages);
+    public ProjectsViewImpl(Collection<EntityListView.Listener<Project>> listeners, I18N messages,
+                            @Qualifier("filterExecutor") ScheduledExecutorService filterExecutor,
+                            @Qualifier("exportExecutor") ExecutorService exportExecutor,
+                            MetricsRegistry metrics) {
+        super(Project.class, listeners, messages, filterExecutor, exportExecutor, metrics);
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void init() {
+        super.init();
+
+        for (RecordFormat format : RecordFormat.values()) {
+            addDownload("exportMemberships" + format + "ButtonLabel", "memberships." + format.getExtension(), format,
+                    out -> {
+                        for (EntityListView.Listener<Project> listener : listeners) {
+                            if (listener instanceof ProjectsView.Listener) {
+                                ((ProjectsView.Listener)listener).exportMemberships(format, out);
+                            }
+                        }
+                    });
+        }
     }
 }
@@ -19,20 +19,24 @@
 
 package management.limbr.ui.roleeditor;
 
+import management.limbr.auth.PasswordHasher;
 import management.limbr.data.model.Role;
 import management.limbr.data.model.util.EntityUtil;
+import management.limbr.metrics.MetricsRegistry;
 import management.limbr.ui.Presenter;
 import management.limbr.ui.entity.EntityEditorPresenter;
 import management.limbr.ui.entity.EntityEditorView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Presenter
 public class RoleEditorPresenter extends EntityEditorPresenter<Role> {
 
     @Autowired
-    public RoleEditorPresenter(JpaRepository<Role, Long> repository, EntityUtil entityUtil) {
-        super(repository, entityUtil);
+    public RoleEditorPresenter(JpaRepository<Role, Long> repository, PlatformTransactionManager transactionManager,
+                               EntityUtil entityUtil, PasswordHasher passwordHasher, MetricsRegistry metrics) {
+        super(repository, transactionManager, entityUtil, passwordHasher, metrics);
     }
 
     @Override
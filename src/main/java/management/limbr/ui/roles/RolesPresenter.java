@@ -19,30 +19,40 @@
 
 package management.limbr.ui.roles;
 
-import com.vaadin.data.util.BeanItemContainer;
+import management.limbr.data.EntityPositions;
 import management.limbr.data.RoleRepository;
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.Role;
+import management.limbr.data.model.util.SearchKeys;
 import management.limbr.ui.Presenter;
+import management.limbr.ui.entity.EntityContainer;
 import management.limbr.ui.entity.EntityEditorPresenter;
 import management.limbr.ui.entity.EntityListView;
-import management.limbr.ui.projects.ProjectsView;
 import management.limbr.ui.roleeditor.RoleEditorPresenter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 @Presenter
-public class RolesPresenter implements ProjectsView.Listener<Role>, Serializable, EntityEditorPresenter.EntityChangeHandler {
+public class RolesPresenter implements EntityListView.Listener<Role>, Serializable, EntityEditorPresenter.EntityChangeHandler {
     private transient RoleRepository repository;
     private transient EntityListView view;
     private transient RoleEditorPresenter editor;
+    private transient BulkExporter exporter;
+    private transient EntityPositions positions;
 
     @Autowired
-    public RolesPresenter(RoleRepository repository, RoleEditorPresenter editor) {
+    public RolesPresenter(RoleRepository repository, RoleEditorPresenter editor, BulkExporter exporter,
+                          EntityPositions positions) {
         this.repository = repository;
         this.editor = editor;
+        this.exporter = exporter;
+        this.positions = positions;
     }
 
     @PostConstruct
@@ -51,14 +61,24 @@ public class RolesPresenter implements ProjectsView.Listener<Role>, Serializable
     }
 
     @Override
-    public BeanItemContainer<Role> listEntities(String filter) {
+    public EntityContainer<Role> listEntities(String filter) {
         if (StringUtils.isEmpty(filter)) {
-            return new BeanItemContainer<>(Role.class, repository.findAll());
+            return new EntityContainer<>(Role.class, repository::findAllPaged, repository::count,
+                    (role, sort) -> positions.countBefore(role, sort, null, null));
         } else {
-            return new BeanItemContainer<>(Role.class, repository.findByNameStartsWithIgnoreCase(filter));
+            String key = SearchKeys.normalize(filter);
+            return new EntityContainer<>(Role.class,
+                    pageable -> repository.findByNameKeyStartsWith(key, pageable),
+                    () -> repository.countByNameKeyStartsWith(key),
+                    (role, sort) -> positions.countBefore(role, sort, "nameKey", key));
         }
     }
 
+    @Override
+    public void exportEntities(RecordFormat format, OutputStream out) throws IOException {
+        exporter.exportRoles(format, out);
+    }
+
     @Override
     public void viewInitialized(EntityListView view) {
         this.view = view;
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.search;
+
+import com.vaadin.navigator.ViewProvider;
+import com.vaadin.ui.*;
+import com.vaadin.ui.themes.ValoTheme;
+import management.limbr.auth.PermissionCache;
+import management.limbr.data.search.SearchHit;
+import management.limbr.data.search.SearchIndex;
+import management.limbr.ui.ClientState;
+import management.limbr.ui.entity.DebouncedFilter;
+import management.limbr.ui.entity.EntityListViewImpl;
+import management.limbr.ui.kanban.KanbanViewImpl;
+import management.limbr.ui.projects.ProjectsViewImpl;
+import management.limbr.ui.users.UsersViewImpl;
+import org.vaadin.spring.i18n.I18N;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The search box in the top bar. Searches the index once the user stops typing, off the request
+ * thread, and lists what was found under the box; picking something goes to where it's shown.
+ * Anything in a view the user isn't allowed into is left out, and so are stories from projects
+ * they aren't a member of. There's nothing to search for anyone who isn't logged in.
+ */
+@SuppressWarnings({"squid:S2160"}) // don't need to override equals here
+public class SearchBox extends CustomComponent {
+    static final int MAX_HITS = 10;
+
+    private transient SearchIndex index;
+    private transient ScheduledExecutorService executor;
+    private transient I18N messages;
+    private transient ViewProvider viewProvider;
+    private transient ClientState clientState;
+    private transient PermissionCache permissions;
+    private transient DebouncedFilter<List<SearchHit>> debouncedSearch;
+    private volatile Long userId;
+    private final TextField field;
+    private final VerticalLayout results;
+    private final PopupView popup;
+
+    public SearchBox(SearchIndex index, ScheduledExecutorService executor, I18N messages, ViewProvider viewProvider,
+                     ClientState clientState, PermissionCache permissions) {
+        this.index = index;
+        this.executor = executor;
+        this.messages = messages;
+        this.viewProvider = viewProvider;
+        this.clientState = clientState;
+        this.permissions = permissions;
+
+        field = new TextField();
+        field.setInputPrompt(messages.get("searchPrompt"));
+        field.addStyleName(ValoTheme.TEXTFIELD_SMALL);
+        field.setTextChangeEventMode(AbstractTextField.TextChangeEventMode.EAGER);
+        field.addTextChangeListener(event -> searchChanged(event.getText()));
+
+        results = new VerticalLayout();
+        results.setMargin(true);
+        popup = new PopupView("", results);
+        popup.setHideOnMouseOut(false);
+
+        HorizontalLayout layout = new HorizontalLayout(field, popup);
+        setCompositionRoot(layout);
+    }
+
+    /**
+     * Shows the box only if someone's logged in, and clears it if they aren't who it last searched
+     * for.
+     */
+    public void refresh() {
+        Long current = clientState.getPrincipal().getUserId();
+        setVisible(current != null);
+        if (!Objects.equals(current, userId)) {
+            if (debouncedSearch != null) {
+                debouncedSearch.cancel();
+            }
+            userId = current;
+            field.setValue("");
+            popup.setPopupVisible(false);
+        }
+    }
+
+    private void searchChanged(String text) {
+        userId = clientState.getPrincipal().getUserId();
+        if (userId == null || text == null || text.trim().isEmpty()) {
+            if (debouncedSearch != null) {
+                debouncedSearch.cancel();
+            }
+            popup.setPopupVisible(false);
+            return;
+        }
+        if (debouncedSearch == null) {
+            UI ui = getUI();
+            debouncedSearch = new DebouncedFilter<>(executor, EntityListViewImpl.FILTER_DELAY_MILLIS,
+                    search -> index.search(search, MAX_HITS, this::isVisible),
+                    hits -> ui.access(() -> showHits(hits)));
+        }
+        debouncedSearch.filterChanged(text);
+    }
+
+    private boolean isVisible(SearchHit hit) {
+        return hit.getKind() != SearchHit.Kind.STORY || permissions.isMember(userId, hit.getProjectId());
+    }
+
+    private void showHits(List<SearchHit> hits) {
+        results.removeAllComponents();
+        for (SearchHit hit : hits) {
+            String target = targetOf(hit);
+            String caption = messages.get("searchResultCaption", messages.get("search" + hit.getKind() + "Label"), hit.getTitle());
+            if (target == null) {
+                results.addComponent(new Label(caption));
+            } else if (viewProvider.getViewName(target) != null) {
+                Button button = new Button(caption, event -> open(target));
+                button.addStyleName(ValoTheme.BUTTON_LINK);
+                results.addComponent(button);
+            }
+        }
+        if (results.getComponentCount() == 0) {
+            results.addComponent(new Label(messages.get("noSearchResultsCaption")));
+        }
+        popup.setPopupVisible(true);
+    }
+
+    private void open(String target) {
+        popup.setPopupVisible(false);
+        field.setValue("");
+        getUI().getNavigator().navigateTo(target);
+    }
+
+    /**
+     * Gets the navigation state of the view a hit is shown in, or null if it isn't shown in one.
+     */
+    static String targetOf(SearchHit hit) {
+        switch (hit.getKind()) {
+            case PROJECT:
+                return ProjectsViewImpl.VIEW_NAME;
+            case USER:
+                return UsersViewImpl.VIEW_NAME;
+            default:
+                // backlogs don't have a view yet, only sprint boards
+                return hit.getSprintId() == null ? null : KanbanViewImpl.VIEW_NAME + '/' + hit.getSprintId();
+        }
+    }
+
+    @Override
+    public void detach() {
+        if (debouncedSearch != null) {
+            debouncedSearch.cancel();
+        }
+        super.detach();
+    }
+}
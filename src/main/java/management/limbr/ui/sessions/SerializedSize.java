@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import com.vaadin.server.VaadinSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/**
+ * Estimates how much memory an object graph holds on to by counting the bytes it serializes to,
+ * the same way a session is written out when it's persisted or replicated.
+ *
+ * A UI refers back to its session, and through it to every other UI of the session, so sessions
+ * other than the one being measured are left out. Anything that isn't serializable is left out too,
+ * rather than ending the count.
+ */
+final class SerializedSize {
+    private static final Logger LOG = LoggerFactory.getLogger(SerializedSize.class);
+
+    private SerializedSize() {
+    }
+
+    /**
+     * @return the size in bytes, or -1 if it couldn't be measured
+     */
+    static long of(Object root) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new PruningObjectOutputStream(counter, root)) {
+            out.writeObject(root);
+        } catch (IOException | RuntimeException ex) {
+            LOG.debug("Couldn't measure {}", root, ex);
+            return -1;
+        }
+        return counter.count;
+    }
+
+    private static final class PruningObjectOutputStream extends ObjectOutputStream {
+        private final Object root;
+
+        PruningObjectOutputStream(OutputStream out, Object root) throws IOException {
+            super(out);
+            this.root = root;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if ((obj != root && obj instanceof VaadinSession) || !(obj instanceof Serializable)) {
+                return null;
+            }
+            return obj;
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
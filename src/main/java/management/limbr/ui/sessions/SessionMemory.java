@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import java.io.Serializable;
+
+/**
+ * What one session was holding on to when the UIs were last measured.
+ */
+public final class SessionMemory implements Serializable {
+    private final String sessionId;
+    private final String username;
+    private final int tabs;
+    private final int releasedTabs;
+    private final long bytes;
+    private final long idleSeconds;
+
+    SessionMemory(String sessionId, String username, int tabs, int releasedTabs, long bytes, long idleSeconds) {
+        this.sessionId = sessionId;
+        this.username = username;
+        this.tabs = tabs;
+        this.releasedTabs = releasedTabs;
+        this.bytes = bytes;
+        this.idleSeconds = idleSeconds;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets who's logged in to the session, or null if nobody is.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets how many UIs, one per browser tab, the session has open.
+     */
+    public int getTabs() {
+        return tabs;
+    }
+
+    /**
+     * Gets how many of the tabs have had their caches released and not been used since.
+     */
+    public int getReleasedTabs() {
+        return releasedTabs;
+    }
+
+    /**
+     * Gets the serialized size of all of the session's UIs together.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getKilobytes() {
+        return bytes / 1024;
+    }
+
+    /**
+     * Gets how long it's been since any of the session's tabs was used.
+     */
+    public long getIdleSeconds() {
+        return idleSeconds;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.WrappedSession;
+import com.vaadin.spring.annotation.SpringComponent;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.HasComponents;
+import com.vaadin.ui.UI;
+import management.limbr.metrics.Counter;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.ui.Principal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of how much memory each open UI holds on to, and makes idle ones let go of what they
+ * can load again.
+ *
+ * Every UI is measured once per scan, with its session locked, if the lock can be had right away;
+ * a session that's busy is clearly being used and is left for the next scan. A UI counts as idle
+ * when nothing has been sent to its browser tab since it was last scanned. Heartbeats don't count,
+ * so an abandoned tab goes idle even though it stays open.
+ *
+ * Idle UIs have their {@link CachingComponent}s released once, and again only after they've been
+ * used. If all UIs together still take more than the budget, the least recently used ones are
+ * released too, idle or not.
+ */
+@SpringComponent
+@EnableConfigurationProperties(SessionMemoryProperties.class)
+public class SessionMemoryManager {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionMemoryManager.class);
+
+    @FunctionalInterface
+    interface Sizer {
+        long sizeOf(UI ui);
+    }
+
+    /**
+     * What's known about one UI. Only touched by the scan, which runs one at a time.
+     */
+    private static final class Tab {
+        private int syncId = -1;
+        private long lastActive;
+        private long bytes;
+        private boolean released;
+        private String sessionId;
+        private String username;
+
+        Tab(long now) {
+            lastActive = now;
+        }
+    }
+
+    private final SessionMemoryProperties properties;
+    private final ScheduledExecutorService executor;
+    private final Sizer sizer;
+    private final LongSupplier clock;
+    private final Counter releases;
+
+    // weak, so a UI the session has already let go of doesn't stay around just to be measured
+    private final Map<UI, Tab> tabs = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile List<SessionMemory> sessions = Collections.emptyList();
+    private volatile long totalBytes;
+
+    @Autowired
+    public SessionMemoryManager(SessionMemoryProperties properties, MetricsRegistry metrics,
+                                @Qualifier("sessionScanExecutor") ScheduledExecutorService executor) {
+        this(properties, metrics, executor, SerializedSize::of, System::currentTimeMillis);
+    }
+
+    SessionMemoryManager(SessionMemoryProperties properties, MetricsRegistry metrics, ScheduledExecutorService executor,
+                         Sizer sizer, LongSupplier clock) {
+        this.properties = properties;
+        this.executor = executor;
+        this.sizer = sizer;
+        this.clock = clock;
+
+        releases = metrics.counter("limbr_session_cache_releases_total", "UIs that had their caches released.");
+        metrics.gauge("limbr_session_bytes", "Serialized size of all open UIs, as of the last scan.", () -> totalBytes);
+        metrics.gauge("limbr_session_tabs", "Open UIs, one per browser tab.", tabs::size);
+    }
+
+    @PostConstruct
+    void init() {
+        long interval = properties.getScanIntervalSeconds();
+        executor.scheduleWithFixedDelay(this::scanQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts keeping track of a UI. Called once, when the UI is initialized.
+     */
+    public void track(UI ui) {
+        tabs.putIfAbsent(ui, new Tab(clock.getAsLong()));
+    }
+
+    /**
+     * Gets the sessions holding on to the most memory, as of the last scan, heaviest first.
+     */
+    public List<SessionMemory> getHeaviestSessions(int limit) {
+        List<SessionMemory> all = sessions;
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /**
+     * Gets the serialized size of all open UIs together, as of the last scan.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Scans on the scan thread now, instead of waiting for the next scheduled scan.
+     */
+    public CompletableFuture<Void> scanNow() {
+        return CompletableFuture.runAsync(this::scan, executor);
+    }
+
+    @SuppressWarnings("squid:S1181") // a failed scan mustn't stop the ones after it
+    private void scanQuietly() {
+        try {
+            scan();
+        } catch (Throwable ex) {
+            LOG.warn("Couldn't scan sessions.", ex);
+        }
+    }
+
+    synchronized void scan() {
+        long now = clock.getAsLong();
+        List<Map.Entry<UI, Tab>> open;
+        synchronized (tabs) {
+            open = new ArrayList<>(tabs.entrySet());
+        }
+
+        Map<VaadinSession, List<Tab>> bySession = new HashMap<>();
+        long total = 0;
+        for (Map.Entry<UI, Tab> entry : open) {
+            UI ui = entry.getKey();
+            Tab tab = entry.getValue();
+            VaadinSession session = ui.getSession();
+            if (session == null || ui.isClosing()) {
+                tabs.remove(ui);
+                continue;
+            }
+
+            measure(ui, session, tab, now);
+            total += tab.bytes;
+            bySession.computeIfAbsent(session, key -> new ArrayList<>()).add(tab);
+        }
+
+        long budget = properties.getBudgetMegabytes() * 1024 * 1024;
+        if (total > budget) {
+            total = releaseLeastRecentlyUsed(open, total, budget);
+        }
+
+        totalBytes = total;
+        sessions = summarize(bySession.values(), now);
+    }
+
+    private void measure(UI ui, VaadinSession session, Tab tab, long now) {
+        Lock lock = session.getLockInstance();
+        if (lock == null || !lock.tryLock()) {
+            return;
+        }
+
+        try {
+            int syncId = ui.getConnectorTracker().getCurrentSyncId();
+            if (syncId != tab.syncId) {
+                tab.syncId = syncId;
+                tab.lastActive = now;
+                tab.released = false;
+            }
+
+            if (!tab.released && now - tab.lastActive >= TimeUnit.SECONDS.toMillis(properties.getIdleReleaseSeconds())) {
+                release(ui, tab);
+            }
+
+            WrappedSession wrappedSession = session.getSession();
+            Principal principal = session.getAttribute(Principal.class);
+            tab.sessionId = wrappedSession == null ? null : wrappedSession.getId();
+            tab.username = principal == null ? null : principal.getUsername();
+            tab.bytes = Math.max(sizer.sizeOf(ui), 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long releaseLeastRecentlyUsed(List<Map.Entry<UI, Tab>> open, long total, long budget) {
+        List<Map.Entry<UI, Tab>> candidates = new ArrayList<>();
+        for (Map.Entry<UI, Tab> entry : open) {
+            if (!entry.getValue().released && entry.getKey().getSession() != null) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastActive));
+
+        long remaining = total;
+        for (Map.Entry<UI, Tab> entry : candidates) {
+            if (remaining <= budget) {
+                break;
+            }
+            UI ui = entry.getKey();
+            Tab tab = entry.getValue();
+            VaadinSession session = ui.getSession();
+            Lock lock = session == null ? null : session.getLockInstance();
+            if (lock == null || !lock.tryLock()) {
+                continue;
+            }
+            try {
+                long before = tab.bytes;
+                release(ui, tab);
+                tab.bytes = Math.max(sizer.sizeOf(ui), 0);
+                remaining -= before - tab.bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return remaining;
+    }
+
+    private void release(UI ui, Tab tab) {
+        releaseCaches(ui);
+        tab.released = true;
+        releases.increment();
+    }
+
+    private static void releaseCaches(HasComponents parent) {
+        // a UI's components include its windows
+        for (Component component : parent) {
+            if (component instanceof CachingComponent) {
+                ((CachingComponent)component).releaseCaches();
+            }
+            if (component instanceof HasComponents) {
+                releaseCaches((HasComponents)component);
+            }
+        }
+    }
+
+    private static List<SessionMemory> summarize(Collection<List<Tab>> sessionTabs, long now) {
+        List<SessionMemory> summaries = new ArrayList<>(sessionTabs.size());
+        for (List<Tab> tabsOfSession : sessionTabs) {
+            long bytes = 0;
+            long lastActive = 0;
+            int released = 0;
+            String sessionId = null;
+            String username = null;
+            for (Tab tab : tabsOfSession) {
+                bytes += tab.bytes;
+                lastActive = Math.max(lastActive, tab.lastActive);
+                released += tab.released ? 1 : 0;
+                sessionId = tab.sessionId == null ? sessionId : tab.sessionId;
+                username = tab.username == null ? username : tab.username;
+            }
+            summaries.add(new SessionMemory(sessionId, username, tabsOfSession.size(), released, bytes,
+                    TimeUnit.MILLISECONDS.toSeconds(Math.max(now - lastActive, 0))));
+        }
+        summaries.sort(Comparator.comparingLong(SessionMemory::getBytes).reversed());
+        return Collections.unmodifiableList(summaries);
+    }
+}
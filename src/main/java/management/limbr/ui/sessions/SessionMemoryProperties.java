@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How session memory is measured and kept in check, set with limbr.sessions.*.
+ */
+@ConfigurationProperties(prefix = "limbr.sessions")
+public class SessionMemoryProperties {
+    private long scanIntervalSeconds = 60;
+    private long idleReleaseSeconds = 600;
+    private long budgetMegabytes = 512;
+
+    /**
+     * Gets how often every open UI is measured.
+     */
+    public long getScanIntervalSeconds() {
+        return scanIntervalSeconds;
+    }
+
+    public void setScanIntervalSeconds(long scanIntervalSeconds) {
+        this.scanIntervalSeconds = scanIntervalSeconds;
+    }
+
+    /**
+     * Gets how long a UI can go without a request before its caches are released.
+     */
+    public long getIdleReleaseSeconds() {
+        return idleReleaseSeconds;
+    }
+
+    public void setIdleReleaseSeconds(long idleReleaseSeconds) {
+        this.idleReleaseSeconds = idleReleaseSeconds;
+    }
+
+    /**
+     * Gets how big all sessions together may get before caches are released from the least recently
+     * used UIs, idle or not.
+     */
+    public long getBudgetMegabytes() {
+        return budgetMegabytes;
+    }
+
+    public void setBudgetMegabytes(long budgetMegabytes) {
+        this.budgetMegabytes = budgetMegabytes;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.navigator.View;
+import com.vaadin.navigator.ViewChangeListener;
+import com.vaadin.server.FontAwesome;
+import com.vaadin.spring.annotation.SpringView;
+import com.vaadin.spring.annotation.UIScope;
+import com.vaadin.ui.*;
+import management.limbr.ui.PrivilegeLevels;
+import management.limbr.ui.RequiresPrivilege;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.vaadin.spring.i18n.I18N;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Lists the sessions holding on to the most memory, for admins.
+ */
+@RequiresPrivilege(level = PrivilegeLevels.ADMIN)
+@UIScope
+@SpringView(name = SessionsViewImpl.VIEW_NAME)
+@SuppressWarnings({"squid:S2160"}) // don't need to override equals here
+public class SessionsViewImpl extends VerticalLayout implements View {
+    public static final String VIEW_NAME = "sessions";
+    static final int SESSIONS_SHOWN = 50;
+
+    private static final String[] COLUMNS = {"username", "sessionId", "tabs", "releasedTabs", "kilobytes", "idleSeconds"};
+
+    private transient SessionMemoryManager sessionMemoryManager;
+    private transient I18N messages;
+    private final BeanItemContainer<SessionMemory> sessions = new BeanItemContainer<>(SessionMemory.class);
+    private Label caption;
+
+    @Autowired
+    public SessionsViewImpl(SessionMemoryManager sessionMemoryManager, I18N messages) {
+        this.sessionMemoryManager = sessionMemoryManager;
+        this.messages = messages;
+    }
+
+    @PostConstruct
+    void init() {
+        setSpacing(true);
+
+        caption = new Label();
+        Button scanNowButton = new Button(messages.get("scanNowButtonLabel"), FontAwesome.REFRESH);
+        scanNowButton.addClickListener(event -> scanNow());
+        HorizontalLayout actions = new HorizontalLayout(caption, scanNowButton);
+        actions.setSpacing(true);
+
+        Grid grid = new Grid(sessions);
+        grid.setSizeFull();
+        grid.removeAllColumns();
+        for (String column : COLUMNS) {
+            grid.addColumn(column).setHeaderCaption(messages.get(column + "ColumnLabel"));
+        }
+
+        addComponent(actions);
+        addComponent(grid);
+    }
+
+    @Override
+    public void enter(ViewChangeListener.ViewChangeEvent event) {
+        show();
+    }
+
+    private void scanNow() {
+        UI ui = getUI();
+        sessionMemoryManager.scanNow().thenRun(() -> ui.access(this::show));
+    }
+
+    private void show() {
+        sessions.removeAllItems();
+        sessions.addAll(sessionMemoryManager.getHeaviestSessions(SESSIONS_SHOWN));
+        caption.setValue(messages.get("sessionsCaption", sessionMemoryManager.getTotalBytes() / 1024));
+    }
+}
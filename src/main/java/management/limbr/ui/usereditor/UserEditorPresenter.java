@@ -19,19 +19,23 @@
 
 package management.limbr.ui.usereditor;
 
+import management.limbr.auth.PasswordHasher;
 import management.limbr.data.model.User;
 import management.limbr.data.model.util.EntityUtil;
+import management.limbr.metrics.MetricsRegistry;
 import management.limbr.ui.Presenter;
 import management.limbr.ui.entity.EntityEditorPresenter;
 import management.limbr.ui.entity.EntityEditorView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Presenter
 public class UserEditorPresenter extends EntityEditorPresenter<User> {
     @Autowired
-    public UserEditorPresenter(JpaRepository<User, Long> repository, EntityUtil entityUtil) {
-        super(repository, entityUtil);
+    public UserEditorPresenter(JpaRepository<User, Long> repository, PlatformTransactionManager transactionManager,
+                               EntityUtil entityUtil, PasswordHasher passwordHasher, MetricsRegistry metrics) {
+        super(repository, transactionManager, entityUtil, passwordHasher, metrics);
     }
 
     @Override
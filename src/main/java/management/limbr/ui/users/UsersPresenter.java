@@ -19,16 +19,22 @@
 
 package management.limbr.ui.users;
 
-import com.vaadin.data.util.BeanItemContainer;
+import management.limbr.data.EntityPositions;
 import management.limbr.data.UserRepository;
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.User;
+import management.limbr.data.model.util.SearchKeys;
 import management.limbr.ui.Presenter;
+import management.limbr.ui.entity.EntityContainer;
 import management.limbr.ui.entity.EntityListView;
 import management.limbr.ui.usereditor.UserEditorPresenter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 @Presenter
@@ -40,10 +46,17 @@ public class UsersPresenter implements EntityListView.Listener<User>, UserEditor
 
     private transient EntityListView view;
 
+    private transient BulkExporter exporter;
+
+    private transient EntityPositions positions;
+
     @Autowired
-    public UsersPresenter(UserRepository repository, UserEditorPresenter editorPresenter) {
+    public UsersPresenter(UserRepository repository, UserEditorPresenter editorPresenter, BulkExporter exporter,
+                          EntityPositions positions) {
         this.repository = repository;
         this.editorPresenter = editorPresenter;
+        this.exporter = exporter;
+        this.positions = positions;
     }
 
     @PostConstruct
@@ -57,15 +70,24 @@ public class UsersPresenter implements EntityListView.Listener<User>, UserEditor
     }
 
     @Override
-    public BeanItemContainer<User> listEntities(String filter) {
+    public EntityContainer<User> listEntities(String filter) {
         if (StringUtils.isEmpty(filter)) {
-            return new BeanItemContainer<>(User.class, repository.findAll());
+            return new EntityContainer<>(User.class, repository::findAllPaged, repository::count,
+                    (user, sort) -> positions.countBefore(user, sort, null, null));
         } else {
-            return new BeanItemContainer<>(User.class,
-                    repository.findByUsernameStartsWithIgnoreCase(filter));
+            String key = SearchKeys.normalize(filter);
+            return new EntityContainer<>(User.class,
+                    pageable -> repository.findByUsernameKeyStartsWith(key, pageable),
+                    () -> repository.countByUsernameKeyStartsWith(key),
+                    (user, sort) -> positions.countBefore(user, sort, "usernameKey", key));
         }
     }
 
+    @Override
+    public void exportEntities(RecordFormat format, OutputStream out) throws IOException {
+        exporter.exportUsers(format, out);
+    }
+
     @Override
     public void editItemClicked(User user) {
         if (user == null) {
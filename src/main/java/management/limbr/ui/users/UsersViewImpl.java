@@ -22,14 +22,18 @@ package management.limbr.ui.users;
 import com.vaadin.spring.annotation.SpringView;
 import com.vaadin.spring.annotation.UIScope;
 import management.limbr.data.model.User;
+import management.limbr.metrics.MetricsRegistry;
 import management.limbr.ui.PrivilegeLevels;
 import management.limbr.ui.RequiresPrivilege;
 import management.limbr.ui.entity.EntityListView;
 import management.limbr.ui.entity.EntityListViewImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.vaadin.spring.i18n.I18N;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 @RequiresPrivilege(level = PrivilegeLevels.ADMIN)
 @UIScope
@@ -38,7 +42,10 @@ public class UsersViewImpl extends EntityListViewImpl<User> {
     public static final String VIEW_NAME = "users";
 
     @Autowired
-    public UsersViewImpl(Collection<EntityListView.Listener<User>> listeners, I18N messages) {
-        super(User.class, listeners, messages);
+    public UsersViewImpl(Collection<EntityListView.Listener<User>> listeners, I18N messages,
+                         @Qualifier("filterExecutor") ScheduledExecutorService filterExecutor,
+                         @Qualifier("exportExecutor") ExecutorService exportExecutor,
+                         MetricsRegistry metrics) {
+        super(User.class, listeners, messages, filterExecutor, exportExecutor, metrics);
     }
 }
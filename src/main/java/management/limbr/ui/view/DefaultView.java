@@ -40,7 +40,7 @@ public class DefaultView extends VerticalLayout implements View {
 
     private transient I18N messages;
 
-    private ClientState clientState;
+    private transient ClientState clientState;
 
     @Autowired
     public DefaultView(ClientState clientState, I18N messages) {
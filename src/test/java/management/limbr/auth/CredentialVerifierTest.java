@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import management.limbr.data.UserRepository;
+import management.limbr.data.model.User;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.*;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class CredentialVerifierTest {
+    private UserRepository repository;
+    private PasswordHasher hasher;
+    private ExecutorService executor;
+    private CredentialVerifier verifier;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        repository = mock(UserRepository.class);
+        when(repository.save(any(User.class))).then(invocation -> invocation.getArguments()[0]);
+
+        PasswordProperties properties = new PasswordProperties();
+        properties.setWorkFactor(1000);
+        hasher = new PasswordHasher(properties);
+
+        executor = Executors.newSingleThreadExecutor();
+        verifier = new CredentialVerifier(repository, hasher, executor);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        executor.shutdownNow();
+    }
+
+    public void logsInWithRightPassword() throws Exception {
+        User admin = new User("admin", "Admin", hasher.hash("admin", "admin"), "admin@limbr.management");
+        when(repository.findByUsername("admin")).thenReturn(admin);
+
+        assertSame(verifier.verify("admin", "admin").get(5, TimeUnit.SECONDS), admin);
+        verify(repository, never()).save(any(User.class));
+    }
+
+    public void turnsAwayWrongPasswordAndUnknownUser() throws Exception {
+        User admin = new User("admin", "Admin", hasher.hash("admin", "admin"), "admin@limbr.management");
+        when(repository.findByUsername("admin")).thenReturn(admin);
+
+        assertNull(verifier.verify("admin", "nimda").get(5, TimeUnit.SECONDS));
+        assertNull(verifier.verify("nobody", "admin").get(5, TimeUnit.SECONDS));
+    }
+
+    public void upgradesOldHashOnLogIn() throws Exception {
+        User admin = new User("admin", "Admin", "e9bb0f231e2f35658dda443345a46f5d", "admin@limbr.management");
+        when(repository.findByUsername("admin")).thenReturn(admin);
+
+        assertSame(verifier.verify("admin", "admin").get(5, TimeUnit.SECONDS), admin);
+
+        verify(repository).save(admin);
+        assertTrue(admin.getPasswordHash().startsWith("$" + PasswordHasher.PBKDF2_SHA256 + "$1000$"));
+        assertTrue(hasher.matches("admin", "admin", admin.getPasswordHash()));
+    }
+
+    public void checksOffTheCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        when(repository.findByUsername("admin")).then(invocation -> {
+            assertNotSame(Thread.currentThread(), caller);
+            return null;
+        });
+
+        assertNull(verifier.verify("admin", "admin").get(5, TimeUnit.SECONDS));
+        verify(repository).findByUsername("admin");
+    }
+
+    public void turnsAwayLogInsBeyondTheQueue() throws Exception {
+        executor.shutdown();
+
+        CompletableFuture<User> refused = verifier.verify("admin", "admin");
+
+        assertTrue(refused.isCompletedExceptionally());
+        try {
+            refused.join();
+            fail("should have been refused");
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        }
+    }
+}
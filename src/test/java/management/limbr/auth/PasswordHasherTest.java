@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test
+public class PasswordHasherTest {
+    private static final String LEGACY_ADMIN_HASH = "e9bb0f231e2f35658dda443345a46f5d";
+
+    private static PasswordHasher hasher(String algorithm, int workFactor) {
+        PasswordProperties properties = new PasswordProperties();
+        properties.setAlgorithm(algorithm);
+        properties.setWorkFactor(workFactor);
+        return new PasswordHasher(properties);
+    }
+
+    public void hashesWithConfiguredAlgorithmAndWorkFactor() {
+        String hash = hasher(PasswordHasher.PBKDF2_SHA512, 1000).hash("admin", "admin");
+
+        assertTrue(hash.startsWith("$pbkdf2-sha512$1000$"), hash);
+    }
+
+    public void saltsEveryHashDifferently() {
+        PasswordHasher hasher = hasher(PasswordHasher.PBKDF2_SHA256, 1000);
+
+        assertNotEquals(hasher.hash("admin", "admin"), hasher.hash("admin", "admin"));
+    }
+
+    public void matchesOnlyTheRightPassword() {
+        PasswordHasher hasher = hasher(PasswordHasher.PBKDF2_SHA256, 1000);
+        String hash = hasher.hash("admin", "correct horse battery staple");
+
+        assertTrue(hasher.matches("admin", "correct horse battery staple", hash));
+        assertFalse(hasher.matches("admin", "correct horse battery stapler", hash));
+    }
+
+    public void matchesHashesMadeWithOtherAlgorithms() {
+        PasswordHasher hasher = hasher(PasswordHasher.PBKDF2_SHA256, 1000);
+
+        assertTrue(hasher.matches("admin", "admin", LEGACY_ADMIN_HASH));
+        assertFalse(hasher.matches("someone", "admin", LEGACY_ADMIN_HASH));
+        assertTrue(hasher.matches("admin", "admin", hasher(PasswordHasher.PBKDF2_SHA512, 500).hash("admin", "admin")));
+    }
+
+    public void hashesLikeItUsedTo() {
+        assertEquals(hasher(LegacyMd5Algorithm.ID, 0).hash("admin", "admin"), LEGACY_ADMIN_HASH);
+    }
+
+    public void upgradesOtherAlgorithmsAndLessWork() {
+        PasswordHasher hasher = hasher(PasswordHasher.PBKDF2_SHA256, 1000);
+
+        assertTrue(hasher.needsUpgrade(LEGACY_ADMIN_HASH));
+        assertTrue(hasher.needsUpgrade(hasher(PasswordHasher.PBKDF2_SHA512, 1000).hash("admin", "admin")));
+        assertTrue(hasher.needsUpgrade(hasher(PasswordHasher.PBKDF2_SHA256, 999).hash("admin", "admin")));
+        assertFalse(hasher.needsUpgrade(hasher.hash("admin", "admin")));
+        assertFalse(hasher.needsUpgrade(hasher(PasswordHasher.PBKDF2_SHA256, 2000).hash("admin", "admin")));
+    }
+
+    public void doesNotMatchGarbage() {
+        PasswordHasher hasher = hasher(PasswordHasher.PBKDF2_SHA256, 1000);
+
+        assertFalse(hasher.matches("admin", "admin", null));
+        assertFalse(hasher.matches("admin", "admin", ""));
+        assertFalse(hasher.matches("admin", "admin", "$pbkdf2-sha256$lots$!!$!!"));
+        assertFalse(hasher.matches("admin", "admin", "$unknown$1$abc$def"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refusesUnknownAlgorithm() {
+        hasher("rot13", 1);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.auth;
+
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.model.Role;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.data.model.User;
+import management.limbr.data.model.UserProjectRoles;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.testng.Assert.*;
+
+@Test
+public class PermissionCacheTest {
+    private static final int USERS = 8;
+    private static final int PROJECTS = 2;
+
+    // stands in for the database: (userId * PROJECTS + projectId) -> mask
+    private Map<Long, Integer> masks;
+    private AtomicInteger loads;
+    private PermissionProperties properties;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        masks = new ConcurrentHashMap<>();
+        loads = new AtomicInteger();
+        properties = new PermissionProperties();
+    }
+
+    private PermissionCache cache() {
+        return cache(0);
+    }
+
+    /**
+     * @param queryNanos how long after reading the "database" a load takes to come back, which
+     *                   leaves room for the roles to change in between
+     */
+    private PermissionCache cache(long queryNanos) {
+        return new PermissionCache(properties, (userId, projectId) -> {
+            loads.incrementAndGet();
+            int mask = masks.getOrDefault(userId * PROJECTS + (projectId == null ? 0 : projectId), 0);
+            if (queryNanos > 0) {
+                LockSupport.parkNanos(queryNanos);
+            }
+            return mask;
+        });
+    }
+
+    private static UserProjectRoles membershipOf(long userId) {
+        User user = new User();
+        user.setId(userId);
+        UserProjectRoles membership = new UserProjectRoles();
+        membership.setUser(user);
+        return membership;
+    }
+
+    public void loadsEachMaskOnce() {
+        masks.put(PROJECTS + 1L, RoleTypes.maskOf(Arrays.asList(RoleTypes.LEAD, RoleTypes.DEVELOPER)));
+        PermissionCache cache = cache();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.hasRole(1L, 1L, RoleTypes.LEAD));
+            assertTrue(cache.hasRole(1L, 1L, RoleTypes.DEVELOPER));
+            assertFalse(cache.hasRole(1L, 1L, RoleTypes.ADMIN));
+        }
+
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getMisses(), 1);
+        assertEquals(cache.getHits(), 299);
+        assertEquals(cache.getHitRatio(), 299 / 300.0, 0.0001);
+    }
+
+    public void membersHaveSomeRoleInTheProject() {
+        masks.put(PROJECTS + 1L, RoleTypes.VIEWER.bit());
+        PermissionCache cache = cache();
+
+        assertTrue(cache.isMember(1L, 1L));
+        assertFalse(cache.isMember(2L, 1L));
+        assertFalse(cache.isMember(1L, null));
+    }
+
+    public void anonymousHasNoRoles() {
+        PermissionCache cache = cache();
+
+        assertEquals(cache.getRoleMask(null, 1L), 0);
+        assertEquals(loads.get(), 0);
+    }
+
+    public void staysWithinItsSize() {
+        properties.setCacheSize(32);
+        properties.setCacheStripes(4);
+        PermissionCache cache = cache();
+
+        for (long userId = 0; userId < 1000; userId++) {
+            cache.getRoleMask(userId, 1L);
+        }
+
+        assertTrue(cache.size() <= 32, "size was " + cache.size());
+        assertEquals(cache.getEvictions(), 1000 - cache.size());
+    }
+
+    public void membershipChangesDropOnlyThatUser() {
+        PermissionCache cache = cache();
+        cache.getRoleMask(1L, 1L);
+        cache.getRoleMask(1L, 2L);
+        cache.getRoleMask(2L, 1L);
+        masks.put(PROJECTS + 1L, RoleTypes.ADMIN.bit());
+
+        cache.entityChanged(new EntityChangedEvent(UserProjectRoles.class, Collections.<Serializable>singleton(5L),
+                Collections.<Object>singletonList(membershipOf(1L))));
+
+        assertEquals(cache.size(), 1);
+        assertTrue(cache.hasRole(1L, 1L, RoleTypes.ADMIN));
+    }
+
+    public void movedMembershipsDropBothUsers() {
+        PermissionCache cache = cache();
+        cache.getRoleMask(1L, 1L);
+        cache.getRoleMask(2L, 1L);
+        cache.getRoleMask(3L, 1L);
+        UserProjectRoles membership = membershipOf(2L);
+        membership.setId(5L);
+        User previousUser = new User();
+        previousUser.setId(1L);
+
+        // moved from user 1 to user 2, then deleted, in one transaction
+        cache.entityChanged(new EntityChangedEvent(UserProjectRoles.class, Collections.<Serializable>singleton(5L),
+                Collections.<Object>singletonList(membership), Collections.<Serializable>singleton(5L),
+                Collections.<Serializable, Map<String, Object>>singletonMap(5L,
+                        Collections.<String, Object>singletonMap("user", previousUser))));
+
+        assertEquals(cache.size(), 1);
+        cache.getRoleMask(3L, 1L);
+        assertEquals(loads.get(), 3);
+    }
+
+    public void roleChangesDropEverything() {
+        PermissionCache cache = cache();
+        cache.getRoleMask(1L, 1L);
+        cache.getRoleMask(2L, 1L);
+
+        cache.entityChanged(new EntityChangedEvent(Role.class, Collections.<Serializable>singleton(1L)));
+
+        assertEquals(cache.size(), 0);
+    }
+
+    /**
+     * Readers hammer the cache while each writer keeps changing its own users' roles the way a
+     * committed transaction would: database first, then invalidation. Right after each change its
+     * writer must see the new roles, and once everything stops every cached mask must match the
+     * database and be loaded at most once more.
+     */
+    public void staysCorrectUnderConcurrentEdits() throws Exception {
+        properties.setCacheSize(USERS * PROJECTS * 2);
+        properties.setCacheStripes(8);
+        PermissionCache cache = cache(TimeUnit.MICROSECONDS.toNanos(50));
+
+        int writers = 4;
+        int readers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        long userId = writer + (long)writers * random.nextInt(USERS / writers);
+                        long projectId = random.nextInt(PROJECTS);
+                        int mask = random.nextInt(1 << RoleTypes.values().length);
+                        masks.put(userId * PROJECTS + projectId, mask);
+                        cache.invalidateUser(userId);
+                        assertEquals(cache.getRoleMask(userId, projectId), mask);
+                    }
+                } finally {
+                    writersDone.countDown();
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (writersDone.getCount() > 0 && !Thread.currentThread().isInterrupted()) {
+                    cache.getRoleMask((long)random.nextInt(USERS), (long)random.nextInt(PROJECTS));
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long loadsBefore = loads.get();
+        for (long userId = 0; userId < USERS; userId++) {
+            for (long projectId = 0; projectId < PROJECTS; projectId++) {
+                assertEquals(cache.getRoleMask(userId, projectId),
+                        (int)masks.getOrDefault(userId * PROJECTS + projectId, 0), "user " + userId + ", project " + projectId);
+            }
+        }
+        assertTrue(loads.get() - loadsBefore <= USERS * PROJECTS);
+    }
+}
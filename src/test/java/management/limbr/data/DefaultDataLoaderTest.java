@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.auth.PasswordHasher;
+import management.limbr.data.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.testng.Assert.*;
+
+/**
+ * Loads the defaults into an empty database, then checks that loading them again costs a single
+ * query and changes nothing.
+ */
+@SpringApplicationConfiguration(classes = DefaultDataLoaderTest.DataConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:defaults;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "limbr.passwords.work-factor=1000"})
+@Test
+public class DefaultDataLoaderTest extends AbstractTestNGSpringContextTests {
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, PasswordHasher.class, DefaultDataLoader.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        // only the data layer
+    }
+
+    @Autowired
+    private DefaultDataLoader loader;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProjectRolesRepository membershipRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void loadsOnceAndThenOnlyChecks() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        assertTrue(loader.loadIfEmpty());
+        assertEquals(roleRepository.count(), 5);
+        User admin = userRepository.findByUsername("admin");
+        assertNotNull(admin);
+        assertTrue(passwordHasher.matches("admin", "admin", admin.getPasswordHash()));
+        assertEquals(membershipRepository.count(), 1);
+
+        statistics.clear();
+        assertFalse(loader.loadIfEmpty());
+        assertEquals(statistics.getPrepareStatementCount(), 1);
+        assertEquals(statistics.getEntityInsertCount(), 0);
+
+        assertEquals(roleRepository.count(), 5);
+        assertEquals(userRepository.count(), 1);
+    }
+}
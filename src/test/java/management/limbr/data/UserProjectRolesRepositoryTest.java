@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data;
+
+import management.limbr.data.membership.MembershipListing;
+import management.limbr.data.membership.MembershipQueries;
+import management.limbr.data.membership.MembershipRow;
+import management.limbr.data.model.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Counts the statements Hibernate prepares while listing memberships and touching everything
+ * they refer to, to make sure listing a thousand members takes no more queries than listing ten.
+ */
+@SpringApplicationConfiguration(classes = UserProjectRolesRepositoryTest.DataConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:memberships;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // count every query, rather than whatever the caches happen to miss
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@Test
+public class UserProjectRolesRepositoryTest extends AbstractTestNGSpringContextTests {
+    private static final int MEMBERS = 1000;
+    private static final int FEW_MEMBERS = 10;
+
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, MembershipQueries.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        // only the data layer
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserProjectRolesRepository membershipRepository;
+
+    @Autowired
+    private MembershipQueries membershipQueries;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private Long bigProjectId;
+    private Long smallProjectId;
+    private Long firstUserId;
+
+    @BeforeClass
+    public void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        transactionTemplate.execute(status -> {
+            Role developer = roleRepository.save(new Role("Developer", RoleTypes.DEVELOPER));
+            Role lead = roleRepository.save(new Role("Lead", RoleTypes.LEAD));
+            Role admin = roleRepository.save(new Role("Administrator", RoleTypes.ADMIN));
+            Project bigProject = projectRepository.save(project("Big"));
+            Project smallProject = projectRepository.save(project("Small"));
+
+            List<User> users = new ArrayList<>();
+            List<UserProjectRoles> memberships = new ArrayList<>();
+            for (int i = 0; i < MEMBERS; i++) {
+                User user = new User("user" + i, "User " + i, "", "user" + i + "@limbr.management");
+                users.add(user);
+                memberships.add(membership(user, bigProject, developer, lead));
+                if (i < FEW_MEMBERS) {
+                    memberships.add(membership(user, smallProject, developer));
+                }
+            }
+            memberships.add(membership(users.get(0), null, admin));
+            userRepository.save(users);
+            membershipRepository.save(memberships);
+
+            bigProjectId = bigProject.getId();
+            smallProjectId = smallProject.getId();
+            firstUserId = users.get(0).getId();
+            return null;
+        });
+    }
+
+    private static Project project(String name) {
+        Project project = new Project();
+        project.setName(name);
+        project.setShortName(name.toUpperCase(Locale.ROOT));
+        return project;
+    }
+
+    private static UserProjectRoles membership(User user, Project project, Role... roles) {
+        UserProjectRoles membership = new UserProjectRoles();
+        membership.setUser(user);
+        membership.setProject(project);
+        membership.setRoles(new HashSet<>(Arrays.asList(roles)));
+        return membership;
+    }
+
+    /**
+     * Runs a listing in a transaction of its own, so lazy loading would work (and be counted),
+     * and returns how many statements it took.
+     */
+    private long statementsFor(Supplier<Integer> listing) {
+        statistics.clear();
+        transactionTemplate.execute(status -> listing.get());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Reads everything a listing screen would show, and returns how many memberships there were.
+     */
+    private static int touch(List<UserProjectRoles> memberships) {
+        for (UserProjectRoles membership : memberships) {
+            assertNotNull(membership.getUser().getUsername());
+            if (membership.getProject() != null) {
+                assertNotNull(membership.getProject().getName());
+            }
+            membership.getRoles().forEach(role -> assertNotNull(role.getName()));
+        }
+        return memberships.size();
+    }
+
+    public void harnessCountsLazyLoads() {
+        // loading every membership the plain way takes a query per membership for its roles
+        long statements = statementsFor(() -> touch(membershipRepository.findAll()));
+
+        assertTrue(statements > MEMBERS, statements + " statements");
+    }
+
+    public void fetchesMembersOfProjectInOneQuery() {
+        long fewStatements = statementsFor(() -> {
+            assertEquals(touch(membershipRepository.findMembersOfProject(smallProjectId)), FEW_MEMBERS);
+            return null;
+        });
+        long manyStatements = statementsFor(() -> {
+            List<UserProjectRoles> members = membershipRepository.findMembersOfProject(bigProjectId);
+            assertEquals(touch(members), MEMBERS);
+            assertEquals(members.get(0).getUser().getUsername(), "user0");
+            assertEquals(members.get(0).getRoles().size(), 2);
+            return null;
+        });
+
+        assertEquals(fewStatements, 1);
+        assertEquals(manyStatements, 1);
+    }
+
+    public void fetchesMembershipsOfUserWithEntityGraph() {
+        long statements = statementsFor(() -> {
+            // the big project, the small one and the global membership
+            assertEquals(touch(membershipRepository.findDistinctByUserId(firstUserId)), 3);
+            return null;
+        });
+
+        assertEquals(statements, 1);
+    }
+
+    public void listsMembersWithoutLoadingEntities() {
+        List<List<MembershipListing>> listings = new ArrayList<>();
+        long statements = statementsFor(() -> {
+            listings.add(membershipQueries.listMembers(bigProjectId));
+            return null;
+        });
+        List<MembershipListing> members = listings.get(0);
+
+        assertEquals(statements, 1);
+        assertEquals(statistics.getEntityLoadCount(), 0);
+        assertEquals(members.size(), MEMBERS);
+        assertEquals(members.get(0).getUsername(), "user0");
+        assertEquals(members.get(0).getProjectName(), "Big");
+        assertEquals(members.get(0).getRoleNames(), Arrays.asList("Developer", "Lead"));
+        assertTrue(members.get(0).hasRole(RoleTypes.LEAD));
+        assertFalse(members.get(0).hasRole(RoleTypes.ADMIN));
+    }
+
+    public void listsMembershipsOfUserIncludingGlobalOnes() {
+        long statements = statementsFor(() -> membershipQueries.listMemberships(firstUserId).size());
+        List<MembershipListing> memberships = membershipQueries.listMemberships(firstUserId);
+
+        assertEquals(statements, 1);
+        assertEquals(memberships.size(), 3);
+        assertTrue(memberships.stream().anyMatch(membership ->
+                membership.getProjectId() == null && membership.hasRole(RoleTypes.ADMIN)));
+    }
+
+    public void streamsEveryMembershipsRolesInOneQuery() {
+        List<Long> membershipIds = new ArrayList<>();
+        long statements = statementsFor(() -> {
+            try (Stream<MembershipRow> rows = membershipRepository.streamAllRows()) {
+                rows.forEach(row -> membershipIds.add(row.getMembershipId()));
+            }
+            return null;
+        });
+
+        assertEquals(statements, 1);
+        assertEquals(statistics.getEntityLoadCount(), 0);
+        // a row per role: two for each big project membership, one for each of the others
+        assertEquals(membershipIds.size(), MEMBERS * 2 + FEW_MEMBERS + 1);
+        assertEquals(new HashSet<>(membershipIds).size(), MEMBERS + FEW_MEMBERS + 1);
+        List<Long> sorted = new ArrayList<>(membershipIds);
+        Collections.sort(sorted);
+        assertEquals(membershipIds, sorted);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.audit;
+
+import management.limbr.data.AuditEntryRepository;
+import management.limbr.data.model.AuditAction;
+import management.limbr.data.model.AuditEntry;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class AuditLogTest {
+    private AuditProperties properties;
+    private AuditEntryRepository repository;
+    private MetricsRegistry metrics;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        properties = new AuditProperties();
+        properties.setQueueCapacity(2);
+        properties.setBatchSize(2);
+        properties.setQueueWaitMillis(10);
+        repository = mock(AuditEntryRepository.class);
+        metrics = new MetricsRegistry(new MetricsProperties());
+    }
+
+    private AuditLog auditLog() {
+        return new AuditLog(properties, repository, mock(PlatformTransactionManager.class),
+                Executors.newSingleThreadExecutor(), metrics);
+    }
+
+    public void dropsWhatDoesNotFitAfterWaiting() throws IOException {
+        AuditLog auditLog = auditLog();
+
+        auditLog.append(Arrays.asList(entry(), entry(), entry()));
+
+        assertEquals(auditLog.getQueueSize(), 2);
+        StringWriter out = new StringWriter();
+        metrics.writeTo(out);
+        assertTrue(out.toString().contains("limbr_audit_dropped_total 1\n"));
+    }
+
+    public void waitsOnceForAWholeChange() {
+        properties.setQueueWaitMillis(200);
+        AuditLog auditLog = auditLog();
+        List<AuditEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            entries.add(entry());
+        }
+
+        long start = System.nanoTime();
+        auditLog.append(entries);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // waiting for each entry that doesn't fit would take two seconds
+        assertTrue(millis < 1000, "waited " + millis + "ms");
+        assertEquals(auditLog.getQueueSize(), 2);
+    }
+
+    public void writesInBatches() throws InterruptedException {
+        properties.setQueueCapacity(10);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(repository.save(anyListOf(AuditEntry.class))).thenAnswer(invocation -> {
+            batchSizes.add(((List<?>)invocation.getArguments()[0]).size());
+            return null;
+        });
+        AuditLog auditLog = auditLog();
+
+        auditLog.append(Arrays.asList(entry(), entry(), entry(), entry(), entry()));
+        auditLog.start();
+        auditLog.stop();
+
+        assertEquals(batchSizes.stream().mapToInt(Integer::intValue).sum(), 5);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+    }
+
+    private static AuditEntry entry() {
+        return new AuditEntry(new Date(), "User", 1L, AuditAction.CREATED, null, null, "username: ada");
+    }
+}
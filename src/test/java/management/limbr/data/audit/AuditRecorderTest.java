@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.audit;
+
+import management.limbr.data.AuditEntryRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.model.AuditAction;
+import management.limbr.data.model.AuditEntry;
+import management.limbr.data.model.User;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@SpringApplicationConfiguration(classes = AuditRecorderTest.DataConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:audit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@Test
+public class AuditRecorderTest extends AbstractTestNGSpringContextTests {
+    private static final long WAIT_MILLIS = 5000;
+
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, AuditLog.class, AuditRecorder.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        @Bean(destroyMethod = "shutdownNow")
+        public ExecutorService auditExecutor() {
+            return Executors.newSingleThreadExecutor();
+        }
+
+        @Bean
+        public MetricsRegistry metricsRegistry() {
+            return new MetricsRegistry(new MetricsProperties());
+        }
+
+        @Bean
+        public AuditActorResolver auditActorResolver() {
+            return () -> new AuditActor(7L, "grace");
+        }
+    }
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private AuditEntryRepository auditEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeMethod
+    public void clear() {
+        userRepository.deleteAllInBatch();
+        auditEntryRepository.deleteAllInBatch();
+    }
+
+    public void recordsEachChangeWithWhoMadeIt() throws InterruptedException {
+        User user = userRepository.save(new User("ada", "Ada Lovelace", null, "ada@example.com"));
+        user.setDisplayName("Countess of Lovelace");
+        user = userRepository.save(user);
+        userRepository.delete(user);
+        waitForEntries(3);
+
+        List<AuditEntry> history = auditLog.getHistory(User.class, user.getId(), null, 10);
+
+        assertEquals(history.size(), 3);
+        assertEquals(history.get(0).getAction(), AuditAction.DELETED);
+        assertEquals(history.get(1).getAction(), AuditAction.UPDATED);
+        assertEquals(history.get(1).getChanges(), "displayName: Ada Lovelace -> Countess of Lovelace");
+        assertEquals(history.get(2).getAction(), AuditAction.CREATED);
+        assertTrue(history.get(2).getChanges().contains("emailAddress: ada@example.com"));
+        for (AuditEntry entry : history) {
+            assertEquals(entry.getEntityType(), "User");
+            assertEquals(entry.getUserId(), Long.valueOf(7L));
+            assertEquals(entry.getUsername(), "grace");
+        }
+    }
+
+    public void hidesPasswords() throws InterruptedException {
+        userRepository.save(new User("ada", "Ada Lovelace", "secret-hash", "ada@example.com"));
+        waitForEntries(1);
+
+        String changes = auditLog.getActivity(null, 10).get(0).getChanges();
+
+        assertTrue(changes.contains("passwordHash: " + AuditRecorder.HIDDEN_VALUE));
+        assertFalse(changes.contains("secret-hash"));
+    }
+
+    public void recordsNothingForRolledBackChanges() throws InterruptedException {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            userRepository.saveAndFlush(new User("ada", "Ada Lovelace", null, "ada@example.com"));
+            status.setRollbackOnly();
+            return null;
+        });
+        User user = userRepository.save(new User("grace", "Grace Hopper", null, "grace@example.com"));
+        waitForEntries(1);
+
+        List<AuditEntry> activity = auditLog.getActivity(null, 10);
+
+        assertEquals(activity.size(), 1);
+        assertEquals(activity.get(0).getEntityId(), user.getId());
+    }
+
+    public void pagesBackFromTheNewest() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            userRepository.save(new User("user" + i, "User " + i, null, "user" + i + "@example.com"));
+        }
+        waitForEntries(5);
+
+        List<AuditEntry> seen = new ArrayList<>();
+        Long beforeId = null;
+        List<AuditEntry> page;
+        do {
+            page = auditLog.getActivity(beforeId, 2);
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                beforeId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(seen.size(), 5);
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i).getId() < seen.get(i - 1).getId());
+        }
+    }
+
+    /**
+     * Waits for the background writer to catch up.
+     */
+    private void waitForEntries(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (auditEntryRepository.count() < count) {
+            assertTrue(System.nanoTime() < deadline, "the audit entries weren't written");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.backlog;
+
+import management.limbr.data.ProjectRepository;
+import management.limbr.data.StoryRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+@SpringApplicationConfiguration(classes = BacklogRankerTest.DataConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:backlog;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "limbr.backlog.max-rank-length=4",
+        "limbr.backlog.rebalance-batch-size=7"})
+@Test
+public class BacklogRankerTest extends AbstractTestNGSpringContextTests {
+    private static final int STORIES = 20;
+
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, BacklogRanker.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        @Bean(destroyMethod = "shutdownNow")
+        public ExecutorService backlogExecutor() {
+            return Executors.newSingleThreadExecutor();
+        }
+    }
+
+    @Autowired
+    private BacklogRanker ranker;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ExecutorService backlogExecutor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Project project;
+    private Statistics statistics;
+
+    @BeforeMethod
+    public void addBacklog() {
+        storyRepository.deleteAllInBatch();
+        projectRepository.deleteAllInBatch();
+        project = new Project();
+        project.setName("Backlog");
+        project.setShortName("BL");
+        project = projectRepository.save(project);
+        for (int i = 0; i < STORIES; i++) {
+            ranker.add(project, "Story " + i);
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public void addsToTheEnd() {
+        assertEquals(titles(), storyTitles(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+    }
+
+    public void movesByWritingOneRow() {
+        List<Story> stories = backlog();
+
+        statistics.clear();
+        ranker.move(stories.get(15), stories.get(2).getId(), stories.get(3).getId());
+        assertEquals(statistics.getEntityUpdateCount(), 1);
+        assertEquals(statistics.getPrepareStatementCount(), 3);
+
+        ranker.move(stories.get(0), stories.get(19).getId(), null);
+        ranker.move(stories.get(18), null, stories.get(1).getId());
+        assertEquals(titles().subList(0, 6), storyTitles(18, 1, 2, 15, 3, 4));
+        assertEquals(titles().get(STORIES - 1), "Story 0");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refusesNeighboursOutOfOrder() {
+        List<Story> stories = backlog();
+        ranker.move(stories.get(5), stories.get(3).getId(), stories.get(2).getId());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refusesNeighboursFromAnotherBacklog() {
+        Project other = new Project();
+        other.setName("Other");
+        other.setShortName("OT");
+        Story elsewhere = ranker.add(projectRepository.save(other), "Elsewhere");
+        ranker.move(backlog().get(0), elsewhere.getId(), null);
+    }
+
+    public void rebalancesOnceKeysGetLong() throws InterruptedException, ExecutionException {
+        // keep squeezing the last story in just after the first one, until its key is too long
+        Story moved;
+        do {
+            List<Story> stories = backlog();
+            moved = ranker.move(stories.get(STORIES - 1), stories.get(0).getId(), stories.get(1).getId());
+        } while (moved.getRank().length() <= 4);
+        List<String> before = titles();
+
+        // wait for the rebalance to have run
+        backlogExecutor.submit(() -> { }).get();
+
+        assertEquals(titles(), before);
+        backlog().forEach(story -> assertTrue(story.getRank().length() <= 2, story.getRank()));
+    }
+
+    private List<Story> backlog() {
+        return storyRepository.findBacklog(project.getId(), new PageRequest(0, STORIES + 1));
+    }
+
+    private List<String> titles() {
+        return backlog().stream().map(Story::getTitle).collect(Collectors.toList());
+    }
+
+    private static List<String> storyTitles(int... numbers) {
+        return Arrays.stream(numbers).mapToObj(number -> "Story " + number).collect(Collectors.toList());
+    }
+}
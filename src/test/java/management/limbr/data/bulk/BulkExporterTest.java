@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import management.limbr.data.ProjectRepository;
+import management.limbr.data.RoleRepository;
+import management.limbr.data.UserProjectRolesRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.membership.MembershipRow;
+import management.limbr.data.model.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class BulkExporterTest {
+    private EntityManager entityManager;
+    private UserRepository userRepository;
+    private UserProjectRolesRepository membershipRepository;
+    private BulkExporter exporter;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        entityManager = mock(EntityManager.class);
+        userRepository = mock(UserRepository.class);
+        membershipRepository = mock(UserProjectRolesRepository.class);
+
+        exporter = new BulkExporter(mock(PlatformTransactionManager.class), userRepository, mock(ProjectRepository.class),
+                mock(RoleRepository.class), membershipRepository);
+        ReflectionTestUtils.setField(exporter, "entityManager", entityManager);
+    }
+
+    private static User user(long id) {
+        User user = new User("user" + id, "User " + id, "hash", "user" + id + "@limbr.management");
+        user.setId(id);
+        return user;
+    }
+
+    public void exportsUsersAsCsv() throws Exception {
+        when(userRepository.streamAll()).thenReturn(Stream.of(user(1), user(2)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(exporter.exportUsers(RecordFormat.CSV, out), 2);
+
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                "id,username,displayName,emailAddress\r\n"
+                + "1,user1,User 1,user1@limbr.management\r\n"
+                + "2,user2,User 2,user2@limbr.management\r\n");
+    }
+
+    public void clearsPersistenceContextAndClosesCursor() throws Exception {
+        int rows = Integer.parseInt(BulkExporter.FETCH_SIZE) * 2 + 1;
+        AtomicBoolean closed = new AtomicBoolean();
+        when(userRepository.streamAll()).thenReturn(
+                IntStream.rangeClosed(1, rows).mapToObj(BulkExporterTest::user).onClose(() -> closed.set(true)));
+
+        assertEquals(exporter.exportUsers(RecordFormat.JSON, new ByteArrayOutputStream()), rows);
+
+        verify(entityManager, times(2)).clear();
+        assertTrue(closed.get());
+    }
+
+    private static MembershipRow row(long membershipId, String projectName, String roleName) {
+        return new MembershipRow(membershipId, 1L, "user1", "User 1", projectName == null ? null : 3L, projectName,
+                roleName, null);
+    }
+
+    public void exportsMembershipsWithRoleNames() throws Exception {
+        when(membershipRepository.streamAllRows()).thenReturn(Stream.of(
+                row(7L, "Limbr", "Developer"), row(7L, "Limbr", "Lead"), row(9L, "Limbr", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(exporter.exportMemberships(RecordFormat.JSON, out), 2);
+
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                "{\"id\":\"7\",\"username\":\"user1\",\"project\":\"Limbr\",\"roles\":\"Developer;Lead\"}\n"
+                + "{\"id\":\"9\",\"username\":\"user1\",\"project\":\"Limbr\",\"roles\":\"\"}\n");
+    }
+
+    public void exportsGlobalMembershipsWithoutProject() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(membershipRepository.streamAllRows()).thenReturn(Stream.of(row(8L, null, "Administrator"))
+                .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.exportMemberships(RecordFormat.CSV, out);
+
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                "id,username,project,roles\r\n8,user1,,Administrator\r\n");
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import management.limbr.auth.PasswordHasher;
+import management.limbr.auth.PasswordProperties;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Role;
+import management.limbr.data.model.User;
+import management.limbr.data.model.UserProjectRoles;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test
+public class BulkImporterTest {
+    private EntityManager entityManager;
+    private PlatformTransactionManager transactionManager;
+    private TypedQuery<String> existing;
+    private PasswordHasher passwordHasher;
+    private BulkImporter importer;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void beforeMethod() {
+        entityManager = mock(EntityManager.class);
+        existing = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(String.class))).thenReturn(existing);
+        when(existing.setParameter(anyString(), any())).thenReturn(existing);
+        when(existing.getResultList()).thenReturn(Collections.emptyList());
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        BulkImportProperties properties = new BulkImportProperties();
+        properties.setBatchSize(2);
+        PasswordProperties passwordProperties = new PasswordProperties();
+        passwordProperties.setWorkFactor(1000);
+        passwordHasher = new PasswordHasher(passwordProperties);
+        importer = new BulkImporter(transactionManager, passwordHasher, properties);
+        ReflectionTestUtils.setField(importer, "entityManager", entityManager);
+    }
+
+    public void importsUsersInBatches() throws Exception {
+        ImportResult result = importer.importUsers(new CsvRecordReader(new StringReader(
+                "username,displayName,password,emailAddress\n"
+                + "admin,Admin,admin,admin@limbr.management\n"
+                + ",Nobody,,\n"
+                + "bob,Bob,,bob@limbr.management\n"
+                + "alice,Alice,,alice@limbr.management\n"
+                + "carol,Carol,,carol@limbr.management\n")));
+
+        assertEquals(result.getImported(), 4);
+        assertEquals(result.getSkipped(), 1);
+        assertEquals(result.getBatches(), 3);
+
+        ArgumentCaptor<User> users = ArgumentCaptor.forClass(User.class);
+        verify(entityManager, times(4)).persist(users.capture());
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+        verify(transactionManager, times(3)).commit(any());
+
+        User admin = users.getAllValues().get(0);
+        assertEquals(admin.getUsername(), "admin");
+        assertTrue(passwordHasher.matches("admin", "admin", admin.getPasswordHash()));
+        assertEquals(users.getAllValues().get(3).getUsername(), "carol");
+    }
+
+    public void importsProjects() throws Exception {
+        ImportResult result = importer.importProjects(new JsonRecordReader(new StringReader(
+                "[{\"name\": \"Limbr\", \"shortName\": \"LMB\"}]")));
+
+        assertEquals(result.getImported(), 1);
+        verify(entityManager).persist(any(Object.class));
+    }
+
+    public void skipsTakenUsernames() throws Exception {
+        when(existing.getResultList()).thenReturn(Collections.singletonList("bob"));
+
+        ImportResult result = importer.importUsers(new CsvRecordReader(new StringReader(
+                "username,displayName\n"
+                + "alice,Alice\n"
+                + "alice,Alice again\n"
+                + "bob,Bob\n")));
+
+        assertEquals(result.getImported(), 1);
+        assertEquals(result.getSkipped(), 2);
+        ArgumentCaptor<User> users = ArgumentCaptor.forClass(User.class);
+        verify(entityManager).persist(users.capture());
+        assertEquals(users.getValue().getDisplayName(), "Alice");
+    }
+
+    public void skipsTakenProjectNames() throws Exception {
+        when(existing.getResultList()).thenReturn(Collections.emptyList(), Collections.singletonList("LMB"));
+
+        ImportResult result = importer.importProjects(new JsonRecordReader(new StringReader(
+                "[{\"name\": \"Limbr\", \"shortName\": \"LMB\"}, {\"name\": \"Other\", \"shortName\": \"OTH\"}]")));
+
+        assertEquals(result.getImported(), 1);
+        assertEquals(result.getSkipped(), 1);
+    }
+
+    public void skipsExistingMemberships() throws Exception {
+        User ada = new User("ada", "Ada", null, null);
+        ada.setId(1L);
+        Project limbr = new Project();
+        limbr.setId(2L);
+        limbr.setName("Limbr");
+        stubQuery(User.class, Collections.singletonList(ada));
+        stubQuery(Project.class, Collections.singletonList(limbr));
+        stubQuery(Role.class, Collections.emptyList());
+        stubQuery(Object[].class, Collections.singletonList(new Object[] {1L, 2L}));
+
+        ImportResult result = importer.importMemberships(new CsvRecordReader(new StringReader(
+                "username,project,roles\n"
+                + "ada,,\n"
+                + "ada,,\n"
+                + "ada,Limbr,\n")));
+
+        assertEquals(result.getImported(), 1);
+        assertEquals(result.getSkipped(), 2);
+        ArgumentCaptor<UserProjectRoles> memberships = ArgumentCaptor.forClass(UserProjectRoles.class);
+        verify(entityManager).persist(memberships.capture());
+        assertNull(memberships.getValue().getProject());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void stubQuery(Class<T> resultClass, List<T> results) {
+        TypedQuery<T> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(resultClass))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(results);
+    }
+
+    public void countsABatchThatFailsToWriteAsSkipped() throws Exception {
+        doThrow(new PersistenceException("unique")).doNothing().when(entityManager).flush();
+
+        ImportResult result = importer.importUsers(new CsvRecordReader(new StringReader(
+                "username\n" + String.join("\n", Arrays.asList("a", "b", "c")) + "\n")));
+
+        assertEquals(result.getImported(), 1);
+        assertEquals(result.getSkipped(), 2);
+        assertEquals(result.getBatches(), 2);
+    }
+}
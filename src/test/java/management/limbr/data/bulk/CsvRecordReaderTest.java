@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test
+public class CsvRecordReaderTest {
+    public void readsRecordsByHeader() throws Exception {
+        try (RecordReader records = new CsvRecordReader(new StringReader(
+                "username,displayName\n"
+                + "bob, Bob Bobson\n"
+                + "\n"
+                + "\"alice\",\"Alice, Esq.\"\n"))) {
+
+            Map<String, String> bob = records.next();
+            assertEquals(bob.get("username"), "bob");
+            assertEquals(bob.get("displayName"), "Bob Bobson");
+            assertEquals(records.getRecordNumber(), 1);
+
+            Map<String, String> alice = records.next();
+            assertEquals(alice.get("displayName"), "Alice, Esq.");
+            assertEquals(records.getRecordNumber(), 2);
+
+            assertFalse(records.hasNext());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test
+public class JsonRecordReaderTest {
+    public void readsArrayOfObjects() throws Exception {
+        try (RecordReader records = new JsonRecordReader(new StringReader(
+                "[{\"username\": \"bob\", \"roles\": [\"Lead\", \"Developer\"]}, {\"username\": \"alice\", \"age\": 42, \"x\": null}]"))) {
+
+            Map<String, String> bob = records.next();
+            assertEquals(bob.get("username"), "bob");
+            assertEquals(bob.get("roles"), "Lead;Developer");
+
+            Map<String, String> alice = records.next();
+            assertEquals(alice.get("age"), "42");
+            assertNull(alice.get("x"));
+            assertEquals(records.getRecordNumber(), 2);
+
+            assertFalse(records.hasNext());
+        }
+    }
+
+    public void readsJsonLines() throws Exception {
+        try (RecordReader records = new JsonRecordReader(new StringReader("{\"name\": \"one\"}\n{\"name\": \"two\"}\n"))) {
+            assertEquals(records.next().get("name"), "one");
+            assertEquals(records.next().get("name"), "two");
+            assertFalse(records.hasNext());
+        }
+    }
+
+    public void readsEmptyArray() throws Exception {
+        try (RecordReader records = new JsonRecordReader(new StringReader("[]"))) {
+            assertFalse(records.hasNext());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.bulk;
+
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test
+public class RecordWriterTest {
+    private static String write(RecordFormat format) throws Exception {
+        StringWriter out = new StringWriter();
+        try (RecordWriter records = RecordWriter.open(format, out, "name", "roles", "note")) {
+            records.write("Alice, Esq.", "Lead;Developer", null);
+            records.write("Bob \"Bobby\"", "", "line one\nline two");
+        }
+        return out.toString();
+    }
+
+    private static void readBack(RecordFormat format, String written) throws Exception {
+        try (RecordReader records = RecordReader.open(format, new StringReader(written))) {
+            Map<String, String> alice = records.next();
+            assertEquals(alice.get("name"), "Alice, Esq.");
+            assertEquals(alice.get("roles"), "Lead;Developer");
+
+            Map<String, String> bob = records.next();
+            assertEquals(bob.get("name"), "Bob \"Bobby\"");
+            assertEquals(bob.get("note"), "line one\nline two");
+
+            assertFalse(records.hasNext());
+        }
+    }
+
+    public void writesCsvThatReadsBack() throws Exception {
+        String written = write(RecordFormat.CSV);
+
+        assertTrue(written.startsWith("name,roles,note\r\n"), written);
+        readBack(RecordFormat.CSV, written);
+    }
+
+    public void writesJsonLinesThatReadBack() throws Exception {
+        String written = write(RecordFormat.JSON);
+
+        String[] lines = written.split("\n(?=\\{)");
+        assertEquals(lines.length, 2, written);
+        assertEquals(lines[0], "{\"name\":\"Alice, Esq.\",\"roles\":\"Lead;Developer\",\"note\":null}");
+        assertTrue(written.endsWith("}\n"), written);
+        readBack(RecordFormat.JSON, written);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.cache;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import org.hibernate.cache.spi.UpdateTimestampsCache;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test
+public class EntityCacheConfigurationTest {
+    private CacheManager cacheManager;
+
+    @AfterMethod
+    public void afterMethod() {
+        if (cacheManager != null) {
+            cacheManager.shutdown();
+        }
+    }
+
+    public void configuresRegionsFromProperties() {
+        EntityCacheProperties properties = new EntityCacheProperties();
+        EntityCacheProperties.Region role = new EntityCacheProperties.Region();
+        role.setMaxEntries(42);
+        role.setTimeToLiveSeconds(60);
+        properties.getRegions().put("role", role);
+        EntityCacheProperties.Region user = new EntityCacheProperties.Region();
+        user.setEnabled(false);
+        properties.getRegions().put("user", user);
+
+        cacheManager = new EntityCacheConfiguration().entityCacheManager(properties);
+
+        Ehcache roleCache = cacheManager.getEhcache("role");
+        assertEquals(roleCache.getCacheConfiguration().getMaxEntriesLocalHeap(), 42);
+        assertEquals(roleCache.getCacheConfiguration().getTimeToLiveSeconds(), 60);
+        assertFalse(roleCache.isDisabled());
+        assertTrue(cacheManager.getEhcache("user").isDisabled());
+        assertTrue(cacheManager.getEhcache(UpdateTimestampsCache.REGION_NAME).getCacheConfiguration().isEternal());
+    }
+
+    public void usesDefaultsForOtherRegions() {
+        EntityCacheProperties properties = new EntityCacheProperties();
+        properties.getDefaults().setMaxEntries(7);
+
+        cacheManager = new EntityCacheConfiguration().entityCacheManager(properties);
+        cacheManager.addCache("other");
+
+        assertEquals(cacheManager.getEhcache("other").getCacheConfiguration().getMaxEntriesLocalHeap(), 7);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.event;
+
+import management.limbr.data.model.Role;
+import management.limbr.data.model.User;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class EntityChangePublisherTest {
+    private ApplicationEventPublisher eventPublisher;
+    private EntityChangePublisher publisher;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        publisher = new EntityChangePublisher(mock(EntityManagerFactory.class), eventPublisher);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(publisher);
+    }
+
+    public void publishesRightAwayOutsideTransactions() {
+        publisher.changed(new User(), 1L);
+
+        verify(eventPublisher).publishEvent(any(EntityChangedEvent.class));
+    }
+
+    public void publishesOneEventPerClassAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        User user = new User();
+        publisher.changed(user, 1L);
+        publisher.changed(new User(), 2L);
+        publisher.changed(user, 1L);
+        publisher.changed(new Role(), 3L);
+        verifyZeroInteractions(eventPublisher);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        List<Object> published = events.getAllValues();
+        EntityChangedEvent users = (EntityChangedEvent)published.get(0);
+        assertTrue(users.isAbout(User.class));
+        assertEquals(users.getIds(), new HashSet<>(Arrays.asList(1L, 2L)));
+        assertEquals(users.getEntities().size(), 2);
+        assertTrue(users.getEntities().contains(user));
+        assertTrue(((EntityChangedEvent)published.get(1)).isAbout(Role.class));
+        assertNull(TransactionSynchronizationManager.getResource(publisher));
+    }
+
+    public void tellsDeletionsApart() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.changed(new User(), 1L);
+        publisher.deleted(new User(), 2L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        ArgumentCaptor<EntityChangedEvent> event = ArgumentCaptor.forClass(EntityChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(event.getValue().getIds(), new HashSet<>(Arrays.asList(1L, 2L)));
+        assertFalse(event.getValue().isDeleted(1L));
+        assertTrue(event.getValue().isDeleted(2L));
+    }
+
+    public void keepsValuesFromBeforeTheTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        User user = new User();
+        publisher.updated(user, 1L, Collections.singletonMap("username", "first"));
+        publisher.updated(user, 1L, Collections.singletonMap("username", "second"));
+        publisher.deleted(user, 1L);
+        publisher.changed(new User(), 2L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        ArgumentCaptor<EntityChangedEvent> event = ArgumentCaptor.forClass(EntityChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(event.getValue().getPreviousValues(1L).get("username"), "first");
+        assertTrue(event.getValue().isDeleted(1L));
+        assertTrue(event.getValue().getPreviousValues(2L).isEmpty());
+    }
+
+    public void publishesNothingAfterRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.changed(new User(), 1L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        verifyZeroInteractions(eventPublisher);
+        assertNull(TransactionSynchronizationManager.getResource(publisher));
+    }
+}
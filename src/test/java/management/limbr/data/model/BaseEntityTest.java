@@ -49,4 +49,48 @@ public class BaseEntityTest {
                 entity.toString(),
                 "{class:\"" + TestEntity.class.getTypeName() + "\",aLife:false,id:1,something:\"aString\",theAnswer:true,theNull:null}");
     }
+
+    public static class Parent extends BaseEntity {
+        private final Child child = new Child();
+
+        public Child getChild() { return child; }
+
+        @Override
+        public Long getId() {
+            return 2L;
+        }
+
+        @Override
+        public void setId(Long id) {
+            // nothing
+        }
+    }
+
+    public static class Child extends BaseEntity {
+        public String getName() { return "say \"hi\"\n"; }
+        public String getBroken() { throw new IllegalStateException("broken"); }
+
+        @Override
+        public Long getId() {
+            return 3L;
+        }
+
+        @Override
+        public void setId(Long id) {
+            // nothing
+        }
+    }
+
+    @Test
+    public void toStringFormatsNestedEntitiesAndEscapesStrings() {
+        String child = "{class:\"" + Child.class.getTypeName() + "\",id:3,name:\"say \\\"hi\\\"\\n\"}";
+        String parent = "{class:\"" + Parent.class.getTypeName() + "\",child:" + child + ",id:2}";
+
+        BaseEntity entity = new Parent();
+
+        assertEquals(entity.toString(), parent);
+        // the second time around the thread's builder gets reused
+        assertEquals(entity.toString(), parent);
+        assertEquals(new Child().toString(), child);
+    }
 }
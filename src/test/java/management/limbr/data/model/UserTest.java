@@ -21,11 +21,20 @@ package management.limbr.data.model;
 
 
 import management.limbr.test.util.PojoTester;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
+
 @Test
 public class UserTest {
     public void testGettersAndSetters() {
         PojoTester.createFor(new User()).test();
     }
+
+    public void keepsUsernameKeyInLowerCase() {
+        User user = new User("SomeUser", "Some User", "", "some@limbr.management");
+        user.updateSearchKeys();
+        assertEquals(ReflectionTestUtils.getField(user, "usernameKey"), "someuser");
+    }
 }
\ No newline at end of file
@@ -27,11 +27,6 @@ import static org.testng.Assert.assertEquals;
 
 @Test
 public class EntityUtilTest {
-    public void saltsAndHashesPassword() {
-        EntityUtil entityUtil = new EntityUtil();
-        assertEquals(entityUtil.generatePasswordHash("admin", "admin"), "e9bb0f231e2f35658dda443345a46f5d");
-    }
-
     public class TestEntity extends BaseEntity {
         private Long id;
 
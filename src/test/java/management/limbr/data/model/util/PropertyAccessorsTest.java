@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test
+public class PropertyAccessorsTest {
+    public class TestEntity {
+        private String name;
+        private boolean active;
+        private int count;
+        private Boolean both;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(Boolean active) {
+            this.active = active;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public Boolean getBoth() {
+            return both;
+        }
+
+        public Boolean isBoth() {
+            return !both;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    private final PropertyAccessors accessors = PropertyAccessors.of(TestEntity.class);
+
+    public void isBuiltOncePerClass() {
+        assertSame(PropertyAccessors.of(TestEntity.class), accessors);
+    }
+
+    public void getsAndSetsFields() {
+        TestEntity entity = new TestEntity();
+        accessors.set(entity, "name", "Bob");
+        assertEquals(accessors.get(entity, "name"), "Bob");
+    }
+
+    public void fallsBackToIsGetters() {
+        TestEntity entity = new TestEntity();
+        accessors.set(entity, "active", true);
+        assertEquals(accessors.get(entity, "active"), true);
+    }
+
+    public void prefersGetOverIs() {
+        TestEntity entity = new TestEntity();
+        entity.both = true;
+        assertEquals(accessors.get(entity, "both"), true);
+    }
+
+    public void returnsNullWithoutGetter() {
+        assertNull(accessors.get(new TestEntity(), "nothing"));
+    }
+
+    public void returnsEntityWhenGetterCantBeCalled() {
+        TestEntity entity = new TestEntity();
+        assertSame(accessors.get(entity, "broken"), entity);
+    }
+
+    public void onlySetsWithExactValueType() {
+        TestEntity entity = new TestEntity();
+        // setCount takes an int, and a boxed Integer never matched it exactly
+        accessors.set(entity, "count", 5);
+        accessors.set(entity, "name", 5);
+        assertEquals(entity.count, 0);
+        assertNull(entity.name);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.model.util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+@Test
+public class RankKeysTest {
+    public void startsInTheMiddle() {
+        assertEquals(RankKeys.between(null, null), "i");
+    }
+
+    public void makesKeysBetweenTheirNeighbours() {
+        assertBetween("a", "b");
+        assertBetween("a", "a1");
+        assertBetween("a", "az");
+        assertBetween("0i", "1");
+        assertBetween("zz", "zzz");
+        assertBetween("12345", "12346");
+    }
+
+    public void keepsKeysShortAtTheEnds() {
+        String key = RankKeys.between(null, null);
+        for (int i = 0; i < 100; i++) {
+            String next = RankKeys.between(key, null);
+            assertTrue(next.compareTo(key) > 0);
+            key = next;
+        }
+        assertTrue(key.length() <= 6, key);
+
+        key = RankKeys.between(null, null);
+        for (int i = 0; i < 100; i++) {
+            String previous = RankKeys.between(null, key);
+            assertTrue(previous.compareTo(key) < 0);
+            key = previous;
+        }
+        assertTrue(key.length() <= 6, key);
+    }
+
+    public void keepsOrderThroughRandomMoves() {
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>(RankKeys.spread(100));
+        for (int i = 0; i < 10000; i++) {
+            int at = random.nextInt(keys.size() + 1);
+            keys.add(at, RankKeys.between(at == 0 ? null : keys.get(at - 1), at == keys.size() ? null : keys.get(at)));
+        }
+        assertSorted(keys);
+    }
+
+    public void spreadsKeysEvenly() {
+        assertTrue(RankKeys.spread(0).isEmpty());
+        assertEquals(RankKeys.spread(1), Collections.singletonList("i"));
+
+        List<String> keys = RankKeys.spread(50000);
+        assertEquals(keys.size(), 50000);
+        assertSorted(keys);
+        keys.forEach(key -> {
+            assertTrue(key.length() <= 5, key);
+            assertFalse(key.endsWith("0"), key);
+        });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refusesNeighboursOutOfOrder() {
+        RankKeys.between("b", "a");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refusesKeysEndingInZero() {
+        RankKeys.between("a0", null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refusesOtherCharacters() {
+        RankKeys.between("A", null);
+    }
+
+    private static void assertBetween(String before, String after) {
+        String key = RankKeys.between(before, after);
+        assertTrue(before.compareTo(key) < 0 && key.compareTo(after) < 0, before + " < " + key + " < " + after);
+        assertFalse(key.endsWith("0"), key);
+    }
+
+    private static void assertSorted(List<String> keys) {
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0, keys.get(i - 1) + " then " + keys.get(i));
+        }
+    }
+}
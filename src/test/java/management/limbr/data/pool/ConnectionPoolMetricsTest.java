@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.pool;
+
+import org.testng.annotations.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class ConnectionPoolMetricsTest {
+    public void timesGettingConnections() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).then(invocation -> {
+            Thread.sleep(20);
+            return mock(Connection.class);
+        });
+        TimedDataSource dataSource = new TimedDataSource(target);
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(dataSource);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertEquals(metrics.getRequests(), 2);
+        assertTrue(metrics.getAverageWaitMillis() >= 20, "average " + metrics.getAverageWaitMillis());
+        assertTrue(metrics.getMaxWaitMillis() >= metrics.getAverageWaitMillis());
+
+        metrics.reset();
+
+        assertEquals(metrics.getRequests(), 0);
+        assertEquals(metrics.getAverageWaitMillis(), 0.0);
+    }
+
+    public void countsFailedAttemptsToo() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        TimedDataSource dataSource = new TimedDataSource(target);
+
+        try {
+            dataSource.getConnection();
+            fail();
+        } catch (SQLException ex) {
+            assertEquals(dataSource.getRequests(), 1);
+        }
+    }
+
+    public void readsPoolSizesFromTomcatPool() {
+        org.apache.tomcat.jdbc.pool.DataSource pool = mock(org.apache.tomcat.jdbc.pool.DataSource.class);
+        when(pool.getActive()).thenReturn(3);
+        when(pool.getIdle()).thenReturn(7);
+        when(pool.getWaitCount()).thenReturn(1);
+        when(pool.getMaxActive()).thenReturn(40);
+
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(new TimedDataSource(pool));
+
+        assertEquals(metrics.getActive(), 3);
+        assertEquals(metrics.getIdle(), 7);
+        assertEquals(metrics.getWaiting(), 1);
+        assertEquals(metrics.getMaxActive(), 40);
+    }
+
+    public void hasNoPoolSizesForOtherDataSources() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(new TimedDataSource(mock(DataSource.class)));
+
+        assertEquals(metrics.getActive(), -1);
+        assertEquals(metrics.getIdle(), -1);
+    }
+}
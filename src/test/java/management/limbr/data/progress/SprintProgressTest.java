@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.progress;
+
+import management.limbr.data.*;
+import management.limbr.data.model.*;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+@SpringApplicationConfiguration(classes = SprintProgressTest.DataConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:progress;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@Test
+public class SprintProgressTest extends AbstractTestNGSpringContextTests {
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, SprintProgressRecorder.class, SprintProgress.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        @Bean
+        public MetricsRegistry metricsRegistry() {
+            return new MetricsRegistry(new MetricsProperties());
+        }
+    }
+
+    @Autowired
+    private SprintProgress progress;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private SprintRepository sprintRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private StoryHistoryRepository historyRepository;
+
+    @Autowired
+    private SprintDaySnapshotRepository snapshotRepository;
+
+    private final LocalDate today = LocalDate.now(ZONE);
+    private Project project;
+    private Sprint sprint;
+
+    @BeforeMethod
+    public void addSprint() {
+        snapshotRepository.deleteAllInBatch();
+        historyRepository.deleteAllInBatch();
+        storyRepository.deleteAllInBatch();
+        sprintRepository.deleteAllInBatch();
+        projectRepository.deleteAllInBatch();
+
+        project = new Project();
+        project.setName("Progress");
+        project.setShortName("PR");
+        project = projectRepository.save(project);
+
+        sprint = new Sprint();
+        sprint.setProject(project);
+        sprint.setName("Sprint 1");
+        sprint.setStartDate(SprintProgressRecorder.toDate(today.minusDays(2), ZONE));
+        sprint.setEndDate(SprintProgressRecorder.toDate(today.plusDays(7), ZONE));
+        sprint = sprintRepository.save(sprint);
+    }
+
+    public void keepsTodaysSnapshotUpToDate() {
+        addStory("A", 3);
+        Story b = addStory("B", 5);
+        b.setStatus(StoryStatus.DONE);
+        storyRepository.save(b);
+
+        assertEquals(progress.getDays(sprint.getId()), Arrays.asList(
+                new SprintDay(today.minusDays(2), 0, 0),
+                new SprintDay(today.minusDays(1), 0, 0),
+                new SprintDay(today, 8, 5)));
+        assertEquals(snapshotRepository.count(), 1);
+        assertEquals(historyRepository.count(), 3);
+    }
+
+    public void leavesChangesThatDontMoveAnyPointsOut() {
+        Story story = addStory("A", 3);
+        story.setTitle("Renamed");
+        storyRepository.save(story);
+        story.setStatus(StoryStatus.IN_PROGRESS);
+        storyRepository.save(story);
+
+        assertEquals(progress.getDays(sprint.getId()).get(2), new SprintDay(today, 3, 0));
+        // the title isn't history, the status is
+        assertEquals(historyRepository.count(), 2);
+    }
+
+    public void matchesReplayedHistory() {
+        Story a = addStory("A", 3);
+        Story b = addStory("B", 5);
+        Story c = addStory("C", null);
+        a.setStatus(StoryStatus.DONE);
+        storyRepository.save(a);
+        b.setPoints(8);
+        storyRepository.save(b);
+        c.setPoints(2);
+        storyRepository.save(c);
+        storyRepository.delete(b.getId());
+        c.setSprint(null);
+        storyRepository.save(c);
+
+        assertEquals(progress.getDays(sprint.getId()).get(2), new SprintDay(today, 3, 3));
+        assertEquals(progress.recompute(sprint.getId()).get(today), new SprintDay(today, 3, 3));
+        assertTrue(progress.verify(sprint.getId()).isEmpty());
+    }
+
+    public void findsSnapshotsThatAreOff() {
+        addStory("A", 3);
+        SprintDaySnapshot snapshot = snapshotRepository.findBySprint(sprint.getId()).get(0);
+        snapshot.setCompletedPoints(1);
+        snapshotRepository.save(snapshot);
+
+        assertEquals(progress.verify(sprint.getId()), Collections.singletonList(new SprintDay(today, 3, 0)));
+    }
+
+    public void backfillsStoriesFromBeforeHistory() {
+        addStory("A", 3);
+        Story b = addStory("B", 5);
+        b.setStatus(StoryStatus.DONE);
+        storyRepository.save(b);
+        // as if they'd been there since before history was kept
+        snapshotRepository.deleteAllInBatch();
+        historyRepository.deleteAllInBatch();
+
+        assertEquals(progress.backfill(sprint.getId()), 1);
+        assertEquals(progress.getDays(sprint.getId()), Arrays.asList(
+                new SprintDay(today.minusDays(2), 8, 5),
+                new SprintDay(today.minusDays(1), 8, 5),
+                new SprintDay(today, 8, 5)));
+        assertTrue(progress.verify(sprint.getId()).isEmpty());
+
+        // and picks up from there
+        Story c = addStory("C", 2);
+        c.setStatus(StoryStatus.DONE);
+        storyRepository.save(c);
+        assertEquals(progress.getDays(sprint.getId()).get(2), new SprintDay(today, 10, 7));
+        assertTrue(progress.verify(sprint.getId()).isEmpty());
+    }
+
+    public void replaysEachDaysChanges() {
+        Long sprintId = 1L;
+        LocalDate monday = LocalDate.of(2016, 5, 2);
+        List<StoryHistory> history = Arrays.asList(
+                change(1L, sprintId, monday, StoryStatus.TO_DO, 3, false),
+                change(2L, sprintId, monday, StoryStatus.TO_DO, 5, false),
+                change(1L, sprintId, monday.plusDays(1), StoryStatus.DONE, 3, false),
+                // another sprint's story, then moved in
+                change(3L, 2L, monday.plusDays(1), StoryStatus.TO_DO, 2, false),
+                change(3L, sprintId, monday.plusDays(3), StoryStatus.TO_DO, 2, false),
+                change(2L, sprintId, monday.plusDays(3), StoryStatus.TO_DO, 5, true));
+
+        SortedMap<LocalDate, SprintDay> days = SprintProgress.replay(sprintId, history, ZONE);
+
+        assertEquals(new ArrayList<>(days.values()), Arrays.asList(
+                new SprintDay(monday, 8, 0),
+                new SprintDay(monday.plusDays(1), 8, 3),
+                new SprintDay(monday.plusDays(3), 5, 3)));
+    }
+
+    private Story addStory(String title, Integer points) {
+        Story story = new Story(project, title, "m");
+        story.setSprint(sprint);
+        story.setPoints(points);
+        return storyRepository.save(story);
+    }
+
+    private static StoryHistory change(Long storyId, Long sprintId, LocalDate day, StoryStatus status, Integer points, boolean deleted) {
+        return new StoryHistory(storyId, sprintId, SprintProgressRecorder.toDate(day, ZONE), status, points, deleted);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.data.search;
+
+import management.limbr.data.ProjectRepository;
+import management.limbr.data.StoryRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.event.EntityChangePublisher;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.User;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+@SpringApplicationConfiguration(classes = SearchIndexTest.DataConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "limbr.search.directory=target/search-index-test",
+        "limbr.search.rebuild-batch-size=2"})
+@Test
+public class SearchIndexTest extends AbstractTestNGSpringContextTests {
+    @Configuration
+    @Import({PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, EntityChangePublisher.class, SearchIndex.class})
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class DataConfiguration {
+        @Bean(destroyMethod = "shutdownNow")
+        public ScheduledExecutorService searchExecutor() {
+            return Executors.newSingleThreadScheduledExecutor();
+        }
+
+        @Bean
+        public MetricsRegistry metricsRegistry() {
+            return new MetricsRegistry(new MetricsProperties());
+        }
+    }
+
+    @Autowired
+    private SearchIndex index;
+
+    @Autowired
+    private ScheduledExecutorService searchExecutor;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    private Project project;
+
+    @BeforeMethod
+    public void addProject() throws InterruptedException, ExecutionException {
+        storyRepository.deleteAllInBatch();
+        projectRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        // the index outlives the database between runs
+        index.rebuild().get();
+
+        project = new Project();
+        project.setName("Apollo Launch");
+        project.setShortName("AL");
+        project = projectRepository.save(project);
+        userRepository.save(new User("grace", "Grace Hopper", "", "grace@example.com"));
+        addStory("Fix telemetry dropouts", "The ground station keeps losing the downlink.");
+        addStory("Dashboard", "Show telemetry as it arrives.");
+        waitForIndexing();
+    }
+
+    public void findsWordsInTitlesAndText() {
+        assertEquals(titles("apollo"), Arrays.asList("Apollo Launch"));
+        assertEquals(titles("downlink"), Arrays.asList("Fix telemetry dropouts"));
+        assertEquals(titles("grace@example.com"), Arrays.asList("Grace Hopper"));
+    }
+
+    public void findsWordsFromTheirStart() {
+        assertEquals(titles("laun"), Arrays.asList("Apollo Launch"));
+        assertEquals(titles("hop"), Arrays.asList("Grace Hopper"));
+    }
+
+    public void findsWordsWithTypos() {
+        assertEquals(titles("apolo"), Arrays.asList("Apollo Launch"));
+        assertEquals(titles("telemtery"), Arrays.asList("Fix telemetry dropouts", "Dashboard"));
+    }
+
+    public void ranksTitleMatchesFirst() {
+        List<SearchHit> hits = index.search("telemetry", 10);
+
+        assertEquals(hits.stream().map(SearchHit::getTitle).collect(Collectors.toList()), Arrays.asList("Fix telemetry dropouts", "Dashboard"));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        assertEquals(hits.get(0).getKind(), SearchHit.Kind.STORY);
+    }
+
+    public void needsEveryWord() {
+        assertEquals(titles("telemetry ground"), Arrays.asList("Fix telemetry dropouts"));
+        assertTrue(titles("apollo downlink").isEmpty());
+        assertTrue(titles("   ").isEmpty());
+    }
+
+    public void leavesOutWhatTheFilterTurnsDown() {
+        List<SearchHit> hits = index.search("telemetry", 1, hit -> !"Fix telemetry dropouts".equals(hit.getTitle()));
+
+        assertEquals(hits.size(), 1);
+        assertEquals(hits.get(0).getTitle(), "Dashboard");
+        assertEquals(hits.get(0).getProjectId(), project.getId());
+        assertTrue(index.search("telemetry", 10, hit -> false).isEmpty());
+    }
+
+    public void keepsUpWithChanges() throws InterruptedException, ExecutionException {
+        project.setName("Gemini Launch");
+        projectRepository.save(project);
+        Story story = storyRepository.findAll().stream().filter(s -> "Dashboard".equals(s.getTitle())).findFirst().get();
+        storyRepository.delete(story);
+        waitForIndexing();
+
+        assertTrue(titles("apollo").isEmpty());
+        assertEquals(titles("gemini"), Arrays.asList("Gemini Launch"));
+        assertEquals(titles("telemetry"), Arrays.asList("Fix telemetry dropouts"));
+    }
+
+    public void rebuildsFromTheDatabase() throws InterruptedException, ExecutionException {
+        assertEquals((int)index.rebuild().get(), 4);
+        assertEquals(index.getDocumentCount(), 4);
+        assertTrue(index.getSizeInBytes() > 0);
+        assertEquals(titles("dashboard"), Arrays.asList("Dashboard"));
+    }
+
+    private void addStory(String title, String description) {
+        Story story = new Story(project, title, "m");
+        story.setDescription(description);
+        storyRepository.save(story);
+    }
+
+    private List<String> titles(String text) {
+        return index.search(text, 10).stream().map(SearchHit::getTitle).collect(Collectors.toList());
+    }
+
+    private void waitForIndexing() throws InterruptedException, ExecutionException {
+        // changes are indexed on the search executor, one batch after another
+        searchExecutor.submit(() -> { }).get();
+    }
+}
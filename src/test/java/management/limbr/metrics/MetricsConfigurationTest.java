@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import management.limbr.data.RoleRepository;
+import management.limbr.data.model.Role;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class MetricsConfigurationTest {
+    public void timesRepositoryCallsByEntityAndMethod() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(new MetricsProperties());
+        BeanPostProcessor postProcessor = MetricsConfiguration.repositoryMetricsPostProcessor(() -> registry);
+        RoleRepository repository = mock(RoleRepository.class);
+        Role role = new Role();
+        when(repository.findOne(1L)).thenReturn(role);
+
+        Object processed = postProcessor.postProcessAfterInitialization(repository, "roleRepository");
+
+        assertTrue(processed instanceof RoleRepository);
+        RoleRepository timed = (RoleRepository)processed;
+        assertSame(timed.findOne(1L), role);
+        timed.findOne(1L);
+        timed.count();
+        verify(repository, times(2)).findOne(1L);
+
+        StringWriter out = new StringWriter();
+        registry.writeTo(out);
+        String text = out.toString();
+        assertTrue(text.contains(RepositoryMetricsInterceptor.NAME + "_count{entity=\"Role\",method=\"findOne\"} 2\n"), text);
+        assertTrue(text.contains(RepositoryMetricsInterceptor.NAME + "_count{entity=\"Role\",method=\"count\"} 1\n"), text);
+    }
+
+    public void leavesOtherBeansAlone() {
+        BeanPostProcessor postProcessor = MetricsConfiguration.repositoryMetricsPostProcessor(
+                () -> new MetricsRegistry(new MetricsProperties()));
+        Object bean = new Object();
+
+        assertSame(postProcessor.postProcessAfterInitialization(bean, "bean"), bean);
+    }
+
+    public void servesMetricsAsPrometheusText() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(new MetricsProperties());
+        registry.counter("limbr_test_total", "Test counter.").increment();
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        StringWriter out = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(out));
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("0:0:0:0:0:0:0:1");
+
+        new PrometheusServlet(registry, new MetricsProperties().getAllowedAddresses()).doGet(request, response);
+
+        verify(response).setContentType(PrometheusServlet.CONTENT_TYPE);
+        assertTrue(out.toString().contains("limbr_test_total 1\n"), out.toString());
+    }
+
+    public void refusesMetricsToOtherAddresses() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(new MetricsProperties());
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("203.0.113.7");
+
+        new PrometheusServlet(registry, new MetricsProperties().getAllowedAddresses()).doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+        verify(response, never()).getWriter();
+    }
+
+    public void servesMetricsOnlyWhenExposed() {
+        MetricsProperties properties = new MetricsProperties();
+        MetricsRegistry registry = new MetricsRegistry(properties);
+
+        assertFalse(new MetricsConfiguration().prometheusServlet(registry, properties).isEnabled());
+        properties.setExpose(true);
+        assertTrue(new MetricsConfiguration().prometheusServlet(registry, properties).isEnabled());
+    }
+
+    public void publishesCacheStatisticsWhileMetricsAreOn() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(new MetricsProperties());
+        Statistics statistics = mock(Statistics.class);
+        SecondLevelCacheStatistics roles = mock(SecondLevelCacheStatistics.class);
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] {"role"});
+        when(statistics.getSecondLevelCacheStatistics("role")).thenReturn(roles);
+        when(roles.getHitCount()).thenReturn(3L);
+
+        new MetricsConfiguration().registerCacheStatistics(registry, entityManagerFactory(statistics));
+
+        verify(statistics).setStatisticsEnabled(true);
+        StringWriter out = new StringWriter();
+        registry.writeTo(out);
+        assertTrue(out.toString().contains("limbr_entity_cache_hits_total{region=\"role\"} 3\n"), out.toString());
+    }
+
+    public void keepsNoCacheStatisticsWhenMetricsAreOff() {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setMode(MetricsProperties.Mode.OFF);
+        Statistics statistics = mock(Statistics.class);
+
+        new MetricsConfiguration().registerCacheStatistics(new MetricsRegistry(properties), entityManagerFactory(statistics));
+
+        verify(statistics).setStatisticsEnabled(false);
+        verify(statistics, never()).getSecondLevelCacheRegionNames();
+    }
+
+    private static EntityManagerFactory entityManagerFactory(Statistics statistics) {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        return entityManagerFactory;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.metrics;
+
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test
+public class MetricsRegistryTest {
+    private static MetricsRegistry registry(MetricsProperties.Mode mode) {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setMode(mode);
+        return new MetricsRegistry(properties);
+    }
+
+    private static String text(MetricsRegistry registry) throws Exception {
+        StringWriter out = new StringWriter();
+        registry.writeTo(out);
+        return out.toString();
+    }
+
+    public void writesBasicTimersAsSummaries() throws Exception {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.BASIC);
+        Timer timer = registry.timer("limbr_test_seconds", "Test timer.", "entity", "User");
+        timer.record(TimeUnit.MILLISECONDS.toNanos(250));
+        timer.record(TimeUnit.MILLISECONDS.toNanos(750));
+
+        String text = text(registry);
+        assertTrue(text.contains("# HELP limbr_test_seconds Test timer.\n# TYPE limbr_test_seconds summary\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_count{entity=\"User\"} 2\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_sum{entity=\"User\"} 1.0\n"), text);
+        assertFalse(text.contains("_bucket"), text);
+    }
+
+    public void writesDetailedTimersAsCumulativeHistograms() throws Exception {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.DETAILED);
+        Timer timer = registry.timer("limbr_test_seconds", "Test timer.");
+        timer.record(TimeUnit.MICROSECONDS.toNanos(500));
+        timer.record(TimeUnit.MILLISECONDS.toNanos(20));
+        timer.record(TimeUnit.SECONDS.toNanos(30));
+
+        String text = text(registry);
+        assertTrue(text.contains("# TYPE limbr_test_seconds histogram\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_bucket{le=\"0.001\"} 1\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_bucket{le=\"0.025\"} 2\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_bucket{le=\"10.0\"} 2\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_bucket{le=\"+Inf\"} 3\n"), text);
+        assertTrue(text.contains("limbr_test_seconds_count 3\n"), text);
+    }
+
+    public void keepsOneMetricPerLabelSet() throws Exception {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.BASIC);
+        registry.counter("limbr_test_total", "Test counter.", "result", "granted").increment();
+        registry.counter("limbr_test_total", "Test counter.", "result", "granted").increment();
+        registry.counter("limbr_test_total", "Test counter.", "result", "denied").increment();
+
+        assertSame(registry.counter("limbr_test_total", "Test counter.", "result", "granted"),
+                registry.counter("limbr_test_total", "Test counter.", "result", "granted"));
+        String text = text(registry);
+        assertTrue(text.contains("limbr_test_total{result=\"granted\"} 2\n"), text);
+        assertTrue(text.contains("limbr_test_total{result=\"denied\"} 1\n"), text);
+    }
+
+    public void readsGaugesWhenWritten() throws Exception {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.BASIC);
+        int[] value = {1};
+        registry.gauge("limbr_test_value", "Test gauge.", () -> value[0]);
+        value[0] = 7;
+
+        String text = text(registry);
+        assertTrue(text.contains("# TYPE limbr_test_value gauge\nlimbr_test_value 7\n"), text);
+    }
+
+    public void escapesLabelValues() throws Exception {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.BASIC);
+        registry.counter("limbr_test_total", "Test counter.", "view", "a \"quoted\\name\"\n").increment();
+
+        String text = text(registry);
+        assertTrue(text.contains("limbr_test_total{view=\"a \\\"quoted\\\\name\\\"\\n\"} 1\n"), text);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsSameNameWithAnotherType() {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.BASIC);
+        registry.counter("limbr_test", "Test.");
+        registry.timer("limbr_test", "Test.");
+    }
+
+    public void measuresNothingWhenOff() throws Exception {
+        MetricsRegistry registry = registry(MetricsProperties.Mode.OFF);
+        Timer timer = registry.timer("limbr_test_seconds", "Test timer.");
+        timer.stop(timer.start());
+        registry.counter("limbr_test_total", "Test counter.").increment();
+        registry.gauge("limbr_test_value", "Test gauge.", () -> 1);
+
+        assertEquals(timer.getCount(), 0);
+        assertEquals(text(registry), "");
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test
+public class StartupTimerTest {
+    private static final long SLOW_MILLIS = 50;
+
+    @Configuration
+    static class SlowConfiguration {
+        @Bean
+        public Object slowBean() throws InterruptedException {
+            Thread.sleep(SLOW_MILLIS);
+            return new Object();
+        }
+    }
+
+    public void timesPhasesAndBeans() {
+        SpringApplication application = new SpringApplication(SlowConfiguration.class);
+        application.setWebEnvironment(false);
+        StartupTimer timer = StartupTimer.attachTo(application);
+
+        try (ConfigurableApplicationContext ignored = application.run()) {
+            Map<String, Long> phases = timer.getPhaseMillis();
+            assertTrue(phases.keySet().containsAll(Arrays.asList(
+                    StartupTimer.JVM, StartupTimer.ENVIRONMENT, StartupTimer.CONTEXT,
+                    StartupTimer.BEANS, StartupTimer.RUNNERS)), phases.toString());
+            assertFalse(phases.containsKey(StartupTimer.WEB_SERVER));
+            assertTrue(timer.getStartupMillis() >= SLOW_MILLIS);
+
+            List<Map.Entry<String, Long>> slowest = timer.getSlowestBeans(1);
+            assertEquals(slowest.get(0).getKey(), "slowBean");
+            assertTrue(slowest.get(0).getValue() >= SLOW_MILLIS);
+
+            assertTrue(timer.getReport().startsWith("Started in "));
+            assertTrue(timer.getReport().contains("slowBean"));
+        }
+    }
+}
@@ -19,44 +19,161 @@
 
 package management.limbr.ui;
 
+import com.vaadin.spring.annotation.SpringView;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.ui.view.DefaultView;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
 import org.testng.annotations.Test;
 
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test
 public class AccessControllerTest {
+    private static final AtomicInteger viewsCreated = new AtomicInteger();
+
+    @RequiresPrivilege(level = PrivilegeLevels.ADMIN)
+    @SpringView(name = "admin")
+    public static class AdminView {
+        public AdminView() {
+            viewsCreated.incrementAndGet();
+        }
+    }
+
+    @SpringView(name = "unannotated")
+    public static class UnannotatedView {
+        public UnannotatedView() {
+            viewsCreated.incrementAndGet();
+        }
+    }
+
+    private static Principal principalWith(RoleTypes... roleTypes) {
+        return new Principal(1L, "someone", "Someone", Arrays.asList(roleTypes), 0);
+    }
+
+    private AccessController accessControllerFor(ApplicationContext context, ClientState clientState) {
+        return accessControllerFor(context, clientState, new MetricsRegistry(new MetricsProperties()));
+    }
+
+    private AccessController accessControllerFor(ApplicationContext context, ClientState clientState, MetricsRegistry metrics) {
+        AccessController accessController = new AccessController(clientState, metrics);
+        accessController.setApplicationContext(context);
+        accessController.onApplicationEvent(new ContextRefreshedEvent(context));
+        return accessController;
+    }
+
     public void grantsAccessBasedOnAnnotation() {
         ApplicationContext mockContext = mock(ApplicationContext.class);
         ClientState clientState = mock(ClientState.class);
-        AccessController accessController = new AccessController(clientState);
-        accessController.setApplicationContext(mockContext);
 
         @RequiresPrivilege(level = PrivilegeLevels.ADMIN)
         class ABean {}
-        ABean aBean = new ABean();
 
-        when(mockContext.getBean("bean")).thenReturn(aBean);
-        when(clientState.getUserLevel()).thenReturn(PrivilegeLevels.ADMIN);
+        when(mockContext.getBeanNamesForAnnotation(SpringView.class)).thenReturn(new String[] {"bean"});
+        doReturn(ABean.class).when(mockContext).getType("bean");
+        when(clientState.getPrincipal(null)).thenReturn(principalWith(RoleTypes.ADMIN));
+
+        AccessController accessController = accessControllerFor(mockContext, clientState);
 
         assertEquals(accessController.isAccessGranted(null, "bean"), true);
 
-        verify(mockContext).getBean("bean");
-        verify(clientState).getUserLevel();
+        verify(mockContext, never()).getBean(anyString());
+        verify(clientState).getPrincipal(null);
     }
 
     public void grantsAccessToDefaultViewBasedOnAnnotation() {
         ApplicationContext mockContext = mock(ApplicationContext.class);
         ClientState clientState = mock(ClientState.class);
-        AccessController accessController = new AccessController(clientState);
-        accessController.setApplicationContext(mockContext);
 
-        when(clientState.getUserLevel()).thenReturn(PrivilegeLevels.NONE);
+        when(mockContext.getBeanNamesForAnnotation(SpringView.class)).thenReturn(new String[] {"defaultView"});
+        doReturn(DefaultView.class).when(mockContext).getType("defaultView");
+        when(clientState.getPrincipal(null)).thenReturn(Principal.ANONYMOUS);
+
+        AccessController accessController = accessControllerFor(mockContext, clientState);
 
         assertEquals(accessController.isAccessGranted(null, "defaultView"), true);
 
-        verifyNoMoreInteractions(mockContext);
-        verify(clientState).getUserLevel();
+        verify(mockContext, never()).getBean(anyString());
+        verify(clientState).getPrincipal(null);
+    }
+
+    public void deniesAdminViewsToOtherRoles() {
+        ApplicationContext mockContext = mock(ApplicationContext.class);
+        ClientState clientState = mock(ClientState.class);
+
+        when(mockContext.getBeanNamesForAnnotation(SpringView.class)).thenReturn(new String[] {"admin"});
+        doReturn(AdminView.class).when(mockContext).getType("admin");
+        when(clientState.getPrincipal(null)).thenReturn(principalWith(RoleTypes.MANAGER, RoleTypes.DEVELOPER));
+
+        AccessController accessController = accessControllerFor(mockContext, clientState);
+
+        assertEquals(accessController.isAccessGranted(null, "admin"), false);
+    }
+
+    public void countsChecksByViewAndResult() throws Exception {
+        ApplicationContext mockContext = mock(ApplicationContext.class);
+        ClientState clientState = mock(ClientState.class);
+        MetricsRegistry metrics = new MetricsRegistry(new MetricsProperties());
+
+        when(mockContext.getBeanNamesForAnnotation(SpringView.class)).thenReturn(new String[] {"admin"});
+        doReturn(AdminView.class).when(mockContext).getType("admin");
+        when(clientState.getPrincipal(null)).thenReturn(principalWith(RoleTypes.ADMIN), principalWith(RoleTypes.DEVELOPER));
+
+        AccessController accessController = accessControllerFor(mockContext, clientState, metrics);
+        accessController.isAccessGranted(null, "admin");
+        accessController.isAccessGranted(null, "admin");
+        accessController.isAccessGranted(null, "admin");
+
+        StringWriter out = new StringWriter();
+        metrics.writeTo(out);
+        String text = out.toString();
+        assertTrue(text.contains(AccessController.CHECKS_NAME + "{view=\"admin\",result=\"granted\"} 1\n"), text);
+        assertTrue(text.contains(AccessController.CHECKS_NAME + "{view=\"admin\",result=\"denied\"} 2\n"), text);
+        assertTrue(text.contains("limbr_access_check_seconds_count 3\n"), text);
+    }
+
+    public void deniesAccessWithoutCreatingViews() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        for (Class<?> viewClass : new Class<?>[] {AdminView.class, UnannotatedView.class}) {
+            RootBeanDefinition definition = new RootBeanDefinition(viewClass);
+            // like @UIScope, nothing is created until a view is asked for
+            definition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            context.registerBeanDefinition(viewClass.getSimpleName(), definition);
+        }
+        context.refresh();
+
+        ClientState clientState = mock(ClientState.class);
+        when(clientState.getPrincipal(null)).thenReturn(Principal.ANONYMOUS);
+        AccessController accessController = accessControllerFor(context, clientState);
+        viewsCreated.set(0);
+
+        assertEquals(accessController.isAccessGranted(null, "AdminView"), false);
+        assertEquals(accessController.isAccessGranted(null, "UnannotatedView"), false);
+        assertEquals(accessController.isAccessGranted(null, "noSuchView"), false);
+        assertEquals(viewsCreated.get(), 0);
+
+        context.close();
+    }
+
+    public void ignoresOtherContexts() {
+        ApplicationContext mockContext = mock(ApplicationContext.class);
+        ApplicationContext otherContext = mock(ApplicationContext.class);
+        AccessController accessController = new AccessController(mock(ClientState.class), new MetricsRegistry(new MetricsProperties()));
+        accessController.setApplicationContext(mockContext);
+
+        accessController.onApplicationEvent(new ContextRefreshedEvent(otherContext));
+
+        verifyZeroInteractions(otherContext);
     }
 }
@@ -19,23 +19,75 @@
 
 package management.limbr.ui;
 
+import com.vaadin.server.VaadinSession;
+import management.limbr.data.model.RoleTypes;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import static org.testng.Assert.assertTrue;
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
 
 @Test
 public class ClientStateTest {
+    private PrincipalResolver resolver;
+    private VaadinSession session;
+    private ClientState clientState;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        resolver = mock(PrincipalResolver.class);
+        session = mock(VaadinSession.class);
+        VaadinSession.setCurrent(session);
+        clientState = new ClientState(resolver);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        VaadinSession.setCurrent(null);
+    }
+
+    private static Principal admin(long generation) {
+        return new Principal(1L, "admin", "Admin", Collections.singleton(RoleTypes.ADMIN), generation);
+    }
+
     public void noPrivilegeIfNotLoggedIn() {
-        ClientState clientState = new ClientState();
-        clientState.setLoggedIn(false);
+        Principal principal = clientState.getPrincipal();
 
-        assertTrue(clientState.getUserLevel().equals(PrivilegeLevels.NONE));
+        assertFalse(clientState.isLoggedIn());
+        assertTrue(principal.hasPrivilege(PrivilegeLevels.NONE));
+        assertFalse(principal.hasPrivilege(PrivilegeLevels.ADMIN));
     }
 
-    public void adminPrivilegeIfLoggedIn() {
-        ClientState clientState = new ClientState();
-        clientState.setLoggedIn(true);
+    public void noPrivilegeWithoutSession() {
+        assertSame(clientState.getPrincipal(null), Principal.ANONYMOUS);
+    }
+
+    public void adminPrivilegeIfLoggedInAsAdmin() {
+        Principal principal = admin(0);
+        when(session.getAttribute(Principal.class)).thenReturn(principal);
+
+        clientState.logIn(principal);
+
+        verify(session).setAttribute(Principal.class, principal);
+        assertTrue(clientState.isLoggedIn());
+        assertTrue(clientState.getPrincipal().hasPrivilege(PrivilegeLevels.ADMIN));
+        verify(resolver, never()).refresh(any(Principal.class));
+    }
+
+    public void refreshesStalePrincipal() {
+        Principal stale = admin(0);
+        Principal demoted = new Principal(1L, "admin", "Admin", Collections.singleton(RoleTypes.VIEWER), 1);
+        when(session.getAttribute(Principal.class)).thenReturn(stale);
+        when(resolver.isStale(stale)).thenReturn(true);
+        when(resolver.refresh(stale)).thenReturn(demoted);
+
+        Principal principal = clientState.getPrincipal();
 
-        assertTrue(clientState.getUserLevel().equals(PrivilegeLevels.ADMIN));
+        assertSame(principal, demoted);
+        assertFalse(principal.hasPrivilege(PrivilegeLevels.ADMIN));
+        verify(session).setAttribute(Principal.class, demoted);
     }
-}
\ No newline at end of file
+}
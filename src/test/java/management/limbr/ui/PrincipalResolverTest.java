@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui;
+
+import management.limbr.data.UserProjectRolesRepository;
+import management.limbr.data.UserRepository;
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Role;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.data.model.User;
+import management.limbr.data.model.UserProjectRoles;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class PrincipalResolverTest {
+    private UserRepository userRepository;
+    private UserProjectRolesRepository membershipRepository;
+    private PrincipalResolver resolver;
+    private User user;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        userRepository = mock(UserRepository.class);
+        membershipRepository = mock(UserProjectRolesRepository.class);
+        resolver = new PrincipalResolver(userRepository, membershipRepository);
+
+        user = new User("admin", "Admin", "hash", "admin@limbr.management");
+        user.setId(1L);
+        when(userRepository.findOne(1L)).thenReturn(user);
+    }
+
+    private static EntityChangedEvent changed(Class<?> entityClass) {
+        return changed(entityClass, 1L);
+    }
+
+    private static EntityChangedEvent changed(Class<?> entityClass, Long id) {
+        return new EntityChangedEvent(entityClass, Collections.<Serializable>singleton(id));
+    }
+
+    private static EntityChangedEvent membershipChanged(Long userId) {
+        User member = new User();
+        member.setId(userId);
+        UserProjectRoles membership = new UserProjectRoles();
+        membership.setUser(member);
+        return new EntityChangedEvent(UserProjectRoles.class, Collections.<Serializable>singleton(5L),
+                Collections.<Object>singletonList(membership));
+    }
+
+    public void resolvesPrivilegesOnce() {
+        when(membershipRepository.findGlobalRoleTypesByUserId(1L)).thenReturn(Arrays.asList(RoleTypes.ADMIN, RoleTypes.DEVELOPER));
+
+        Principal principal = resolver.resolve(user);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(principal.hasPrivilege(PrivilegeLevels.ADMIN));
+            assertTrue(principal.hasPrivilege(PrivilegeLevels.NONE));
+        }
+
+        assertEquals(principal.getUsername(), "admin");
+        assertEquals(principal.getRoleTypes(), EnumSet.of(RoleTypes.ADMIN, RoleTypes.DEVELOPER));
+        verify(membershipRepository, times(1)).findGlobalRoleTypesByUserId(1L);
+        verifyZeroInteractions(userRepository);
+    }
+
+    public void noAdminPrivilegeWithoutAdminRole() {
+        when(membershipRepository.findGlobalRoleTypesByUserId(1L)).thenReturn(Collections.singletonList(RoleTypes.MANAGER));
+
+        Principal principal = resolver.resolve(user);
+
+        assertFalse(principal.isAnonymous());
+        assertTrue(principal.hasPrivilege(PrivilegeLevels.NONE));
+        assertTrue(principal.hasPrivilege(PrivilegeLevels.USER));
+        assertFalse(principal.hasPrivilege(PrivilegeLevels.ADMIN));
+        assertFalse(Principal.ANONYMOUS.hasPrivilege(PrivilegeLevels.USER));
+    }
+
+    public void projectRolesGiveNoPrivileges() {
+        when(membershipRepository.findRoleTypesByUserId(1L)).thenReturn(Collections.singletonList(RoleTypes.ADMIN));
+        when(membershipRepository.findGlobalRoleTypesByUserId(1L)).thenReturn(Collections.emptyList());
+
+        Principal principal = resolver.resolve(user);
+
+        assertTrue(principal.hasPrivilege(PrivilegeLevels.USER));
+        assertFalse(principal.hasPrivilege(PrivilegeLevels.ADMIN));
+    }
+
+    public void roleChangesMakePrincipalsStale() {
+        when(membershipRepository.findGlobalRoleTypesByUserId(1L))
+                .thenReturn(Collections.singletonList(RoleTypes.ADMIN), Collections.singletonList(RoleTypes.VIEWER));
+        Principal principal = resolver.resolve(user);
+
+        resolver.entityChanged(changed(Project.class));
+        assertFalse(resolver.isStale(principal));
+        assertSame(resolver.refresh(principal), principal);
+
+        resolver.entityChanged(membershipChanged(1L));
+        assertTrue(resolver.isStale(principal));
+
+        Principal refreshed = resolver.refresh(principal);
+        assertFalse(resolver.isStale(refreshed));
+        assertFalse(refreshed.hasPrivilege(PrivilegeLevels.ADMIN));
+    }
+
+    public void otherUsersChangesLeavePrincipalsAlone() {
+        when(membershipRepository.findGlobalRoleTypesByUserId(1L)).thenReturn(Collections.singletonList(RoleTypes.ADMIN));
+        Principal principal = resolver.resolve(user);
+
+        resolver.entityChanged(changed(User.class, 2L));
+        resolver.entityChanged(membershipChanged(2L));
+        assertFalse(resolver.isStale(principal));
+
+        resolver.entityChanged(changed(Role.class, 3L));
+        assertTrue(resolver.isStale(principal));
+        assertFalse(resolver.isStale(resolver.refresh(principal)));
+    }
+
+    public void forgetsUsersPastTheLimit() {
+        Principal principal = resolver.resolve(user);
+        Set<Serializable> ids = new HashSet<>();
+        for (long id = 2; id < PrincipalResolver.MAX_TRACKED_USERS + 3; id++) {
+            ids.add(id);
+        }
+
+        resolver.entityChanged(new EntityChangedEvent(User.class, ids));
+
+        assertEquals(resolver.getTrackedUserCount(), 0);
+        // forgotten, so everyone counts as changed
+        assertTrue(resolver.isStale(principal));
+        assertFalse(resolver.isStale(resolver.refresh(principal)));
+    }
+
+    public void deletedUserBecomesAnonymous() {
+        when(membershipRepository.findGlobalRoleTypesByUserId(1L)).thenReturn(Collections.singletonList(RoleTypes.ADMIN));
+        Principal principal = resolver.resolve(user);
+        when(userRepository.findOne(1L)).thenReturn(null);
+
+        resolver.entityChanged(changed(User.class));
+
+        assertSame(resolver.refresh(principal), Principal.ANONYMOUS);
+    }
+}
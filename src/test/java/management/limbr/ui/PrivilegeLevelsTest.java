@@ -31,4 +31,12 @@ public class PrivilegeLevelsTest {
         assertTrue(PrivilegeLevels.ADMIN.hasLevel(PrivilegeLevels.ADMIN));
         assertTrue(PrivilegeLevels.ADMIN.hasLevel(PrivilegeLevels.NONE));
     }
+
+    public void userIsBetweenNoneAndAdmin() {
+        assertTrue(PrivilegeLevels.USER.hasLevel(PrivilegeLevels.NONE));
+        assertTrue(PrivilegeLevels.USER.hasLevel(PrivilegeLevels.USER));
+        assertFalse(PrivilegeLevels.USER.hasLevel(PrivilegeLevels.ADMIN));
+        assertFalse(PrivilegeLevels.NONE.hasLevel(PrivilegeLevels.USER));
+        assertTrue(PrivilegeLevels.ADMIN.hasLevel(PrivilegeLevels.USER));
+    }
 }
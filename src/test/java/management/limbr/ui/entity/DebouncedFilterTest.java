@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+@Test
+public class DebouncedFilterTest {
+    private static final long DELAY_MILLIS = 100;
+    private static final long KEYSTROKE_MILLIS = 30;
+
+    private ScheduledExecutorService executor;
+    private AtomicInteger queries;
+    private List<String> results;
+    private CountDownLatch delivered;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        executor = Executors.newScheduledThreadPool(2);
+        queries = new AtomicInteger();
+        results = new CopyOnWriteArrayList<>();
+        delivered = new CountDownLatch(1);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        executor.shutdownNow();
+    }
+
+    private DebouncedFilter<String> filter(long queryMillis) {
+        return new DebouncedFilter<>(executor, DELAY_MILLIS, text -> {
+            queries.incrementAndGet();
+            try {
+                Thread.sleep(queryMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return text;
+        }, result -> {
+            results.add(result);
+            delivered.countDown();
+        });
+    }
+
+    public void runsOneQueryForATypingBurst() throws Exception {
+        DebouncedFilter<String> debouncedFilter = filter(10);
+
+        String word = "administrator";
+        for (int i = 1; i <= word.length(); i++) {
+            debouncedFilter.filterChanged(word.substring(0, i));
+            Thread.sleep(KEYSTROKE_MILLIS);
+        }
+        long lastKeystroke = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(KEYSTROKE_MILLIS);
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastKeystroke);
+
+        // give any stragglers a chance to show up before counting
+        Thread.sleep(DELAY_MILLIS * 2);
+
+        assertEquals(queries.get(), 1, "queries for " + word.length() + " keystrokes");
+        assertEquals(results, Collections.singletonList(word));
+        assertTrue(latencyMillis < DELAY_MILLIS + 500, "latency after last keystroke was " + latencyMillis + "ms");
+    }
+
+    public void dropsResultOfSupersededQuery() throws Exception {
+        DebouncedFilter<String> debouncedFilter = filter(300);
+
+        debouncedFilter.filterChanged("slow");
+        // wait until the slow query is running, then type again
+        Thread.sleep(DELAY_MILLIS + 100);
+        debouncedFilter.filterChanged("slower");
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        Thread.sleep(400);
+
+        assertEquals(queries.get(), 2);
+        assertEquals(results, Collections.singletonList("slower"));
+    }
+
+    public void refiltersWithTheLatestFilterInsteadOfARunningQuery() throws Exception {
+        DebouncedFilter<String> debouncedFilter = filter(300);
+
+        debouncedFilter.filterChanged("stale");
+        Thread.sleep(DELAY_MILLIS + 100);
+        debouncedFilter.refilter();
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        Thread.sleep(400);
+
+        assertEquals(queries.get(), 2);
+        assertEquals(results, Collections.singletonList("stale"));
+    }
+
+    public void letsARunningQueryFinishWhenSuperseded() throws Exception {
+        AtomicInteger interrupted = new AtomicInteger();
+        DebouncedFilter<String> debouncedFilter = new DebouncedFilter<>(executor, DELAY_MILLIS, text -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ex) {
+                interrupted.incrementAndGet();
+                Thread.currentThread().interrupt();
+            }
+            return text;
+        }, result -> delivered.countDown());
+
+        debouncedFilter.filterChanged("slow");
+        Thread.sleep(DELAY_MILLIS + 100);
+        debouncedFilter.filterChanged("slower");
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        assertEquals(interrupted.get(), 0);
+    }
+
+    public void deliversNothingAfterCancel() throws Exception {
+        DebouncedFilter<String> debouncedFilter = filter(0);
+
+        debouncedFilter.filterChanged("gone");
+        debouncedFilter.cancel();
+
+        assertFalse(delivered.await(DELAY_MILLIS * 3, TimeUnit.MILLISECONDS));
+        assertEquals(queries.get(), 0);
+    }
+}
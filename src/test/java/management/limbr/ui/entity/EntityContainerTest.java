@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import com.vaadin.data.Container;
+import management.limbr.data.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class EntityContainerTest {
+
+    private List<User> users;
+    private List<Pageable> fetched;
+    private int counts;
+    private EntityContainer<User> container;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        users = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            User user = new User("user" + i, "User " + i, "", "user" + i + "@limbr.management");
+            user.setId((long)i);
+            users.add(user);
+        }
+        fetched = new ArrayList<>();
+        counts = 0;
+
+        container = new EntityContainer<>(User.class, pageable -> {
+            fetched.add(pageable);
+            int start = pageable.getOffset();
+            return users.subList(Math.min(start, users.size()), Math.min(start + pageable.getPageSize(), users.size()));
+        }, () -> {
+            counts++;
+            return users.size();
+        }, 10);
+    }
+
+    public void countsOnlyOnce() {
+        assertEquals(container.size(), 95);
+        assertEquals(container.size(), 95);
+        assertEquals(counts, 1);
+        assertTrue(fetched.isEmpty());
+    }
+
+    public void fetchesOnlyThePagesThatAreShown() {
+        assertEquals(container.getIdByIndex(42), users.get(42));
+        assertEquals(container.getIdByIndex(45), users.get(45));
+
+        assertEquals(fetched.size(), 1);
+        assertEquals(fetched.get(0).getPageNumber(), 4);
+        assertEquals(fetched.get(0).getPageSize(), 10);
+    }
+
+    public void getsRangesAcrossPages() {
+        List<?> ids = container.getItemIds(8, 5);
+
+        assertEquals(ids, users.subList(8, 13));
+        assertEquals(fetched.size(), 2);
+    }
+
+    public void stopsAtTheEnd() {
+        assertEquals(container.getItemIds(90, 20), users.subList(90, 95));
+        assertEquals(container.lastItemId(), users.get(94));
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void rejectsIndexOutOfRange() {
+        container.getIdByIndex(95);
+    }
+
+    public void findsIndexOfLoadedItems() {
+        container.getIdByIndex(31);
+
+        assertEquals(container.indexOfId(users.get(33)), 33);
+        assertEquals(container.nextItemId(users.get(33)), users.get(34));
+        assertEquals(container.prevItemId(users.get(33)), users.get(32));
+        assertEquals(container.indexOfId(users.get(70)), -1);
+    }
+
+    public void findsItemsByIdRatherThanInstance() {
+        container.getIdByIndex(31);
+        User copy = new User("user33", "User 33", "", "user33@limbr.management");
+        copy.setId(33L);
+
+        assertEquals(container.indexOfId(copy), 33);
+        assertTrue(container.containsId(copy));
+    }
+
+    public void findsTheEndsByIdAfterAReload() {
+        User first = (User)container.firstItemId();
+        User last = (User)container.lastItemId();
+        users.set(0, copyOf(first));
+        users.set(94, copyOf(last));
+
+        container.refresh();
+
+        assertTrue(container.isFirstId(first));
+        assertTrue(container.isLastId(last));
+        assertFalse(container.isFirstId(last));
+        assertFalse(container.isLastId(null));
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User(user.getUsername(), user.getDisplayName(), "", user.getEmailAddress());
+        copy.setId(user.getId());
+        return copy;
+    }
+
+    public void asksTheLocatorForItemsNotLoaded() {
+        List<Sort> located = new ArrayList<>();
+        container = new EntityContainer<>(User.class, pageable -> {
+            fetched.add(pageable);
+            int start = pageable.getOffset();
+            return users.subList(start, Math.min(start + pageable.getPageSize(), users.size()));
+        }, () -> users.size(), (user, sort) -> {
+            located.add(sort);
+            return users.indexOf(user);
+        }, 10);
+        container.sort(new Object[] {"username"}, new boolean[] {true});
+
+        assertEquals(container.indexOfId(users.get(70)), 70);
+        assertTrue(container.containsId(users.get(71)));
+        assertEquals(located.size(), 1);
+        assertEquals(fetched.size(), 1);
+        assertEquals(fetched.get(0).getPageNumber(), 7);
+        assertEquals(located.get(0), new Sort("username").and(new Sort("id")));
+    }
+
+    public void doesNotFindItemsTheLocatorPutsOnTheWrongPage() {
+        container = new EntityContainer<>(User.class, pageable -> {
+            int start = pageable.getOffset();
+            return users.subList(start, Math.min(start + pageable.getPageSize(), users.size()));
+        }, () -> users.size(), (user, sort) -> 5L, 10);
+
+        assertEquals(container.indexOfId(users.get(70)), -1);
+        assertFalse(container.containsId(users.get(70)));
+    }
+
+    public void providesBeanItems() {
+        assertEquals(container.getItem(users.get(3)).getItemProperty("username").getValue(), "user3");
+        assertEquals(container.getType("username"), String.class);
+        assertNull(container.getItem("not a user"));
+    }
+
+    public void sortsOnListColumnsInTheDatabase() {
+        Container.ItemSetChangeListener listener = mock(Container.ItemSetChangeListener.class);
+        container.addItemSetChangeListener(listener);
+        container.getIdByIndex(0);
+
+        container.sort(new Object[] {"username", "passwordHash"}, new boolean[] {false, true});
+        container.getIdByIndex(0);
+
+        assertEquals(fetched.size(), 2);
+        Sort sort = fetched.get(1).getSort();
+        assertEquals(sort.getOrderFor("username").getDirection(), Sort.Direction.DESC);
+        assertNull(sort.getOrderFor("passwordHash"));
+        assertEquals(sort.getOrderFor("id").getDirection(), Sort.Direction.ASC);
+        assertFalse(container.getSortableContainerPropertyIds().contains("passwordHash"));
+        assertEquals(counts, 1);
+        verify(listener).containerItemSetChange(any(Container.ItemSetChangeEvent.class));
+    }
+
+    public void refreshesCountAndPages() {
+        container.getIdByIndex(0);
+        users.remove(0);
+
+        container.refresh();
+
+        assertEquals(container.size(), 94);
+        assertSame(container.getIdByIndex(0), users.get(0));
+        assertEquals(counts, 2);
+    }
+
+    public void releasesAllButTheLastUsedPage() {
+        container.getIdByIndex(0);
+        container.getIdByIndex(50);
+        container.getIdByIndex(20);
+        assertEquals(container.getCachedItemCount(), 30);
+
+        container.releasePages();
+
+        assertEquals(container.getCachedItemCount(), 10);
+        assertSame(container.getIdByIndex(25), users.get(25));
+        assertEquals(fetched.size(), 3);
+        assertSame(container.getIdByIndex(55), users.get(55));
+        assertEquals(fetched.size(), 4);
+        assertEquals(container.size(), 95);
+        assertEquals(counts, 1);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void isReadOnly() {
+        container.addItem();
+    }
+}
@@ -19,16 +19,24 @@
 
 package management.limbr.ui.entity;
 
+import management.limbr.auth.PasswordHasher;
+import management.limbr.auth.PasswordProperties;
 import management.limbr.data.model.util.EntityUtil;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
 import org.mockito.ArgumentMatcher;
 import org.springframework.context.ApplicationContext;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.StringWriter;
+
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test
 public class EntityEditorPresenterTest {
@@ -68,8 +76,9 @@ public class EntityEditorPresenterTest {
 
     public class TestPresenter extends EntityEditorPresenter<TestBean> {
 
-        public TestPresenter(JpaRepository<TestBean, Long> repository, EntityUtil entityUtil) {
-            super(repository, entityUtil);
+        public TestPresenter(JpaRepository<TestBean, Long> repository, EntityUtil entityUtil, PasswordHasher passwordHasher,
+                             MetricsRegistry metrics) {
+            super(repository, mock(PlatformTransactionManager.class), entityUtil, passwordHasher, metrics);
         }
 
         @Override
@@ -79,6 +88,8 @@ public class EntityEditorPresenterTest {
     }
 
     private JpaRepository<TestBean, Long> repository;
+    private PasswordHasher passwordHasher;
+    private MetricsRegistry metrics;
     private EntityEditorPresenter<TestBean> presenter;
     private TestView testView;
 
@@ -87,7 +98,11 @@ public class EntityEditorPresenterTest {
     public void beforeMethod() {
         repository = mock(JpaRepository.class);
 
-        presenter = new TestPresenter(repository, new EntityUtil());
+        PasswordProperties passwordProperties = new PasswordProperties();
+        passwordProperties.setWorkFactor(1000);
+        passwordHasher = new PasswordHasher(passwordProperties);
+        metrics = new MetricsRegistry(new MetricsProperties());
+        presenter = new TestPresenter(repository, new EntityUtil(), passwordHasher, metrics);
 
         ApplicationContext applicationContext = mock(ApplicationContext.class);
         testView = mock(TestView.class);
@@ -96,6 +111,19 @@ public class EntityEditorPresenterTest {
         presenter.setApplicationContext(applicationContext);
     }
 
+    public void timesEditsAndSavesByEntity() throws Exception {
+        TestBean pinto = new TestBean();
+        presenter.edit(pinto);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        StringWriter out = new StringWriter();
+        metrics.writeTo(out);
+        assertTrue(out.toString().contains(EntityEditorPresenter.TIMER_NAME + "_count{entity=\"TestBean\",action=\"edit\"} 1\n"), out.toString());
+        assertTrue(out.toString().contains(EntityEditorPresenter.TIMER_NAME + "_count{entity=\"TestBean\",action=\"save\"} 1\n"), out.toString());
+    }
+
     public void hidesView() {
         presenter.hide();
 
@@ -106,7 +134,7 @@ public class EntityEditorPresenterTest {
         TestBean pinto = new TestBean();
         pinto.setId(42L);
         pinto.setSomething("whatever");
-        pinto.setPasswordHash(new EntityUtil().generatePasswordHash("42", "password"));
+        pinto.setPasswordHash(passwordHasher.hash("42", "password"));
 
         when(repository.findOne(42L)).thenReturn(pinto);
 
@@ -123,6 +151,37 @@ public class EntityEditorPresenterTest {
         verify(testView).show();
     }
 
+    public void showsTheEntityAsItIsNow() {
+        TestBean listed = new TestBean();
+        listed.setId(42L);
+        listed.setSomething("whatever");
+        TestBean current = new TestBean();
+        current.setId(42L);
+        current.setSomething("their change");
+        when(repository.findOne(42L)).thenReturn(current);
+
+        presenter.edit(listed);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("their change");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        verify(testView).setFieldValue("something", "their change");
+        verify(repository, never()).save(any(TestBean.class));
+    }
+
+    public void closesAnEntityDeletedBeforeEditing() {
+        TestBean pinto = new TestBean();
+        pinto.setId(42L);
+        EntityEditorPresenter.EntityChangeHandler changeHandler = mock(EntityEditorPresenter.EntityChangeHandler.class);
+        presenter.setEntityChangeHandler(changeHandler);
+
+        presenter.edit(pinto);
+
+        verify(changeHandler).onEntityChanged();
+        verify(testView).hide();
+        verify(testView, never()).show();
+    }
+
     public void editsNewEntity() {
         TestBean pinto = new TestBean();
 
@@ -140,6 +199,7 @@ public class EntityEditorPresenterTest {
         pinto.setId(42L);
         pinto.setSomething("whatever");
         ReflectionTestUtils.setField(presenter, "entity", pinto);
+        when(repository.findOne(42L)).thenReturn(pinto);
 
         when(testView.getFieldValue(String.class, "something")).thenReturn("whatever");
         when(testView.getFieldValue(String.class, "passwordHash")).thenReturn("password");
@@ -147,6 +207,96 @@ public class EntityEditorPresenterTest {
         presenter.save();
 
         assertEquals(pinto.getSomething(), "whatever");
+        assertTrue(passwordHasher.matches("whatever", "password", pinto.getPasswordHash()));
+    }
+
+    public void skipsSaveWhenNothingChanged() {
+        TestBean pinto = new TestBean();
+        pinto.setId(42L);
+        pinto.setSomething("whatever");
+        when(repository.findOne(42L)).thenReturn(pinto);
+        EntityEditorPresenter.EntityChangeHandler changeHandler = mock(EntityEditorPresenter.EntityChangeHandler.class);
+        presenter.setEntityChangeHandler(changeHandler);
+
+        presenter.edit(pinto);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("whatever");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        verify(repository, never()).save(any(TestBean.class));
+        verifyZeroInteractions(changeHandler);
+        verify(testView).hide();
+    }
+
+    public void savesOnlyChangedFields() {
+        TestBean pinto = new TestBean();
+        pinto.setId(42L);
+        pinto.setSomething("whatever");
+        pinto.setPasswordHash("hash");
+        when(repository.findOne(42L)).thenReturn(pinto);
+
+        presenter.edit(pinto);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("something else");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        assertEquals(pinto.getSomething(), "something else");
+        assertEquals(pinto.getPasswordHash(), "hash");
+        verify(repository).save(pinto);
+    }
+
+    public void savesChangesOntoTheEntityAsItIsNow() {
+        TestBean shown = new TestBean();
+        shown.setId(42L);
+        shown.setSomething("whatever");
+        shown.setPasswordHash("hash");
+        when(repository.findOne(42L)).thenReturn(shown);
+        presenter.edit(shown);
+
+        // someone else changes the password while this user edits something
+        TestBean current = new TestBean();
+        current.setId(42L);
+        current.setSomething("whatever");
+        current.setPasswordHash("their hash");
+        when(repository.findOne(42L)).thenReturn(current);
+        when(repository.save(current)).thenReturn(current);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("something else");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        verify(repository).save(current);
+        assertEquals(current.getSomething(), "something else");
+        assertEquals(current.getPasswordHash(), "their hash");
+    }
+
+    public void dropsChangesToADeletedEntity() {
+        TestBean pinto = new TestBean();
+        pinto.setId(42L);
+        pinto.setSomething("whatever");
+        when(repository.findOne(42L)).thenReturn(pinto);
+        EntityEditorPresenter.EntityChangeHandler changeHandler = mock(EntityEditorPresenter.EntityChangeHandler.class);
+        presenter.setEntityChangeHandler(changeHandler);
+        presenter.edit(pinto);
+
+        when(repository.findOne(42L)).thenReturn(null);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("something else");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        verify(repository, never()).save(any(TestBean.class));
+        verify(changeHandler).onEntityChanged();
+        verify(testView).hide();
+    }
+
+    public void savesNewEntityEvenWhenUnchanged() {
+        TestBean pinto = new TestBean();
+
+        presenter.edit(pinto);
+        when(testView.getFieldValue(String.class, "something")).thenReturn("");
+        when(testView.getFieldValue(String.class, "passwordHash")).thenReturn(EntityEditorPresenter.DEFAULT_VALUE);
+        presenter.save();
+
+        verify(repository).save(pinto);
     }
 
     public void confirmsDelete() {
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import management.limbr.data.model.Role;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.data.model.User;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+@Test
+public class FormSchemaTest {
+    public void isBuiltOncePerClass() {
+        assertSame(FormSchema.of(User.class), FormSchema.of(User.class));
+    }
+
+    public void leavesOutIdAndSearchKeys() {
+        List<String> names = FormSchema.of(User.class).getFields().stream()
+                .map(FormSchema.FormField::getName)
+                .collect(Collectors.toList());
+
+        assertEquals(names, Arrays.asList("username", "displayName", "passwordHash", "emailAddress"));
+    }
+
+    public void describesWidgets() {
+        FormSchema schema = FormSchema.of(User.class);
+
+        FormSchema.FormField password = schema.getField("passwordHash");
+        assertEquals(password.getWidget(), FormSchema.Widget.PASSWORD);
+        assertEquals(password.getSaltWith(), "username");
+        assertEquals(password.getLabelKey(), "passwordHashFieldLabel");
+        assertEquals(schema.getField("username").getWidget(), FormSchema.Widget.TEXT);
+        assertNull(schema.getField("id"));
+
+        FormSchema.FormField type = FormSchema.of(Role.class).getField("type");
+        assertEquals(type.getWidget(), FormSchema.Widget.COMBO_BOX);
+        assertEquals(type.getOptions(), Arrays.asList(RoleTypes.values()));
+    }
+
+    public void listsColumns() {
+        assertEquals(FormSchema.of(User.class).getListColumns(), Arrays.asList("username", "displayName", "emailAddress"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void isImmutable() {
+        FormSchema.of(User.class).getFields().clear();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.entity;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.*;
+
+@Test
+public class StreamingDownloadTest {
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        executor.shutdownNow();
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public void streamsMoreThanThePipeHolds() throws Exception {
+        // several times the pipe's size, so the producer has to wait for the reader
+        int lines = 50000;
+        StreamingDownload download = new StreamingDownload(executor, out -> {
+            for (int i = 0; i < lines; i++) {
+                out.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        String read = readAll(download.getStream());
+
+        assertTrue(read.startsWith("line 0\n"));
+        assertTrue(read.endsWith("line " + (lines - 1) + "\n"));
+        assertEquals(read.split("\n").length, lines);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void failsWhenProducerFails() throws Exception {
+        StreamingDownload download = new StreamingDownload(executor, out -> {
+            out.write("partial".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("database went away");
+        });
+
+        readAll(download.getStream());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void failsWhenRefused() throws Exception {
+        executor.shutdown();
+        StreamingDownload download = new StreamingDownload(executor, out -> fail("shouldn't run"));
+
+        readAll(download.getStream());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryStatus;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+@Test
+public class KanbanBoardTest {
+    private KanbanBoard board;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        board = new KanbanBoard((status, cards) -> status + " " + cards);
+        board.show(Arrays.asList(
+                story(1L, StoryStatus.TO_DO, "c", "One"),
+                story(2L, StoryStatus.TO_DO, "a", "Two"),
+                story(3L, StoryStatus.IN_PROGRESS, "b", "Three")));
+    }
+
+    public void showsCardsInRankOrder() {
+        assertEquals(board.getTitles(StoryStatus.TO_DO), Arrays.asList("Two", "One"));
+        assertEquals(board.getTitles(StoryStatus.IN_PROGRESS), Collections.singletonList("Three"));
+        assertEquals(board.getCardCount(), 3);
+    }
+
+    public void movesCardsBetweenColumns() {
+        KanbanBoard.Patch patch = board.apply(Collections.singletonList(changed(1L, StoryStatus.IN_PROGRESS, "a", "One")));
+
+        assertEquals(board.getTitles(StoryStatus.TO_DO), Collections.singletonList("Two"));
+        assertEquals(board.getTitles(StoryStatus.IN_PROGRESS), Arrays.asList("One", "Three"));
+        assertEquals(patch.getMoved(), 1);
+        // the card, and both columns with their captions
+        assertEquals(patch.getRepainted(), 5);
+    }
+
+    public void updatesCardsInPlace() {
+        KanbanBoard.Patch patch = board.apply(Collections.singletonList(changed(3L, StoryStatus.IN_PROGRESS, "b", "Three!")));
+
+        assertEquals(board.getTitles(StoryStatus.IN_PROGRESS), Collections.singletonList("Three!"));
+        assertEquals(patch.getUpdated(), 1);
+        assertEquals(patch.getMoved(), 0);
+        assertEquals(patch.getRepainted(), 1);
+    }
+
+    public void addsAndRemovesCards() {
+        KanbanBoard.Patch patch = board.apply(Arrays.asList(
+                CardDelta.removed(2L, System.nanoTime()),
+                changed(4L, StoryStatus.DONE, "z", "Four"),
+                // never on the board
+                CardDelta.removed(99L, System.nanoTime())));
+
+        assertEquals(board.getTitles(StoryStatus.TO_DO), Collections.singletonList("One"));
+        assertEquals(board.getTitles(StoryStatus.DONE), Collections.singletonList("Four"));
+        assertEquals(patch.getRemoved(), 1);
+        assertEquals(patch.getMoved(), 1);
+        assertEquals(board.getCardCount(), 3);
+    }
+
+    public void ignoresChangesThatChangeNothing() {
+        KanbanBoard.Patch patch = board.apply(Collections.singletonList(changed(2L, StoryStatus.TO_DO, "a", "Two")));
+
+        assertEquals(patch.getRepainted(), 0);
+    }
+
+    private static CardDelta changed(Long id, StoryStatus status, String rank, String title) {
+        return CardDelta.changed(story(id, status, rank, title), System.nanoTime());
+    }
+
+    private static Story story(Long id, StoryStatus status, String rank, String title) {
+        Story story = new Story(null, title, rank);
+        story.setId(id);
+        story.setStatus(status);
+        return story;
+    }
+}
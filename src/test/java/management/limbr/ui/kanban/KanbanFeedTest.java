@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.kanban;
+
+import management.limbr.auth.PermissionCache;
+import management.limbr.data.SprintRepository;
+import management.limbr.data.StoryRepository;
+import management.limbr.data.event.EntityChangedEvent;
+import management.limbr.data.model.Project;
+import management.limbr.data.model.Sprint;
+import management.limbr.data.model.Story;
+import management.limbr.data.model.StoryStatus;
+import management.limbr.data.model.User;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class KanbanFeedTest {
+    private static final long SPRINT = 1L;
+    private static final long OTHER_SPRINT = 2L;
+    private static final long USER = 3L;
+    private static final long PROJECT = 4L;
+    private static final long OTHER_PROJECT = 5L;
+
+    private SprintRepository sprintRepository;
+    private StoryRepository storyRepository;
+    private ScheduledExecutorService executor;
+    private KanbanFeed feed;
+    private List<List<CardDelta>> pushed;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        sprintRepository = mock(SprintRepository.class);
+        storyRepository = mock(StoryRepository.class);
+        executor = mock(ScheduledExecutorService.class);
+        PermissionCache permissions = mock(PermissionCache.class);
+        feed = new KanbanFeed(sprintRepository, storyRepository, permissions, new KanbanProperties(), executor);
+        when(sprintRepository.findOne(SPRINT)).thenReturn(sprint(SPRINT, PROJECT));
+        when(sprintRepository.findOne(OTHER_SPRINT)).thenReturn(sprint(OTHER_SPRINT, OTHER_PROJECT));
+        when(permissions.isMember(USER, PROJECT)).thenReturn(true);
+        pushed = new ArrayList<>();
+    }
+
+    public void coalescesChangesToTheSameCard() {
+        when(storyRepository.findBySprint(SPRINT)).thenReturn(Collections.singletonList(story(10L, SPRINT, "a")));
+        feed.subscribe(USER, SPRINT, pushed::add).loadCards();
+
+        changed(story(10L, SPRINT, "b"));
+        changed(story(11L, SPRINT, "a"));
+        changed(story(10L, SPRINT, "c"));
+        assertTrue(pushed.isEmpty());
+
+        runScheduled(1);
+        assertEquals(pushed.size(), 1);
+        List<CardDelta> deltas = pushed.get(0);
+        assertEquals(deltas.size(), 2);
+        assertEquals(deltas.get(0).getStoryId(), Long.valueOf(10L));
+        assertEquals(deltas.get(0).getRank(), "c");
+        assertEquals(deltas.get(1).getStoryId(), Long.valueOf(11L));
+    }
+
+    public void removesCardsThatLeaveTheSprint() {
+        when(storyRepository.findBySprint(SPRINT)).thenReturn(Collections.singletonList(story(10L, SPRINT, "a")));
+        feed.subscribe(USER, SPRINT, pushed::add).loadCards();
+
+        changed(story(10L, OTHER_SPRINT, "a"));
+        // never on this board, so nothing to tell it
+        changed(story(20L, OTHER_SPRINT, "a"));
+        runScheduled(1);
+
+        assertEquals(pushed.get(0).size(), 1);
+        assertTrue(pushed.get(0).get(0).isRemoved());
+        assertEquals(pushed.get(0).get(0).getStoryId(), Long.valueOf(10L));
+    }
+
+    public void removesDeletedCards() {
+        when(storyRepository.findBySprint(SPRINT)).thenReturn(Collections.singletonList(story(10L, SPRINT, "a")));
+        feed.subscribe(USER, SPRINT, pushed::add).loadCards();
+
+        Story deleted = story(10L, SPRINT, "a");
+        feed.entityChanged(new EntityChangedEvent(Story.class, Collections.singleton(10L),
+                Collections.singletonList(deleted), Collections.singleton(10L)));
+        runScheduled(1);
+
+        assertTrue(pushed.get(0).get(0).isRemoved());
+    }
+
+    public void ignoresOtherEntitiesAndCancelledBoards() {
+        KanbanFeed.Subscription subscription = feed.subscribe(USER, SPRINT, pushed::add);
+        feed.entityChanged(new EntityChangedEvent(User.class, Collections.singleton(1L),
+                Collections.singletonList(new User())));
+        subscription.cancel();
+        changed(story(10L, SPRINT, "a"));
+
+        verifyZeroInteractions(executor);
+        assertEquals(feed.getSubscriptionCount(), 0);
+    }
+
+    public void cancelsBoardsThatCantBeUpdated() {
+        feed.subscribe(USER, SPRINT, deltas -> {
+            throw new IllegalStateException("detached");
+        }).loadCards();
+
+        changed(story(10L, SPRINT, "a"));
+        runScheduled(1);
+
+        assertEquals(feed.getSubscriptionCount(), 0);
+    }
+
+    public void listsOnlyMembersSprints() {
+        when(sprintRepository.findRunningOn(any(Date.class)))
+                .thenReturn(Arrays.asList(sprint(SPRINT, PROJECT), sprint(OTHER_SPRINT, OTHER_PROJECT)));
+
+        List<Sprint> sprints = feed.listRunningSprints(USER);
+
+        assertEquals(sprints.size(), 1);
+        assertEquals(sprints.get(0).getId(), Long.valueOf(SPRINT));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void onlyMembersCanSubscribe() {
+        // not a member of the other sprint's project
+        feed.subscribe(USER, OTHER_SPRINT, pushed::add);
+    }
+
+    private void changed(Story story) {
+        Set<Serializable> ids = Collections.singleton(story.getId());
+        feed.entityChanged(new EntityChangedEvent(Story.class, ids, Collections.singletonList(story)));
+    }
+
+    private void runScheduled(int expected) {
+        ArgumentCaptor<Runnable> flushes = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, times(expected)).schedule(flushes.capture(), eq(100L), eq(TimeUnit.MILLISECONDS));
+        flushes.getAllValues().forEach(Runnable::run);
+    }
+
+    private static Sprint sprint(Long id, Long projectId) {
+        Project project = new Project();
+        project.setId(projectId);
+        Sprint sprint = new Sprint();
+        sprint.setId(id);
+        sprint.setProject(project);
+        return sprint;
+    }
+
+    private static Story story(Long id, Long sprintId, String rank) {
+        Sprint sprint = new Sprint();
+        sprint.setId(sprintId);
+        Story story = new Story(null, "Story " + id, rank);
+        story.setId(id);
+        story.setSprint(sprint);
+        story.setStatus(StoryStatus.TO_DO);
+        return story;
+    }
+}
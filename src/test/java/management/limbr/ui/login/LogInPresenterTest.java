@@ -19,22 +19,108 @@
 
 package management.limbr.ui.login;
 
+import com.vaadin.ui.UI;
+import management.limbr.auth.CredentialVerifier;
+import management.limbr.data.model.RoleTypes;
+import management.limbr.data.model.User;
 import management.limbr.ui.ClientState;
+import management.limbr.ui.Principal;
+import management.limbr.ui.PrincipalResolver;
+import management.limbr.ui.VaadinUI;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
 
 @Test
 public class LogInPresenterTest {
-    public void logsInWhenClicked() {
-        ClientState clientState = mock(ClientState.class);
-        LogInView view = mock(LogInView.class);
-        LogInPresenter presenter = new LogInPresenter(clientState);
+    private ClientState clientState;
+    private LogInView view;
+    private CredentialVerifier verifier;
+    private PrincipalResolver resolver;
+    private Principal principal;
+    private LogInPresenter presenter;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        VaadinUI ui = mock(VaadinUI.class);
+        // run what's handed back to the UI right away, as though the session lock were free
+        when(ui.access(any(Runnable.class))).then(invocation -> {
+            ((Runnable)invocation.getArguments()[0]).run();
+            return null;
+        });
+        UI.setCurrent(ui);
+
+        clientState = mock(ClientState.class);
+        view = mock(LogInView.class);
+        when(view.getUsername()).thenReturn("admin");
+        when(view.getPassword()).thenReturn("password");
+        verifier = mock(CredentialVerifier.class);
+        resolver = mock(PrincipalResolver.class);
+        principal = new Principal(1L, "admin", "Admin", Collections.singleton(RoleTypes.ADMIN), 0);
+        when(resolver.resolve(any(User.class))).thenReturn(principal);
+
+        presenter = new LogInPresenter(clientState, verifier, resolver);
         presenter.viewInitialized(view);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        UI.setCurrent(null);
+    }
+
+    public void logsInWhenClicked() {
+        when(verifier.verify("admin", "password")).thenReturn(CompletableFuture.completedFuture(mock(User.class)));
+
         presenter.logInClicked();
 
-        verify(clientState).setLoggedIn(true);
+        verify(view).setVerifying(true);
+        verify(view).setVerifying(false);
+        verify(resolver).resolve(any(User.class));
+        verify(clientState).logIn(principal);
         verify(view).loggedIn();
     }
+
+    public void reportsWrongPassword() {
+        when(verifier.verify("admin", "password")).thenReturn(CompletableFuture.completedFuture(null));
+
+        presenter.logInClicked();
+
+        verify(view).logInFailed();
+        verify(view, never()).loggedIn();
+        verifyZeroInteractions(clientState, resolver);
+    }
+
+    public void waitsForVerificationWithoutLoggingIn() {
+        CompletableFuture<User> pending = new CompletableFuture<>();
+        when(verifier.verify("admin", "password")).thenReturn(pending);
+
+        presenter.logInClicked();
+
+        verify(view).setVerifying(true);
+        verify(view, never()).setVerifying(false);
+        verifyZeroInteractions(clientState, resolver);
+
+        pending.complete(mock(User.class));
+
+        verify(view).loggedIn();
+    }
+
+    public void asksToTryAgainWhenBusy() {
+        CompletableFuture<User> refused = new CompletableFuture<>();
+        refused.completeExceptionally(new RejectedExecutionException());
+        when(verifier.verify("admin", "password")).thenReturn(refused);
+
+        presenter.logInClicked();
+
+        verify(view).tryAgainLater();
+        verify(view).setVerifying(false);
+        verifyZeroInteractions(clientState);
+    }
 }
@@ -19,15 +19,20 @@
 
 package management.limbr.ui.projects;
 
-import com.vaadin.data.util.BeanItemContainer;
 import com.vaadin.ui.UI;
+import management.limbr.data.EntityPositions;
 import management.limbr.data.ProjectRepository;
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.Project;
 import management.limbr.ui.VaadinUI;
+import management.limbr.ui.entity.EntityContainer;
 import management.limbr.ui.projecteditor.ProjectEditorPresenter;
+import org.springframework.data.domain.Pageable;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Collections;
 
 import static org.mockito.Matchers.any;
@@ -37,6 +42,7 @@ import static org.testng.Assert.assertEquals;
 @Test
 public class ProjectsPresenterTest {
     private ProjectRepository repository;
+    private BulkExporter exporter;
     private ProjectsPresenter presenter;
     private ProjectEditorPresenter editor;
     private ProjectsView view;
@@ -49,22 +55,25 @@ public class ProjectsPresenterTest {
         repository = mock(ProjectRepository.class);
         editor = mock(ProjectEditorPresenter.class);
 
-        presenter = new ProjectsPresenter(repository, editor);
+        exporter = mock(BulkExporter.class);
+        presenter = new ProjectsPresenter(repository, editor, exporter, mock(EntityPositions.class));
         presenter.viewInitialized(view);
     }
 
     public void listsProjectsEmptyFilter() {
         Project mockProject = mock(Project.class);
-        when(repository.findAll()).thenReturn(Collections.singletonList(mockProject));
-        BeanItemContainer<Project> result = presenter.listEntities("");
+        when(repository.count()).thenReturn(1L);
+        when(repository.findAllPaged(any(Pageable.class))).thenReturn(Collections.singletonList(mockProject));
+        EntityContainer<Project> result = presenter.listEntities("");
         assertEquals(result.size(), 1);
         assertEquals(result.getIdByIndex(0), mockProject);
     }
 
     public void listsProjectsWithFilter() {
         Project mockProject = mock(Project.class);
-        when(repository.findByNameStartsWithIgnoreCase("filter")).thenReturn(Collections.singletonList(mockProject));
-        BeanItemContainer<Project> result = presenter.listEntities("filter");
+        when(repository.countByNameKeyStartsWith("filter")).thenReturn(1L);
+        when(repository.findByNameKeyStartsWith(eq("filter"), any(Pageable.class))).thenReturn(Collections.singletonList(mockProject));
+        EntityContainer<Project> result = presenter.listEntities("Filter");
         assertEquals(result.size(), 1);
         assertEquals(result.getIdByIndex(0), mockProject);
     }
@@ -94,4 +103,20 @@ public class ProjectsPresenterTest {
 
         verify(view).refresh();
     }
+
+    public void exportsProjects() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        presenter.exportEntities(RecordFormat.CSV, out);
+
+        verify(exporter).exportProjects(RecordFormat.CSV, out);
+    }
+
+    public void exportsMemberships() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        presenter.exportMemberships(RecordFormat.JSON, out);
+
+        verify(exporter).exportMemberships(RecordFormat.JSON, out);
+    }
 }
@@ -19,15 +19,20 @@
 
 package management.limbr.ui.roles;
 
-import com.vaadin.data.util.BeanItemContainer;
 import com.vaadin.ui.UI;
+import management.limbr.data.EntityPositions;
 import management.limbr.data.RoleRepository;
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.Role;
 import management.limbr.ui.VaadinUI;
+import management.limbr.ui.entity.EntityContainer;
 import management.limbr.ui.roleeditor.RoleEditorPresenter;
+import org.springframework.data.domain.Pageable;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Collections;
 
 import static org.mockito.Matchers.any;
@@ -37,6 +42,7 @@ import static org.testng.Assert.assertEquals;
 @Test
 public class RolesPresenterTest {
     private RoleRepository repository;
+    private BulkExporter exporter;
     private RolesPresenter presenter;
     private RoleEditorPresenter editor;
     private RolesView view;
@@ -49,22 +55,25 @@ public class RolesPresenterTest {
         repository = mock(RoleRepository.class);
         editor = mock(RoleEditorPresenter.class);
 
-        presenter = new RolesPresenter(repository, editor);
+        exporter = mock(BulkExporter.class);
+        presenter = new RolesPresenter(repository, editor, exporter, mock(EntityPositions.class));
         presenter.viewInitialized(view);
     }
 
     public void listsRolesEmptyFilter() {
         Role mockRole = mock(Role.class);
-        when(repository.findAll()).thenReturn(Collections.singletonList(mockRole));
-        BeanItemContainer<Role> result = presenter.listEntities("");
+        when(repository.count()).thenReturn(1L);
+        when(repository.findAllPaged(any(Pageable.class))).thenReturn(Collections.singletonList(mockRole));
+        EntityContainer<Role> result = presenter.listEntities("");
         assertEquals(result.size(), 1);
         assertEquals(result.getIdByIndex(0), mockRole);
     }
 
     public void listsRolesWithFilter() {
         Role mockRole = mock(Role.class);
-        when(repository.findByNameStartsWithIgnoreCase("filter")).thenReturn(Collections.singletonList(mockRole));
-        BeanItemContainer<Role> result = presenter.listEntities("filter");
+        when(repository.countByNameKeyStartsWith("filter")).thenReturn(1L);
+        when(repository.findByNameKeyStartsWith(eq("filter"), any(Pageable.class))).thenReturn(Collections.singletonList(mockRole));
+        EntityContainer<Role> result = presenter.listEntities("Filter");
         assertEquals(result.size(), 1);
         assertEquals(result.getIdByIndex(0), mockRole);
     }
@@ -95,4 +104,11 @@ public class RolesPresenterTest {
         verify(view).refresh();
     }
 
+    public void exportsRoles() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        presenter.exportEntities(RecordFormat.CSV, out);
+
+        verify(exporter).exportRoles(RecordFormat.CSV, out);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+@Test
+public class SerializedSizeTest {
+    static class Holder implements Serializable {
+        private final List<String> values = new ArrayList<>();
+        private Object other;
+    }
+
+    public void growsWithWhatIsHeld() {
+        Holder holder = new Holder();
+        long empty = SerializedSize.of(holder);
+        for (int i = 0; i < 1000; i++) {
+            holder.values.add("value " + i);
+        }
+
+        assertTrue(empty > 0);
+        assertTrue(SerializedSize.of(holder) > empty + 1000 * "value ".length());
+    }
+
+    public void skipsWhatIsNotSerializable() {
+        Holder holder = new Holder();
+        holder.other = new Object();
+
+        assertTrue(SerializedSize.of(holder) > 0);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016 Tyrel Haveman and contributors.
+ *
+ * This file is part of Limbr.
+ *
+ * Limbr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Limbr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Limbr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package management.limbr.ui.sessions;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.WrappedSession;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.UI;
+import management.limbr.metrics.MetricsProperties;
+import management.limbr.metrics.MetricsRegistry;
+import management.limbr.ui.Principal;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test
+public class SessionMemoryManagerTest {
+    private static final long IDLE_MILLIS = TimeUnit.SECONDS.toMillis(600);
+    private static final long FULL_SIZE = 800 * 1024;
+    private static final long RELEASED_SIZE = 100 * 1024;
+
+    private SessionMemoryProperties properties;
+    private long now;
+    private Map<UI, AtomicInteger> syncIds;
+    private Map<UI, AtomicInteger> releaseCounts;
+    private Set<UI> released;
+    private SessionMemoryManager manager;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        properties = new SessionMemoryProperties();
+        now = 0;
+        syncIds = new HashMap<>();
+        releaseCounts = new HashMap<>();
+        released = new HashSet<>();
+        manager = new SessionMemoryManager(properties, new MetricsRegistry(new MetricsProperties()), null,
+                ui -> released.contains(ui) ? RELEASED_SIZE : FULL_SIZE, () -> now);
+    }
+
+    private static VaadinSession session(String sessionId, String username, Lock lock) {
+        VaadinSession session = mock(VaadinSession.class);
+        when(session.getLockInstance()).thenReturn(lock);
+        WrappedSession wrappedSession = mock(WrappedSession.class);
+        when(wrappedSession.getId()).thenReturn(sessionId);
+        when(session.getSession()).thenReturn(wrappedSession);
+        when(session.getAttribute(Principal.class))
+                .thenReturn(new Principal(1L, username, username, Collections.emptySet(), 0));
+        return session;
+    }
+
+    private UI ui(String sessionId, String username) {
+        return ui(session(sessionId, username, new ReentrantLock()));
+    }
+
+    private UI ui(VaadinSession session) {
+        UI ui = mock(UI.class);
+        when(ui.getSession()).thenReturn(session);
+
+        AtomicInteger syncId = new AtomicInteger();
+        syncIds.put(ui, syncId);
+        ConnectorTracker tracker = mock(ConnectorTracker.class);
+        when(tracker.getCurrentSyncId()).thenAnswer(invocation -> syncId.get());
+        when(ui.getConnectorTracker()).thenReturn(tracker);
+
+        AtomicInteger releaseCount = new AtomicInteger();
+        releaseCounts.put(ui, releaseCount);
+        Component cache = mock(Component.class, withSettings().extraInterfaces(CachingComponent.class));
+        doAnswer(invocation -> {
+            releaseCount.incrementAndGet();
+            released.add(ui);
+            return null;
+        }).when((CachingComponent)cache).releaseCaches();
+        when(ui.iterator()).thenAnswer(invocation -> Collections.singletonList(cache).iterator());
+
+        manager.track(ui);
+        return ui;
+    }
+
+    private void use(UI ui) {
+        syncIds.get(ui).incrementAndGet();
+        released.remove(ui);
+    }
+
+    public void releasesIdleTabsOncePerIdleStretch() {
+        UI ui = ui("s1", "someone");
+        manager.scan();
+        assertEquals(releaseCounts.get(ui).get(), 0);
+
+        now = IDLE_MILLIS;
+        manager.scan();
+        now += IDLE_MILLIS;
+        manager.scan();
+        assertEquals(releaseCounts.get(ui).get(), 1);
+        assertEquals(manager.getTotalBytes(), RELEASED_SIZE);
+
+        use(ui);
+        manager.scan();
+        assertEquals(releaseCounts.get(ui).get(), 1);
+        assertEquals(manager.getTotalBytes(), FULL_SIZE);
+
+        now += IDLE_MILLIS;
+        manager.scan();
+        assertEquals(releaseCounts.get(ui).get(), 2);
+    }
+
+    public void leavesBusySessionsAlone() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        UI ui = ui(session("s1", "someone", lock));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        try {
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            now = IDLE_MILLIS * 2;
+            manager.scan();
+
+            assertEquals(releaseCounts.get(ui).get(), 0);
+            verify(ui, never()).getConnectorTracker();
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+    }
+
+    public void releasesLeastRecentlyUsedTabsOverBudget() {
+        UI older = ui("s1", "someone");
+        UI newer = ui("s2", "someone else");
+        manager.scan();
+        assertEquals(manager.getTotalBytes(), FULL_SIZE * 2);
+
+        now = 1000;
+        use(newer);
+        properties.setBudgetMegabytes(1);
+        manager.scan();
+
+        assertEquals(releaseCounts.get(older).get(), 1);
+        assertEquals(releaseCounts.get(newer).get(), 0);
+        assertEquals(manager.getTotalBytes(), FULL_SIZE + RELEASED_SIZE);
+    }
+
+    public void listsHeaviestSessionsFirst() {
+        UI light = ui("light", "someone");
+        VaadinSession heavy = session("heavy", "someone else", new ReentrantLock());
+        ui(heavy);
+        ui(heavy);
+        released.add(light);
+        now = 5000;
+
+        manager.scan();
+
+        List<SessionMemory> sessions = manager.getHeaviestSessions(10);
+        assertEquals(sessions.size(), 2);
+        assertEquals(sessions.get(0).getSessionId(), "heavy");
+        assertEquals(sessions.get(0).getUsername(), "someone else");
+        assertEquals(sessions.get(0).getTabs(), 2);
+        assertEquals(sessions.get(0).getBytes(), FULL_SIZE * 2);
+        assertEquals(sessions.get(1).getSessionId(), "light");
+        assertEquals(sessions.get(1).getKilobytes(), RELEASED_SIZE / 1024);
+        assertEquals(manager.getHeaviestSessions(1).size(), 1);
+    }
+
+    public void forgetsClosedTabs() {
+        UI ui = ui("s1", "someone");
+        manager.scan();
+        assertEquals(manager.getHeaviestSessions(10).size(), 1);
+
+        when(ui.isClosing()).thenReturn(true);
+        manager.scan();
+
+        assertTrue(manager.getHeaviestSessions(10).isEmpty());
+        assertEquals(manager.getTotalBytes(), 0);
+    }
+}
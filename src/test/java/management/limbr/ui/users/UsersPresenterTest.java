@@ -19,15 +19,20 @@
 
 package management.limbr.ui.users;
 
-import com.vaadin.data.util.BeanItemContainer;
 import com.vaadin.ui.UI;
+import management.limbr.data.EntityPositions;
 import management.limbr.data.UserRepository;
+import management.limbr.data.bulk.BulkExporter;
+import management.limbr.data.bulk.RecordFormat;
 import management.limbr.data.model.User;
 import management.limbr.ui.VaadinUI;
+import management.limbr.ui.entity.EntityContainer;
 import management.limbr.ui.usereditor.UserEditorPresenter;
+import org.springframework.data.domain.Pageable;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Collections;
 
 import static org.mockito.Matchers.any;
@@ -38,6 +43,7 @@ import static org.testng.Assert.assertEquals;
 public class UsersPresenterTest {
 
     private UserRepository repository;
+    private BulkExporter exporter;
     private UsersPresenter presenter;
     private UserEditorPresenter userEditorPresenter;
 
@@ -49,7 +55,8 @@ public class UsersPresenterTest {
         repository = mock(UserRepository.class);
         userEditorPresenter = mock(UserEditorPresenter.class);
 
-        presenter = new UsersPresenter(repository, userEditorPresenter);
+        exporter = mock(BulkExporter.class);
+        presenter = new UsersPresenter(repository, userEditorPresenter, exporter, mock(EntityPositions.class));
         presenter.viewInitialized(view);
         presenter.init();
 
@@ -58,16 +65,18 @@ public class UsersPresenterTest {
 
     public void listsUsersEmptyFilter() {
         User mockUser = mock(User.class);
-        when(repository.findAll()).thenReturn(Collections.singletonList(mockUser));
-        BeanItemContainer<User> result = presenter.listEntities("");
+        when(repository.count()).thenReturn(1L);
+        when(repository.findAllPaged(any(Pageable.class))).thenReturn(Collections.singletonList(mockUser));
+        EntityContainer<User> result = presenter.listEntities("");
         assertEquals(result.size(), 1);
         assertEquals(result.getIdByIndex(0), mockUser);
     }
 
     public void listsUsersWithFilter() {
         User mockUser = mock(User.class);
-        when(repository.findByUsernameStartsWithIgnoreCase("filter")).thenReturn(Collections.singletonList(mockUser));
-        BeanItemContainer<User> result = presenter.listEntities("filter");
+        when(repository.countByUsernameKeyStartsWith("filter")).thenReturn(1L);
+        when(repository.findByUsernameKeyStartsWith(eq("filter"), any(Pageable.class))).thenReturn(Collections.singletonList(mockUser));
+        EntityContainer<User> result = presenter.listEntities("Filter");
         assertEquals(result.size(), 1);
         assertEquals(result.getIdByIndex(0), mockUser);
     }
@@ -85,4 +94,12 @@ public class UsersPresenterTest {
 
         verify(userEditorPresenter).edit(any(User.class));
     }
+
+    public void exportsUsers() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        presenter.exportEntities(RecordFormat.CSV, out);
+
+        verify(exporter).exportUsers(RecordFormat.CSV, out);
+    }
 }
\ No newline at end of file